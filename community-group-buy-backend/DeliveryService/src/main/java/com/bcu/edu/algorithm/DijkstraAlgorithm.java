@@ -2,13 +2,20 @@ package com.bcu.edu.algorithm;
 
 import com.bcu.edu.dto.RouteRequest;
 import com.bcu.edu.dto.RouteResult;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Dijkstra算法实现 - TSP问题求解（旅行商问题）
@@ -16,14 +23,14 @@ import java.util.List;
  * <p>算法说明：
  * <ul>
  *   <li>输入：起点、途经点列表、终点（可选）</li>
- *   <li>算法：最近邻贪心算法（Nearest Neighbor Algorithm）</li>
- *   <li>时间复杂度：O(n²)，n为途经点数量</li>
+ *   <li>算法：由 {@link RouteSolver} 求解（delivery.route.solver），默认最近邻 + 2-opt/Or-opt 局部搜索</li>
+ *   <li>时间复杂度：每轮局部搜索 O(n²)，受 delivery.route.time-budget-ms 限制</li>
  *   <li>空间复杂度：O(n²)，距离矩阵</li>
  * </ul>
  * 
  * <p>适用场景：
  * <ul>
- *   <li>途经点数量：≤30个（性能考虑）</li>
+ *   <li>途经点数量：≤delivery.route.max-waypoints（默认500个）</li>
  *   <li>优化目标：最短距离</li>
  *   <li>约束条件：必须经过所有途经点</li>
  * </ul>
@@ -33,12 +40,18 @@ import java.util.List;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class DijkstraAlgorithm {
 
+    private final List<RouteSolver> solvers;
+    private final LocalSearchSolver localSearchSolver;
+    private final DistanceMatrixCache distanceMatrixCache;
+
     /**
-     * 地球半径（千米）
+     * 是否使用点对距离缓存
      */
-    private static final double EARTH_RADIUS = 6371.0;
+    @Value("${delivery.route.cache-enabled:true}")
+    private boolean cacheEnabled;
 
     /**
      * 平均速度（公里/小时）- 用于预估配送时间
@@ -48,7 +61,33 @@ public class DijkstraAlgorithm {
     /**
      * 最大途经点数量限制
      */
-    private static final int MAX_WAYPOINTS = 30;
+    @Value("${delivery.route.max-waypoints:500}")
+    private int maxWaypoints;
+
+    /**
+     * 使用的求解器名称（nn-2opt-oropt / nearest-neighbor）
+     */
+    @Value("${delivery.route.solver:" + LocalSearchSolver.NAME + "}")
+    private String solverName;
+
+    /**
+     * 单次求解的时间预算（毫秒）
+     */
+    @Value("${delivery.route.time-budget-ms:300}")
+    private long timeBudgetMs;
+
+    private RouteSolver solver;
+
+    @PostConstruct
+    public void init() {
+        Map<String, RouteSolver> byName = solvers.stream()
+                .collect(Collectors.toMap(RouteSolver::getName, Function.identity()));
+        solver = byName.get(solverName);
+        if (solver == null) {
+            throw new IllegalStateException("未知的路径求解器：" + solverName + "，可选：" + byName.keySet());
+        }
+        log.info("路径求解器：{}，时间预算={}ms，最大途经点={}", solverName, timeBudgetMs, maxWaypoints);
+    }
 
     /**
      * 计算最优路径
@@ -63,21 +102,107 @@ public class DijkstraAlgorithm {
         validateRequest(request);
 
         // 2. 构建距离矩阵
-        double[][] distanceMatrix = buildDistanceMatrix(request);
+        double[][] distanceMatrix = buildDistanceMatrix(extractPoints(request));
 
-        // 3. TSP求解（贪心算法）
-        List<Integer> pathSequence = solveTSP(distanceMatrix, request.getEnd() != null);
+        // 3. TSP求解
+        RouteSolver.RouteSolution solution = solver.solve(distanceMatrix, request.getEnd() != null, timeBudgetMs);
 
         // 4. 计算路径详细信息
+        return finishRoute(request, distanceMatrix, solution, startTime);
+    }
+
+    /**
+     * 按给定的途经点顺序计算路径（路径规划缓存命中/修复时使用）
+     * 
+     * @param request 路径规划请求
+     * @param seedOrder 途经点矩阵索引（1~n）的访问顺序，缺少的点按最廉价插入补齐
+     * @param improve 是否在此基础上做局部搜索（仅局部搜索求解器生效）
+     * @return 路径规划结果
+     */
+    public RouteResult calculateRoute(RouteRequest request, int[] seedOrder, boolean improve) {
+        long startTime = System.currentTimeMillis();
+        validateRequest(request);
+
+        double[][] distanceMatrix = buildDistanceMatrix(extractPoints(request));
+        boolean hasEnd = request.getEnd() != null;
+
+        int[] tour = completeTour(distanceMatrix, seedOrder, hasEnd);
+        boolean converged = true;
+        if (improve && solver instanceof LocalSearchSolver) {
+            converged = localSearchSolver.improve(distanceMatrix, tour, hasEnd,
+                    System.nanoTime() + timeBudgetMs * 1_000_000L);
+        }
+
+        double seedDistance = NearestNeighborSolver.tourDistance(
+                distanceMatrix, NearestNeighborSolver.buildTour(distanceMatrix, hasEnd));
+        RouteSolver.RouteSolution solution = new RouteSolver.RouteSolution(
+                tour, seedDistance, NearestNeighborSolver.tourDistance(distanceMatrix, tour));
+        RouteResult result = finishRoute(request, distanceMatrix, solution, startTime);
+        result.setConverged(converged);
+        return result;
+    }
+
+    private RouteResult finishRoute(RouteRequest request, double[][] distanceMatrix,
+                                    RouteSolver.RouteSolution solution, long startTime) {
+        List<Integer> pathSequence = Arrays.stream(solution.tour()).boxed().toList();
+
         RouteResult result = buildRouteResult(request, pathSequence, distanceMatrix);
+        result.setAlgorithmUsed(solver.getName());
+        result.setImprovementRatio(BigDecimal.valueOf(solution.improvementRatio()).setScale(4, RoundingMode.HALF_UP));
 
         long endTime = System.currentTimeMillis();
-        log.info("Dijkstra算法计算完成，途经点数量={}，耗时={}ms", 
-                request.getWaypoints().size(), endTime - startTime);
+        log.info("路径求解完成，求解器={}，途经点数量={}，初始距离={}米，优化比例={}，耗时={}ms",
+                solver.getName(), request.getWaypoints().size(),
+                Math.round(solution.seedDistance()), result.getImprovementRatio(), endTime - startTime);
 
         return result;
     }
 
+    /**
+     * 补全路径：起点 + 已知顺序 + 缺少的途经点（逐个插到增加距离最小的位置）+ 终点
+     */
+    private int[] completeTour(double[][] d, int[] seedOrder, boolean hasEnd) {
+        int n = d.length;
+        int endIndex = hasEnd ? n - 1 : -1;
+        List<Integer> path = new ArrayList<>(n);
+        boolean[] present = new boolean[n];
+        path.add(0);
+        present[0] = true;
+        for (int index : seedOrder) {
+            path.add(index);
+            present[index] = true;
+        }
+        if (hasEnd) {
+            path.add(endIndex);
+            present[endIndex] = true;
+        }
+
+        for (int node = 1; node < n; node++) {
+            if (present[node]) {
+                continue;
+            }
+            int size = path.size();
+            int maxPos = hasEnd ? size - 1 : size;
+            int bestPos = maxPos;
+            double bestCost = Double.MAX_VALUE;
+            for (int pos = 1; pos <= maxPos; pos++) {
+                int prev = path.get(pos - 1);
+                double cost = d[prev][node];
+                if (pos < size) {
+                    int next = path.get(pos);
+                    cost += d[node][next] - d[prev][next];
+                }
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestPos = pos;
+                }
+            }
+            path.add(bestPos, node);
+            present[node] = true;
+        }
+        return path.stream().mapToInt(Integer::intValue).toArray();
+    }
+
     /**
      * 校验请求参数
      */
@@ -88,10 +213,10 @@ public class DijkstraAlgorithm {
         if (request.getWaypoints() == null || request.getWaypoints().isEmpty()) {
             throw new IllegalArgumentException("途经点列表不能为空");
         }
-        if (request.getWaypoints().size() > MAX_WAYPOINTS) {
+        if (request.getWaypoints().size() > maxWaypoints) {
             throw new IllegalArgumentException(
                     String.format("途经点数量不能超过%d个，当前%d个", 
-                            MAX_WAYPOINTS, request.getWaypoints().size())
+                            maxWaypoints, request.getWaypoints().size())
             );
         }
     }
@@ -106,11 +231,25 @@ public class DijkstraAlgorithm {
      *   <li>索引n+1: 终点（如果有）</li>
      * </ul>
      * 
-     * @param request 路径规划请求
+     * <p>开启 delivery.route.cache-enabled 时从 {@link DistanceMatrixCache} 组装，
+     * 已计算过的点对直接复用
+     * 
+     * @param points 请求中所有点的坐标
      * @return 距离矩阵（单位：米）
      */
-    private double[][] buildDistanceMatrix(RouteRequest request) {
-        // 构建所有点的列表
+    private double[][] buildDistanceMatrix(RequestPoints points) {
+        double[][] matrix = cacheEnabled
+                ? distanceMatrixCache.buildMatrix(points.pointIds(), points.lats(), points.lngs())
+                : DistanceMatrixCache.computeMatrix(points.lats(), points.lngs());
+
+        log.debug("距离矩阵构建完成，矩阵大小={}x{}", matrix.length, matrix.length);
+        return matrix;
+    }
+
+    /**
+     * 提取所有点的坐标（BigDecimal只转换一次）
+     */
+    private RequestPoints extractPoints(RouteRequest request) {
         List<RouteRequest.Coordinate> allPoints = new ArrayList<>();
         allPoints.add(request.getStart()); // 索引0: 起点
         allPoints.addAll(request.getWaypoints()); // 索引1~n: 途经点
@@ -119,135 +258,16 @@ public class DijkstraAlgorithm {
         }
 
         int size = allPoints.size();
-        double[][] matrix = new double[size][size];
-
-        // 计算任意两点间的距离（Haversine公式）
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        List<String> pointIds = new ArrayList<>(size);
         for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (i == j) {
-                    matrix[i][j] = 0;
-                } else {
-                    matrix[i][j] = calculateDistance(
-                            allPoints.get(i).getLatitude().doubleValue(),
-                            allPoints.get(i).getLongitude().doubleValue(),
-                            allPoints.get(j).getLatitude().doubleValue(),
-                            allPoints.get(j).getLongitude().doubleValue()
-                    );
-                }
-            }
-        }
-
-        log.debug("距离矩阵构建完成，矩阵大小={}x{}", size, size);
-        return matrix;
-    }
-
-    /**
-     * Haversine公式计算两点间球面距离
-     * 
-     * <p>公式说明：
-     * <pre>
-     * a = sin²(Δφ/2) + cos(φ1) * cos(φ2) * sin²(Δλ/2)
-     * c = 2 * atan2(√a, √(1−a))
-     * d = R * c
-     * </pre>
-     * 
-     * <p>其中：
-     * <ul>
-     *   <li>φ 表示纬度（latitude）</li>
-     *   <li>λ 表示经度（longitude）</li>
-     *   <li>R 表示地球半径（6371公里）</li>
-     * </ul>
-     * 
-     * @param lat1 点1纬度
-     * @param lon1 点1经度
-     * @param lat2 点2纬度
-     * @param lon2 点2经度
-     * @return 两点间距离（米）
-     */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        // 转换为弧度
-        double lat1Rad = Math.toRadians(lat1);
-        double lon1Rad = Math.toRadians(lon1);
-        double lat2Rad = Math.toRadians(lat2);
-        double lon2Rad = Math.toRadians(lon2);
-
-        // 计算差值
-        double deltaLat = lat2Rad - lat1Rad;
-        double deltaLon = lon2Rad - lon1Rad;
-
-        // Haversine公式
-        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2) +
-                Math.cos(lat1Rad) * Math.cos(lat2Rad) *
-                        Math.sin(deltaLon / 2) * Math.sin(deltaLon / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        // 距离（米）
-        return EARTH_RADIUS * c * 1000;
-    }
-
-    /**
-     * TSP求解 - 最近邻贪心算法
-     * 
-     * <p>算法步骤：
-     * <ol>
-     *   <li>从起点开始（索引0）</li>
-     *   <li>每次选择距离当前点最近的未访问点</li>
-     *   <li>标记该点为已访问</li>
-     *   <li>重复步骤2-3，直到所有点都被访问</li>
-     *   <li>如果有终点，最后访问终点</li>
-     * </ol>
-     * 
-     * @param distanceMatrix 距离矩阵
-     * @param hasEnd 是否有终点
-     * @return 路径序列（点的索引顺序）
-     */
-    private List<Integer> solveTSP(double[][] distanceMatrix, boolean hasEnd) {
-        int n = distanceMatrix.length;
-        List<Integer> path = new ArrayList<>();
-        boolean[] visited = new boolean[n];
-
-        // 起点（索引0）
-        int current = 0;
-        path.add(current);
-        visited[current] = true;
-
-        // 如果有终点，终点索引为n-1，不参与贪心选择
-        int endIndex = hasEnd ? n - 1 : -1;
-        int targetCount = hasEnd ? n - 1 : n;
-
-        // 贪心选择：每次选择最近的未访问点
-        for (int i = 1; i < targetCount; i++) {
-            double minDistance = Double.MAX_VALUE;
-            int nearest = -1;
-
-            for (int j = 1; j < n; j++) {
-                // 跳过已访问点和终点
-                if (visited[j] || j == endIndex) {
-                    continue;
-                }
-
-                double distance = distanceMatrix[current][j];
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    nearest = j;
-                }
-            }
-
-            if (nearest != -1) {
-                current = nearest;
-                path.add(current);
-                visited[current] = true;
-            }
-        }
-
-        // 如果有终点，最后访问终点
-        if (hasEnd) {
-            path.add(endIndex);
+            RouteRequest.Coordinate point = allPoints.get(i);
+            lats[i] = point.getLatitude().doubleValue();
+            lngs[i] = point.getLongitude().doubleValue();
+            pointIds.add(point.getPointId());
         }
-
-        log.debug("TSP求解完成，路径序列={}", path);
-        return path;
+        return new RequestPoints(pointIds, lats, lngs);
     }
 
     /**
@@ -263,7 +283,6 @@ public class DijkstraAlgorithm {
                                           double[][] distanceMatrix) {
         RouteResult result = new RouteResult();
         result.setPathSequence(pathSequence);
-        result.setAlgorithmUsed("dijkstra");
 
         // 计算总距离和路段信息
         BigDecimal totalDistance = BigDecimal.ZERO;
@@ -345,5 +364,10 @@ public class DijkstraAlgorithm {
 
         return route.toString();
     }
-}
 
+    /**
+     * 请求中所有点的坐标
+     */
+    private record RequestPoints(List<String> pointIds, double[] lats, double[] lngs) {
+    }
+}
@@ -0,0 +1,319 @@
+package com.bcu.edu.algorithm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 点对距离缓存（⭐仓库 / 团点 / 收货地址之间的Haversine距离）
+ *
+ * <p>仓库和团点坐标几乎不变，重复发货时距离矩阵的大部分格子都算过：
+ * <ul>
+ *   <li>每个点按点ID（warehouse:1、store:12、address:34）分配一个槽位，坐标存 double 数组</li>
+ *   <li>距离存在 capacity × capacity 的 float 数组中（NaN 表示未计算），按需计算后写回</li>
+ *   <li>求解时按槽位直接拼出子矩阵，已缓存的格子不再计算</li>
+ *   <li>查询时坐标与缓存不一致（团点在LeaderService改了坐标）自动失效该点的行和列；
+ *       仓库修改坐标时由 WarehouseService 主动失效</li>
+ *   <li>槽位用完时整体清空重建（默认 2048 点，占用 16MB）</li>
+ * </ul>
+ *
+ * <p>没有点ID的坐标按经纬度作为键，坐标相同即同一点
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Component
+public class DistanceMatrixCache {
+
+    /**
+     * 地球半径（千米）
+     */
+    private static final double EARTH_RADIUS = 6371.0;
+
+    /**
+     * 最多缓存的点数
+     */
+    @Value("${delivery.route.cache-max-points:2048}")
+    private int capacity;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    /**
+     * 下一个未使用的槽位（失效的槽位不回收，清空重建时归零）
+     */
+    private int nextSlot;
+
+    private double[] lats;
+    private double[] lngs;
+
+    /**
+     * 距离（米），distances[i * capacity + j]
+     */
+    private float[] distances;
+
+    /**
+     * 计算/复用的格子数，用于日志观察命中率
+     */
+    private long computed;
+    private long reused;
+
+    /**
+     * 槽位布局版本（清空重建或失效时递增），组装期间变化则重新分配槽位
+     */
+    private long generation;
+
+    /**
+     * 读锁：查找已有槽位、查询与填充格子（同一格子并发写入的值相同）；写锁：分配槽位和失效
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static String warehouseKey(Long warehouseId) {
+        return "warehouse:" + warehouseId;
+    }
+
+    public static String storeKey(Long storeId) {
+        return "store:" + storeId;
+    }
+
+    public static String addressKey(Long addressId) {
+        return "address:" + addressId;
+    }
+
+    /**
+     * 组装子矩阵
+     *
+     * @param pointIds 点ID（可为null，按坐标作为键）
+     * @param lat 纬度
+     * @param lng 经度
+     * @return 距离矩阵（米）
+     */
+    public double[][] buildMatrix(List<String> pointIds, double[] lat, double[] lng) {
+        int n = lat.length;
+        if (n > capacity) {
+            return computeMatrix(lat, lng);
+        }
+        String[] keys = pointKeys(pointIds, lat, lng);
+        double[][] matrix = new double[n][n];
+        long hits = 0;
+        while (true) {
+            // 所有点都已有槽位且坐标未变（常见情况）时只持有读锁，并发求解互不阻塞
+            lock.readLock().lock();
+            try {
+                int[] index = lookupSlots(keys, lat, lng);
+                if (index != null) {
+                    hits = fill(matrix, index, lat, lng);
+                    break;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            SlotLayout layout = resolveSlots(keys, lat, lng);
+            lock.readLock().lock();
+            try {
+                if (generation != layout.generation()) {
+                    continue;
+                }
+                hits = fill(matrix, layout.index(), lat, lng);
+                break;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long cells = (long) n * (n - 1) / 2;
+        synchronized (this) {
+            reused += hits;
+            computed += cells - hits;
+        }
+        log.debug("距离矩阵组装完成，点数={}，复用={}/{}格", n, hits, cells);
+        return matrix;
+    }
+
+    /**
+     * 从缓存填充矩阵，缺失的格子计算后写回（调用方持有读锁）
+     *
+     * @return 复用的格子数
+     */
+    private long fill(double[][] matrix, int[] index, double[] lat, double[] lng) {
+        int n = lat.length;
+        long hits = 0;
+        for (int i = 0; i < n; i++) {
+            int rowBase = index[i] * capacity;
+            for (int j = i + 1; j < n; j++) {
+                int cell = rowBase + index[j];
+                float d = distances[cell];
+                if (Float.isNaN(d)) {
+                    d = (float) haversine(lat[i], lng[i], lat[j], lng[j]);
+                    distances[cell] = d;
+                    distances[index[j] * capacity + index[i]] = d;
+                } else {
+                    hits++;
+                }
+                matrix[i][j] = d;
+                matrix[j][i] = d;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 失效一个点（坐标变更）
+     */
+    public void invalidate(String pointId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(pointId);
+            if (slot != null) {
+                clearSlot(slot);
+                // 槽位不回收，坐标置NaN使其不再匹配
+                lats[slot] = Double.NaN;
+                lngs[slot] = Double.NaN;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 缓存统计：[点数, 计算格子数, 复用格子数]
+     */
+    public synchronized long[] stats() {
+        return new long[]{slots.size(), computed, reused};
+    }
+
+    /**
+     * 不使用缓存直接计算（对称矩阵只算一半）
+     */
+    public static double[][] computeMatrix(double[] lat, double[] lng) {
+        int n = lat.length;
+        double[][] matrix = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double d = haversine(lat[i], lng[i], lat[j], lng[j]);
+                matrix[i][j] = d;
+                matrix[j][i] = d;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Haversine公式计算两点间球面距离（米）
+     */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double lat1Rad = Math.toRadians(lat1);
+        double lat2Rad = Math.toRadians(lat2);
+        double deltaLat = lat2Rad - lat1Rad;
+        double deltaLon = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2) +
+                Math.cos(lat1Rad) * Math.cos(lat2Rad) *
+                        Math.sin(deltaLon / 2) * Math.sin(deltaLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS * c * 1000;
+    }
+
+    private static String[] pointKeys(List<String> pointIds, double[] lat, double[] lng) {
+        int n = lat.length;
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = pointIds != null && pointIds.get(i) != null
+                    ? pointIds.get(i)
+                    : "geo:" + lat[i] + "," + lng[i];
+        }
+        return keys;
+    }
+
+    /**
+     * 查找已有槽位（调用方持有读锁）
+     *
+     * @return 槽位；有点未分配槽位或坐标已变化时返回null，需要 {@link #resolveSlots}
+     */
+    private int[] lookupSlots(String[] keys, double[] lat, double[] lng) {
+        if (distances == null) {
+            return null;
+        }
+        int[] index = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            Integer slot = slots.get(keys[i]);
+            if (slot == null || lats[slot] != lat[i] || lngs[slot] != lng[i]) {
+                return null;
+            }
+            index[i] = slot;
+        }
+        return index;
+    }
+
+    /**
+     * 为每个点找到（或分配）槽位，坐标变化的点先失效
+     */
+    private SlotLayout resolveSlots(String[] keys, double[] lat, double[] lng) {
+        int n = lat.length;
+        int[] index = new int[n];
+        lock.writeLock().lock();
+        try {
+            if (distances == null) {
+                reset();
+            }
+            long missing = Arrays.stream(keys).distinct().filter(key -> !slots.containsKey(key)).count();
+            if (nextSlot + missing > capacity) {
+                log.info("距离缓存槽位已满（{}），清空重建", capacity);
+                reset();
+            }
+            for (int i = 0; i < n; i++) {
+                String key = keys[i];
+                Integer slot = slots.get(key);
+                if (slot != null && (lats[slot] != lat[i] || lngs[slot] != lng[i])) {
+                    log.info("点坐标已变化，失效距离缓存，point={}", key);
+                    clearSlot(slot);
+                    lats[slot] = lat[i];
+                    lngs[slot] = lng[i];
+                }
+                if (slot == null) {
+                    slot = nextSlot++;
+                    slots.put(key, slot);
+                    lats[slot] = lat[i];
+                    lngs[slot] = lng[i];
+                }
+                index[i] = slot;
+            }
+            return new SlotLayout(index, generation);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reset() {
+        generation++;
+        slots.clear();
+        nextSlot = 0;
+        lats = new double[capacity];
+        lngs = new double[capacity];
+        distances = new float[capacity * capacity];
+        Arrays.fill(distances, Float.NaN);
+    }
+
+    private void clearSlot(int slot) {
+        generation++;
+        int rowBase = slot * capacity;
+        Arrays.fill(distances, rowBase, rowBase + capacity, Float.NaN);
+        for (int i = slot; i < distances.length; i += capacity) {
+            distances[i] = Float.NaN;
+        }
+    }
+
+    /**
+     * 本次组装使用的槽位
+     */
+    private record SlotLayout(int[] index, long generation) {
+    }
+}
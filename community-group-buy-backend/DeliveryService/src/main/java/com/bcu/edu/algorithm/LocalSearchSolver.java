@@ -0,0 +1,187 @@
+package com.bcu.edu.algorithm;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 局部搜索求解器（⭐最近邻初始解 + 2-opt + Or-opt）
+ *
+ * <p>算法步骤：
+ * <ol>
+ *   <li>最近邻贪心构造初始路径</li>
+ *   <li>2-opt：反转一段路径，消除交叉边</li>
+ *   <li>Or-opt：把连续1~3个点（可反向）移动到其他位置</li>
+ *   <li>交替执行直到没有改进或时间预算用完</li>
+ * </ol>
+ *
+ * <p>每轮 O(n²)，每次移动的增量距离 O(1) 计算；数百个途经点在默认预算内可收敛，
+ * 通常比纯最近邻短 10%~20%
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+public class LocalSearchSolver implements RouteSolver {
+
+    public static final String NAME = "nn-2opt-oropt";
+
+    /**
+     * 改进阈值（米），避免浮点误差导致来回移动
+     */
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * Or-opt 移动的最大段长
+     */
+    private static final int MAX_SEGMENT = 3;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public RouteSolution solve(double[][] distanceMatrix, boolean hasEnd, long timeBudgetMs) {
+        int[] tour = NearestNeighborSolver.buildTour(distanceMatrix, hasEnd);
+        double seedDistance = NearestNeighborSolver.tourDistance(distanceMatrix, tour);
+
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
+        improve(distanceMatrix, tour, hasEnd, deadline);
+
+        return new RouteSolution(tour, seedDistance, NearestNeighborSolver.tourDistance(distanceMatrix, tour));
+    }
+
+    /**
+     * 在给定路径上做局部搜索（原地修改）
+     *
+     * @param deadline 截止时间（System.nanoTime）
+     * @return 是否收敛到局部最优（false 表示因时间预算用尽提前结束）
+     */
+    boolean improve(double[][] d, int[] tour, boolean hasEnd, long deadline) {
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(d, tour, hasEnd, deadline);
+            improved |= orOpt(d, tour, hasEnd, deadline);
+        }
+        return !improved;
+    }
+
+    /**
+     * 2-opt：反转 tour[i..j]，起点和终点位置固定
+     */
+    private boolean twoOpt(double[][] d, int[] tour, boolean hasEnd, long deadline) {
+        int m = tour.length;
+        int last = hasEnd ? m - 2 : m - 1;
+        boolean improved = false;
+
+        for (int i = 1; i < last; i++) {
+            if (System.nanoTime() >= deadline) {
+                return improved;
+            }
+            int a = tour[i - 1];
+            for (int j = i + 1; j <= last; j++) {
+                int b = tour[i];
+                int c = tour[j];
+                double delta = d[a][c] - d[a][b];
+                if (j + 1 < m) {
+                    int next = tour[j + 1];
+                    delta += d[b][next] - d[c][next];
+                }
+                if (delta < -EPSILON) {
+                    reverse(tour, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Or-opt：把 tour[i..i+len-1] 移到边 (tour[p], tour[p+1]) 之间，正向或反向插入
+     */
+    private boolean orOpt(double[][] d, int[] tour, boolean hasEnd, long deadline) {
+        int m = tour.length;
+        int last = hasEnd ? m - 2 : m - 1;
+        boolean improved = false;
+
+        for (int len = 1; len <= MAX_SEGMENT; len++) {
+            for (int i = 1; i + len - 1 <= last; i++) {
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+                int segEnd = i + len - 1;
+                int prev = tour[i - 1];
+                int first = tour[i];
+                int lastNode = tour[segEnd];
+                int next = segEnd + 1 < m ? tour[segEnd + 1] : -1;
+
+                // 移走该段节省的距离
+                double removeGain = d[prev][first];
+                if (next >= 0) {
+                    removeGain += d[lastNode][next] - d[prev][next];
+                }
+
+                int bestP = -1;
+                boolean bestReversed = false;
+                double bestDelta = -EPSILON;
+                // 开放路径允许插到末尾（p = m-1，无后继）
+                int maxP = hasEnd ? m - 2 : m - 1;
+                for (int p = 0; p <= maxP; p++) {
+                    if (p >= i - 1 && p <= segEnd) {
+                        continue;
+                    }
+                    int u = tour[p];
+                    int v = p + 1 < m ? tour[p + 1] : -1;
+                    double base = v >= 0 ? -d[u][v] : 0;
+                    double forward = d[u][first] + (v >= 0 ? d[lastNode][v] : 0) + base - removeGain;
+                    double backward = d[u][lastNode] + (v >= 0 ? d[first][v] : 0) + base - removeGain;
+                    if (forward < bestDelta) {
+                        bestDelta = forward;
+                        bestP = p;
+                        bestReversed = false;
+                    }
+                    if (len > 1 && backward < bestDelta) {
+                        bestDelta = backward;
+                        bestP = p;
+                        bestReversed = true;
+                    }
+                }
+
+                if (bestP >= 0) {
+                    moveSegment(tour, i, segEnd, bestP, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void reverse(int[] tour, int i, int j) {
+        while (i < j) {
+            int tmp = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = tmp;
+        }
+    }
+
+    /**
+     * 把 tour[i..segEnd] 移到原位置 p 的节点之后
+     */
+    private static void moveSegment(int[] tour, int i, int segEnd, int p, boolean reversed) {
+        int len = segEnd - i + 1;
+        int[] segment = new int[len];
+        System.arraycopy(tour, i, segment, 0, len);
+        if (reversed) {
+            reverse(segment, 0, len - 1);
+        }
+
+        if (p < i) {
+            // 段前移：tour[p+1..i-1] 后移 len 位
+            System.arraycopy(tour, p + 1, tour, p + 1 + len, i - p - 1);
+            System.arraycopy(segment, 0, tour, p + 1, len);
+        } else {
+            // 段后移：tour[segEnd+1..p] 前移 len 位
+            System.arraycopy(tour, segEnd + 1, tour, i, p - segEnd);
+            System.arraycopy(segment, 0, tour, p - len + 1, len);
+        }
+    }
+}
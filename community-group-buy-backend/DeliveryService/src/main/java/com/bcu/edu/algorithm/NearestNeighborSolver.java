@@ -0,0 +1,84 @@
+package com.bcu.edu.algorithm;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 最近邻贪心求解器（原 DijkstraAlgorithm.solveTSP）
+ *
+ * <p>每次选择距离当前点最近的未访问点，O(n²)；作为局部搜索的初始解，
+ * 也可单独使用（delivery.route.solver=nearest-neighbor）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+public class NearestNeighborSolver implements RouteSolver {
+
+    public static final String NAME = "nearest-neighbor";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public RouteSolution solve(double[][] distanceMatrix, boolean hasEnd, long timeBudgetMs) {
+        int[] tour = buildTour(distanceMatrix, hasEnd);
+        double distance = tourDistance(distanceMatrix, tour);
+        return new RouteSolution(tour, distance, distance);
+    }
+
+    /**
+     * 构建最近邻路径
+     */
+    static int[] buildTour(double[][] distanceMatrix, boolean hasEnd) {
+        int n = distanceMatrix.length;
+        int[] tour = new int[n];
+        boolean[] visited = new boolean[n];
+
+        // 起点（索引0）
+        int current = 0;
+        visited[0] = true;
+
+        // 如果有终点，终点索引为n-1，不参与贪心选择
+        int endIndex = hasEnd ? n - 1 : -1;
+        int targetCount = hasEnd ? n - 1 : n;
+        int size = 1;
+
+        for (int k = 1; k < targetCount; k++) {
+            double minDistance = Double.MAX_VALUE;
+            int nearest = -1;
+            double[] row = distanceMatrix[current];
+            for (int j = 1; j < n; j++) {
+                if (!visited[j] && j != endIndex && row[j] < minDistance) {
+                    minDistance = row[j];
+                    nearest = j;
+                }
+            }
+            if (nearest != -1) {
+                current = nearest;
+                tour[size++] = current;
+                visited[current] = true;
+            }
+        }
+
+        if (hasEnd) {
+            tour[size++] = endIndex;
+        }
+        // 不可达的点（距离均为无穷大）被跳过，路径相应缩短
+        return size == n ? tour : Arrays.copyOf(tour, size);
+    }
+
+    /**
+     * 路径总距离
+     */
+    static double tourDistance(double[][] distanceMatrix, int[] tour) {
+        double total = 0;
+        for (int i = 0; i < tour.length - 1; i++) {
+            total += distanceMatrix[tour[i]][tour[i + 1]];
+        }
+        return total;
+    }
+}
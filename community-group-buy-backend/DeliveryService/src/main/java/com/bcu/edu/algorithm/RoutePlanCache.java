@@ -0,0 +1,275 @@
+package com.bcu.edu.algorithm;
+
+import com.bcu.edu.dto.RouteRequest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路径规划结果缓存（⭐按途经点集合记忆化 + 增量修复）
+ *
+ * <p>调度员反复调整订单列表时，途经点集合往往只差一两个点：
+ * <ul>
+ *   <li>键：起点 | 终点 | 策略 | 排序后的途经点，每个点由ID和坐标组成（门店/地址坐标变更后不再命中），LRU淘汰</li>
+ *   <li>命中：直接复用缓存的访问顺序，只重新计算路段距离</li>
+ *   <li>修复：同一起终点/策略下存在只差 ≤ repair-max-diff 个点的缓存时，
+ *       去掉已删除的点、最廉价插入新增的点，再做局部搜索</li>
+ *   <li>未命中：完整求解</li>
+ * </ul>
+ * 只缓存完整求解和在时间预算内收敛的修复结果
+ *
+ * <p>指标：route.plan.cache{result=hit|repair|miss}、route.plan.cache.size
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Component
+public class RoutePlanCache {
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${delivery.route.plan-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 最多缓存的规划结果数
+     */
+    @Value("${delivery.route.plan-cache.max-entries:256}")
+    private int maxEntries;
+
+    /**
+     * 允许增量修复的最大差异点数（新增 + 删除）
+     */
+    @Value("${delivery.route.plan-cache.repair-max-diff:2}")
+    private int repairMaxDiff;
+
+    private Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder repairs = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        meterRegistry.ifAvailable(this::bindMetrics);
+    }
+
+    /**
+     * 查找可复用的访问顺序
+     *
+     * @return 查找结果；tour 为途经点在矩阵中的索引（1~n），修复时不含新增的点
+     */
+    public Lookup lookup(RouteRequest request) {
+        if (!enabled) {
+            return Lookup.MISS;
+        }
+        List<String> waypointKeys = waypointKeys(request);
+        String family = familyKey(request);
+        String key = family + "|" + String.join(",", sorted(waypointKeys));
+
+        Entry exact;
+        Entry nearest = null;
+        synchronized (this) {
+            exact = entries.get(key);
+            if (exact == null) {
+                nearest = findNearest(family, waypointKeys);
+            }
+        }
+
+        if (exact != null) {
+            hits.increment();
+            return new Lookup(Kind.HIT, mapTour(exact.tourKeys, waypointKeys));
+        }
+        if (nearest != null) {
+            repairs.increment();
+            return new Lookup(Kind.REPAIR, mapTour(nearest.tourKeys, waypointKeys));
+        }
+        misses.increment();
+        return Lookup.MISS;
+    }
+
+    /**
+     * 缓存规划结果
+     *
+     * @param pathSequence 完整路径序列（含起点和终点）
+     */
+    public void put(RouteRequest request, List<Integer> pathSequence) {
+        if (!enabled) {
+            return;
+        }
+        List<String> waypointKeys = waypointKeys(request);
+        int n = waypointKeys.size();
+        List<String> tourKeys = new ArrayList<>(n);
+        for (Integer index : pathSequence) {
+            if (index >= 1 && index <= n) {
+                tourKeys.add(waypointKeys.get(index - 1));
+            }
+        }
+        String family = familyKey(request);
+        String key = family + "|" + String.join(",", sorted(waypointKeys));
+        synchronized (this) {
+            entries.put(key, new Entry(family, countKeys(waypointKeys), tourKeys));
+        }
+    }
+
+    /**
+     * 同一起终点/策略下差异最小且不超过阈值的缓存
+     */
+    private Entry findNearest(String family, List<String> waypointKeys) {
+        if (repairMaxDiff <= 0) {
+            return null;
+        }
+        Map<String, Integer> wanted = countKeys(waypointKeys);
+        Entry best = null;
+        int bestDiff = repairMaxDiff + 1;
+        for (Entry entry : entries.values()) {
+            if (!entry.family.equals(family)
+                    || Math.abs(entry.tourKeys.size() - waypointKeys.size()) > repairMaxDiff) {
+                continue;
+            }
+            int diff = symmetricDifference(entry.keyCounts, wanted, bestDiff);
+            if (diff < bestDiff) {
+                bestDiff = diff;
+                best = entry;
+            }
+        }
+        return best;
+    }
+
+    private static int symmetricDifference(Map<String, Integer> a, Map<String, Integer> b, int limit) {
+        int diff = 0;
+        for (Map.Entry<String, Integer> e : a.entrySet()) {
+            diff += Math.abs(e.getValue() - b.getOrDefault(e.getKey(), 0));
+            if (diff >= limit) {
+                return diff;
+            }
+        }
+        for (Map.Entry<String, Integer> e : b.entrySet()) {
+            if (!a.containsKey(e.getKey())) {
+                diff += e.getValue();
+                if (diff >= limit) {
+                    return diff;
+                }
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * 把缓存的点ID顺序映射为当前请求中的矩阵索引（当前请求没有的点跳过）
+     */
+    private static int[] mapTour(List<String> tourKeys, List<String> waypointKeys) {
+        Map<String, Deque<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < waypointKeys.size(); i++) {
+            positions.computeIfAbsent(waypointKeys.get(i), k -> new ArrayDeque<>()).add(i + 1);
+        }
+        List<Integer> tour = new ArrayList<>(tourKeys.size());
+        for (String key : tourKeys) {
+            Deque<Integer> queue = positions.get(key);
+            if (queue != null && !queue.isEmpty()) {
+                tour.add(queue.poll());
+            }
+        }
+        return tour.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<String> waypointKeys(RouteRequest request) {
+        return request.getWaypoints().stream().map(RoutePlanCache::pointKey).toList();
+    }
+
+    private static String familyKey(RouteRequest request) {
+        return pointKey(request.getStart()) + "|"
+                + (request.getEnd() != null ? pointKey(request.getEnd()) : "-") + "|"
+                + request.getStrategy();
+    }
+
+    /**
+     * 点的键：ID + 坐标（同一ID坐标变化时视为删除旧点、新增新点）
+     */
+    private static String pointKey(RouteRequest.Coordinate point) {
+        String geo = plain(point.getLatitude()) + "," + plain(point.getLongitude());
+        return point.getPointId() != null ? point.getPointId() + "@" + geo : "geo:" + geo;
+    }
+
+    private static String plain(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros().toPlainString() : "-";
+    }
+
+    private static List<String> sorted(List<String> keys) {
+        return keys.stream().sorted().toList();
+    }
+
+    private static Map<String, Integer> countKeys(List<String> keys) {
+        Map<String, Integer> counts = new HashMap<>();
+        keys.forEach(key -> counts.merge(key, 1, Integer::sum));
+        return counts;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("route.plan.cache", hits, LongAdder::sum)
+                .tags("result", "hit")
+                .description("路径规划缓存命中次数")
+                .register(registry);
+        FunctionCounter.builder("route.plan.cache", repairs, LongAdder::sum)
+                .tags("result", "repair")
+                .description("路径规划缓存增量修复次数")
+                .register(registry);
+        FunctionCounter.builder("route.plan.cache", misses, LongAdder::sum)
+                .tags("result", "miss")
+                .description("路径规划缓存未命中次数")
+                .register(registry);
+        Gauge.builder("route.plan.cache.size", this, RoutePlanCache::size)
+                .register(registry);
+    }
+
+    /**
+     * 查找类型
+     */
+    public enum Kind {
+        HIT, REPAIR, MISS
+    }
+
+    /**
+     * 查找结果
+     *
+     * @param kind 类型
+     * @param tour 途经点访问顺序（矩阵索引）
+     */
+    public record Lookup(Kind kind, int[] tour) {
+        static final Lookup MISS = new Lookup(Kind.MISS, null);
+    }
+
+    /**
+     * 缓存条目
+     */
+    private record Entry(String family, Map<String, Integer> keyCounts, List<String> tourKeys) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.bcu.edu.algorithm;
+
+/**
+ * 路径求解器（可插拔，按 delivery.route.solver 选择）
+ *
+ * <p>约定：
+ * <ul>
+ *   <li>距离矩阵索引0为起点，必须是路径第一个点</li>
+ *   <li>hasEnd=true 时索引 n-1 为终点，必须是路径最后一个点</li>
+ *   <li>不回到起点（开放路径）</li>
+ * </ul>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+public interface RouteSolver {
+
+    /**
+     * 求解器名称（写入 RouteResult.algorithmUsed / delivery.algorithm_used）
+     */
+    String getName();
+
+    /**
+     * 求解访问顺序
+     *
+     * @param distanceMatrix 距离矩阵（米）
+     * @param hasEnd 是否有终点
+     * @param timeBudgetMs 求解时间预算（毫秒），超出后返回当前最好结果
+     * @return 求解结果
+     */
+    RouteSolution solve(double[][] distanceMatrix, boolean hasEnd, long timeBudgetMs);
+
+    /**
+     * 求解结果
+     *
+     * @param tour 访问顺序（矩阵索引）
+     * @param seedDistance 初始解（最近邻）总距离
+     * @param distance 最终总距离
+     */
+    record RouteSolution(int[] tour, double seedDistance, double distance) {
+
+        /**
+         * 相对初始解的优化比例（0.15 表示缩短15%）
+         */
+        public double improvementRatio() {
+            return seedDistance > 0 ? (seedDistance - distance) / seedDistance : 0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.bcu.edu.algorithm;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 扫描法（Sweep）车辆分区 - 容量约束VRP的分簇步骤
+ *
+ * <p>算法步骤：
+ * <ol>
+ *   <li>以仓库为原点计算每个途经点的极角</li>
+ *   <li>按极角排序，从相邻两点夹角最大处开始扫描（避免把一个方向的点切成首尾两段）</li>
+ *   <li>按顺序装车，达到目标装载量后换下一辆车</li>
+ * </ol>
+ *
+ * <p>目标装载量 = min(单车容量, ⌈总需求 / 车辆数⌉)，使各车负载均衡；
+ * 单个点需求超过容量时单独成簇（团点不可拆分）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+public class SweepPartitioner {
+
+    /**
+     * 分区
+     *
+     * @param depotLat 仓库纬度
+     * @param depotLng 仓库经度
+     * @param lats 途经点纬度
+     * @param lngs 途经点经度
+     * @param demands 途经点需求（订单数）
+     * @param capacity 单车容量（订单数），null表示不限
+     * @param vehicles 车辆数，null表示不限
+     * @return 每辆车的途经点下标（按扫描顺序）
+     */
+    public List<List<Integer>> partition(double depotLat, double depotLng,
+                                         double[] lats, double[] lngs, int[] demands,
+                                         Integer capacity, Integer vehicles) {
+        int n = lats.length;
+        if (n == 0) {
+            return List.of();
+        }
+
+        // 经度按纬度缩放，近似等距投影
+        double scale = Math.cos(Math.toRadians(depotLat));
+        double[] angles = new double[n];
+        for (int i = 0; i < n; i++) {
+            angles[i] = Math.atan2(lats[i] - depotLat, (lngs[i] - depotLng) * scale);
+        }
+        List<Integer> order = IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingDouble(i -> angles[i]))
+                .toList();
+
+        // 从最大夹角处开始扫描
+        int startPos = 0;
+        double maxGap = -1;
+        for (int k = 0; k < n; k++) {
+            double from = angles[order.get((k - 1 + n) % n)];
+            double gap = angles[order.get(k)] - from;
+            if (gap <= 0) {
+                gap += 2 * Math.PI;
+            }
+            if (gap > maxGap) {
+                maxGap = gap;
+                startPos = k;
+            }
+        }
+
+        int totalDemand = IntStream.of(demands).sum();
+        int target = capacity != null ? capacity : Integer.MAX_VALUE;
+        if (vehicles != null && vehicles > 0) {
+            target = Math.min(target, (totalDemand + vehicles - 1) / vehicles);
+        }
+        target = Math.max(target, 1);
+
+        List<List<Integer>> clusters = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int load = 0;
+        for (int k = 0; k < n; k++) {
+            int idx = order.get((startPos + k) % n);
+            if (!current.isEmpty() && load + demands[idx] > target) {
+                clusters.add(current);
+                current = new ArrayList<>();
+                load = 0;
+            }
+            current.add(idx);
+            load += demands[idx];
+        }
+        clusters.add(current);
+        return clusters;
+    }
+
+    /**
+     * 簇数超过车辆数时合并簇（按需求粒度均衡分簇可能多出几辆车）
+     *
+     * <p>每次合并扫描顺序上相邻、合并后装载量最小且不超过单车容量的两个簇，直到簇数等于车辆数；
+     * 没有可合并的簇（都会超容量）时停止，由调用方判断车辆是否不足
+     *
+     * @param clusters 分区结果（按扫描顺序）
+     * @param demands 途经点需求（订单数）
+     * @param capacity 单车容量（订单数），null表示不限
+     * @param vehicles 车辆数
+     * @return 合并后的分区
+     */
+    public List<List<Integer>> mergeToVehicles(List<List<Integer>> clusters, int[] demands,
+                                               Integer capacity, int vehicles) {
+        List<List<Integer>> merged = new ArrayList<>(clusters);
+        List<Integer> loads = new ArrayList<>();
+        for (List<Integer> cluster : merged) {
+            loads.add(cluster.stream().mapToInt(i -> demands[i]).sum());
+        }
+
+        while (merged.size() > Math.max(vehicles, 1)) {
+            int best = -1;
+            int bestLoad = Integer.MAX_VALUE;
+            for (int k = 0; k + 1 < merged.size(); k++) {
+                int load = loads.get(k) + loads.get(k + 1);
+                if ((capacity == null || load <= capacity) && load < bestLoad) {
+                    best = k;
+                    bestLoad = load;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            List<Integer> joined = new ArrayList<>(merged.get(best));
+            joined.addAll(merged.remove(best + 1));
+            merged.set(best, joined);
+            loads.set(best, bestLoad);
+            loads.remove(best + 1);
+        }
+        return merged;
+    }
+}
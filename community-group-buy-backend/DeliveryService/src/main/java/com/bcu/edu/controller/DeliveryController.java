@@ -21,6 +21,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 配送管理Controller
  * 
@@ -51,6 +53,21 @@ public class DeliveryController {
         return Result.success("批量发货成功", response);
     }
 
+    /**
+     * 多车批量发货（按车队规模/单车容量/最长配送时间分单）
+     */
+    @PostMapping("/batch/ship-fleet")
+    @OperationLog(value = "多车批量发货", module = "配送管理")
+    @Operation(summary = "多车批量发货", description = "按车辆分区并行规划路径，每辆车生成一个配送单和分单组")
+    public Result<List<BatchShipResponse>> batchShipFleet(@Valid @RequestBody BatchShipRequest request) {
+        log.info("接收多车批量发货请求，订单数量={}, 车辆数={}, 单车容量={}",
+                request.getOrderIds().size(), request.getVehicleCount(), request.getVehicleCapacity());
+
+        List<BatchShipResponse> responses = batchShipService.batchShipFleet(request);
+
+        return Result.success("多车批量发货成功", responses);
+    }
+
     /**
      * 查询配送单列表（分页）
      */
@@ -1,5 +1,6 @@
 package com.bcu.edu.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -49,5 +50,23 @@ public class BatchShipRequest {
      * 创建人ID（管理员ID）
      */
     private Long createdBy;
+
+    /**
+     * 车辆数（多车发货可选，不填则按容量需要的车辆数）
+     */
+    @Min(value = 1, message = "车辆数至少为1")
+    private Integer vehicleCount;
+
+    /**
+     * 单车容量（订单数，多车发货可选）
+     */
+    @Min(value = 1, message = "单车容量至少为1")
+    private Integer vehicleCapacity;
+
+    /**
+     * 单车最长配送时间（分钟，多车发货可选）
+     */
+    @Min(value = 1, message = "最长配送时间至少为1分钟")
+    private Integer maxRouteDuration;
 }
 
@@ -60,6 +60,11 @@ public class BatchShipResponse {
      */
     private String algorithmUsed;
 
+    /**
+     * 路径优化比例（相对最近邻初始解）
+     */
+    private BigDecimal improvementRatio;
+
     /**
      * 消息提示
      */
@@ -65,6 +65,15 @@ public class RouteRequest {
          * 地址名称
          */
         private String addressName;
+
+        /**
+         * 点ID（warehouse:1 / store:12 / address:34），距离缓存的键，可为空
+         */
+        private String pointId;
+
+        public Coordinate(BigDecimal longitude, BigDecimal latitude, Long relatedId, String addressName) {
+            this(longitude, latitude, relatedId, addressName, null);
+        }
     }
 }
 
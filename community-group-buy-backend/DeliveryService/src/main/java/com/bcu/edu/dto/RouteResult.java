@@ -1,5 +1,6 @@
 package com.bcu.edu.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -42,15 +43,26 @@ public class RouteResult {
 
     /**
      * 使用的算法
-     * dijkstra / gaode
+     * nn-2opt-oropt / nearest-neighbor / gaode
      */
     private String algorithmUsed = "dijkstra";
 
+    /**
+     * 相对最近邻初始解的优化比例（0.1500 表示缩短15%）
+     */
+    private BigDecimal improvementRatio;
+
     /**
      * 详细路径信息（包含每段距离）
      */
     private List<SegmentInfo> segments;
 
+    /**
+     * 增量修复的局部搜索是否在时间预算内收敛（未收敛的结果不写入路径规划缓存，不返回前端）
+     */
+    @JsonIgnore
+    private boolean converged = true;
+
     /**
      * 路段信息
      */
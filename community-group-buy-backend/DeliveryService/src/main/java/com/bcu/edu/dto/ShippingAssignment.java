@@ -0,0 +1,34 @@
+package com.bcu.edu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 单辆车的发货分配（调用OrderService批量更新为配送中，多车发货一次提交所有车辆）
+ * 
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShippingAssignment {
+
+    /**
+     * 配送单ID
+     */
+    private Long deliveryId;
+
+    /**
+     * 分单组标识
+     */
+    private String dispatchGroup;
+
+    /**
+     * 该车订单ID列表
+     */
+    private List<Long> orderIds;
+}
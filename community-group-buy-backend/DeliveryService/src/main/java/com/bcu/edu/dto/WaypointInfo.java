@@ -27,6 +27,16 @@ public class WaypointInfo {
      */
     private Long orderId;
 
+    /**
+     * 点ID（store:团点ID / address:地址ID），距离缓存的键
+     */
+    private String pointId;
+
+    /**
+     * 团长ID（多车分单时用于把订单归属到车辆）
+     */
+    private Long leaderId;
+
     /**
      * 地址
      */
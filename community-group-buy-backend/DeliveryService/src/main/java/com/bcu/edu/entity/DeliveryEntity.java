@@ -21,7 +21,7 @@ import java.time.LocalDateTime;
  * <ul>
  *   <li>delivery_mode: 1-团长团点模式；2-用户地址模式</li>
  *   <li>status: 0-待分配；1-配送中；2-已完成</li>
- *   <li>algorithm_used: dijkstra（当前版本仅支持Dijkstra算法）</li>
+ *   <li>algorithm_used: nn-2opt-oropt / nearest-neighbor（路径求解器名称）</li>
  *   <li>route_strategy: 0-最短时间；1-最短距离；2-避开拥堵</li>
  * </ul>
  * 
@@ -145,12 +145,19 @@ public class DeliveryEntity {
 
     /**
      * 使用的算法
-     * dijkstra - Dijkstra算法（当前版本）
+     * nn-2opt-oropt - 最近邻 + 2-opt/Or-opt 局部搜索（默认）
+     * nearest-neighbor - 最近邻贪心
      * gaode - 高德地图API（后续扩展）
      */
     @Column(name = "algorithm_used", length = 20)
     private String algorithmUsed = "dijkstra";
 
+    /**
+     * 路径优化比例（相对最近邻初始解缩短的比例）
+     */
+    @Column(name = "improvement_ratio", precision = 6, scale = 4)
+    private BigDecimal improvementRatio;
+
     /**
      * 前端地图展示数据（JSON格式）
      * 包含：路径坐标、途经点标记、距离、时间等
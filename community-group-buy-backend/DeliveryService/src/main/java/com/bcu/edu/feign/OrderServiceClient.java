@@ -2,6 +2,7 @@ package com.bcu.edu.feign;
 
 import com.bcu.edu.common.result.Result;
 import com.bcu.edu.dto.OrderInfoDTO;
+import com.bcu.edu.dto.ShippingAssignment;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
@@ -42,6 +43,14 @@ public interface OrderServiceClient {
             @RequestParam("dispatchGroup") String dispatchGroup
     );
 
+    /**
+     * 多车发货：一次更新所有车辆的订单为"配送中"（全部成功或全部不更新）
+     * 
+     * @param assignments 每辆车的配送单和订单
+     */
+    @PostMapping("/api/order/feign/batchUpdateToShippingFleet")
+    Result<Integer> batchUpdateToShippingFleet(@RequestBody List<ShippingAssignment> assignments);
+
     /**
      * 批量更新订单状态为"已送达"
      */
@@ -2,6 +2,7 @@ package com.bcu.edu.feign;
 
 import com.bcu.edu.common.result.Result;
 import com.bcu.edu.dto.OrderInfoDTO;
+import com.bcu.edu.dto.ShippingAssignment;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -35,6 +36,12 @@ public class OrderServiceClientFallback implements OrderServiceClient {
         return Result.error("OrderService服务不可用");
     }
 
+    @Override
+    public Result<Integer> batchUpdateToShippingFleet(List<ShippingAssignment> assignments) {
+        log.error("调用OrderService多车批量更新订单状态失败，车辆数={}", assignments.size());
+        return Result.error("OrderService服务不可用");
+    }
+
     @Override
     public Result<Integer> batchUpdateToDelivered(List<Long> orderIds) {
         log.error("调用OrderService批量更新订单为已送达失败，orderIds={}", orderIds);
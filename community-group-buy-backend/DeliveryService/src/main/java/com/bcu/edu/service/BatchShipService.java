@@ -1,5 +1,6 @@
 package com.bcu.edu.service;
 
+import com.bcu.edu.algorithm.DistanceMatrixCache;
 import com.bcu.edu.common.exception.BusinessException;
 import com.bcu.edu.dto.*;
 import com.bcu.edu.entity.DeliveryEntity;
@@ -32,6 +33,7 @@ import java.util.stream.Collectors;
  *   <li>路径规划调用</li>
  *   <li>配送单创建</li>
  *   <li>订单状态批量更新</li>
+ *   <li>多车分单（按车辆数/容量/时长拆成多个配送单）</li>
  * </ul>
  * 
  * @author 耿康瑞
@@ -45,6 +47,7 @@ public class BatchShipService {
     private final DeliveryRepository deliveryRepository;
     private final WarehouseService warehouseService;
     private final RouteService routeService;
+    private final VehicleRoutingService vehicleRoutingService;
     private final OrderServiceClient orderServiceClient;
     private final UserServiceClient userServiceClient;
     private final LeaderServiceClient leaderServiceClient;
@@ -69,12 +72,7 @@ public class BatchShipService {
 
         // 3. 获取起点仓库坐标
         WarehouseConfig startWarehouse = warehouseService.getWarehouseById(request.getWarehouseId());
-        RouteRequest.Coordinate start = new RouteRequest.Coordinate(
-                startWarehouse.getLongitude(),
-                startWarehouse.getLatitude(),
-                startWarehouse.getId(),
-                startWarehouse.getWarehouseName()
-        );
+        RouteRequest.Coordinate start = toCoordinate(startWarehouse);
 
         // 4. 提取途经点（根据发货方式）
         List<WaypointInfo> waypoints = extractWaypoints(orders, request.getDeliveryMode());
@@ -86,16 +84,7 @@ public class BatchShipService {
         routeRequest.setStrategy(request.getRouteStrategy());
 
         // 如果有终点仓库
-        if (request.getEndWarehouseId() != null) {
-            WarehouseConfig endWarehouse = warehouseService.getWarehouseById(request.getEndWarehouseId());
-            RouteRequest.Coordinate end = new RouteRequest.Coordinate(
-                    endWarehouse.getLongitude(),
-                    endWarehouse.getLatitude(),
-                    endWarehouse.getId(),
-                    endWarehouse.getWarehouseName()
-            );
-            routeRequest.setEnd(end);
-        }
+        routeRequest.setEnd(resolveEnd(request));
 
         // 6. 调用路径规划算法
         RouteResult routeResult = routeService.planRoute(routeRequest);
@@ -103,9 +92,9 @@ public class BatchShipService {
         // 7. 按路径序列重新排序途经点
         List<WaypointInfo> sortedWaypoints = reorderWaypoints(waypoints, routeResult.getPathSequence());
 
-        // 8. 创建配送单（传入orders用于提取leaderId）
+        // 8. 创建配送单（从订单中提取负责团长）
         DeliveryEntity delivery = createDelivery(
-                request, dispatchGroup, startWarehouse, routeResult, sortedWaypoints, orders
+                request, dispatchGroup, routeResult, sortedWaypoints, request.getOrderIds(), resolveLeaderId(orders)
         );
 
         // 9. 批量更新订单状态为"配送中"（Feign调用OrderService）
@@ -120,6 +109,140 @@ public class BatchShipService {
         return response;
     }
 
+    /**
+     * 多车批量发货 ⭐⭐⭐⭐
+     * 
+     * <p>按车辆数/单车容量/最长配送时间把途经点分给多辆车，每辆车生成独立的配送单和分单组
+     * （分单组格式：SHIP + 时间戳 + 随机数 + "-" + 车辆序号）
+     * 
+     * <p>所有配送单落库后只调用一次OrderService，所有车辆的订单在OrderService同一事务内更新：
+     * 要么全部变为配送中，要么全部不变（本地事务随之回滚），不会出现部分车辆已发货
+     * 
+     * @param request 批量发货请求
+     * @return 每辆车的发货结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<BatchShipResponse> batchShipFleet(BatchShipRequest request) {
+        if (request.getVehicleCount() == null && request.getVehicleCapacity() == null
+                && request.getMaxRouteDuration() == null) {
+            throw new BusinessException("多车发货需指定车辆数、单车容量或最长配送时间");
+        }
+        log.info("开始多车批量发货，订单数量={}, 车辆数={}, 单车容量={}, 最长配送时间={}分钟",
+                request.getOrderIds().size(), request.getVehicleCount(),
+                request.getVehicleCapacity(), request.getMaxRouteDuration());
+
+        // 1. 验证订单、获取仓库坐标、提取途经点
+        List<OrderInfoDTO> orders = validateOrders(request.getOrderIds());
+        WarehouseConfig startWarehouse = warehouseService.getWarehouseById(request.getWarehouseId());
+        RouteRequest.Coordinate start = toCoordinate(startWarehouse);
+        RouteRequest.Coordinate end = resolveEnd(request);
+        List<WaypointInfo> waypoints = extractWaypoints(orders, request.getDeliveryMode());
+
+        // 2. 订单归属到途经点（需求 = 订单数）
+        Map<WaypointInfo, List<OrderInfoDTO>> waypointOrders = assignOrdersToWaypoints(waypoints, orders);
+        int[] demands = waypoints.stream().mapToInt(wp -> waypointOrders.get(wp).size()).toArray();
+
+        // 3. 分车并行规划
+        List<VehicleRoutingService.VehicleRoute> routes = vehicleRoutingService.plan(
+                start, end, request.getRouteStrategy(), waypoints, demands,
+                request.getVehicleCount(), request.getVehicleCapacity(), request.getMaxRouteDuration());
+
+        // 4. 每辆车一个配送单和分单组（先全部落库，最后一次远程调用更新所有订单）
+        String baseGroup = generateDispatchGroup();
+        List<BatchShipResponse> responses = new ArrayList<>();
+        List<ShippingAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < routes.size(); i++) {
+            VehicleRoutingService.VehicleRoute route = routes.get(i);
+            String dispatchGroup = baseGroup + "-" + (i + 1);
+            List<WaypointInfo> sortedWaypoints = reorderWaypoints(
+                    route.waypoints(), route.routeResult().getPathSequence());
+
+            List<OrderInfoDTO> vehicleOrders = sortedWaypoints.stream()
+                    .flatMap(wp -> waypointOrders.get(wp).stream())
+                    .toList();
+            List<Long> orderIds = vehicleOrders.stream().map(OrderInfoDTO::getOrderId).toList();
+
+            DeliveryEntity delivery = createDelivery(request, dispatchGroup, route.routeResult(),
+                    sortedWaypoints, orderIds, resolveLeaderId(vehicleOrders));
+            assignments.add(new ShippingAssignment(delivery.getDeliveryId(), dispatchGroup, orderIds));
+            responses.add(buildResponse(delivery, sortedWaypoints, route.routeResult()));
+        }
+
+        // 5. 一次调用更新所有车辆的订单（OrderService单事务，失败则本地配送单一并回滚）
+        updateFleetOrdersToShipping(assignments, request.getOrderIds().size());
+
+        log.info("多车批量发货成功，车辆数={}, 订单数量={}", responses.size(), request.getOrderIds().size());
+        return responses;
+    }
+
+    /**
+     * 订单归属到途经点（团长团点模式按团长，用户地址模式按订单）
+     * 
+     * <p>缺少坐标的途经点已被跳过，对应订单无法分配车辆，直接拒绝
+     */
+    private Map<WaypointInfo, List<OrderInfoDTO>> assignOrdersToWaypoints(List<WaypointInfo> waypoints,
+                                                                          List<OrderInfoDTO> orders) {
+        Map<Long, List<OrderInfoDTO>> ordersByLeader = orders.stream()
+                .collect(Collectors.groupingBy(OrderInfoDTO::getLeaderId));
+        Map<Long, OrderInfoDTO> ordersById = orders.stream()
+                .collect(Collectors.toMap(OrderInfoDTO::getOrderId, order -> order, (a, b) -> a));
+
+        Map<WaypointInfo, List<OrderInfoDTO>> result = new IdentityHashMap<>();
+        Set<Long> assigned = new HashSet<>();
+        for (WaypointInfo waypoint : waypoints) {
+            List<OrderInfoDTO> owned = waypoint.getOrderId() != null
+                    ? List.of(ordersById.get(waypoint.getOrderId()))
+                    : ordersByLeader.getOrDefault(waypoint.getLeaderId(), List.of());
+            List<OrderInfoDTO> fresh = owned.stream().filter(order -> assigned.add(order.getOrderId())).toList();
+            result.put(waypoint, fresh);
+        }
+
+        List<Long> unassigned = orders.stream()
+                .map(OrderInfoDTO::getOrderId)
+                .filter(orderId -> !assigned.contains(orderId))
+                .toList();
+        if (!unassigned.isEmpty()) {
+            throw new BusinessException("以下订单的配送点缺少坐标，无法分配车辆：" + unassigned);
+        }
+        return result;
+    }
+
+    /**
+     * 仓库坐标
+     */
+    private RouteRequest.Coordinate toCoordinate(WarehouseConfig warehouse) {
+        return new RouteRequest.Coordinate(
+                warehouse.getLongitude(),
+                warehouse.getLatitude(),
+                warehouse.getId(),
+                warehouse.getWarehouseName(),
+                DistanceMatrixCache.warehouseKey(warehouse.getId())
+        );
+    }
+
+    /**
+     * 终点仓库坐标（不回仓库返回null）
+     */
+    private RouteRequest.Coordinate resolveEnd(BatchShipRequest request) {
+        if (request.getEndWarehouseId() == null) {
+            return null;
+        }
+        return toCoordinate(warehouseService.getWarehouseById(request.getEndWarehouseId()));
+    }
+
+    /**
+     * 负责团长ID（取第一个订单的团长）⭐⭐⭐
+     * 所有订单都有团长（拼团订单或普通订单自动分配），配送单也必须有负责团长
+     */
+    private Long resolveLeaderId(List<OrderInfoDTO> orders) {
+        if (orders.isEmpty()) {
+            throw new BusinessException("订单列表为空，无法确定负责团长");
+        }
+        Long leaderId = orders.get(0).getLeaderId();
+        log.info("设置配送单负责团长: leaderId={}", leaderId);
+        return leaderId;
+    }
+
     /**
      * 验证订单状态
      * 
@@ -228,6 +351,8 @@ public class BatchShipService {
             WaypointInfo waypoint = new WaypointInfo();
             waypoint.setSequence(sequence++);
             waypoint.setOrderId(null); // 团长团点模式，途经点不关联具体订单
+            waypoint.setLeaderId(store.getLeaderId());
+            waypoint.setPointId(DistanceMatrixCache.storeKey(store.getStoreId()));
             // 拼接完整地址
             String fullAddress = (store.getProvince() != null ? store.getProvince() : "") +
                                  (store.getCity() != null ? store.getCity() : "") +
@@ -289,6 +414,8 @@ public class BatchShipService {
             WaypointInfo waypoint = new WaypointInfo();
             waypoint.setSequence(sequence++);
             waypoint.setOrderId(order.getOrderId());
+            waypoint.setLeaderId(order.getLeaderId());
+            waypoint.setPointId(DistanceMatrixCache.addressKey(address.getAddressId()));
             waypoint.setAddress(address.getFullAddress());
             waypoint.setLongitude(address.getLongitude());
             waypoint.setLatitude(address.getLatitude());
@@ -335,10 +462,10 @@ public class BatchShipService {
      */
     private DeliveryEntity createDelivery(BatchShipRequest request,
                                            String dispatchGroup,
-                                           WarehouseConfig startWarehouse,
                                            RouteResult routeResult,
                                            List<WaypointInfo> waypoints,
-                                           List<OrderInfoDTO> orders) {
+                                           List<Long> orderIds,
+                                           Long leaderId) {
         DeliveryEntity delivery = new DeliveryEntity();
 
         // 基本信息
@@ -349,19 +476,12 @@ public class BatchShipService {
         delivery.setWaypointCount(waypoints.size());
         delivery.setCreatedBy(request.getCreatedBy());
 
-        // 设置负责团长ID（从订单中提取第一个团长ID）⭐⭐⭐
-        // 所有订单都有团长（拼团订单或普通订单自动分配），配送单也必须有负责团长
-        if (!orders.isEmpty()) {
-            Long leaderId = orders.get(0).getLeaderId();
-            delivery.setLeaderId(leaderId);
-            log.info("设置配送单负责团长: leaderId={}", leaderId);
-        } else {
-            throw new BusinessException("订单列表为空，无法确定负责团长");
-        }
+        // 负责团长ID
+        delivery.setLeaderId(leaderId);
 
         // 订单ID列表（JSON）
         try {
-            delivery.setOrderIds(objectMapper.writeValueAsString(request.getOrderIds()));
+            delivery.setOrderIds(objectMapper.writeValueAsString(orderIds));
         } catch (JsonProcessingException e) {
             throw new BusinessException("订单ID列表序列化失败");
         }
@@ -378,6 +498,7 @@ public class BatchShipService {
         delivery.setDistance(routeResult.getTotalDistance());
         delivery.setEstimatedDuration(routeResult.getEstimatedDuration());
         delivery.setAlgorithmUsed(routeResult.getAlgorithmUsed());
+        delivery.setImprovementRatio(routeResult.getImprovementRatio());
         delivery.setRouteStrategy(request.getRouteStrategy());
 
         // 生成地图展示数据
@@ -412,6 +533,24 @@ public class BatchShipService {
         log.info("订单状态更新成功，更新数量={}", result.getData());
     }
 
+    /**
+     * 多车发货：一次批量更新所有车辆的订单为"配送中"
+     */
+    private void updateFleetOrdersToShipping(List<ShippingAssignment> assignments, int expected) {
+        log.info("开始多车批量更新订单状态，车辆数={}", assignments.size());
+
+        var result = orderServiceClient.batchUpdateToShippingFleet(assignments);
+
+        if (result.getCode() != 200) {
+            throw new BusinessException("更新订单状态失败：" + result.getMessage());
+        }
+        if (result.getData() == null || result.getData() < expected) {
+            throw new BusinessException(String.format("更新订单状态失败：预期%d条，实际%s条", expected, result.getData()));
+        }
+
+        log.info("订单状态更新成功，更新数量={}", result.getData());
+    }
+
     /**
      * 构建批量发货响应
      */
@@ -440,6 +579,7 @@ public class BatchShipService {
         response.setEstimatedDuration(delivery.getEstimatedDuration());
         response.setWaypoints(waypoints);
         response.setAlgorithmUsed(delivery.getAlgorithmUsed());
+        response.setImprovementRatio(delivery.getImprovementRatio());
         response.setMessage("批量发货成功，已生成配送单");
 
         return response;
@@ -1,5 +1,6 @@
 package com.bcu.edu.service;
 
+import com.bcu.edu.algorithm.DistanceMatrixCache;
 import com.bcu.edu.common.exception.BusinessException;
 import com.bcu.edu.dto.DeliveryDetailDTO;
 import com.bcu.edu.dto.RouteRequest;
@@ -148,7 +149,8 @@ public class DeliveryService {
                 warehouse.getLongitude(),
                 warehouse.getLatitude(),
                 warehouse.getId(),
-                warehouse.getWarehouseName()
+                warehouse.getWarehouseName(),
+                DistanceMatrixCache.warehouseKey(warehouse.getId())
         );
 
         // 5. 构建路径规划请求
@@ -164,7 +166,8 @@ public class DeliveryService {
                     endWarehouse.getLongitude(),
                     endWarehouse.getLatitude(),
                     endWarehouse.getId(),
-                    endWarehouse.getWarehouseName()
+                    endWarehouse.getWarehouseName(),
+                    DistanceMatrixCache.warehouseKey(endWarehouse.getId())
             );
             request.setEnd(end);
         }
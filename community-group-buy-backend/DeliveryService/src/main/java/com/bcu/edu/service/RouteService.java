@@ -1,11 +1,13 @@
 package com.bcu.edu.service;
 
 import com.bcu.edu.algorithm.DijkstraAlgorithm;
+import com.bcu.edu.algorithm.RoutePlanCache;
 import com.bcu.edu.dto.RouteRequest;
 import com.bcu.edu.dto.RouteResult;
 import com.bcu.edu.dto.WaypointInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,7 +17,7 @@ import java.util.List;
  * 
  * <p>功能：
  * <ul>
- *   <li>调用Dijkstra算法计算最优路径</li>
+ *   <li>调用Dijkstra算法计算最优路径（按途经点集合缓存规划结果）</li>
  *   <li>生成地图展示数据</li>
  *   <li>路径优化与调整</li>
  * </ul>
@@ -29,11 +31,13 @@ import java.util.List;
 public class RouteService {
 
     private final DijkstraAlgorithm dijkstraAlgorithm;
+    private final RoutePlanCache routePlanCache;
 
     /**
      * 最大途经点数量限制
      */
-    private static final int MAX_WAYPOINTS = 30;
+    @Value("${delivery.route.max-waypoints:500}")
+    private int maxWaypoints;
 
     /**
      * 规划路径（使用Dijkstra算法）
@@ -50,11 +54,22 @@ public class RouteService {
         // 1. 校验途经点数量
         validateWaypointCount(request.getWaypoints().size());
 
-        // 2. 调用Dijkstra算法
-        RouteResult result = dijkstraAlgorithm.calculateRoute(request);
+        // 2. 查找缓存的规划（同一途经点集合直接复用顺序，只差一两个点时增量修复）
+        RoutePlanCache.Lookup cached = routePlanCache.lookup(request);
+        RouteResult result = switch (cached.kind()) {
+            case HIT -> dijkstraAlgorithm.calculateRoute(request, cached.tour(), false);
+            case REPAIR -> dijkstraAlgorithm.calculateRoute(request, cached.tour(), true);
+            case MISS -> dijkstraAlgorithm.calculateRoute(request);
+        };
+        if (result.isConverged()) {
+            // 时间预算内未收敛的修复结果不缓存，避免之后被当作精确命中复用
+            routePlanCache.put(request, result.getPathSequence());
+        }
+        log.debug("路径规划缓存：{}", cached.kind());
 
-        log.info("路径规划完成，总距离={}米，预估时间={}分钟", 
-                result.getTotalDistance(), result.getEstimatedDuration());
+        log.info("路径规划完成，总距离={}米，预估时间={}分钟，算法={}，优化比例={}", 
+                result.getTotalDistance(), result.getEstimatedDuration(),
+                result.getAlgorithmUsed(), result.getImprovementRatio());
 
         return result;
     }
@@ -66,10 +81,10 @@ public class RouteService {
         if (count == 0) {
             throw new IllegalArgumentException("途经点列表不能为空");
         }
-        if (count > MAX_WAYPOINTS) {
+        if (count > maxWaypoints) {
             throw new IllegalArgumentException(
                     String.format("途经点数量不能超过%d个，当前%d个，建议分批发货", 
-                            MAX_WAYPOINTS, count)
+                            maxWaypoints, count)
             );
         }
     }
@@ -125,7 +140,8 @@ public class RouteService {
                         wp.getLongitude(),
                         wp.getLatitude(),
                         wp.getOrderId(),
-                        wp.getAddress()
+                        wp.getAddress(),
+                        wp.getPointId()
                 ))
                 .toList();
     }
@@ -0,0 +1,148 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.algorithm.SweepPartitioner;
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.dto.RouteRequest;
+import com.bcu.edu.dto.RouteResult;
+import com.bcu.edu.dto.WaypointInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 多车路径规划服务（⭐容量约束VRP）
+ *
+ * <p>流程：
+ * <ol>
+ *   <li>扫描法按车辆数/单车容量把途经点分簇（{@link SweepPartitioner}），簇数超出车队时在容量内合并相邻簇</li>
+ *   <li>各簇在 ForkJoin 线程池中并行求解单车路径（{@link RouteService#planRoute}）</li>
+ *   <li>预估时长超过 maxRouteDuration 的簇按扫描顺序一分为二重新求解，直到全部满足</li>
+ *   <li>最终车辆数超过车队规模时拒绝（提示需要的车辆数）</li>
+ * </ol>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VehicleRoutingService {
+
+    private final SweepPartitioner sweepPartitioner;
+    private final RouteService routeService;
+
+    /**
+     * 并行求解线程数
+     */
+    @Value("${delivery.vrp.parallelism:4}")
+    private int parallelism;
+
+    private ForkJoinPool routePool;
+
+    @PostConstruct
+    public void init() {
+        routePool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        routePool.shutdown();
+    }
+
+    /**
+     * 多车规划
+     *
+     * @param start 起点仓库
+     * @param end 终点仓库（可选）
+     * @param strategy 路径策略
+     * @param waypoints 途经点
+     * @param demands 每个途经点的需求（订单数）
+     * @param vehicleCount 车辆数（可选）
+     * @param vehicleCapacity 单车容量（订单数，可选）
+     * @param maxRouteDuration 单车最长配送时间（分钟，可选）
+     * @return 每辆车的路线
+     */
+    public List<VehicleRoute> plan(RouteRequest.Coordinate start, RouteRequest.Coordinate end, Integer strategy,
+                                   List<WaypointInfo> waypoints, int[] demands,
+                                   Integer vehicleCount, Integer vehicleCapacity, Integer maxRouteDuration) {
+        int n = waypoints.size();
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = waypoints.get(i).getLatitude().doubleValue();
+            lngs[i] = waypoints.get(i).getLongitude().doubleValue();
+        }
+        double depotLat = start.getLatitude().doubleValue();
+        double depotLng = start.getLongitude().doubleValue();
+
+        // 1. 均衡分簇；因点需求粒度导致车辆数超出时，在容量内合并相邻簇（合并不了的由第3步拒绝）
+        List<List<Integer>> clusters = sweepPartitioner.partition(
+                depotLat, depotLng, lats, lngs, demands, vehicleCapacity, vehicleCount);
+        if (vehicleCount != null && clusters.size() > vehicleCount) {
+            clusters = sweepPartitioner.mergeToVehicles(clusters, demands, vehicleCapacity, vehicleCount);
+        }
+
+        // 2. 并行求解，超时长的簇拆分后再求解
+        List<VehicleRoute> routes = new ArrayList<>();
+        Deque<List<Integer>> pending = new ArrayDeque<>(clusters);
+        while (!pending.isEmpty()) {
+            List<List<Integer>> round = new ArrayList<>(pending);
+            pending.clear();
+
+            List<ForkJoinTask<RouteResult>> tasks = round.stream()
+                    .map(cluster -> routePool.submit(() -> routeService.planRoute(
+                            buildRequest(start, end, strategy, waypoints, cluster))))
+                    .toList();
+
+            for (int i = 0; i < round.size(); i++) {
+                List<Integer> cluster = round.get(i);
+                RouteResult result = tasks.get(i).join();
+                if (maxRouteDuration != null && cluster.size() > 1
+                        && result.getEstimatedDuration() > maxRouteDuration) {
+                    int mid = cluster.size() / 2;
+                    pending.add(new ArrayList<>(cluster.subList(0, mid)));
+                    pending.add(new ArrayList<>(cluster.subList(mid, cluster.size())));
+                    continue;
+                }
+                routes.add(new VehicleRoute(cluster.stream().map(waypoints::get).toList(), result));
+            }
+        }
+
+        if (vehicleCount != null && routes.size() > vehicleCount) {
+            throw new BusinessException(String.format(
+                    "车辆不足：在容量和时长约束下需要%d辆车，当前车队%d辆", routes.size(), vehicleCount));
+        }
+
+        log.info("多车路径规划完成，途经点数量={}，车辆数={}", n, routes.size());
+        return routes;
+    }
+
+    private RouteRequest buildRequest(RouteRequest.Coordinate start, RouteRequest.Coordinate end, Integer strategy,
+                                      List<WaypointInfo> waypoints, List<Integer> cluster) {
+        RouteRequest request = new RouteRequest();
+        request.setStart(start);
+        request.setEnd(end);
+        request.setStrategy(strategy);
+        request.setWaypoints(routeService.extractCoordinates(cluster.stream().map(waypoints::get).toList()));
+        return request;
+    }
+
+    /**
+     * 单车路线
+     *
+     * @param waypoints 该车途经点（与路径序列索引对应，索引i+1对应waypoints[i]）
+     * @param routeResult 路径结果
+     */
+    public record VehicleRoute(List<WaypointInfo> waypoints, RouteResult routeResult) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.bcu.edu.service;
 
+import com.bcu.edu.algorithm.DistanceMatrixCache;
 import com.bcu.edu.common.exception.BusinessException;
 import com.bcu.edu.entity.WarehouseConfig;
 import com.bcu.edu.repository.WarehouseConfigRepository;
@@ -22,6 +23,7 @@ import java.util.List;
 public class WarehouseService {
 
     private final WarehouseConfigRepository warehouseRepository;
+    private final DistanceMatrixCache distanceMatrixCache;
 
     /**
      * 查询所有启用的仓库
@@ -109,6 +111,7 @@ public class WarehouseService {
 
         // 4. 保存更新
         WarehouseConfig updated = warehouseRepository.save(existing);
+        distanceMatrixCache.invalidate(DistanceMatrixCache.warehouseKey(id));
         log.info("仓库更新成功，ID={}", id);
 
         return updated;
@@ -129,6 +132,7 @@ public class WarehouseService {
 
         // 3. 删除仓库
         warehouseRepository.deleteById(id);
+        distanceMatrixCache.invalidate(DistanceMatrixCache.warehouseKey(id));
         log.info("仓库删除成功，ID={}", id);
     }
 
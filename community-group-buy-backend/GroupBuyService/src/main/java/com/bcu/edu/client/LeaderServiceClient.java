@@ -6,6 +6,10 @@ import com.bcu.edu.dto.response.CommunityDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 /**
  * LeaderService Feign客户端
@@ -13,6 +17,7 @@ import org.springframework.web.bind.annotation.PathVariable;
  * <p>功能：
  * <ul>
  *   <li>获取社区信息（查询团详情时展示社区名称）</li>
+ *   <li>批量获取社区信息（列表页批量加载）</li>
  * </ul>
  * 
  * @author 耿康瑞
@@ -36,5 +41,19 @@ public interface LeaderServiceClient {
      */
     @GetMapping("/feign/community/{communityId}")
     Result<CommunityDTO> getCommunity(@PathVariable("communityId") Long communityId);
+    
+    /**
+     * 批量获取社区信息
+     * 
+     * <p>应用场景：
+     * <ul>
+     *   <li>团列表、我的拼团批量加载社区名称（避免N+1调用）</li>
+     * </ul>
+     * 
+     * @param communityIds 社区ID列表
+     * @return Result<List<CommunityDTO>>（不存在的ID不返回）
+     */
+    @PostMapping("/feign/community/batch")
+    Result<List<CommunityDTO>> getCommunities(@RequestBody List<Long> communityIds);
 }
 
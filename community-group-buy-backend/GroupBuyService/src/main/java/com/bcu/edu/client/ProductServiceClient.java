@@ -6,6 +6,10 @@ import com.bcu.edu.dto.response.ProductDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 /**
  * ProductService Feign客户端
@@ -13,6 +17,7 @@ import org.springframework.web.bind.annotation.PathVariable;
  * <p>功能：
  * <ul>
  *   <li>获取商品信息（创建活动时验证商品存在）</li>
+ *   <li>批量获取商品信息（列表页批量加载）</li>
  * </ul>
  * 
  * @author 耿康瑞
@@ -35,5 +40,19 @@ public interface ProductServiceClient {
      */
     @GetMapping("/api/product/feign/{productId}/info")
     Result<ProductDTO> getProduct(@PathVariable("productId") Long productId);
+    
+    /**
+     * 批量获取商品信息
+     * 
+     * <p>应用场景：
+     * <ul>
+     *   <li>团列表、我的拼团批量加载商品名称和图片（避免N+1调用）</li>
+     * </ul>
+     * 
+     * @param productIds 商品ID列表
+     * @return Result<List<ProductDTO>>（不存在的ID不返回）
+     */
+    @PostMapping("/api/product/feign/batch")
+    Result<List<ProductDTO>> getProducts(@RequestBody List<Long> productIds);
 }
 
@@ -0,0 +1,146 @@
+package com.bcu.edu.client;
+
+import com.bcu.edu.common.result.Result;
+import com.bcu.edu.dto.response.CommunityDTO;
+import com.bcu.edu.dto.response.ProductDTO;
+import com.bcu.edu.dto.response.UserInfoDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 远程数据批量加载器（⭐列表接口去N+1）
+ *
+ * <p>用法：一次响应先收集需要的用户/社区/商品ID，再调用 {@link #load} 一次性加载：
+ * <ul>
+ *   <li>ID去重，每个下游服务只发一次批量请求</li>
+ *   <li>三个服务的请求并行执行，耗时取最慢的一个</li>
+ *   <li>单个服务失败或超时只影响对应字段（降级为空），不影响整个列表</li>
+ * </ul>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+@Slf4j
+public class RemoteBatchLoader {
+
+    @Autowired
+    private UserServiceClient userServiceClient;
+
+    @Autowired
+    private LeaderServiceClient leaderServiceClient;
+
+    @Autowired
+    private ProductServiceClient productServiceClient;
+
+    @Autowired
+    @Qualifier("remoteLoadExecutor")
+    private Executor remoteLoadExecutor;
+
+    /**
+     * 单个批量请求超时时间（毫秒）
+     */
+    @Value("${groupbuy.remote-load.timeout-ms:3000}")
+    private long timeoutMs;
+
+    /**
+     * 批量加载（三个服务并行）
+     *
+     * @param userIds 用户ID（团长、成员）
+     * @param communityIds 社区ID
+     * @param productIds 商品ID
+     * @return 加载结果
+     */
+    public RemoteData load(Collection<Long> userIds, Collection<Long> communityIds, Collection<Long> productIds) {
+        CompletableFuture<Map<Long, UserInfoDTO>> users = fetch("用户", userIds,
+            ids -> userServiceClient.getUsersByIds(ids), UserInfoDTO::getUserId);
+        CompletableFuture<Map<Long, CommunityDTO>> communities = fetch("社区", communityIds,
+            ids -> leaderServiceClient.getCommunities(ids), CommunityDTO::getCommunityId);
+        CompletableFuture<Map<Long, ProductDTO>> products = fetch("商品", productIds,
+            ids -> productServiceClient.getProducts(ids), ProductDTO::getProductId);
+
+        return new RemoteData(users.join(), communities.join(), products.join());
+    }
+
+    /**
+     * 加载单个商品（复用批量接口）
+     */
+    public ProductDTO loadProduct(Long productId) {
+        return load(List.of(), List.of(), List.of(productId)).product(productId);
+    }
+
+    private <T> CompletableFuture<Map<Long, T>> fetch(String name, Collection<Long> ids,
+                                                       Function<List<Long>, Result<List<T>>> call,
+                                                       Function<T, Long> idOf) {
+        Set<Long> distinct = ids == null ? Set.of() : ids.stream()
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinct.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+
+        List<Long> request = new ArrayList<>(distinct);
+        Supplier<Map<Long, T>> task = () -> {
+            Result<List<T>> result = call.apply(request);
+            if (result == null || result.getCode() != 200 || result.getData() == null) {
+                log.warn("批量获取{}信息失败，ids={}", name, request);
+                return Map.of();
+            }
+            return result.getData().stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(idOf, Function.identity(), (a, b) -> a));
+        };
+
+        return CompletableFuture.supplyAsync(task, remoteLoadExecutor)
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .exceptionally(e -> {
+                log.warn("批量获取{}信息异常，ids={}: {}", name, request, e.getMessage());
+                return Map.of();
+            });
+    }
+
+    /**
+     * 一次响应所需的远程数据
+     */
+    public static class RemoteData {
+        private final Map<Long, UserInfoDTO> users;
+        private final Map<Long, CommunityDTO> communities;
+        private final Map<Long, ProductDTO> products;
+
+        RemoteData(Map<Long, UserInfoDTO> users, Map<Long, CommunityDTO> communities,
+                   Map<Long, ProductDTO> products) {
+            this.users = users;
+            this.communities = communities;
+            this.products = products;
+        }
+
+        public UserInfoDTO user(Long userId) {
+            return userId == null ? null : users.get(userId);
+        }
+
+        public CommunityDTO community(Long communityId) {
+            return communityId == null ? null : communities.get(communityId);
+        }
+
+        public ProductDTO product(Long productId) {
+            return productId == null ? null : products.get(productId);
+        }
+    }
+}
@@ -7,9 +7,11 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * UserService Feign客户端（⭐核心客户端）
@@ -17,6 +19,7 @@ import java.math.BigDecimal;
  * <p>功能：
  * <ul>
  *   <li>获取用户信息（验证团长身份、获取社区ID）</li>
+ *   <li>批量获取用户信息（列表页批量加载）</li>
  *   <li>退款到用户余额（定时任务退款、中途退出退款）</li>
  * </ul>
  * 
@@ -41,6 +44,20 @@ public interface UserServiceClient {
     @GetMapping("/api/user/feign/info/{userId}")
     Result<UserInfoDTO> getUserInfo(@PathVariable("userId") Long userId);
     
+    /**
+     * 批量获取用户信息
+     * 
+     * <p>应用场景：
+     * <ul>
+     *   <li>团列表、我的拼团批量加载团长和成员信息（避免N+1调用）</li>
+     * </ul>
+     * 
+     * @param userIds 用户ID列表
+     * @return Result<List<UserInfoDTO>>（不存在的ID不返回）
+     */
+    @PostMapping("/feign/user/batch")
+    Result<List<UserInfoDTO>> getUsersByIds(@RequestBody List<Long> userIds);
+    
     /**
      * 退款到用户余额
      * 
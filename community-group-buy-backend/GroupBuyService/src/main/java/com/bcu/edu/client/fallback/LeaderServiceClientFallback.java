@@ -6,6 +6,8 @@ import com.bcu.edu.dto.response.CommunityDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * LeaderService Feign客户端降级处理
  * 
@@ -22,5 +24,11 @@ public class LeaderServiceClientFallback implements LeaderServiceClient {
         // 社区信息非必需，降级返回null
         return Result.success(null);
     }
+    
+    @Override
+    public Result<List<CommunityDTO>> getCommunities(List<Long> communityIds) {
+        log.warn("LeaderService批量查询失败，communityIds={}，返回空列表", communityIds);
+        return Result.success(List.of());
+    }
 }
 
@@ -8,6 +8,8 @@ import com.bcu.edu.dto.response.ProductDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * ProductService Feign客户端降级处理
  * 
@@ -24,5 +26,12 @@ public class ProductServiceClientFallback implements ProductServiceClient {
         throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE, 
             "商品服务暂时不可用，请稍后重试");
     }
+    
+    @Override
+    public Result<List<ProductDTO>> getProducts(List<Long> productIds) {
+        log.warn("ProductService批量查询失败，productIds={}，返回空列表", productIds);
+        // 列表页商品信息降级展示"商品ID-xxx"
+        return Result.success(List.of());
+    }
 }
 
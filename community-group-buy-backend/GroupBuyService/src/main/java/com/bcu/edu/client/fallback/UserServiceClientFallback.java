@@ -9,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * UserService Feign客户端降级处理
@@ -27,6 +28,13 @@ public class UserServiceClientFallback implements UserServiceClient {
             "用户服务暂时不可用，请稍后重试");
     }
     
+    @Override
+    public Result<List<UserInfoDTO>> getUsersByIds(List<Long> userIds) {
+        log.warn("UserService批量查询失败，userIds={}，返回空列表", userIds);
+        // 用户信息仅用于列表展示，降级返回空列表
+        return Result.success(List.of());
+    }
+    
     @Override
     public Result<Void> refundToBalance(Long userId, BigDecimal amount) {
         log.error("UserService退款调用失败，userId={}, amount={}", userId, amount);
@@ -0,0 +1,35 @@
+package com.bcu.edu.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 远程批量加载线程池配置
+ * 
+ * <p>用于并行调用User/Leader/Product三个服务的批量接口
+ * 
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Configuration
+public class RemoteLoadConfig {
+
+    /**
+     * 批量加载专用线程池
+     */
+    @Bean("remoteLoadExecutor")
+    public Executor remoteLoadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(6);
+        executor.setMaxPoolSize(24);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("remote-load-");
+        // 线程池满时由调用线程执行，退化为串行但不丢请求
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
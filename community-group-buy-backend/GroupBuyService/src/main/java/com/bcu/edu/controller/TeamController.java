@@ -6,6 +6,7 @@ import com.bcu.edu.dto.request.LaunchTeamRequest;
 import com.bcu.edu.dto.response.JoinResult;
 import com.bcu.edu.dto.response.MyTeamResponse;
 import com.bcu.edu.dto.response.TeamDetailResponse;
+import com.bcu.edu.service.PaymentCallbackPipeline;
 import com.bcu.edu.service.RefundService;
 import com.bcu.edu.service.TeamService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -47,6 +48,9 @@ public class TeamController {
     @Autowired
     private RefundService refundService;
     
+    @Autowired
+    private PaymentCallbackPipeline paymentCallbackPipeline;
+    
     /**
      * 团长发起拼团（⭐v3.0核心接口）
      * 
@@ -110,15 +114,16 @@ public class TeamController {
     /**
      * 支付回调（⭐核心接口，内部调用）
      * 
-     * <p>由PaymentService回调通知
+     * <p>由PaymentService回调通知，写入回调收件箱后返回"已受理"，按团批量落库；
+     * 收件箱写入失败时返回失败
      */
     @PostMapping("/payment/callback")
-    @Operation(summary = "支付回调", description = "PaymentService回调通知，触发成团检查")
+    @Operation(summary = "支付回调", description = "PaymentService回调通知，受理后异步按团批量触发成团检查")
     public Result<Void> paymentCallback(@RequestParam("orderId") Long orderId) {
         log.info("收到支付回调，orderId={}", orderId);
         
-        teamService.paymentCallback(orderId);
-        return Result.success();
+        paymentCallbackPipeline.accept(orderId);
+        return Result.success("支付回调已受理");
     }
     
     /**
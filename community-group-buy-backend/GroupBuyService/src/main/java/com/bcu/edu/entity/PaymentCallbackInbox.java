@@ -0,0 +1,67 @@
+package com.bcu.edu.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 支付回调收件箱实体
+ *
+ * <p>表名: payment_callback_inbox
+ * <p>说明: 支付回调先落库再返回成功，处理成功后在同一事务内删除；
+ * 行仍存在即表示回调未处理完成，重启或多次失败后由补偿扫描重新投递
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Entity
+@Table(name = "payment_callback_inbox")
+@Data
+@NoArgsConstructor
+public class PaymentCallbackInbox {
+
+    /**
+     * 订单ID（主键，同一订单只保留一条）
+     */
+    @Id
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    /**
+     * 团ID
+     */
+    @Column(name = "team_id", nullable = false)
+    private Long teamId;
+
+    /**
+     * 已失败次数
+     */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    /**
+     * 团已结束、待退款（参团已取消，事务提交后退款，成功后删除本行；失败由补偿扫描重试）
+     */
+    @Column(name = "refund_pending", nullable = false)
+    private Boolean refundPending = false;
+
+    /**
+     * 受理时间
+     */
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "update_time", nullable = false)
+    private LocalDateTime updateTime;
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -55,6 +56,16 @@ public interface MemberRepository extends JpaRepository<GroupBuyMember, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<GroupBuyMember> findByOrderIdForUpdate(@Param("orderId") Long orderId);
     
+    /**
+     * 通过订单ID批量查询并加行锁（支付回调批处理使用）
+     * 
+     * @param orderIds 订单ID列表
+     * @return 参团记录列表
+     */
+    @Query("SELECT m FROM GroupBuyMember m WHERE m.orderId IN :orderIds")
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<GroupBuyMember> findByOrderIdInForUpdate(@Param("orderIds") Collection<Long> orderIds);
+    
     /**
      * 查询团的所有成员（按参团时间升序）
      * 
@@ -63,6 +74,14 @@ public interface MemberRepository extends JpaRepository<GroupBuyMember, Long> {
      */
     List<GroupBuyMember> findByTeamIdOrderByJoinTimeAsc(Long teamId);
     
+    /**
+     * 批量查询多个团的成员（按参团时间升序，列表页批量加载使用）
+     * 
+     * @param teamIds 团ID列表
+     * @return 成员列表
+     */
+    List<GroupBuyMember> findByTeamIdInOrderByJoinTimeAsc(Collection<Long> teamIds);
+    
     /**
      * 查询用户参与的所有团（按参团时间倒序）
      * 
@@ -0,0 +1,83 @@
+package com.bcu.edu.repository;
+
+import com.bcu.edu.entity.PaymentCallbackInbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 支付回调收件箱Repository
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Repository
+public interface PaymentCallbackInboxRepository extends JpaRepository<PaymentCallbackInbox, Long> {
+
+    /**
+     * 登记回调（重复回调忽略，独立提交后才向PaymentService返回成功）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO payment_callback_inbox " +
+           "(order_id, team_id, attempts, refund_pending, create_time, update_time) " +
+           "VALUES (:orderId, :teamId, 0, 0, :now, :now)",
+           nativeQuery = true)
+    int register(@Param("orderId") Long orderId,
+                 @Param("teamId") Long teamId,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * 删除已处理的回调（与参团状态更新在同一事务内）
+     */
+    @Modifying
+    @Query("DELETE FROM PaymentCallbackInbox i WHERE i.orderId IN :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * 标记待退款（与取消参团在同一事务内）
+     */
+    @Modifying
+    @Query("UPDATE PaymentCallbackInbox i SET i.refundPending = true, i.updateTime = :now " +
+           "WHERE i.orderId IN :orderIds")
+    int markRefundPending(@Param("orderIds") Collection<Long> orderIds,
+                          @Param("now") LocalDateTime now);
+
+    /**
+     * 查询待退款的回调
+     */
+    @Query("SELECT i.orderId FROM PaymentCallbackInbox i WHERE i.orderId IN :orderIds AND i.refundPending = true")
+    List<Long> findRefundPendingOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * 退款成功后删除（在回调事务提交后调用，使用独立事务）
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("DELETE FROM PaymentCallbackInbox i WHERE i.orderId = :orderId AND i.refundPending = true")
+    int deleteRefunded(@Param("orderId") Long orderId);
+
+    /**
+     * 记录一次处理失败
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaymentCallbackInbox i SET i.attempts = i.attempts + 1, i.lastError = :error, " +
+           "i.updateTime = :now WHERE i.orderId IN :orderIds")
+    int recordFailure(@Param("orderIds") Collection<Long> orderIds,
+                      @Param("error") String error,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * 查询受理时间早于指定时间的未完成回调（补偿扫描）
+     */
+    List<PaymentCallbackInbox> findTop1000ByCreateTimeBeforeOrderByCreateTimeAsc(LocalDateTime before);
+}
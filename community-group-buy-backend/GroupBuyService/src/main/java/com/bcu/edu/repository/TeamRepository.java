@@ -57,6 +57,14 @@ public interface TeamRepository extends JpaRepository<GroupBuyTeam, Long> {
     @Query("SELECT t.teamId FROM GroupBuyTeam t WHERE t.teamStatus = 0 AND t.expireTime < :now")
     List<Long> findExpiredTeamIds(@Param("now") LocalDateTime now);
     
+    /**
+     * 查询拼团中团的过期时间（时间轮启动重建使用）
+     * 
+     * @return [teamId, expireTime] 列表
+     */
+    @Query("SELECT t.teamId, t.expireTime FROM GroupBuyTeam t WHERE t.teamStatus = 0")
+    List<Object[]> findJoiningTeamExpireTimes();
+    
     /**
      * 查询活动的团列表（社区优先排序）⭐v3.0核心
      * 
@@ -4,6 +4,7 @@ import com.bcu.edu.client.LeaderServiceClient;
 import com.bcu.edu.client.ProductServiceClient;
 import com.bcu.edu.client.UserServiceClient;
 import com.bcu.edu.common.annotation.OperationLog;
+import com.bcu.edu.common.cache.ProductNearCache;
 import com.bcu.edu.common.exception.BusinessException;
 import com.bcu.edu.common.result.Result;
 import com.bcu.edu.dto.response.*;
@@ -52,6 +53,9 @@ public class GroupBuyService {
     @Autowired
     private ProductServiceClient productServiceClient;
     
+    @Autowired
+    private ProductNearCache<ProductDTO> productNearCache;
+    
     @Autowired
     private UserServiceClient userServiceClient;
     
@@ -185,7 +189,7 @@ public class GroupBuyService {
     private ActivityWithProductResponse buildActivityWithProduct(GroupBuy activity) {
         try {
             // 获取商品信息
-            Result<ProductDTO> productResult = productServiceClient.getProduct(activity.getProductId());
+            Result<ProductDTO> productResult = productNearCache.getProduct(activity.getProductId());
             
             if (productResult == null || productResult.getCode() != 200 || productResult.getData() == null) {
                 log.warn("获取商品{}信息失败", activity.getProductId());
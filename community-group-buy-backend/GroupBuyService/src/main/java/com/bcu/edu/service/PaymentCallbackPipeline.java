@@ -0,0 +1,272 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.entity.GroupBuyMember;
+import com.bcu.edu.entity.PaymentCallbackInbox;
+import com.bcu.edu.repository.MemberRepository;
+import com.bcu.edu.repository.PaymentCallbackInboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 支付回调批处理管道（⭐成团高并发核心）
+ *
+ * <p>PaymentService的回调先写入收件箱表 payment_callback_inbox（独立提交）再返回"已受理"，
+ * 后台按团批量落库：每个团每个周期只加一次团行锁、一次性更新所有成员状态和current_num，
+ * 并在同一事务内删除收件箱记录。收件箱写入失败时接口返回失败，回调不会只停留在内存中。
+ *
+ * <p>幂等性（按orderId恰好一次）：
+ * <ul>
+ *   <li>收件箱：order_id主键，重复回调 INSERT IGNORE</li>
+ *   <li>内存层：同一orderId在途时不重复入队</li>
+ *   <li>数据库层：参团记录status != UNPAID 则跳过（重启、重复投递、多实例补偿兜底）</li>
+ * </ul>
+ *
+ * <p>失败处理：整批回滚后逐条重试定位失败的回调，只有失败的回调重新入队并记录失败次数
+ * （同批其他回调不受牵连）；超过最大重试次数后移出内存队列，
+ * 收件箱记录保留，由补偿扫描（启动时 + 每 groupbuy.callback.recover-interval-ms）重新投递，
+ * 因此回调不会因重启或重试耗尽而丢失
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class PaymentCallbackPipeline {
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private PaymentCallbackInboxRepository callbackInboxRepository;
+
+    @Autowired
+    private TeamService teamService;
+
+    /**
+     * 是否启用异步批处理（关闭后受理线程内同步处理）
+     */
+    @Value("${groupbuy.callback.async:true}")
+    private boolean async;
+
+    /**
+     * 单个团每批最多处理的回调数
+     */
+    @Value("${groupbuy.callback.max-batch:200}")
+    private int maxBatch;
+
+    /**
+     * 单个回调在内存中的最大重试次数（之后交给补偿扫描）
+     */
+    @Value("${groupbuy.callback.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * 补偿扫描只处理受理超过该时长的回调（避免与正常批处理重复投递）
+     */
+    @Value("${groupbuy.callback.recover-min-age-seconds:60}")
+    private long recoverMinAgeSeconds;
+
+    /**
+     * 已受理未完成的订单 → 已重试次数
+     */
+    private final Map<Long, Integer> accepted = new ConcurrentHashMap<>();
+
+    /**
+     * 团ID → 待处理订单队列
+     */
+    private final Map<Long, Queue<Long>> pendingByTeam = new ConcurrentHashMap<>();
+
+    /**
+     * 受理支付回调（⭐落库后返回）
+     *
+     * @param orderId 订单ID
+     * @throws BusinessException 参团记录不存在；同步模式下处理失败
+     */
+    public void accept(Long orderId) {
+        GroupBuyMember member = memberRepository.findByOrderId(orderId)
+            .orElseThrow(() -> new BusinessException("参团记录不存在"));
+        Long teamId = member.getTeamId();
+
+        // 1. 写入收件箱（独立事务，提交后才算受理成功）⭐
+        callbackInboxRepository.register(orderId, teamId, LocalDateTime.now());
+
+        if (!async) {
+            applyNow(teamId, orderId);
+            return;
+        }
+
+        // 2. 在途去重 + 入队
+        if (enqueue(teamId, orderId)) {
+            log.info("支付回调已受理，orderId={}, teamId={}", orderId, teamId);
+        } else {
+            log.warn("重复支付回调（处理中），orderId={}", orderId);
+        }
+    }
+
+    /**
+     * 批量处理回调（每个团一个事务）
+     */
+    @Scheduled(fixedDelayString = "${groupbuy.callback.drain-interval-ms:100}")
+    public void drain() {
+        for (Long teamId : pendingByTeam.keySet()) {
+            drainTeam(teamId);
+        }
+    }
+
+    /**
+     * 启动时重新投递上次未处理完成的回调
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        recover(LocalDateTime.now());
+    }
+
+    /**
+     * 补偿扫描：重新投递收件箱中仍未完成的回调（重启遗留、重试耗尽）
+     */
+    @Scheduled(initialDelayString = "${groupbuy.callback.recover-interval-ms:60000}",
+               fixedDelayString = "${groupbuy.callback.recover-interval-ms:60000}")
+    public void recoverStale() {
+        recover(LocalDateTime.now().minusSeconds(recoverMinAgeSeconds));
+    }
+
+    /**
+     * 应用停止前处理完剩余回调（未处理完的仍在收件箱中，下次启动补偿）
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!pendingByTeam.isEmpty()) {
+            log.info("应用关闭，处理剩余支付回调，团数={}", pendingByTeam.size());
+            drain();
+        }
+    }
+
+    private void recover(LocalDateTime before) {
+        try {
+            List<PaymentCallbackInbox> stale = callbackInboxRepository
+                .findTop1000ByCreateTimeBeforeOrderByCreateTimeAsc(before);
+            int requeued = 0;
+            for (PaymentCallbackInbox inbox : stale) {
+                if (enqueue(inbox.getTeamId(), inbox.getOrderId())) {
+                    requeued++;
+                }
+            }
+            if (requeued > 0) {
+                log.warn("支付回调补偿：重新投递{}条未完成回调", requeued);
+            }
+        } catch (Exception e) {
+            log.error("支付回调补偿扫描失败", e);
+        }
+    }
+
+    private boolean enqueue(Long teamId, Long orderId) {
+        if (accepted.putIfAbsent(orderId, 0) != null) {
+            return false;
+        }
+        // 入队在compute内完成，避免与drain清理空队列竞争
+        pendingByTeam.compute(teamId, (id, queue) -> {
+            Queue<Long> q = queue != null ? queue : new ConcurrentLinkedQueue<>();
+            q.add(orderId);
+            return q;
+        });
+        return true;
+    }
+
+    private void applyNow(Long teamId, Long orderId) {
+        try {
+            teamService.applyPaymentBatch(teamId, List.of(orderId));
+        } catch (RuntimeException e) {
+            log.error("支付回调同步处理失败（收件箱保留，待补偿），orderId={}, teamId={}", orderId, teamId, e);
+            recordFailure(List.of(orderId), e);
+            throw e;
+        }
+    }
+
+    private void drainTeam(Long teamId) {
+        Queue<Long> queue = pendingByTeam.get(teamId);
+        if (queue == null) {
+            return;
+        }
+
+        List<Long> batch = new ArrayList<>();
+        Long orderId;
+        while (batch.size() < maxBatch && (orderId = queue.poll()) != null) {
+            batch.add(orderId);
+        }
+
+        if (batch.isEmpty()) {
+            pendingByTeam.computeIfPresent(teamId, (id, q) -> q.isEmpty() ? null : q);
+            return;
+        }
+
+        try {
+            int paid = teamService.applyPaymentBatch(teamId, batch);
+            batch.forEach(accepted::remove);
+            log.info("支付回调批处理完成，teamId={}, 回调数={}, 实际支付人数={}", teamId, batch.size(), paid);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.error("支付回调处理失败，teamId={}, orderId={}", teamId, batch.get(0), e);
+                recordFailure(batch, e);
+                retry(teamId, batch);
+                return;
+            }
+            log.warn("支付回调批处理失败，逐条重试，teamId={}, 回调数={}: {}", teamId, batch.size(), e.getMessage());
+            batch.forEach(id -> applySingle(teamId, id));
+        }
+    }
+
+    /**
+     * 单条处理（整批失败后定位失败的回调，只对失败的回调计失败次数）
+     */
+    private void applySingle(Long teamId, Long orderId) {
+        try {
+            teamService.applyPaymentBatch(teamId, List.of(orderId));
+            accepted.remove(orderId);
+        } catch (Exception e) {
+            log.error("支付回调处理失败，teamId={}, orderId={}", teamId, orderId, e);
+            recordFailure(List.of(orderId), e);
+            retry(teamId, List.of(orderId));
+        }
+    }
+
+    private void retry(Long teamId, List<Long> batch) {
+        for (Long orderId : batch) {
+            int attempts = accepted.merge(orderId, 1, Integer::sum);
+            if (attempts >= maxAttempts) {
+                accepted.remove(orderId);
+                log.error("支付回调重试{}次仍失败，转入补偿扫描，orderId={}, teamId={}", attempts, orderId, teamId);
+                continue;
+            }
+            pendingByTeam.compute(teamId, (id, queue) -> {
+                Queue<Long> q = queue != null ? queue : new ConcurrentLinkedQueue<>();
+                q.add(orderId);
+                return q;
+            });
+        }
+    }
+
+    private void recordFailure(List<Long> orderIds, Exception e) {
+        try {
+            String error = String.valueOf(e.getMessage());
+            callbackInboxRepository.recordFailure(orderIds,
+                error.length() > 500 ? error.substring(0, 500) : error, LocalDateTime.now());
+        } catch (Exception ex) {
+            log.warn("记录支付回调失败次数出错，orderIds={}", orderIds, ex);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -45,6 +46,9 @@ public class RefundService {
     @Autowired
     private PaymentServiceClient paymentServiceClient;
     
+    @Autowired
+    private TeamSeatReservationService seatReservationService;
+    
     /**
      * 过期团退款（⭐定时任务核心方法）
      * 
@@ -52,6 +56,7 @@ public class RefundService {
      * <ol>
      *   <li>查询团（加行锁）⭐</li>
      *   <li>幂等性检查（team_status != JOINING 则跳过）⭐</li>
+     *   <li>到期检查（expire_time 未到则跳过，与参团校验一致，避免提前关闭仍可参团的团）⭐</li>
      *   <li>标记团失败（JOINING → FAILED）</li>
      *   <li>查询已支付的成员</li>
      *   <li>遍历退款：Feign退款 + 更新订单 + 更新参团状态</li>
@@ -59,9 +64,10 @@ public class RefundService {
      * </ol>
      * 
      * @param teamId 团ID
+     * @return 团尚未到期返回false（调用方稍后重试），已处理或无需处理返回true
      */
     @Transactional(rollbackFor = Exception.class)
-    public void refundExpiredTeam(Long teamId) {
+    public boolean refundExpiredTeam(Long teamId) {
         // 1. 查询团（加行锁）⭐
         GroupBuyTeam team = teamRepository.findByIdForUpdate(teamId)
             .orElseThrow(() -> new BusinessException("团不存在"));
@@ -69,7 +75,13 @@ public class RefundService {
         // 2. 幂等性检查 ⭐
         if (team.getTeamStatus() != TeamStatus.JOINING.getCode()) {
             log.warn("团{}状态已变更，跳过退款，status={}", teamId, team.getTeamStatus());
-            return;  // 已处理过，直接返回
+            return true;  // 已处理过，直接返回
+        }
+        
+        // 到期检查（行锁下判断，参团同样以 expire_time 为准）⭐
+        if (!team.getExpireTime().isBefore(LocalDateTime.now())) {
+            log.info("团{}尚未到期，跳过退款，expireTime={}", teamId, team.getExpireTime());
+            return false;
         }
         
         log.info("开始处理过期团退款，teamId={}, teamNo={}", teamId, team.getTeamNo());
@@ -77,6 +89,7 @@ public class RefundService {
         // 3. 标记团失败
         team.setTeamStatus(TeamStatus.FAILED.getCode());
         teamRepository.save(team);
+        seatReservationService.close(teamId);
         log.info("团{}标记为失败", teamId);
         
         // 4. 查询已支付的成员
@@ -126,6 +139,7 @@ public class RefundService {
         
         // 6. 发送通知（TODO）
         log.info("拼团失败通知发送（TODO）");
+        return true;
     }
     
     /**
@@ -195,6 +209,7 @@ public class RefundService {
         
         // 6. 删除参团记录
         memberRepository.delete(member);
+        seatReservationService.releaseAfterCommit(teamId, userId);
         
         // 7. 更新团人数（⭐只有已支付成员才减少团人数）
         if (needDecrementCount && team.getCurrentNum() > 0) {
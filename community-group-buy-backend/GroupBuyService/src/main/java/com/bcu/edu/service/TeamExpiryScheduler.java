@@ -0,0 +1,313 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.repository.TeamRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 团过期调度器（⭐分层时间轮）
+ *
+ * <p>替代每小时一次的全表扫描：发起拼团时按 expire_time 注册到时间轮，
+ * 到期后秒级触发退款，交给有界退款线程池并行处理。
+ *
+ * <p>时间轮结构（wheel-size=60，tick=1秒时）：
+ * <ul>
+ *   <li>第1层：1秒 × 60 格（1分钟内）</li>
+ *   <li>第2层：1分钟 × 60 格（1小时内）</li>
+ *   <li>第3层：1小时 × 60 格（60小时内），更远的按需继续向上扩展</li>
+ * </ul>
+ * 上层格子到期时整体降级到下层，最终在第1层到期触发，注册和推进都是O(1)
+ *
+ * <p>可靠性：
+ * <ul>
+ *   <li>启动时从 group_buy_team 重建所有拼团中的团（重启不丢失）</li>
+ *   <li>每个团独立事务退款（RefundService行锁+状态检查保证幂等），单团失败延迟重试</li>
+ *   <li>线程池满时回退到时间轮稍后重试，不阻塞时间轮推进</li>
+ *   <li>TeamExpireTask 低频兜底扫描，把漏掉的过期团重新交给调度器</li>
+ * </ul>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class TeamExpiryScheduler {
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private RefundService refundService;
+
+    /**
+     * 时间轮最小刻度（毫秒），即过期触发的最大延迟
+     */
+    @Value("${groupbuy.expiry.tick-ms:1000}")
+    private long tickMs;
+
+    /**
+     * 每层格子数
+     */
+    @Value("${groupbuy.expiry.wheel-size:60}")
+    private int wheelSize;
+
+    /**
+     * 退款并行线程数
+     */
+    @Value("${groupbuy.expiry.refund-threads:4}")
+    private int refundThreads;
+
+    /**
+     * 退款等待队列容量
+     */
+    @Value("${groupbuy.expiry.refund-queue-capacity:500}")
+    private int refundQueueCapacity;
+
+    /**
+     * 单个团最大退款尝试次数（超过后交由兜底扫描处理）
+     */
+    @Value("${groupbuy.expiry.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * 失败重试间隔（毫秒）
+     */
+    @Value("${groupbuy.expiry.retry-delay-ms:30000}")
+    private long retryDelayMs;
+
+    private TimingWheel wheel;
+
+    private ThreadPoolExecutor refundExecutor;
+
+    /**
+     * 团ID → 已注册的到期时间（同一团重复注册只保留一个定时）
+     */
+    private final Map<Long, Long> deadlines = new ConcurrentHashMap<>();
+
+    /**
+     * 团ID → 已失败次数
+     */
+    private final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel(tickMs, wheelSize, System.currentTimeMillis());
+        AtomicInteger counter = new AtomicInteger();
+        refundExecutor = new ThreadPoolExecutor(
+            refundThreads, refundThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(refundQueueCapacity),
+            r -> {
+                Thread thread = new Thread(r, "team-expire-refund-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 启动时从数据库重建时间轮
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = teamRepository.findJoiningTeamExpireTimes();
+        rows.forEach(row -> schedule((Long) row[0], toMillis((LocalDateTime) row[1])));
+        log.info("团过期时间轮重建完成，拼团中团数={}", rows.size());
+    }
+
+    /**
+     * 注册团过期时间（在事务中调用时，提交后才注册）
+     *
+     * @param teamId 团ID
+     * @param expireTime 过期时间
+     */
+    public void register(Long teamId, LocalDateTime expireTime) {
+        long expireAt = toMillis(expireTime);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(teamId, expireAt);
+                }
+            });
+        } else {
+            schedule(teamId, expireAt);
+        }
+    }
+
+    /**
+     * 推进时间轮，触发到期的团
+     */
+    @Scheduled(fixedRateString = "${groupbuy.expiry.tick-ms:1000}")
+    public void tick() {
+        List<Timer> expired = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), expired);
+        }
+        expired.forEach(this::fire);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refundExecutor.shutdown();
+    }
+
+    private void schedule(Long teamId, long expireAt) {
+        deadlines.put(teamId, expireAt);
+        List<Timer> expired = new ArrayList<>(1);
+        synchronized (wheel) {
+            wheel.add(new Timer(teamId, expireAt, tickMs), expired);
+        }
+        expired.forEach(this::fire);
+    }
+
+    private void fire(Timer timer) {
+        // 已被更新的注册覆盖（重复注册），丢弃旧定时
+        if (!deadlines.remove(timer.teamId, timer.expireAt)) {
+            return;
+        }
+        try {
+            refundExecutor.execute(() -> refund(timer.teamId));
+        } catch (RejectedExecutionException e) {
+            log.warn("退款线程池已满，团{}稍后重试", timer.teamId);
+            schedule(timer.teamId, System.currentTimeMillis() + tickMs * 5);
+        }
+    }
+
+    private void refund(Long teamId) {
+        try {
+            if (!refundService.refundExpiredTeam(teamId)) {
+                // 数据库中的 expire_time 晚于注册时间（秒级取整），下个刻度再试
+                schedule(teamId, System.currentTimeMillis() + tickMs);
+                return;
+            }
+            attempts.remove(teamId);
+            log.info("✅ 团{}过期处理完成", teamId);
+        } catch (Exception e) {
+            int failed = attempts.merge(teamId, 1, Integer::sum);
+            if (failed >= maxAttempts) {
+                attempts.remove(teamId);
+                log.error("❌ 团{}过期退款失败{}次，等待兜底扫描", teamId, failed, e);
+                return;
+            }
+            log.warn("团{}过期退款失败（第{}次），{}ms后重试: {}", teamId, failed, retryDelayMs, e.getMessage());
+            schedule(teamId, System.currentTimeMillis() + retryDelayMs);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 单个团的定时
+     */
+    private static class Timer {
+        private final Long teamId;
+        private final long expireAt;
+
+        /**
+         * 触发时间：expireAt 向上取整到最小刻度，保证不早于 expireAt 触发
+         */
+        private final long fireAt;
+
+        Timer(Long teamId, long expireAt, long tickMs) {
+            this.teamId = teamId;
+            this.expireAt = expireAt;
+            this.fireAt = (expireAt + tickMs - 1) / tickMs * tickMs;
+        }
+    }
+
+    /**
+     * 一层时间轮（超出本层范围的定时放入上层，上层按需创建）
+     *
+     * <p>非线程安全，由调用方加锁
+     */
+    private static class TimingWheel {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long intervalMs;
+        private final List<List<Timer>> buckets;
+
+        /**
+         * 当前刻度起始时间（tickMs对齐）
+         */
+        private long currentTime;
+
+        private TimingWheel overflow;
+
+        TimingWheel(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.intervalMs = tickMs * wheelSize;
+            this.currentTime = startMs - startMs % tickMs;
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * 添加定时，已到期的直接放入 expired
+         */
+        void add(Timer timer, List<Timer> expired) {
+            if (timer.fireAt < currentTime + tickMs) {
+                expired.add(timer);
+            } else if (timer.fireAt < currentTime + intervalMs) {
+                buckets.get(indexOf(timer.fireAt)).add(timer);
+            } else {
+                overflowWheel().add(timer, expired);
+            }
+        }
+
+        /**
+         * 推进到 nowMs：本层到期格子放入 expired，上层到期格子降级重新加入本层
+         */
+        void advance(long nowMs, List<Timer> expired) {
+            while (currentTime + tickMs <= nowMs) {
+                currentTime += tickMs;
+                List<Timer> bucket = buckets.get(indexOf(currentTime));
+                if (!bucket.isEmpty()) {
+                    expired.addAll(bucket);
+                    bucket.clear();
+                }
+            }
+            if (overflow != null) {
+                List<Timer> cascaded = new ArrayList<>();
+                overflow.advance(nowMs, cascaded);
+                cascaded.forEach(timer -> add(timer, expired));
+            }
+        }
+
+        private int indexOf(long timeMs) {
+            return (int) ((timeMs / tickMs) % wheelSize);
+        }
+
+        private TimingWheel overflowWheel() {
+            if (overflow == null) {
+                overflow = new TimingWheel(intervalMs, wheelSize, currentTime);
+            }
+            return overflow;
+        }
+    }
+}
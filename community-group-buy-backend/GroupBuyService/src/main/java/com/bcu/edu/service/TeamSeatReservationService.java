@@ -0,0 +1,346 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.entity.GroupBuyMember;
+import com.bcu.edu.entity.GroupBuyTeam;
+import com.bcu.edu.enums.MemberStatus;
+import com.bcu.edu.enums.TeamStatus;
+import com.bcu.edu.repository.MemberRepository;
+import com.bcu.edu.repository.TeamRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 团席位预占服务（⭐参团高并发核心）
+ *
+ * <p>在内存中为每个团维护一个席位计数器（按teamId分片），参团请求先在这里
+ * 预占席位（只持有该团的内存锁，不访问数据库），通过后才去调用商品/订单服务，
+ * 最后只在写参团记录时短暂持有行锁。
+ *
+ * <p>席位模型：
+ * <ul>
+ *   <li>容量 = required_num</li>
+ *   <li>已占用 = current_num（已支付）+ 未过期的待支付预占</li>
+ *   <li>待支付预占超过 hold-minutes 未支付视为放弃，释放席位</li>
+ * </ul>
+ *
+ * <p>名额判断默认与改造前一致：只有已支付成员占用名额（groupbuy.seat.count-unpaid-holds=false）。
+ * 设置为true后待支付成员同样占用名额，团满后新用户直接被拒绝，不会出现支付后才发现满员
+ *
+ * <p>席位释放必须在删除参团记录的事务提交后执行（{@link #releaseAfterCommit}），
+ * 否则事务回滚时席位已被他人占用
+ *
+ * <p>一致性说明：
+ * <ul>
+ *   <li>内存状态只做准入判断，数据库行锁提交时仍会再次校验（最终以数据库为准）</li>
+ *   <li>定时对账任务按 group_buy_member 重建席位，修正进程内漂移；替换时持有同一把团锁，
+ *       旧状态标记为已替换，之后的预占/释放/确认在新状态上重试，不会丢失</li>
+ *   <li>多实例部署时各实例独立计数，对账周期内可能短暂多放行，由行锁兜底</li>
+ * </ul>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class TeamSeatReservationService {
+
+    /**
+     * 已支付席位的占用截止时间（永不过期）
+     */
+    private static final long PAID = Long.MAX_VALUE;
+
+    /**
+     * 仅用于防重复参团、不占用席位（待支付已超时）
+     */
+    private static final long STALE = 0L;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    /**
+     * 待支付预占保留时长（分钟），与订单超时时间保持一致
+     */
+    @Value("${groupbuy.seat.hold-minutes:30}")
+    private long holdMinutes;
+
+    /**
+     * 待支付成员是否占用名额（默认false：只按已支付人数判断满员，与改造前一致）
+     */
+    @Value("${groupbuy.seat.count-unpaid-holds:false}")
+    private boolean countUnpaidHolds;
+
+    /**
+     * 团ID → 席位状态
+     */
+    private final Map<Long, TeamSeats> seatsByTeam = new ConcurrentHashMap<>();
+
+    /**
+     * 预占席位（⭐无锁准入）
+     *
+     * <p>校验顺序与原行锁路径一致：团状态 → 过期 → 重复参团 → 满员
+     *
+     * @param teamId 团ID
+     * @param userId 用户ID
+     * @throws BusinessException 不满足参团条件
+     */
+    public void tryReserve(Long teamId, Long userId) {
+        while (true) {
+            TeamSeats seats = seatsByTeam.computeIfAbsent(teamId, this::load);
+            synchronized (seats) {
+                if (!seats.replaced) {
+                    reserve(seats, teamId, userId);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void reserve(TeamSeats seats, Long teamId, Long userId) {
+        long now = System.currentTimeMillis();
+
+        if (!seats.open) {
+            throw new BusinessException("拼团已结束，当前状态：" + TeamStatus.getByCode(seats.teamStatus).getDesc());
+        }
+        if (seats.expireAt < now) {
+            throw new BusinessException("拼团已过期");
+        }
+
+        // 防重复参团：同一用户只能持有一个席位
+        if (seats.holders.containsKey(userId)) {
+            throw new BusinessException("您已参加此团");
+        }
+        if (seats.occupied.get() >= seats.capacity) {
+            throw new BusinessException("团已满员");
+        }
+
+        if (!countUnpaidHolds) {
+            // 待支付不占名额：只按已支付人数判断，支付确认时计入
+            seats.holders.put(userId, STALE);
+            return;
+        }
+
+        seats.holders.put(userId, now + holdMinutes * 60_000L);
+        int occupied = seats.occupied.incrementAndGet();
+        log.debug("席位预占成功，teamId={}, userId={}, occupied={}/{}",
+            teamId, userId, occupied, seats.capacity);
+    }
+
+    /**
+     * 释放席位（参团失败补偿、退出拼团、移除成员）
+     *
+     * @param teamId 团ID
+     * @param userId 用户ID
+     */
+    public void release(Long teamId, Long userId) {
+        update(teamId, seats -> {
+            Long deadline = seats.holders.remove(userId);
+            if (deadline != null && deadline > System.currentTimeMillis()) {
+                seats.occupied.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 事务提交后释放席位（退出拼团、移除成员：参团记录删除提交后才能让出席位）
+     *
+     * @param teamId 团ID
+     * @param userId 用户ID
+     */
+    public void releaseAfterCommit(Long teamId, Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(teamId, userId);
+                }
+            });
+        } else {
+            release(teamId, userId);
+        }
+    }
+
+    /**
+     * 确认席位（支付成功，待支付 → 已支付）
+     *
+     * @param teamId 团ID
+     * @param userId 用户ID
+     */
+    public void confirm(Long teamId, Long userId) {
+        update(teamId, seats -> {
+            Long deadline = seats.holders.put(userId, PAID);
+            // 预占已超时（或不在内存中）的迟到支付需要重新计入占用
+            if (deadline == null || deadline <= System.currentTimeMillis()) {
+                seats.occupied.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 关闭团（成团、失败、取消），后续参团直接拒绝
+     *
+     * @param teamId 团ID
+     */
+    public void close(Long teamId) {
+        seatsByTeam.remove(teamId);
+    }
+
+    /**
+     * 席位对账（⭐异步对账）
+     *
+     * <p>按 group_buy_team / group_buy_member 重建内存席位：
+     * <ul>
+     *   <li>团已结束或已过期：移出内存</li>
+     *   <li>超时未支付的预占：释放席位</li>
+     *   <li>尚未落库的在途预占、尚未反映到查询结果的支付确认：保留</li>
+     * </ul>
+     *
+     * <p>合并与替换持有旧状态的团锁，与预占/释放/确认互斥
+     */
+    @Scheduled(fixedDelayString = "${groupbuy.seat.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        if (seatsByTeam.isEmpty()) {
+            return;
+        }
+
+        int evicted = 0;
+        for (Long teamId : seatsByTeam.keySet()) {
+            try {
+                TeamSeats fresh = load(teamId);
+                TeamSeats old = seatsByTeam.get(teamId);
+                if (old == null) {
+                    continue;
+                }
+                synchronized (old) {
+                    old.replaced = true;
+                    if (!fresh.open || fresh.expireAt < System.currentTimeMillis()) {
+                        seatsByTeam.remove(teamId, old);
+                        evicted++;
+                        continue;
+                    }
+                    seatsByTeam.replace(teamId, old, fresh.mergeInFlight(old));
+                }
+            } catch (Exception e) {
+                log.warn("席位对账失败，teamId={}: {}", teamId, e.getMessage());
+            }
+        }
+
+        log.debug("席位对账完成，缓存团数={}, 移除={}", seatsByTeam.size(), evicted);
+    }
+
+    /**
+     * 从数据库加载团席位（current_num / required_num + 参团记录）
+     */
+    private TeamSeats load(Long teamId) {
+        GroupBuyTeam team = teamRepository.findById(teamId)
+            .orElseThrow(() -> new BusinessException("团不存在"));
+
+        TeamSeats seats = new TeamSeats(team);
+        int holding = 0;
+        long holdFrom = System.currentTimeMillis() - holdMinutes * 60_000L;
+
+        List<GroupBuyMember> members = memberRepository.findByTeamIdOrderByJoinTimeAsc(teamId);
+        for (GroupBuyMember member : members) {
+            if (member.getStatus() == MemberStatus.UNPAID.getCode()) {
+                long joinAt = toMillis(member.getJoinTime());
+                if (countUnpaidHolds && joinAt > holdFrom) {
+                    seats.holders.put(member.getUserId(), joinAt + holdMinutes * 60_000L);
+                    holding++;
+                    continue;
+                }
+                seats.holders.put(member.getUserId(), STALE);
+            } else if (member.getStatus() == MemberStatus.CANCELLED.getCode()) {
+                seats.holders.put(member.getUserId(), STALE);
+            } else {
+                seats.holders.put(member.getUserId(), PAID);
+            }
+        }
+
+        seats.occupied.set(team.getCurrentNum() + holding);
+        return seats;
+    }
+
+    /**
+     * 在团的当前席位状态上加锁执行（状态已被对账替换时在新状态上重试；团不在内存中时跳过）
+     */
+    private void update(Long teamId, Consumer<TeamSeats> action) {
+        while (true) {
+            TeamSeats seats = seatsByTeam.get(teamId);
+            if (seats == null) {
+                return;
+            }
+            synchronized (seats) {
+                if (!seats.replaced) {
+                    action.accept(seats);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 单个团的席位状态
+     */
+    private static class TeamSeats {
+        private final int capacity;
+        private final int teamStatus;
+        private final boolean open;
+        private final long expireAt;
+        private final AtomicInteger occupied = new AtomicInteger();
+
+        /**
+         * 用户ID → 席位占用截止时间（PAID=已支付，STALE=不占位）
+         */
+        private final Map<Long, Long> holders = new ConcurrentHashMap<>();
+
+        /**
+         * 已被对账替换或移出（只在持有本对象锁时读写）
+         */
+        private boolean replaced;
+
+        TeamSeats(GroupBuyTeam team) {
+            this.capacity = team.getRequiredNum();
+            this.teamStatus = team.getTeamStatus();
+            this.open = team.getTeamStatus() == TeamStatus.JOINING.getCode();
+            this.expireAt = toMillis(team.getExpireTime());
+        }
+
+        /**
+         * 合并旧状态中尚未落库的在途预占，以及加载之后才提交的支付确认
+         */
+        TeamSeats mergeInFlight(TeamSeats old) {
+            long now = System.currentTimeMillis();
+            old.holders.forEach((userId, deadline) -> {
+                if (deadline == PAID) {
+                    Long known = holders.put(userId, PAID);
+                    if (known == null || (known != PAID && known <= now)) {
+                        occupied.incrementAndGet();
+                    }
+                } else if (deadline > now && holders.putIfAbsent(userId, deadline) == null) {
+                    occupied.incrementAndGet();
+                }
+            });
+            return this;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.bcu.edu.service;
 
-import com.bcu.edu.client.LeaderServiceClient;
 import com.bcu.edu.client.OrderServiceClient;
 import com.bcu.edu.client.PaymentServiceClient;
-import com.bcu.edu.client.ProductServiceClient;
+import com.bcu.edu.client.RemoteBatchLoader;
+import com.bcu.edu.client.RemoteBatchLoader.RemoteData;
 import com.bcu.edu.client.UserServiceClient;
 import com.bcu.edu.common.annotation.OperationLog;
+import com.bcu.edu.common.cache.ProductNearCache;
 import com.bcu.edu.common.exception.BusinessException;
 import com.bcu.edu.common.result.Result;
 import com.bcu.edu.dto.request.CreateOrderRequest;
@@ -20,17 +21,26 @@ import com.bcu.edu.enums.MemberStatus;
 import com.bcu.edu.enums.TeamStatus;
 import com.bcu.edu.repository.GroupBuyRepository;
 import com.bcu.edu.repository.MemberRepository;
+import com.bcu.edu.repository.PaymentCallbackInboxRepository;
 import com.bcu.edu.repository.TeamRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -39,10 +49,10 @@ import java.util.stream.Collectors;
  * <p>核心功能：
  * <ul>
  *   <li>团长发起拼团（v3.0：验证团长身份、自动关联社区）</li>
- *   <li>用户参团（行锁防并发、防重复参团）</li>
- *   <li>支付回调（幂等性保证、成团检查）</li>
+ *   <li>用户参团（内存席位预占 + 行锁最终提交、防重复参团）</li>
+ *   <li>支付回调（按团批量合并、幂等性保证、成团检查）</li>
  *   <li>成团逻辑（双重幂等、批量更新）</li>
- *   <li>查询功能（社区优先推荐）</li>
+ *   <li>查询功能（社区优先推荐、远程信息批量加载）</li>
  * </ul>
  * 
  * @author 耿康瑞
@@ -72,13 +82,22 @@ public class TeamService {
     private OrderServiceClient orderServiceClient;
     
     @Autowired
-    private ProductServiceClient productServiceClient;
+    private ProductNearCache<ProductDTO> productNearCache;
     
     @Autowired
-    private LeaderServiceClient leaderServiceClient;
+    private PaymentServiceClient paymentServiceClient;
     
     @Autowired
-    private PaymentServiceClient paymentServiceClient;
+    private TeamSeatReservationService seatReservationService;
+    
+    @Autowired
+    private TeamExpiryScheduler teamExpiryScheduler;
+    
+    @Autowired
+    private RemoteBatchLoader remoteBatchLoader;
+    
+    @Autowired
+    private PaymentCallbackInboxRepository callbackInboxRepository;
     
     /**
      * 团长发起拼团（⭐v3.0核心功能）
@@ -157,7 +176,8 @@ public class TeamService {
         }
         
         // 4. 构建返回结果
-        return buildTeamDetailResponse(internalResult.getTeam(), activity, user, null);
+        ProductDTO product = remoteBatchLoader.loadProduct(activity.getProductId());
+        return buildTeamDetailResponse(internalResult.getTeam(), activity, product, user, null, null);
     }
     
     /**
@@ -188,6 +208,7 @@ public class TeamService {
         team.setTeamStatus(TeamStatus.JOINING.getCode());
         team.setExpireTime(LocalDateTime.now().plusHours(request.getDurationHours()));
         teamRepository.save(team);
+        teamExpiryScheduler.register(team.getTeamId(), team.getExpireTime());
         
         log.info("团{}创建成功，teamNo={}, communityId={}", team.getTeamId(), team.getTeamNo(), team.getCommunityId());
         
@@ -200,7 +221,7 @@ public class TeamService {
             }
             
             // 获取商品信息
-            Result<ProductDTO> productResult = productServiceClient.getProduct(activity.getProductId());
+            Result<ProductDTO> productResult = productNearCache.getProduct(activity.getProductId());
             ProductDTO product = productResult.getData();
             
             // Feign创建订单
@@ -260,27 +281,94 @@ public class TeamService {
      * 
      * <p>流程：
      * <ol>
-     *   <li>查询团（加行锁）⭐</li>
-     *   <li>状态校验（团状态、人数、过期）</li>
-     *   <li>防重复参团检查（唯一索引）</li>
-     *   <li>Feign创建订单</li>
-     *   <li>记录参团（status=0待支付）</li>
+     *   <li>内存预占席位（无锁准入，满员/过期/重复直接拒绝）⭐</li>
+     *   <li>查询活动和商品信息</li>
+     *   <li>Feign创建订单（不持有行锁）</li>
+     *   <li>加行锁复核并记录参团（status=0待支付）⭐</li>
+     *   <li>任一步失败：释放席位 + 取消已创建订单（补偿）</li>
      * </ol>
      * 
      * @param request 参团请求
      * @return 参团结果
      */
-    @Transactional(rollbackFor = Exception.class)
     @OperationLog(value = "参与拼团", module = "拼团管理")
     public JoinResult joinTeam(JoinTeamRequest request) {
+        // 1. 内存预占席位（无锁）⭐
+        seatReservationService.tryReserve(request.getTeamId(), request.getUserId());
+        
+        Long orderId = null;
+        try {
+            GroupBuyTeam team = teamRepository.findById(request.getTeamId())
+                .orElseThrow(() -> new BusinessException("团不存在"));
+            
+            log.info("用户{}参团，teamId={}, 当前人数={}/{}", request.getUserId(), team.getTeamId(), 
+                team.getCurrentNum(), team.getRequiredNum());
+            
+            // 2. 查询活动和商品信息
+            GroupBuy activity = activityRepository.findById(team.getActivityId())
+                .orElseThrow(() -> new BusinessException("活动不存在"));
+            
+            Result<ProductDTO> productResult = productNearCache.getProduct(activity.getProductId());
+            if (productResult.getCode() != 200 || productResult.getData() == null) {
+                throw new BusinessException("获取商品信息失败");
+            }
+            ProductDTO product = productResult.getData();
+            
+            // 3. Feign创建订单 ⭐（不持有行锁）
+            CreateOrderRequest orderReq = CreateOrderRequest.builder()
+                .userId(request.getUserId())
+                .leaderId(team.getLeaderId())
+                .addressId(request.getAddressId())
+                .productId(activity.getProductId())
+                .productName(product.getProductName())
+                .productImg(product.getCoverImg())
+                .quantity(request.getQuantity())
+                .price(activity.getGroupPrice())
+                .activityId(activity.getActivityId())
+                .build();
+            
+            Result<Long> orderResult = orderServiceClient.createOrder(orderReq);
+            if (orderResult.getCode() != 200) {
+                throw new BusinessException("创建订单失败：" + orderResult.getMessage());
+            }
+            
+            orderId = orderResult.getData();
+            log.info("参团订单创建成功，orderId={}", orderId);
+            
+            // 4. 加行锁复核并记录参团（事务仅覆盖这一步）⭐
+            return self.commitJoin(request, activity, orderId);
+        } catch (RuntimeException e) {
+            // 5. 补偿：释放席位 + 取消订单
+            seatReservationService.release(request.getTeamId(), request.getUserId());
+            if (orderId != null) {
+                try {
+                    orderServiceClient.cancelOrder(orderId);
+                    log.warn("参团失败，已取消订单，orderId={}", orderId);
+                } catch (Exception ce) {
+                    log.error("参团失败后取消订单异常，orderId={}", orderId, ce);
+                }
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 参团最终提交（独立事务，⭐行锁只在此处持有）
+     * 
+     * <p>内存席位只做准入判断，这里加行锁后按数据库状态复核一次
+     * 
+     * @param request 参团请求
+     * @param activity 活动信息
+     * @param orderId 已创建的订单ID
+     * @return 参团结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    protected JoinResult commitJoin(JoinTeamRequest request, GroupBuy activity, Long orderId) {
         // 1. 查询团（加行锁）⭐
         GroupBuyTeam team = teamRepository.findByIdForUpdate(request.getTeamId())
             .orElseThrow(() -> new BusinessException("团不存在"));
         
-        log.info("用户{}参团，teamId={}, 当前人数={}/{}", request.getUserId(), team.getTeamId(), 
-            team.getCurrentNum(), team.getRequiredNum());
-        
-        // 2. 状态校验
+        // 2. 状态复核
         if (team.getTeamStatus() != TeamStatus.JOINING.getCode()) {
             throw new BusinessException("拼团已结束，当前状态：" + TeamStatus.getByCode(team.getTeamStatus()).getDesc());
         }
@@ -293,43 +381,12 @@ public class TeamService {
             throw new BusinessException("拼团已过期");
         }
         
-        // 3. 防重复参团
+        // 3. 防重复参团（唯一索引兜底）
         if (memberRepository.existsByTeamIdAndUserId(request.getTeamId(), request.getUserId())) {
             throw new BusinessException("您已参加此团");
         }
         
-        // 4. 查询活动和商品信息
-        GroupBuy activity = activityRepository.findById(team.getActivityId())
-            .orElseThrow(() -> new BusinessException("活动不存在"));
-        
-        Result<ProductDTO> productResult = productServiceClient.getProduct(activity.getProductId());
-        if (productResult.getCode() != 200 || productResult.getData() == null) {
-            throw new BusinessException("获取商品信息失败");
-        }
-        ProductDTO product = productResult.getData();
-        
-        // 5. Feign创建订单 ⭐
-        CreateOrderRequest orderReq = CreateOrderRequest.builder()
-            .userId(request.getUserId())
-            .leaderId(team.getLeaderId())
-            .addressId(request.getAddressId())
-            .productId(activity.getProductId())
-            .productName(product.getProductName())
-            .productImg(product.getCoverImg())
-            .quantity(request.getQuantity())
-            .price(activity.getGroupPrice())
-            .activityId(activity.getActivityId())
-            .build();
-        
-        Result<Long> orderResult = orderServiceClient.createOrder(orderReq);
-        if (orderResult.getCode() != 200) {
-            throw new BusinessException("创建订单失败：" + orderResult.getMessage());
-        }
-        
-        Long orderId = orderResult.getData();
-        log.info("参团订单创建成功，orderId={}", orderId);
-        
-        // 6. 记录参团
+        // 4. 记录参团
         GroupBuyMember member = new GroupBuyMember();
         member.setTeamId(request.getTeamId());
         member.setUserId(request.getUserId());
@@ -342,7 +399,7 @@ public class TeamService {
         
         log.info("参团记录创建成功，memberId={}", member.getMemberId());
         
-        // 7. 构建返回结果
+        // 5. 构建返回结果
         return JoinResult.builder()
             .orderId(orderId)
             .teamId(team.getTeamId())
@@ -356,55 +413,145 @@ public class TeamService {
     }
     
     /**
-     * 支付回调处理（⭐核心功能）
+     * 批量应用同一个团的支付回调（⭐核心功能）
+     * 
+     * <p>回调的受理、落库与重试见 {@link PaymentCallbackPipeline}
      * 
      * <p>流程：
      * <ol>
-     *   <li>查询参团记录（加行锁）⭐</li>
-     *   <li>幂等性检查（status != UNPAID 则返回）⭐</li>
-     *   <li>更新参团状态（UNPAID → PAID）</li>
      *   <li>查询团（加行锁）⭐</li>
-     *   <li>更新团人数（current_num++）</li>
+     *   <li>批量查询参团记录（加行锁）⭐</li>
+     *   <li>幂等性检查（status != UNPAID 则跳过）⭐</li>
+     *   <li>团状态检查（团已成团/已失败时不再计入人数，取消参团并标记待退款，提交后退款）⭐</li>
+     *   <li>更新参团状态（UNPAID → PAID）</li>
+     *   <li>一次性更新团人数（current_num += 本批已支付人数）</li>
      *   <li>检查是否成团（current_num >= required_num）</li>
      *   <li>如果成团，调用teamSuccess</li>
+     *   <li>删除收件箱中本批回调（与以上更新同一事务，失败则整批回滚后重试；待退款的回调保留到退款成功）</li>
      * </ol>
      * 
-     * @param orderId 订单ID
+     * <p>退款调用不在持有团行锁的事务内进行，见 {@link #refundLatePayments}
+     * 
+     * <p>加锁顺序统一为"先团后成员"，与参团、成团逻辑一致，避免死锁
+     * 
+     * @param teamId 团ID
+     * @param orderIds 该团待处理的订单ID列表
+     * @return 本批实际更新为已支付的人数
      */
     @Transactional(rollbackFor = Exception.class)
-    public void paymentCallback(Long orderId) {
-        // 1. 查询参团记录（加行锁）⭐
-        GroupBuyMember member = memberRepository.findByOrderIdForUpdate(orderId)
-            .orElseThrow(() -> new BusinessException("参团记录不存在"));
+    public int applyPaymentBatch(Long teamId, List<Long> orderIds) {
+        // 1. 查询团（加行锁）⭐
+        GroupBuyTeam team = teamRepository.findByIdForUpdate(teamId)
+            .orElseThrow(() -> new BusinessException("团不存在"));
         
-        log.info("支付回调，orderId={}, 当前状态={}", orderId, member.getStatus());
+        // 2. 批量查询参团记录（加行锁）⭐
+        List<GroupBuyMember> members = memberRepository.findByOrderIdInForUpdate(orderIds);
         
-        // 2. 幂等性检查 ⭐
-        if (member.getStatus() != MemberStatus.UNPAID.getCode()) {
-            log.warn("重复支付回调，orderId={}, status={}", orderId, member.getStatus());
-            return;  // 已处理过，直接返回
+        // 3. 幂等性检查（筛选本批待标记为已支付的成员）
+        List<GroupBuyMember> paidMembers = new java.util.ArrayList<>();
+        for (GroupBuyMember member : members) {
+            if (!teamId.equals(member.getTeamId())) {
+                log.warn("支付回调团ID不匹配，orderId={}, teamId={}", member.getOrderId(), teamId);
+                continue;
+            }
+            if (member.getStatus() != MemberStatus.UNPAID.getCode()) {
+                log.warn("重复支付回调，orderId={}, status={}", member.getOrderId(), member.getStatus());
+                continue;  // 已处理过，跳过
+            }
+            paidMembers.add(member);
         }
         
-        // 3. 更新参团状态
-        member.setStatus(MemberStatus.PAID.getCode());
-        memberRepository.save(member);
-        log.info("参团状态更新为已支付，memberId={}", member.getMemberId());
+        // 4. 团状态检查：团已结束（过期失败/已成团）后到达的支付不再计入，取消参团并转退款 ⭐
+        Set<Long> refundOrderIds = new HashSet<>(callbackInboxRepository.findRefundPendingOrderIds(orderIds));
+        if (!paidMembers.isEmpty() && team.getTeamStatus() != TeamStatus.JOINING.getCode()) {
+            log.warn("团已结束，支付回调转退款，teamId={}, status={}, 人数={}", 
+                teamId, team.getTeamStatus(), paidMembers.size());
+            paidMembers.forEach(m -> {
+                m.setStatus(MemberStatus.CANCELLED.getCode());
+                refundOrderIds.add(m.getOrderId());
+            });
+            memberRepository.saveAll(paidMembers);
+            paidMembers.clear();
+        }
+        if (!refundOrderIds.isEmpty()) {
+            callbackInboxRepository.markRefundPending(refundOrderIds, LocalDateTime.now());
+            refundLatePayments(teamId, refundOrderIds);
+        }
+        List<Long> completed = orderIds.stream()
+            .filter(id -> !refundOrderIds.contains(id))
+            .collect(Collectors.toList());
         
-        // 4. 查询团（加行锁）⭐
-        GroupBuyTeam team = teamRepository.findByIdForUpdate(member.getTeamId())
-            .orElseThrow(() -> new BusinessException("团不存在"));
+        if (paidMembers.isEmpty()) {
+            if (!completed.isEmpty()) {
+                callbackInboxRepository.deleteByOrderIds(completed);
+            }
+            return 0;
+        }
+        
+        // 5. 更新参团状态
+        paidMembers.forEach(m -> m.setStatus(MemberStatus.PAID.getCode()));
         
-        // 5. 更新团人数
-        team.setCurrentNum(team.getCurrentNum() + 1);
+        memberRepository.saveAll(paidMembers);
+        paidMembers.forEach(m -> seatReservationService.confirm(teamId, m.getUserId()));
+        log.info("参团状态更新为已支付，teamId={}, 人数={}", teamId, paidMembers.size());
+        
+        // 6. 更新团人数（整批一次写入）
+        team.setCurrentNum(team.getCurrentNum() + paidMembers.size());
         teamRepository.save(team);
         log.info("团人数更新，teamId={}, currentNum={}/{}", team.getTeamId(), 
             team.getCurrentNum(), team.getRequiredNum());
         
-        // 6. 检查是否成团
+        // 7. 检查是否成团
         if (team.getCurrentNum() >= team.getRequiredNum()) {
             log.info("团{}已满足成团条件，触发成团逻辑", team.getTeamId());
             teamSuccess(team.getTeamId());
         }
+        
+        // 8. 回调处理完成，移出收件箱
+        callbackInboxRepository.deleteByOrderIds(completed);
+        
+        return paidMembers.size();
+    }
+    
+    /**
+     * 团结束后到达的支付：原路退款（⭐回调事务提交、释放团行锁后执行）
+     * 
+     * <p>参团已在回调事务内记为已取消，收件箱记录标记待退款；退款成功后删除记录，
+     * 失败则保留，由补偿扫描重新投递后再次退款。PaymentService按订单判断是否已退款，重试不会重复退款
+     */
+    private void refundLatePayments(Long teamId, Collection<Long> orderIds) {
+        List<Long> refunds = new ArrayList<>(orderIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refunds.forEach(orderId -> refundLatePayment(teamId, orderId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refunds.forEach(orderId -> refundLatePayment(teamId, orderId));
+            }
+        });
+    }
+    
+    private void refundLatePayment(Long teamId, Long orderId) {
+        try {
+            com.bcu.edu.dto.request.RefundRequest refundRequest = com.bcu.edu.dto.request.RefundRequest.builder()
+                .orderId(orderId)
+                .reason("拼团已结束，支付自动退款")
+                .build();
+            
+            Result<Void> refundResult = paymentServiceClient.refund(refundRequest);
+            if (refundResult == null || refundResult.getCode() != 200) {
+                log.error("团结束后支付退款失败，等待补偿重试，orderId={}, teamId={}, result={}", 
+                    orderId, teamId, refundResult);
+                return;
+            }
+            
+            callbackInboxRepository.deleteRefunded(orderId);
+            log.info("团结束后支付已退款，orderId={}, teamId={}", orderId, teamId);
+        } catch (Exception e) {
+            log.error("团结束后支付退款异常，等待补偿重试，orderId={}, teamId={}", orderId, teamId, e);
+        }
     }
     
     /**
@@ -441,6 +588,7 @@ public class TeamService {
         team.setTeamStatus(TeamStatus.SUCCESS.getCode());
         team.setSuccessTime(LocalDateTime.now());
         teamRepository.save(team);
+        seatReservationService.close(teamId);
         log.info("团状态更新为已成团，teamId={}", teamId);
         
         // 4. 查询所有成员
@@ -484,28 +632,22 @@ public class TeamService {
         GroupBuy activity = activityRepository.findById(team.getActivityId())
             .orElseThrow(() -> new BusinessException("活动不存在"));
         
-        // 获取团长信息
-        Result<UserInfoDTO> userResult = userServiceClient.getUserInfo(team.getLeaderId());
-        UserInfoDTO leader = userResult.getCode() == 200 ? userResult.getData() : null;
-        
-        // 获取社区信息
-        CommunityDTO community = null;
-        if (team.getCommunityId() != null) {
-            try {
-                Result<CommunityDTO> communityResult = leaderServiceClient.getCommunity(team.getCommunityId());
-                community = communityResult.getCode() == 200 ? communityResult.getData() : null;
-            } catch (Exception e) {
-                log.warn("获取社区信息失败，communityId={}", team.getCommunityId(), e);
-            }
-        }
-        
         // 获取成员列表
         List<GroupBuyMember> members = memberRepository.findByTeamIdOrderByJoinTimeAsc(teamId);
+        
+        // 批量加载团长、成员、社区、商品信息（并行）⭐
+        List<Long> userIds = new ArrayList<>();
+        userIds.add(team.getLeaderId());
+        members.forEach(m -> userIds.add(m.getUserId()));
+        RemoteData remote = remoteBatchLoader.load(userIds, 
+            Collections.singletonList(team.getCommunityId()), List.of(activity.getProductId()));
+        
         List<MemberInfoResponse> memberInfos = members.stream()
-            .map(this::convertToMemberInfo)
+            .map(m -> convertToMemberInfo(m, remote))
             .collect(Collectors.toList());
         
-        return buildTeamDetailResponse(team, activity, leader, community, memberInfos);
+        return buildTeamDetailResponse(team, activity, remote.product(activity.getProductId()),
+            remote.user(team.getLeaderId()), remote.community(team.getCommunityId()), memberInfos);
     }
     
     /**
@@ -532,8 +674,6 @@ public class TeamService {
             );
         } else {
             // 管理端：支持状态筛选和查看已过期团
-            // 如果status为null，默认显示拼团中(0)的团
-            Integer queryStatus = status != null ? status : 0;
             teams = teamRepository.findByActivityIdWithFilters(
                 activityId,
                 communityId != null ? communityId : 0L,
@@ -546,8 +686,11 @@ public class TeamService {
         GroupBuy activity = activityRepository.findById(activityId)
             .orElseThrow(() -> new BusinessException("活动不存在"));
         
+        // 同一活动的团共用一个商品，只加载一次 ⭐
+        ProductDTO product = teams.isEmpty() ? null : remoteBatchLoader.loadProduct(activity.getProductId());
+        
         return teams.stream()
-            .map(team -> buildTeamDetailResponse(team, activity, null, null))
+            .map(team -> buildTeamDetailResponse(team, activity, product, null, null, null))
             .collect(Collectors.toList());
     }
     
@@ -571,27 +714,11 @@ public class TeamService {
     }
     
     /**
-     * 构建团详情响应
+     * 构建团详情响应（商品、团长、社区由调用方批量加载后传入）
      */
-    private TeamDetailResponse buildTeamDetailResponse(GroupBuyTeam team, GroupBuy activity, 
-                                                       UserInfoDTO leader, CommunityDTO community) {
-        return buildTeamDetailResponse(team, activity, leader, community, null);
-    }
-    
-    private TeamDetailResponse buildTeamDetailResponse(GroupBuyTeam team, GroupBuy activity, 
+    private TeamDetailResponse buildTeamDetailResponse(GroupBuyTeam team, GroupBuy activity, ProductDTO product,
                                                        UserInfoDTO leader, CommunityDTO community,
                                                        List<MemberInfoResponse> members) {
-        // 获取商品信息
-        ProductDTO product = null;
-        try {
-            Result<ProductDTO> productResult = productServiceClient.getProduct(activity.getProductId());
-            if (productResult != null && productResult.getCode() == 200) {
-                product = productResult.getData();
-            }
-        } catch (Exception e) {
-            log.warn("获取商品{}信息失败: {}", activity.getProductId(), e.getMessage());
-        }
-        
         return TeamDetailResponse.builder()
             .teamId(team.getTeamId())
             .teamNo(team.getTeamNo())
@@ -623,6 +750,7 @@ public class TeamService {
      * 获取团长发起的拼团记录（带分页、状态筛选）
      * 
      * <p>返回团长发起的所有拼团，按创建时间倒序
+     * <p>活动、成员一次查库，用户/社区/商品信息批量并行加载 ⭐
      * 
      * @param leaderId 团长ID
      * @param status 团状态（null表示全部）
@@ -646,47 +774,29 @@ public class TeamService {
         
         log.info("团长{}共有{}个拼团记录，本页返回{}个", leaderId, total, teams.size());
         
+        // 批量查询活动和成员
+        Map<Long, GroupBuy> activities = loadActivities(teams);
+        Map<Long, List<GroupBuyMember>> membersByTeam = loadMembers(teams);
+        
+        // 批量加载远程信息
+        RemoteData remote = loadRemoteData(teams, activities, membersByTeam);
+        
         // 构建团详情列表
         List<TeamDetailResponse> teamDetails = teams.stream()
             .map(team -> {
                 try {
-                    // 查询活动信息
-                    GroupBuy activity = activityRepository.findById(team.getActivityId()).orElse(null);
+                    GroupBuy activity = activities.get(team.getActivityId());
                     if (activity == null) {
                         return null;
                     }
                     
-                    // 查询团长信息
-                    UserInfoDTO leader = null;
-                    try {
-                        Result<UserInfoDTO> leaderResult = userServiceClient.getUserInfo(team.getLeaderId());
-                        if (leaderResult != null && leaderResult.getCode() == 200) {
-                            leader = leaderResult.getData();
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取团长{}信息失败: {}", team.getLeaderId(), e.getMessage());
-                    }
-                    
-                    // 查询社区信息
-                    CommunityDTO community = null;
-                    if (team.getCommunityId() != null) {
-                        try {
-                            Result<CommunityDTO> communityResult = leaderServiceClient.getCommunity(team.getCommunityId());
-                            if (communityResult != null && communityResult.getCode() == 200) {
-                                community = communityResult.getData();
-                            }
-                        } catch (Exception e) {
-                            log.warn("获取社区{}信息失败: {}", team.getCommunityId(), e.getMessage());
-                        }
-                    }
-                    
-                    // 查询团的所有成员
-                    List<GroupBuyMember> teamMembers = memberRepository.findByTeamIdOrderByJoinTimeAsc(team.getTeamId());
-                    List<MemberInfoResponse> memberInfos = teamMembers.stream()
-                        .map(this::convertToMemberInfo)
+                    List<MemberInfoResponse> memberInfos = membersByTeam
+                        .getOrDefault(team.getTeamId(), List.of()).stream()
+                        .map(m -> convertToMemberInfo(m, remote))
                         .collect(Collectors.toList());
                     
-                    return buildTeamDetailResponse(team, activity, leader, community, memberInfos);
+                    return buildTeamDetailResponse(team, activity, remote.product(activity.getProductId()),
+                        remote.user(team.getLeaderId()), remote.community(team.getCommunityId()), memberInfos);
                 } catch (Exception e) {
                     log.error("构建拼团记录失败，teamId={}: {}", team.getTeamId(), e.getMessage(), e);
                     return null;
@@ -716,59 +826,39 @@ public class TeamService {
             return List.of();
         }
         
+        // 批量查询团、活动、成员
+        Map<Long, GroupBuyTeam> teams = teamRepository.findAllById(
+                members.stream().map(GroupBuyMember::getTeamId).collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(GroupBuyTeam::getTeamId, t -> t));
+        Map<Long, GroupBuy> activities = loadActivities(teams.values());
+        Map<Long, List<GroupBuyMember>> membersByTeam = loadMembers(teams.values());
+        
+        // 批量加载远程信息
+        RemoteData remote = loadRemoteData(teams.values(), activities, membersByTeam);
+        
         // 构建我的拼团列表
         return members.stream()
             .map(member -> {
                 try {
-                    // 查询团信息
-                    GroupBuyTeam team = teamRepository.findById(member.getTeamId()).orElse(null);
+                    GroupBuyTeam team = teams.get(member.getTeamId());
                     if (team == null) {
                         return null;
                     }
                     
-                    // 查询活动信息
-                    GroupBuy activity = activityRepository.findById(team.getActivityId()).orElse(null);
+                    GroupBuy activity = activities.get(team.getActivityId());
                     if (activity == null) {
                         return null;
                     }
                     
-                    // 查询团长信息
-                    UserInfoDTO leader = null;
-                    try {
-                        Result<UserInfoDTO> leaderResult = userServiceClient.getUserInfo(team.getLeaderId());
-                        if (leaderResult != null && leaderResult.getCode() == 200) {
-                            leader = leaderResult.getData();
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取团长{}信息失败: {}", team.getLeaderId(), e.getMessage());
-                    }
-                    
-                    // 查询社区信息
-                    CommunityDTO community = null;
-                    try {
-                        Result<CommunityDTO> communityResult = leaderServiceClient.getCommunity(team.getCommunityId());
-                        if (communityResult != null && communityResult.getCode() == 200) {
-                            community = communityResult.getData();
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取社区{}信息失败: {}", team.getCommunityId(), e.getMessage());
-                    }
-                    
-                    // 获取商品信息
-                    ProductDTO product = null;
-                    try {
-                        Result<ProductDTO> productResult = productServiceClient.getProduct(activity.getProductId());
-                        if (productResult != null && productResult.getCode() == 200) {
-                            product = productResult.getData();
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取商品{}信息失败: {}", activity.getProductId(), e.getMessage());
-                    }
+                    UserInfoDTO leader = remote.user(team.getLeaderId());
+                    CommunityDTO community = remote.community(team.getCommunityId());
+                    ProductDTO product = remote.product(activity.getProductId());
                     
-                    // 查询团的所有成员（用于详情对话框）
-                    List<GroupBuyMember> teamMembers = memberRepository.findByTeamIdOrderByJoinTimeAsc(team.getTeamId());
-                    List<MemberInfoResponse> memberInfos = teamMembers.stream()
-                        .map(this::convertToMemberInfo)
+                    // 团的所有成员（用于详情对话框）
+                    List<MemberInfoResponse> memberInfos = membersByTeam
+                        .getOrDefault(team.getTeamId(), List.of()).stream()
+                        .map(m -> convertToMemberInfo(m, remote))
                         .collect(Collectors.toList());
                     
                     // 构建我的拼团响应
@@ -813,24 +903,59 @@ public class TeamService {
     }
     
     /**
-     * 转换成员信息
+     * 批量查询团对应的活动（activityId → 活动）
+     */
+    private Map<Long, GroupBuy> loadActivities(Collection<GroupBuyTeam> teams) {
+        Set<Long> activityIds = teams.stream().map(GroupBuyTeam::getActivityId).collect(Collectors.toSet());
+        return activityRepository.findAllById(activityIds).stream()
+            .collect(Collectors.toMap(GroupBuy::getActivityId, a -> a));
+    }
+    
+    /**
+     * 批量查询团的成员（teamId → 成员列表，按参团时间升序）
+     */
+    private Map<Long, List<GroupBuyMember>> loadMembers(Collection<GroupBuyTeam> teams) {
+        if (teams.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> teamIds = teams.stream().map(GroupBuyTeam::getTeamId).collect(Collectors.toSet());
+        return memberRepository.findByTeamIdInOrderByJoinTimeAsc(teamIds).stream()
+            .collect(Collectors.groupingBy(GroupBuyMember::getTeamId));
+    }
+    
+    /**
+     * 收集一次响应需要的用户/社区/商品ID，批量并行加载
      */
-    private MemberInfoResponse convertToMemberInfo(GroupBuyMember member) {
+    private RemoteData loadRemoteData(Collection<GroupBuyTeam> teams, Map<Long, GroupBuy> activities,
+                                      Map<Long, List<GroupBuyMember>> membersByTeam) {
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> communityIds = new HashSet<>();
+        teams.forEach(team -> {
+            userIds.add(team.getLeaderId());
+            communityIds.add(team.getCommunityId());
+        });
+        membersByTeam.values().forEach(list -> list.forEach(m -> userIds.add(m.getUserId())));
+        Set<Long> productIds = activities.values().stream()
+            .map(GroupBuy::getProductId)
+            .collect(Collectors.toSet());
+        
+        return remoteBatchLoader.load(userIds, communityIds, productIds);
+    }
+    
+    /**
+     * 转换成员信息（用户信息从批量加载结果中获取）
+     */
+    private MemberInfoResponse convertToMemberInfo(GroupBuyMember member, RemoteData remote) {
         // 获取用户详细信息
         String username = "用户" + member.getUserId();
         String realName = null;
         String avatar = null;
 
-        try {
-            Result<UserInfoDTO> userResult = userServiceClient.getUserInfo(member.getUserId());
-            if (userResult != null && userResult.getCode() == 200 && userResult.getData() != null) {
-                UserInfoDTO user = userResult.getData();
-                username = user.getUsername() != null ? user.getUsername() : username;
-                realName = user.getRealName();
-                avatar = user.getAvatar();
-            }
-        } catch (Exception e) {
-            log.warn("获取用户{}信息失败: {}", member.getUserId(), e.getMessage());
+        UserInfoDTO user = remote.user(member.getUserId());
+        if (user != null) {
+            username = user.getUsername() != null ? user.getUsername() : username;
+            realName = user.getRealName();
+            avatar = user.getAvatar();
         }
 
         // 获取商品数量（直接从数据库字段获取）
@@ -935,6 +1060,7 @@ public class TeamService {
         // 4. 更新团状态为"已失败"
         team.setTeamStatus(TeamStatus.FAILED.getCode());
         teamRepository.save(team);
+        seatReservationService.close(teamId);
         log.info("团状态已更新为失败，teamId={}", teamId);
         
         // 5. 查询所有成员
@@ -1068,6 +1194,7 @@ public class TeamService {
         
         // 8. 删除参团记录
         memberRepository.delete(member);
+        seatReservationService.releaseAfterCommit(teamId, member.getUserId());
         log.info("参团记录已删除，memberId={}, status={}", memberId, member.getStatus());
         
         // 9. 更新团人数（⭐只有已支付成员才减少团人数）
@@ -1,7 +1,7 @@
 package com.bcu.edu.task;
 
 import com.bcu.edu.repository.TeamRepository;
-import com.bcu.edu.service.RefundService;
+import com.bcu.edu.service.TeamExpiryScheduler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -11,22 +11,16 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * 过期团检查定时任务（⭐核心定时任务）
+ * 过期团兜底扫描任务
  * 
- * <p>功能：
+ * <p>过期处理主路径已改为 {@link TeamExpiryScheduler}（时间轮秒级触发），本任务只做兜底：
  * <ul>
- *   <li>每小时执行一次（cron: 0 0 * * * ?）</li>
+ *   <li>低频执行（默认每10分钟，groupbuy.expiry.sweep-cron）</li>
  *   <li>查询过期的团（team_status=0 且 expire_time < now）</li>
- *   <li>遍历退款（幂等性保证）</li>
- *   <li>异常隔离（单个团失败不影响其他团）</li>
+ *   <li>交给时间轮立即触发，由退款线程池并行处理（幂等性由RefundService行锁保证）</li>
  * </ul>
  * 
- * <p>技术亮点：
- * <ul>
- *   <li>⭐ 幂等性设计：行锁 + 状态检查</li>
- *   <li>⭐ 异常隔离：try-catch捕获单个团异常</li>
- *   <li>⭐ 事务独立：每个团单独事务处理</li>
- * </ul>
+ * <p>覆盖场景：多次重试仍失败的团、注册前进程异常退出的团
  * 
  * @author 耿康瑞
  * @since 2025-10-31
@@ -39,59 +33,26 @@ public class TeamExpireTask {
     private TeamRepository teamRepository;
     
     @Autowired
-    private RefundService refundService;
+    private TeamExpiryScheduler teamExpiryScheduler;
     
     /**
-     * 每小时检查过期团（⭐核心任务）
-     * 
-     * <p>执行时间：每小时的0分0秒
-     * <p>cron表达式：0 0 * * * ?
-     * <p>示例：01:00:00, 02:00:00, 03:00:00, ...
+     * 兜底检查过期团
      */
-    @Scheduled(cron = "0 0 * * * ?")
+    @Scheduled(cron = "${groupbuy.expiry.sweep-cron:0 */10 * * * ?}")
     public void checkExpiredTeams() {
         LocalDateTime now = LocalDateTime.now();
-        log.info("====================================");
-        log.info("开始检查过期团，当前时间：{}", now);
-        log.info("====================================");
         
         try {
-            // 1. 查询过期团ID列表
             List<Long> expiredTeamIds = teamRepository.findExpiredTeamIds(now);
-            
             if (expiredTeamIds.isEmpty()) {
-                log.info("未发现过期团，任务结束");
+                log.debug("兜底扫描未发现过期团，当前时间：{}", now);
                 return;
             }
             
-            log.info("发现{}个过期团需要处理：{}", expiredTeamIds.size(), expiredTeamIds);
-            
-            // 2. 遍历处理每个团
-            int successCount = 0;
-            int failCount = 0;
-            
-            for (Long teamId : expiredTeamIds) {
-                try {
-                    // 每个团单独事务处理（RefundService中@Transactional）
-                    refundService.refundExpiredTeam(teamId);
-                    successCount++;
-                    log.info("✅ 团{}退款成功", teamId);
-                } catch (Exception e) {
-                    failCount++;
-                    log.error("❌ 团{}退款失败", teamId, e);
-                    // 不抛异常，继续处理其他团（异常隔离）⭐
-                }
-            }
-            
-            // 3. 汇总统计
-            log.info("====================================");
-            log.info("过期团处理完成");
-            log.info("总计：{}个，成功：{}个，失败：{}个", expiredTeamIds.size(), successCount, failCount);
-            log.info("成功率：{}%", expiredTeamIds.size() > 0 ? (successCount * 100 / expiredTeamIds.size()) : 0);
-            log.info("====================================");
-            
+            log.warn("兜底扫描发现{}个未处理的过期团：{}", expiredTeamIds.size(), expiredTeamIds);
+            expiredTeamIds.forEach(teamId -> teamExpiryScheduler.register(teamId, now));
         } catch (Exception e) {
-            log.error("定时任务执行异常", e);
+            log.error("过期团兜底扫描异常", e);
         }
     }
     
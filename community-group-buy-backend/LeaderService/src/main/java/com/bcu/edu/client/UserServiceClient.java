@@ -55,13 +55,15 @@ public interface UserServiceClient {
      * @param userId 用户ID（团长ID）
      * @param amount 增加金额（佣金金额）
      * @param remark 备注（结算批次号）
+     * @param sagaId 幂等键（每次结算的佣金记录唯一）
      * @return 操作结果
      */
     @PostMapping("/account/addBalance")
     Result<Void> addBalanceForCommission(
             @RequestParam("userId") Long userId,
             @RequestParam("amount") java.math.BigDecimal amount,
-            @RequestParam(value = "remark", required = false) String remark
+            @RequestParam(value = "remark", required = false) String remark,
+            @RequestParam(value = "sagaId", required = false) String sagaId
     );
 }
 
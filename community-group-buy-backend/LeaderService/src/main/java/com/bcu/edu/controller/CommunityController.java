@@ -51,6 +51,28 @@ public class CommunityController {
                 .orElse(Result.error("您的位置不在任何社区服务范围内"));
     }
 
+    /**
+     * 查询附近的社区（按距离升序）
+     * 
+     * 场景：用户不在任何社区服务范围内时，展示附近可选的社区
+     * 
+     * GET /api/community/nearby?latitude=39.9042&longitude=116.4074&limit=5
+     */
+    @GetMapping("/nearby")
+    @Operation(summary = "查询附近的社区", description = "返回10公里内距离最近的若干个社区")
+    public Result<List<Community>> findNearbyCommunities(
+            @Parameter(description = "纬度", example = "39.9042")
+            @RequestParam BigDecimal latitude,
+            @Parameter(description = "经度", example = "116.4074")
+            @RequestParam BigDecimal longitude,
+            @Parameter(description = "返回数量（最多50）", example = "5")
+            @RequestParam(defaultValue = "5") Integer limit
+    ) {
+        log.info("查询附近社区：latitude={}, longitude={}, limit={}", latitude, longitude, limit);
+
+        return Result.success(communityService.findNearbyCommunities(latitude, longitude, limit));
+    }
+
     /**
      * 查询所有正常运营的社区
      * 
@@ -1,6 +1,7 @@
 package com.bcu.edu.controller;
 
 import com.bcu.edu.common.result.Result;
+import com.bcu.edu.dto.GeoPoint;
 import com.bcu.edu.entity.CommissionRecord;
 import com.bcu.edu.entity.Community;
 import com.bcu.edu.entity.GroupLeaderStore;
@@ -55,6 +56,20 @@ public class FeignController {
                 .orElse(Result.error("社区不存在"));
     }
 
+    /**
+     * 根据社区ID批量获取社区信息
+     * 供GroupBuyService列表页批量加载（不存在的ID直接忽略）
+     * 
+     * POST /feign/community/batch
+     */
+    @PostMapping("/community/batch")
+    @Operation(summary = "批量获取社区信息", description = "根据社区ID列表批量查询社区详情")
+    public Result<List<Community>> getCommunitiesByIds(@RequestBody List<Long> communityIds) {
+        log.info("[Feign] 批量查询社区：count={}", communityIds != null ? communityIds.size() : 0);
+
+        return Result.success(communityService.getCommunitiesByIds(communityIds));
+    }
+
     /**
      * 根据用户经纬度匹配最近的社区
      * 供UserService调用（用户注册、选择地址时自动匹配社区）
@@ -74,6 +89,24 @@ public class FeignController {
                 .orElse(Result.error("您的位置不在任何社区服务范围内"));
     }
 
+    /**
+     * 批量匹配最近的社区
+     * 供UserService批量导入地址时调用，返回结果与坐标一一对应（不在任何服务范围内为null）
+     * 
+     * POST /feign/community/nearest/batch
+     */
+    @PostMapping("/community/nearest/batch")
+    @Operation(summary = "批量匹配最近的社区", description = "根据坐标列表批量匹配最近的社区")
+    public Result<List<Community>> findNearestCommunities(@RequestBody List<GeoPoint> points) {
+        log.info("[Feign] 批量匹配最近社区：count={}", points != null ? points.size() : 0);
+
+        try {
+            return Result.success(communityService.findNearestCommunities(points));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 验证社区是否存在
      * 
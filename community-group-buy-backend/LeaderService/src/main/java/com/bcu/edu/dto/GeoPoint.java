@@ -0,0 +1,30 @@
+package com.bcu.edu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 经纬度坐标
+ *
+ * @author 耿康瑞
+ * @date 2025-11-20
+ * @description 批量匹配社区的请求参数（WGS-84坐标系）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeoPoint {
+
+    /**
+     * 纬度
+     */
+    private BigDecimal latitude;
+
+    /**
+     * 经度
+     */
+    private BigDecimal longitude;
+}
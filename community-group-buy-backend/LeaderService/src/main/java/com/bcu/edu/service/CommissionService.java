@@ -16,11 +16,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -142,7 +144,7 @@ public class CommissionService {
                 // 调用UserService为团长增加余额
                 String remark = "佣金结算-批次:" + settlementBatch;
                 Result<Void> result = userServiceClient.addBalanceForCommission(
-                    leaderId, totalCommission, remark);
+                    leaderId, totalCommission, remark, settlementSagaId(leaderId, leaderRecords));
                 
                 if (result == null || result.getCode() != 200) {
                     String errorMsg = result != null ? result.getMessage() : "调用失败";
@@ -184,6 +186,21 @@ public class CommissionService {
         return settledCount;
     }
 
+    /**
+     * 结算入账幂等键：由团长ID和本次结算的佣金记录ID生成
+     *
+     * <p>同一批记录重试（余额已增加但本地事务回滚）只入账一次；
+     * 同一天再次结算（如手动结算 _MANUAL）的是另一批记录，键不同，不会被当作重复
+     */
+    private static String settlementSagaId(Long leaderId, List<CommissionRecord> records) {
+        String recordIds = records.stream()
+                .map(CommissionRecord::getRecordId)
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return "COMMISSION-" + UUID.nameUUIDFromBytes((leaderId + ":" + recordIds).getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * 生成结算批次号（格式：YYYYMMDD）
      */
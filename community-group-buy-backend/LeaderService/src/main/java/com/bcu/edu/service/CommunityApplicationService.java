@@ -31,6 +31,7 @@ public class CommunityApplicationService {
 
     private final CommunityApplicationRepository applicationRepository;
     private final CommunityRepository communityRepository;
+    private final CommunitySpatialIndex communitySpatialIndex;
 
     /**
      * 提交社区申请
@@ -159,7 +160,9 @@ public class CommunityApplicationService {
         community.setDescription(application.getDescription());
         community.setStatus(1); // 1-正常运营
 
-        return communityRepository.save(community);
+        Community saved = communityRepository.save(community);
+        communitySpatialIndex.upsert(saved);
+        return saved;
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.bcu.edu.service;
 
+import com.bcu.edu.dto.GeoPoint;
 import com.bcu.edu.entity.Community;
 import com.bcu.edu.repository.CommunityRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +23,7 @@ import java.util.Optional;
  * 1. 社区CRUD操作
  * 2. Haversine距离计算算法（根据用户经纬度匹配最近社区）
  * 3. 社区服务范围判断
+ * 4. 最近社区查询走内存空间索引（CommunitySpatialIndex），增删改同步更新索引
  */
 @Slf4j
 @Service
@@ -28,12 +31,17 @@ import java.util.Optional;
 public class CommunityService {
 
     private final CommunityRepository communityRepository;
+    private final CommunitySpatialIndex communitySpatialIndex;
 
     /**
-     * 地球半径（单位：米）
-     * 平均半径：6371000米
+     * 附近社区的最大搜索半径（单位：米）
      */
-    private static final double EARTH_RADIUS_METERS = 6371000.0;
+    private static final double NEARBY_SEARCH_RADIUS_METERS = 10000.0;
+
+    /**
+     * 附近社区最多返回数量
+     */
+    private static final int MAX_NEARBY_LIMIT = 50;
 
     /**
      * 创建社区
@@ -49,7 +57,9 @@ public class CommunityService {
         validateCoordinates(community.getLatitude(), community.getLongitude());
 
         log.info("创建社区：{}", community.getName());
-        return communityRepository.save(community);
+        Community saved = communityRepository.save(community);
+        communitySpatialIndex.upsert(saved);
+        return saved;
     }
 
     /**
@@ -80,7 +90,9 @@ public class CommunityService {
         existing.setDescription(updatedCommunity.getDescription());
 
         log.info("更新社区：{}", communityId);
-        return communityRepository.save(existing);
+        Community saved = communityRepository.save(existing);
+        communitySpatialIndex.upsert(saved);
+        return saved;
     }
 
     /**
@@ -93,6 +105,7 @@ public class CommunityService {
 
         community.setStatus(2); // 2-已关闭
         communityRepository.save(community);
+        communitySpatialIndex.upsert(community);
 
         log.info("删除社区：{}", communityId);
     }
@@ -104,6 +117,16 @@ public class CommunityService {
         return communityRepository.findById(communityId);
     }
 
+    /**
+     * 根据ID批量查询社区
+     */
+    public List<Community> getCommunitiesByIds(List<Long> communityIds) {
+        if (communityIds == null || communityIds.isEmpty()) {
+            return List.of();
+        }
+        return communityRepository.findAllById(communityIds);
+    }
+
     /**
      * 查询所有正常运营的社区
      */
@@ -122,9 +145,9 @@ public class CommunityService {
      * 【核心算法】根据用户经纬度匹配最近的社区
      * 
      * 算法流程：
-     * 1. 粗筛：用矩形范围过滤候选社区（提升性能）
+     * 1. 粗筛：在内存网格索引中只扫描最大服务半径覆盖的格子
      * 2. 精算：用Haversine公式计算精确距离
-     * 3. 排序：返回最近的社区
+     * 3. 过滤：只保留用户在其服务半径内的社区，返回最近的一个
      * 
      * @param userLatitude 用户纬度
      * @param userLongitude 用户经度
@@ -133,116 +156,64 @@ public class CommunityService {
     public Optional<Community> findNearestCommunity(BigDecimal userLatitude, BigDecimal userLongitude) {
         validateCoordinates(userLatitude, userLongitude);
 
-        // 步骤1：计算粗筛范围（假设最大搜索半径10公里）
-        double searchRadiusKm = 10.0;
-        BigDecimal[] bounds = calculateBounds(userLatitude, userLongitude, searchRadiusKm);
-
-        // 步骤2：查询候选社区（矩形范围过滤）
-        List<Community> candidates = communityRepository.findByCoordinateRange(
-                bounds[0], // minLat
-                bounds[1], // maxLat
-                bounds[2], // minLon
-                bounds[3]  // maxLon
-        );
-
-        if (candidates.isEmpty()) {
-            log.warn("用户位置({}, {})周围10公里内无社区", userLatitude, userLongitude);
-            return Optional.empty();
-        }
-
-        // 步骤3：用Haversine公式计算精确距离，找出最近的社区
-        Community nearestCommunity = null;
-        double minDistance = Double.MAX_VALUE;
-
-        for (Community community : candidates) {
-            double distance = calculateHaversineDistance(
-                    userLatitude, userLongitude,
-                    community.getLatitude(), community.getLongitude()
-            );
+        Optional<CommunitySpatialIndex.Match> match = communitySpatialIndex.nearestWithinServiceRadius(
+                userLatitude.doubleValue(), userLongitude.doubleValue());
 
-            // 检查是否在服务范围内
-            if (distance <= community.getServiceRadius() && distance < minDistance) {
-                minDistance = distance;
-                nearestCommunity = community;
-            }
-        }
-
-        if (nearestCommunity != null) {
+        if (match.isPresent()) {
             log.info("用户({}, {})匹配到社区：{}，距离：{}米",
-                    userLatitude, userLongitude, nearestCommunity.getName(), (int) minDistance);
+                    userLatitude, userLongitude, match.get().community().getName(), (int) match.get().distance());
         } else {
             log.warn("用户位置({}, {})不在任何社区服务范围内", userLatitude, userLongitude);
         }
 
-        return Optional.ofNullable(nearestCommunity);
+        return match.map(CommunitySpatialIndex.Match::community);
     }
 
     /**
-     * 【核心算法】Haversine公式计算两点间球面距离
-     * 
-     * 公式：
-     * a = sin²(Δφ/2) + cos(φ1) * cos(φ2) * sin²(Δλ/2)
-     * c = 2 * atan2(√a, √(1−a))
-     * d = R * c
+     * 批量匹配最近的社区（批量导入地址时使用）
      * 
-     * 其中：
-     * - φ 表示纬度（latitude）
-     * - λ 表示经度（longitude）
-     * - R 表示地球半径（6371000米）
-     * 
-     * @param lat1 点1纬度
-     * @param lon1 点1经度
-     * @param lat2 点2纬度
-     * @param lon2 点2经度
-     * @return 距离（单位：米）
+     * @param points 坐标列表
+     * @return 与坐标一一对应的社区，不在任何服务范围内为null
      */
-    private double calculateHaversineDistance(
-            BigDecimal lat1, BigDecimal lon1,
-            BigDecimal lat2, BigDecimal lon2
-    ) {
-        // 转换为弧度
-        double lat1Rad = Math.toRadians(lat1.doubleValue());
-        double lon1Rad = Math.toRadians(lon1.doubleValue());
-        double lat2Rad = Math.toRadians(lat2.doubleValue());
-        double lon2Rad = Math.toRadians(lon2.doubleValue());
-
-        // 计算差值
-        double deltaLat = lat2Rad - lat1Rad;
-        double deltaLon = lon2Rad - lon1Rad;
-
-        // Haversine公式
-        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2) +
-                Math.cos(lat1Rad) * Math.cos(lat2Rad) *
-                        Math.sin(deltaLon / 2) * Math.sin(deltaLon / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        // 距离（米）
-        return EARTH_RADIUS_METERS * c;
+    public List<Community> findNearestCommunities(List<GeoPoint> points) {
+        if (points == null || points.isEmpty()) {
+            return List.of();
+        }
+        points.forEach(point -> validateCoordinates(point.getLatitude(), point.getLongitude()));
+
+        List<Community> result = new ArrayList<>(points.size());
+        int matched = 0;
+        for (GeoPoint point : points) {
+            Community community = communitySpatialIndex.nearestWithinServiceRadius(
+                            point.getLatitude().doubleValue(), point.getLongitude().doubleValue())
+                    .map(CommunitySpatialIndex.Match::community)
+                    .orElse(null);
+            if (community != null) {
+                matched++;
+            }
+            result.add(community);
+        }
+
+        log.info("批量匹配社区完成：共{}个坐标，匹配成功{}个", points.size(), matched);
+        return result;
     }
 
     /**
-     * 计算矩形搜索范围（用于数据库粗筛）
-     * 
-     * 简化算法：
-     * - 纬度1度 ≈ 111km
-     * - 经度1度 ≈ 111km * cos(纬度)
+     * 查询附近的社区（10公里内，按距离升序，不判断服务半径）
      * 
-     * @param centerLat 中心纬度
-     * @param centerLon 中心经度
-     * @param radiusKm 搜索半径（公里）
-     * @return [minLat, maxLat, minLon, maxLon]
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @param limit 返回数量
      */
-    private BigDecimal[] calculateBounds(BigDecimal centerLat, BigDecimal centerLon, double radiusKm) {
-        double latDelta = radiusKm / 111.0; // 纬度偏移量
-        double lonDelta = radiusKm / (111.0 * Math.cos(Math.toRadians(centerLat.doubleValue()))); // 经度偏移量
-
-        BigDecimal minLat = centerLat.subtract(BigDecimal.valueOf(latDelta));
-        BigDecimal maxLat = centerLat.add(BigDecimal.valueOf(latDelta));
-        BigDecimal minLon = centerLon.subtract(BigDecimal.valueOf(lonDelta));
-        BigDecimal maxLon = centerLon.add(BigDecimal.valueOf(lonDelta));
-
-        return new BigDecimal[]{minLat, maxLat, minLon, maxLon};
+    public List<Community> findNearbyCommunities(BigDecimal latitude, BigDecimal longitude, int limit) {
+        validateCoordinates(latitude, longitude);
+        int k = Math.min(Math.max(limit, 1), MAX_NEARBY_LIMIT);
+
+        return communitySpatialIndex.nearest(latitude.doubleValue(), longitude.doubleValue(), k,
+                        NEARBY_SEARCH_RADIUS_METERS)
+                .stream()
+                .map(CommunitySpatialIndex.Match::community)
+                .toList();
     }
 
     /**
@@ -0,0 +1,351 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.entity.Community;
+import com.bcu.edu.repository.CommunityRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * 社区空间索引（⭐内存网格，替代每次查询的数据库矩形粗筛）
+ *
+ * @author 耿康瑞
+ * @date 2025-11-20
+ * @description 核心设计：
+ * 1. 按经纬度把正常运营的社区划入等大网格（默认0.05°，约5公里）
+ * 2. 查询时只扫描目标点附近的格子，再用Haversine公式精算
+ * 3. 索引是不可变快照，读无锁；社区增删改在事务提交后重建快照（社区数量小、变更少）
+ * 4. 启动完成后加载，未加载时首次查询同步加载
+ * 5. 本实例的修改立即生效；其他实例的修改由定时全量重载同步（leader.community-index.reload-interval-ms）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommunitySpatialIndex {
+
+    /**
+     * 地球半径（单位：米）
+     */
+    private static final double EARTH_RADIUS_METERS = 6371000.0;
+
+    /**
+     * 纬度1度对应的距离（米）
+     */
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    /**
+     * 社区状态：正常运营
+     */
+    private static final int STATUS_ACTIVE = 1;
+
+    private final CommunityRepository communityRepository;
+
+    /**
+     * 网格边长（度）
+     */
+    @Value("${leader.community-index.cell-degrees:0.05}")
+    private double cellDegrees;
+
+    /**
+     * 正常运营的社区（communityId -> 社区），修改时持有对象锁
+     */
+    private final Map<Long, Community> communities = new LinkedHashMap<>();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 启动完成后加载索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // 数据库暂不可用时，首次查询再加载
+            log.warn("社区空间索引加载失败，将在首次查询时重试：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库重新加载所有正常运营的社区
+     */
+    public synchronized void reload() {
+        load();
+        log.info("社区空间索引加载完成，社区数量={}", communities.size());
+    }
+
+    /**
+     * 定时全量重载，同步其他实例对社区的修改
+     */
+    @Scheduled(initialDelayString = "${leader.community-index.reload-interval-ms:60000}",
+               fixedDelayString = "${leader.community-index.reload-interval-ms:60000}")
+    public void refresh() {
+        try {
+            synchronized (this) {
+                if (snapshot == null) {
+                    return;
+                }
+                load();
+            }
+            log.debug("社区空间索引已重载，社区数量={}", snapshot.size());
+        } catch (Exception e) {
+            log.warn("社区空间索引重载失败，沿用当前索引：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 新增或更新社区（在事务中调用时，事务提交后生效）
+     * 状态不是正常运营的社区从索引移除
+     */
+    public void upsert(Community community) {
+        afterCommit(() -> apply(community));
+    }
+
+    /**
+     * 最近的、且目标点在其服务半径内的社区
+     *
+     * @param latitude 纬度
+     * @param longitude 经度
+     */
+    public Optional<Match> nearestWithinServiceRadius(double latitude, double longitude) {
+        Snapshot current = current();
+        if (current.size() == 0) {
+            return Optional.empty();
+        }
+
+        // 只需扫描最大服务半径覆盖的格子
+        double latDelta = current.maxRadius() / METERS_PER_DEGREE;
+        double lngDelta = current.maxRadius() / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 1e-6));
+        int minRow = cell(latitude - latDelta);
+        int maxRow = cell(latitude + latDelta);
+        int minCol = cell(longitude - lngDelta);
+        int maxCol = cell(longitude + lngDelta);
+
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int[] members = current.cells().get(cellKey(row, col));
+                if (members == null) {
+                    continue;
+                }
+                for (int i : members) {
+                    double distance = haversine(latitude, longitude, current.lats()[i], current.lngs()[i]);
+                    if (distance <= current.radii()[i] && distance < bestDistance) {
+                        bestDistance = distance;
+                        best = i;
+                    }
+                }
+            }
+        }
+        return best < 0 ? Optional.empty() : Optional.of(new Match(current.items()[best], bestDistance));
+    }
+
+    /**
+     * 距离最近的k个社区（不判断服务半径），按距离升序
+     *
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @param k 数量
+     * @param maxDistanceMeters 最大距离（米）
+     */
+    public List<Match> nearest(double latitude, double longitude, int k, double maxDistanceMeters) {
+        Snapshot current = current();
+        if (current.size() == 0 || k <= 0) {
+            return List.of();
+        }
+
+        // 大顶堆保留当前最近的k个
+        PriorityQueue<Match> heap = new PriorityQueue<>(Comparator.comparingDouble(Match::distance).reversed());
+        int centerRow = cell(latitude);
+        int centerCol = cell(longitude);
+        int maxRing = Math.max(
+                Math.max(Math.abs(centerRow - current.minRow()), Math.abs(current.maxRow() - centerRow)),
+                Math.max(Math.abs(centerCol - current.minCol()), Math.abs(current.maxCol() - centerCol)));
+
+        // 由内向外逐圈扫描格子
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int fromRow = Math.max(centerRow - ring, current.minRow());
+            int toRow = Math.min(centerRow + ring, current.maxRow());
+            for (int row = fromRow; row <= toRow; row++) {
+                // 首尾两行扫描整行，中间行只扫描左右两端的格子
+                boolean edgeRow = Math.abs(row - centerRow) == ring;
+                int fromCol = edgeRow ? Math.max(centerCol - ring, current.minCol()) : centerCol - ring;
+                int toCol = edgeRow ? Math.min(centerCol + ring, current.maxCol()) : centerCol + ring;
+                int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int col = fromCol; col <= toCol; col += step) {
+                    int[] members = current.cells().get(cellKey(row, col));
+                    if (members == null) {
+                        continue;
+                    }
+                    for (int i : members) {
+                        double distance = haversine(latitude, longitude, current.lats()[i], current.lngs()[i]);
+                        if (distance > maxDistanceMeters) {
+                            continue;
+                        }
+                        if (heap.size() < k) {
+                            heap.add(new Match(current.items()[i], distance));
+                        } else if (distance < heap.peek().distance()) {
+                            heap.poll();
+                            heap.add(new Match(current.items()[i], distance));
+                        }
+                    }
+                }
+            }
+
+            // 第ring圈之外的点距离至少为 ring 个格子宽度（经度方向按扫描到的最高纬度收窄）
+            double outerLat = Math.min(Math.abs(latitude) + (ring + 1) * cellDegrees, 89.0);
+            double bound = ring * cellDegrees * METERS_PER_DEGREE * Math.cos(Math.toRadians(outerLat));
+            if (bound > maxDistanceMeters || (heap.size() == k && heap.peek().distance() <= bound)) {
+                break;
+            }
+        }
+
+        List<Match> result = new ArrayList<>(heap);
+        result.sort(Comparator.comparingDouble(Match::distance));
+        return result;
+    }
+
+    /**
+     * Haversine公式计算两点间球面距离（米）
+     */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double lat1Rad = Math.toRadians(lat1);
+        double lat2Rad = Math.toRadians(lat2);
+        double deltaLat = lat2Rad - lat1Rad;
+        double deltaLon = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2) +
+                Math.cos(lat1Rad) * Math.cos(lat2Rad) *
+                        Math.sin(deltaLon / 2) * Math.sin(deltaLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_METERS * c;
+    }
+
+    private synchronized void apply(Community community) {
+        if (community.getStatus() != null && community.getStatus() == STATUS_ACTIVE) {
+            communities.put(community.getCommunityId(), community);
+        } else {
+            communities.remove(community.getCommunityId());
+        }
+        if (snapshot != null) {
+            rebuild();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 从数据库加载并重建快照（调用方持有对象锁）
+     */
+    private void load() {
+        List<Community> active = communityRepository.findByStatus(STATUS_ACTIVE);
+        communities.clear();
+        active.forEach(community -> communities.put(community.getCommunityId(), community));
+        rebuild();
+    }
+
+    /**
+     * 重建快照（调用方持有对象锁）
+     */
+    private void rebuild() {
+        int n = communities.size();
+        Community[] items = new Community[n];
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        double[] radii = new double[n];
+        Map<Long, List<Integer>> grouped = new HashMap<>();
+        int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE;
+        int minCol = Integer.MAX_VALUE, maxCol = Integer.MIN_VALUE;
+        double maxRadius = 0;
+
+        int i = 0;
+        for (Community community : communities.values()) {
+            items[i] = community;
+            lats[i] = community.getLatitude().doubleValue();
+            lngs[i] = community.getLongitude().doubleValue();
+            radii[i] = community.getServiceRadius() != null ? community.getServiceRadius() : 0;
+            maxRadius = Math.max(maxRadius, radii[i]);
+
+            int row = cell(lats[i]);
+            int col = cell(lngs[i]);
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+            minCol = Math.min(minCol, col);
+            maxCol = Math.max(maxCol, col);
+            grouped.computeIfAbsent(cellKey(row, col), key -> new ArrayList<>()).add(i);
+            i++;
+        }
+
+        Map<Long, int[]> cells = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((key, members) -> cells.put(key, members.stream().mapToInt(Integer::intValue).toArray()));
+        snapshot = new Snapshot(items, lats, lngs, radii, cells, maxRadius, minRow, maxRow, minCol, maxCol);
+    }
+
+    private int cell(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * 匹配结果
+     *
+     * @param community 社区
+     * @param distance 距离（米）
+     */
+    public record Match(Community community, double distance) {
+    }
+
+    /**
+     * 索引快照（不可变）
+     */
+    private record Snapshot(Community[] items, double[] lats, double[] lngs, double[] radii,
+                            Map<Long, int[]> cells, double maxRadius,
+                            int minRow, int maxRow, int minCol, int maxCol) {
+        int size() {
+            return items.length;
+        }
+    }
+}
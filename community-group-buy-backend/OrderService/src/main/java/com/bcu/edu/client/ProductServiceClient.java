@@ -2,13 +2,18 @@ package com.bcu.edu.client;
 
 import com.bcu.edu.client.fallback.ProductServiceClientFallback;
 import com.bcu.edu.common.result.Result;
+import com.bcu.edu.dto.request.StockLine;
+import com.bcu.edu.dto.response.BatchStockResult;
 import com.bcu.edu.dto.response.ProductDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 /**
  * ProductService Feign客户端
  * 
@@ -37,5 +42,25 @@ public interface ProductServiceClient {
     @PostMapping("/api/product/feign/restoreStock")
     Result<Void> restoreStock(@RequestParam("productId") Long productId, 
                               @RequestParam("quantity") Integer quantity);
+
+    /**
+     * 批量扣减库存（购物车结算，全部成功或全部回滚；同一 bizKey 只扣减一次）
+     */
+    @PostMapping("/api/product/feign/stock/batch-deduct")
+    Result<BatchStockResult> deductStockBatch(@RequestParam("bizKey") String bizKey,
+                                              @RequestBody List<StockLine> lines);
+
+    /**
+     * 取消批量扣减（结算事务回滚后调用，扣减已生效则归还）
+     */
+    @PostMapping("/api/product/feign/stock/batch-cancel")
+    Result<Void> cancelDeductBatch(@RequestParam("bizKey") String bizKey,
+                                   @RequestBody List<StockLine> lines);
+
+    /**
+     * 批量恢复库存（带 bizKey 的行同一键只归还一次）
+     */
+    @PostMapping("/api/product/feign/stock/batch-restore")
+    Result<Void> restoreStockBatch(@RequestBody List<StockLine> lines);
 }
 
@@ -2,10 +2,14 @@ package com.bcu.edu.client.fallback;
 
 import com.bcu.edu.client.ProductServiceClient;
 import com.bcu.edu.common.result.Result;
+import com.bcu.edu.dto.request.StockLine;
+import com.bcu.edu.dto.response.BatchStockResult;
 import com.bcu.edu.dto.response.ProductDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @Slf4j
 public class ProductServiceClientFallback implements ProductServiceClient {
@@ -27,5 +31,22 @@ public class ProductServiceClientFallback implements ProductServiceClient {
         log.error("ProductService调用失败: restoreStock, productId={}, quantity={}", productId, quantity);
         return Result.error("商品服务暂时不可用");
     }
-}
 
+    @Override
+    public Result<BatchStockResult> deductStockBatch(String bizKey, List<StockLine> lines) {
+        log.error("ProductService调用失败: deductStockBatch, bizKey={}, lines={}", bizKey, lines);
+        return Result.error("商品服务暂时不可用");
+    }
+
+    @Override
+    public Result<Void> cancelDeductBatch(String bizKey, List<StockLine> lines) {
+        log.error("ProductService调用失败: cancelDeductBatch, bizKey={}, lines={}", bizKey, lines);
+        return Result.error("商品服务暂时不可用");
+    }
+
+    @Override
+    public Result<Void> restoreStockBatch(List<StockLine> lines) {
+        log.error("ProductService调用失败: restoreStockBatch, lines={}", lines);
+        return Result.error("商品服务暂时不可用");
+    }
+}
@@ -0,0 +1,27 @@
+package com.bcu.edu.config;
+
+import com.bcu.edu.client.ProductServiceClient;
+import com.bcu.edu.common.cache.NearCacheManager;
+import com.bcu.edu.common.cache.ProductNearCache;
+import com.bcu.edu.dto.response.ProductDTO;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 近端缓存配置
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Configuration
+public class NearCacheConfig {
+
+    /**
+     * 商品信息近端缓存
+     */
+    @Bean
+    public ProductNearCache<ProductDTO> productNearCache(NearCacheManager nearCacheManager,
+                                                        ProductServiceClient productServiceClient) {
+        return new ProductNearCache<>(nearCacheManager, productServiceClient::getProduct);
+    }
+}
@@ -0,0 +1,35 @@
+package com.bcu.edu.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 远程调用线程池配置
+ * 
+ * <p>用于创建订单时并行调用User/Leader服务的校验接口
+ * 
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Configuration
+public class RemoteCallConfig {
+
+    /**
+     * 下单校验专用线程池
+     */
+    @Bean("orderValidateExecutor")
+    public Executor orderValidateExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(9);
+        executor.setMaxPoolSize(48);
+        executor.setQueueCapacity(300);
+        executor.setThreadNamePrefix("order-validate-");
+        // 线程池满时由调用线程执行，退化为串行但不丢请求
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -5,7 +5,10 @@ import com.bcu.edu.common.result.PageResult;
 import com.bcu.edu.common.result.Result;
 import com.bcu.edu.dto.response.OrderDetailVO;
 import com.bcu.edu.dto.response.OrderStatisticsVO;
+import com.bcu.edu.dto.response.OrderTransitionResult;
+import com.bcu.edu.dto.response.OrderTrendVO;
 import com.bcu.edu.dto.response.OrderVO;
+import com.bcu.edu.service.OrderExportService;
 import com.bcu.edu.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -32,6 +35,9 @@ public class AdminController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
     /**
      * 获取订单列表（分页）
      */
@@ -61,6 +67,16 @@ public class AdminController {
         return Result.success(statistics);
     }
 
+    /**
+     * 获取订单趋势（每分钟一个点）
+     */
+    @GetMapping("/trend")
+    @Operation(summary = "获取订单趋势", description = "最近若干分钟每分钟的下单数、支付数和支付金额")
+    public Result<List<OrderTrendVO>> getOrderTrend(
+            @Parameter(description = "最近多少分钟（1~10080）") @RequestParam(defaultValue = "60") Integer minutes) {
+        return Result.success(orderService.getOrderTrend(minutes));
+    }
+
     /**
      * 更新订单状态
      */
@@ -82,13 +98,13 @@ public class AdminController {
     @PostMapping("/batchUpdateStatus")
     @Operation(summary = "批量更新订单状态", description = "批量更新多个订单状态")
     @OperationLog(value = "批量更新订单状态", module = "订单管理")
-    public Result<Void> batchUpdateOrderStatus(
+    public Result<OrderTransitionResult> batchUpdateOrderStatus(
             @RequestBody List<Long> orderIds,
             @Parameter(description = "订单状态") @RequestParam Integer status) {
         
         log.info("管理端批量更新订单状态: orderIds={}, status={}", orderIds, status);
-        orderService.batchUpdateStatus(orderIds, status);
-        return Result.success("批量更新成功");
+        OrderTransitionResult result = orderService.batchUpdateStatus(orderIds, status);
+        return Result.success("批量更新完成", result);
     }
 
     /**
@@ -124,21 +140,33 @@ public class AdminController {
     }
 
     /**
-     * 导出订单
+     * 导出订单（流式写出，支持 xlsx / csv 与 gzip）
      */
     @GetMapping("/export")
-    @Operation(summary = "导出订单", description = "导出订单数据为Excel文件")
+    @Operation(summary = "导出订单", description = "按条件流式导出订单数据为Excel或CSV文件")
     @OperationLog(value = "导出订单", module = "订单管理")
     public void exportOrders(
             @Parameter(description = "订单状态（可选）") @RequestParam(required = false) Integer status,
             @Parameter(description = "支付状态（可选）") @RequestParam(required = false) Integer payStatus,
             @Parameter(description = "开始日期（可选）") @RequestParam(required = false) String startDate,
             @Parameter(description = "结束日期（可选）") @RequestParam(required = false) String endDate,
+            @Parameter(description = "文件格式：xlsx / csv") @RequestParam(defaultValue = "xlsx") String format,
+            @Parameter(description = "是否gzip压缩") @RequestParam(defaultValue = "false") Boolean gzip,
+            @Parameter(description = "导出任务ID（可选，用于取消）") @RequestParam(required = false) String exportId,
             HttpServletResponse response) {
         
-        log.info("管理端导出订单: status={}, payStatus={}, startDate={}, endDate={}", 
-                status, payStatus, startDate, endDate);
-        orderService.exportOrders(status, payStatus, startDate, endDate, response);
+        log.info("管理端导出订单: status={}, payStatus={}, startDate={}, endDate={}, format={}, gzip={}", 
+                status, payStatus, startDate, endDate, format, gzip);
+        orderExportService.exportOrders(status, payStatus, startDate, endDate, format, gzip, exportId, response);
+    }
+
+    /**
+     * 取消导出
+     */
+    @DeleteMapping("/export/{exportId}")
+    @Operation(summary = "取消导出", description = "取消进行中的订单导出")
+    public Result<Boolean> cancelExport(@Parameter(description = "导出任务ID") @PathVariable String exportId) {
+        return Result.success(orderExportService.cancel(exportId));
     }
 
     /**
@@ -2,7 +2,10 @@ package com.bcu.edu.controller;
 
 import com.bcu.edu.common.result.Result;
 import com.bcu.edu.dto.request.CreateOrderRequest;
+import com.bcu.edu.dto.request.ShippingAssignment;
 import com.bcu.edu.dto.response.OrderDetailVO;
+import com.bcu.edu.dto.response.OrderTransitionResult;
+import com.bcu.edu.dto.response.OrderTransitionResult.Outcome;
 import com.bcu.edu.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Feign内部接口Controller（供其他微服务调用）
@@ -62,7 +66,7 @@ public class FeignController {
      * 
      * @param orderIds 订单ID列表
      * @param status 订单状态（1-待发货）
-     * @return 成功/失败
+     * @return 成功/失败（有订单未能流转时返回失败，消息中列出未流转的订单）
      */
     @PostMapping("/batchUpdateStatus")
     @Operation(summary = "批量更新订单状态", description = "成团后批量更新订单状态")
@@ -71,8 +75,17 @@ public class FeignController {
         log.info("Feign调用: 批量更新订单状态, orderIds={}, status={}", orderIds, status);
 
         try {
-            orderService.batchUpdateStatus(orderIds, status);
-            log.info("批量更新成功: 共{}条订单", orderIds.size());
+            OrderTransitionResult result = orderService.batchUpdateStatus(orderIds, status);
+            log.info("批量更新完成: 更新{}条, 无需更新{}条, 未流转{}条",
+                    result.getUpdated(), result.getUnchanged(), result.getRejected());
+            if (result.getRejected() > 0) {
+                String rejected = result.getOutcomes().stream()
+                        .filter(o -> o.getOutcome() != Outcome.UPDATED && o.getOutcome() != Outcome.UNCHANGED)
+                        .map(o -> o.getOrderId() + "(" + o.getMessage() + ")")
+                        .collect(Collectors.joining(", "));
+                log.warn("批量更新存在未流转订单: {}", rejected);
+                return Result.error(String.format("%d个订单状态未更新: %s", result.getRejected(), rejected));
+            }
             return Result.success("订单状态更新成功");
         } catch (Exception e) {
             log.error("批量更新失败", e);
@@ -277,6 +290,30 @@ public class FeignController {
         }
     }
 
+    /**
+     * 多车发货：批量更新订单状态为"配送中"（供DeliveryService调用）
+     *
+     * <p>调用方: DeliveryService.batchShipFleet()
+     * <p>场景: 多车发货时一次提交所有车辆的订单，全部成功或全部不更新
+     *
+     * @param assignments 每辆车的配送单和订单
+     * @return 更新数量
+     */
+    @PostMapping("/batchUpdateToShippingFleet")
+    @Operation(summary = "多车批量更新订单为配送中", description = "供DeliveryService调用，多车发货时一次更新所有车辆的订单")
+    public Result<Integer> batchUpdateToShippingFleet(@RequestBody List<ShippingAssignment> assignments) {
+        log.info("Feign调用: 多车批量更新订单为配送中, 车辆数={}", assignments.size());
+
+        try {
+            Integer count = orderService.batchUpdateToShippingFleet(assignments);
+            log.info("多车批量更新成功: 共{}条订单", count);
+            return Result.success(count);
+        } catch (Exception e) {
+            log.error("多车批量更新订单状态失败", e);
+            return Result.error("批量更新订单状态失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 批量更新订单状态为"已送达"（⭐新增接口 - 供DeliveryService调用）
      *
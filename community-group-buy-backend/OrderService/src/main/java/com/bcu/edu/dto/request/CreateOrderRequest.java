@@ -67,5 +67,10 @@ public class CreateOrderRequest {
      * 拼团活动ID（非拼团为null）
      */
     private Long activityId;
+
+    /**
+     * 下单前是否已扣减库存（购物车结算为true，取消/超时时据此归还库存）
+     */
+    private Boolean stockReserved;
 }
 
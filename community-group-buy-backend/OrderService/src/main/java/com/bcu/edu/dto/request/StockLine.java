@@ -0,0 +1,36 @@
+package com.bcu.edu.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量库存操作行（调用ProductService）
+ * 
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLine {
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 数量
+     */
+    private Integer quantity;
+
+    /**
+     * 幂等键（仅批量归还使用，同一键的行只归还一次）
+     */
+    private String bizKey;
+
+    public StockLine(Long productId, Integer quantity) {
+        this(productId, quantity, null);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bcu.edu.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量扣减库存结果（ProductService返回）
+ *
+ * <p>全部成功才提交；任意一行失败则整批回滚，success=false，lines中标明失败原因
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockResult {
+
+    /**
+     * 是否全部扣减成功
+     */
+    private Boolean success;
+
+    /**
+     * 各商品结果（同一商品多行已合并，按商品ID升序）
+     */
+    private List<LineResult> lines;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+
+        /**
+         * 商品ID
+         */
+        private Long productId;
+
+        /**
+         * 数量（合并后）
+         */
+        private Integer quantity;
+
+        /**
+         * 是否成功
+         */
+        private Boolean success;
+
+        /**
+         * 失败原因
+         */
+        private String message;
+    }
+}
@@ -0,0 +1,40 @@
+package com.bcu.edu.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单导出行（JPQL构造器投影，不加载实体、不进入持久化上下文）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportRow {
+
+    private Long orderId;
+
+    private String orderSn;
+
+    private Long userId;
+
+    private Long leaderId;
+
+    private BigDecimal totalAmount;
+
+    private BigDecimal payAmount;
+
+    private Integer orderStatus;
+
+    private Integer payStatus;
+
+    private LocalDateTime payTime;
+
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,125 @@
+package com.bcu.edu.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量订单状态流转结果
+ *
+ * <p>每个订单一条结果：已更新、原本就是目标状态、不允许的流转、并发冲突或订单不存在
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@NoArgsConstructor
+public class OrderTransitionResult {
+
+    /**
+     * 目标状态
+     */
+    private Integer targetStatus;
+
+    /**
+     * 本次实际更新的订单数
+     */
+    private Integer updated = 0;
+
+    /**
+     * 原本就是目标状态的订单数
+     */
+    private Integer unchanged = 0;
+
+    /**
+     * 未能流转的订单数（不允许、冲突、不存在）
+     */
+    private Integer rejected = 0;
+
+    /**
+     * 各订单结果（按请求顺序，重复ID只保留一条）
+     */
+    private List<OrderOutcome> outcomes = new ArrayList<>();
+
+    public OrderTransitionResult(Integer targetStatus) {
+        this.targetStatus = targetStatus;
+    }
+
+    public void add(OrderOutcome outcome) {
+        outcomes.add(outcome);
+        switch (outcome.getOutcome()) {
+            case UPDATED -> updated++;
+            case UNCHANGED -> unchanged++;
+            default -> rejected++;
+        }
+    }
+
+    /**
+     * 当前处于目标状态的订单数（已更新 + 原本就是）
+     */
+    public int inTargetStatus() {
+        return updated + unchanged;
+    }
+
+    /**
+     * 本次实际更新的订单ID
+     */
+    public List<Long> updatedOrderIds() {
+        return outcomes.stream()
+                .filter(o -> o.getOutcome() == Outcome.UPDATED)
+                .map(OrderOutcome::getOrderId)
+                .toList();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderOutcome {
+
+        /**
+         * 订单ID
+         */
+        private Long orderId;
+
+        /**
+         * 流转前状态（订单不存在时为null）
+         */
+        private Integer fromStatus;
+
+        /**
+         * 结果
+         */
+        private Outcome outcome;
+
+        /**
+         * 说明
+         */
+        private String message;
+    }
+
+    public enum Outcome {
+        /**
+         * 已更新
+         */
+        UPDATED,
+        /**
+         * 原本就是目标状态（重复调用）
+         */
+        UNCHANGED,
+        /**
+         * 当前状态不允许流转到目标状态
+         */
+        ILLEGAL_TRANSITION,
+        /**
+         * 与并发写入冲突（如已在其他配送单中）
+         */
+        CONFLICT,
+        /**
+         * 订单不存在
+         */
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,43 @@
+package com.bcu.edu.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单趋势视图对象（每分钟一个点）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTrendVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 分钟
+     */
+    private LocalDateTime time;
+
+    /**
+     * 下单数
+     */
+    private Long createdCount;
+
+    /**
+     * 支付成功数
+     */
+    private Long paidCount;
+
+    /**
+     * 支付成功金额
+     */
+    private BigDecimal paidAmount;
+}
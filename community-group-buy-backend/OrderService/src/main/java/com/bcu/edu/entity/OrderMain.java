@@ -22,6 +22,7 @@ import java.time.LocalDateTime;
  *   <li>order_sn: 订单编号（规则：yyyyMMddHHmmss + 6位随机数）</li>
  *   <li>order_status: 0-待支付；1-待发货；2-配送中；3-已送达；4-已取消；5-退款中；6-已退款</li>
  *   <li>pay_status: 0-未支付；1-已支付</li>
+ *   <li>stock_status: 0-未占用；1-已扣减；2-待归还；3-已归还（购物车结算订单下单时扣减库存）</li>
  * </ul>
  * 
  * @author 耿康瑞
@@ -114,6 +115,13 @@ public class OrderMain {
     @Column(name = "delivery_id")
     private Long deliveryId;
 
+    /**
+     * 库存占用状态
+     * 0-未占用；1-已扣减；2-待归还；3-已归还
+     */
+    @Column(name = "stock_status", nullable = false)
+    private Integer stockStatus = 0;
+
     /**
      * 创建时间
      */
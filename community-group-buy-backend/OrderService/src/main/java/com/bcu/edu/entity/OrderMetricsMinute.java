@@ -0,0 +1,55 @@
+package com.bcu.edu.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单分钟指标实体（订单看板趋势图）
+ *
+ * <p>表名: order_metrics_minute
+ * <p>说明: 每分钟一行，由 OrderMetrics 定期把内存中的分钟桶累加写入（多实例各自累加）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Entity
+@Table(name = "order_metrics_minute")
+@Data
+@NoArgsConstructor
+public class OrderMetricsMinute {
+
+    /**
+     * 分钟（秒和纳秒为0）
+     */
+    @Id
+    @Column(name = "bucket_time", nullable = false)
+    private LocalDateTime bucketTime;
+
+    /**
+     * 下单数
+     */
+    @Column(name = "created_count", nullable = false)
+    private Long createdCount = 0L;
+
+    /**
+     * 支付成功数
+     */
+    @Column(name = "paid_count", nullable = false)
+    private Long paidCount = 0L;
+
+    /**
+     * 支付成功金额
+     */
+    @Column(name = "paid_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "update_time", nullable = false)
+    private LocalDateTime updateTime;
+}
@@ -65,5 +65,29 @@ public enum OrderStatus {
         }
         throw new IllegalArgumentException("Invalid OrderStatus code: " + code);
     }
+
+    /**
+     * 是否允许从当前状态流转到目标状态（⭐批量状态流转校验）
+     *
+     * <ul>
+     *   <li>待支付 → 待发货（支付/成团）、已取消</li>
+     *   <li>待发货 → 配送中、已送达（自提确认）、已取消、退款中、已退款（拼团失败原路退款）</li>
+     *   <li>配送中 → 已送达、退款中</li>
+     *   <li>已送达 → 退款中</li>
+     *   <li>退款中 → 已退款</li>
+     *   <li>已取消、已退款为终态</li>
+     * </ul>
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        return switch (this) {
+            case PENDING_PAYMENT -> target == PENDING_DELIVERY || target == CANCELLED;
+            case PENDING_DELIVERY -> target == IN_DELIVERY || target == DELIVERED || target == CANCELLED
+                    || target == REFUNDING || target == REFUNDED;
+            case IN_DELIVERY -> target == DELIVERED || target == REFUNDING;
+            case DELIVERED -> target == REFUNDING;
+            case REFUNDING -> target == REFUNDED;
+            case CANCELLED, REFUNDED -> false;
+        };
+    }
 }
 
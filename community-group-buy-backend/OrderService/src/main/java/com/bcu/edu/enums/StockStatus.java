@@ -0,0 +1,43 @@
+package com.bcu.edu.enums;
+
+import lombok.Getter;
+
+/**
+ * 订单库存占用状态枚举
+ * 
+ * <p>只有下单时已扣减库存的订单（购物车结算）才会进入 RESERVED，取消/超时后经 RESTORING 归还为 RESTORED
+ * 
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Getter
+public enum StockStatus {
+
+    /**
+     * 未占用库存
+     */
+    NONE(0, "未占用"),
+
+    /**
+     * 已扣减库存
+     */
+    RESERVED(1, "已扣减"),
+
+    /**
+     * 待归还（订单已取消，归还尚未完成）
+     */
+    RESTORING(2, "待归还"),
+
+    /**
+     * 已归还
+     */
+    RESTORED(3, "已归还");
+
+    private final Integer code;
+    private final String description;
+
+    StockStatus(Integer code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+}
@@ -22,6 +22,11 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      */
     List<OrderItem> findByOrderId(Long orderId);
 
+    /**
+     * 根据订单ID列表批量查询订单项
+     */
+    List<OrderItem> findByOrderIdIn(List<Long> orderIds);
+
     /**
      * 根据商品ID查询订单项（统计商品销量）
      */
@@ -1,9 +1,13 @@
 package com.bcu.edu.repository;
 
+import com.bcu.edu.dto.response.OrderExportRow;
 import com.bcu.edu.entity.OrderMain;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -36,11 +40,6 @@ public interface OrderMainRepository extends JpaRepository<OrderMain, Long> {
      */
     Page<OrderMain> findByLeaderIdOrderByCreateTimeDesc(Long leaderId, Pageable pageable);
 
-    /**
-     * 根据状态查询订单
-     */
-    List<OrderMain> findByOrderStatus(Integer orderStatus);
-
     /**
      * 查询超时未支付订单
      * 
@@ -51,6 +50,191 @@ public interface OrderMainRepository extends JpaRepository<OrderMain, Long> {
            "AND o.payStatus = 0 AND o.createTime < :expireTime")
     List<OrderMain> findExpiredOrders(@Param("expireTime") LocalDateTime expireTime);
 
+    /**
+     * 键集分页查询待支付订单（按orderId递增，超时引擎启动恢复使用）
+     * 
+     * @param pendingStatus 待支付订单状态
+     * @param unpaidStatus 未支付状态
+     * @param lastOrderId 上一批最大订单ID（首批传0）
+     * @param pageable 仅使用页大小
+     * @return [orderId, createTime] 列表
+     */
+    @Query("SELECT o.orderId, o.createTime FROM OrderMain o WHERE o.orderStatus = :pendingStatus " +
+           "AND o.payStatus = :unpaidStatus AND o.orderId > :lastOrderId ORDER BY o.orderId")
+    List<Object[]> findPendingOrderDeadlines(@Param("pendingStatus") Integer pendingStatus,
+                                             @Param("unpaidStatus") Integer unpaidStatus,
+                                             @Param("lastOrderId") Long lastOrderId, Pageable pageable);
+
+    /**
+     * 键集分页查询超时未支付订单ID（兜底扫描使用）
+     * 
+     * @param pendingStatus 待支付订单状态
+     * @param unpaidStatus 未支付状态
+     * @param expireTime 过期时间点
+     * @param lastOrderId 上一批最大订单ID（首批传0）
+     * @param pageable 仅使用页大小
+     * @return 订单ID列表（升序）
+     */
+    @Query("SELECT o.orderId FROM OrderMain o WHERE o.orderStatus = :pendingStatus " +
+           "AND o.payStatus = :unpaidStatus AND o.createTime < :expireTime " +
+           "AND o.orderId > :lastOrderId ORDER BY o.orderId")
+    List<Long> findExpiredOrderIds(@Param("pendingStatus") Integer pendingStatus,
+                                   @Param("unpaidStatus") Integer unpaidStatus,
+                                   @Param("expireTime") LocalDateTime expireTime,
+                                   @Param("lastOrderId") Long lastOrderId, Pageable pageable);
+
+    /**
+     * 筛选仍待支付的订单（超时队列取消后复查未取消的订单）
+     */
+    @Query("SELECT o.orderId FROM OrderMain o WHERE o.orderId IN :orderIds " +
+           "AND o.orderStatus = :pendingStatus AND o.payStatus = :unpaidStatus")
+    List<Long> findPendingOrderIds(@Param("orderIds") List<Long> orderIds,
+                                   @Param("pendingStatus") Integer pendingStatus,
+                                   @Param("unpaidStatus") Integer unpaidStatus);
+
+    /**
+     * 导出订单（按orderId键集分页，条件均可为空）
+     * 
+     * @param lastOrderId 上一页最大订单ID（首页传0）
+     * @param startTime 创建时间起（含）
+     * @param endTime 创建时间止（不含）
+     * @param pageable 仅使用页大小
+     * @return 导出行（按订单ID升序）
+     */
+    @Query("SELECT new com.bcu.edu.dto.response.OrderExportRow(o.orderId, o.orderSn, o.userId, o.leaderId, " +
+           "o.totalAmount, o.payAmount, o.orderStatus, o.payStatus, o.payTime, o.createTime) " +
+           "FROM OrderMain o WHERE o.orderId > :lastOrderId " +
+           "AND (:status IS NULL OR o.orderStatus = :status) " +
+           "AND (:payStatus IS NULL OR o.payStatus = :payStatus) " +
+           "AND (:startTime IS NULL OR o.createTime >= :startTime) " +
+           "AND (:endTime IS NULL OR o.createTime < :endTime) " +
+           "ORDER BY o.orderId")
+    List<OrderExportRow> findExportPage(@Param("lastOrderId") Long lastOrderId,
+                                        @Param("status") Integer status,
+                                        @Param("payStatus") Integer payStatus,
+                                        @Param("startTime") LocalDateTime startTime,
+                                        @Param("endTime") LocalDateTime endTime,
+                                        Pageable pageable);
+
+    /**
+     * 查询订单（加行锁，单个订单状态变更使用）
+     *
+     * @param orderId 订单ID
+     * @return Optional<OrderMain>
+     */
+    @Query("SELECT o FROM OrderMain o WHERE o.orderId = :orderId")
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<OrderMain> findByIdForUpdate(@Param("orderId") Long orderId);
+
+    /**
+     * 锁定仍待支付且已超时的订单（批量取消前调用，一条 SELECT ... FOR UPDATE）
+     * 
+     * @return 可取消的订单（按订单ID升序加锁）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OrderMain o WHERE o.orderId IN :orderIds " +
+           "AND o.orderStatus = :pendingStatus AND o.payStatus = :unpaidStatus " +
+           "AND o.createTime < :expireTime ORDER BY o.orderId")
+    List<OrderMain> lockExpiredOrders(@Param("orderIds") List<Long> orderIds,
+                                      @Param("pendingStatus") Integer pendingStatus,
+                                      @Param("unpaidStatus") Integer unpaidStatus,
+                                      @Param("expireTime") LocalDateTime expireTime);
+
+    /**
+     * 批量取消超时未支付订单（条件更新，已支付的订单不会被取消）
+     * 
+     * @return 实际取消的订单数
+     */
+    @Modifying
+    @Query("UPDATE OrderMain o SET o.orderStatus = :cancelledStatus, o.updateTime = :now " +
+           "WHERE o.orderId IN :orderIds AND o.orderStatus = :pendingStatus " +
+           "AND o.payStatus = :unpaidStatus AND o.createTime < :expireTime")
+    int cancelExpiredOrders(@Param("orderIds") List<Long> orderIds,
+                            @Param("pendingStatus") Integer pendingStatus,
+                            @Param("unpaidStatus") Integer unpaidStatus,
+                            @Param("cancelledStatus") Integer cancelledStatus,
+                            @Param("expireTime") LocalDateTime expireTime,
+                            @Param("now") LocalDateTime now);
+
+    /**
+     * 锁定仍占用库存的订单（取消后归还库存前调用）
+     * 
+     * @return 占用库存的订单ID（按订单ID升序加锁）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OrderMain o WHERE o.orderId IN :orderIds AND o.stockStatus = :stockStatus " +
+           "ORDER BY o.orderId")
+    List<OrderMain> lockByStockStatus(@Param("orderIds") List<Long> orderIds,
+                                      @Param("stockStatus") Integer stockStatus);
+
+    /**
+     * 条件更新库存占用状态（只更新仍处于 fromStatus 的订单）
+     * 
+     * @return 实际更新的订单数
+     */
+    @Modifying
+    @Query("UPDATE OrderMain o SET o.stockStatus = :toStatus, o.updateTime = :now " +
+           "WHERE o.orderId IN :orderIds AND o.stockStatus = :fromStatus")
+    int transitionStockStatus(@Param("orderIds") List<Long> orderIds,
+                              @Param("fromStatus") Integer fromStatus,
+                              @Param("toStatus") Integer toStatus,
+                              @Param("now") LocalDateTime now);
+
+    /**
+     * 查询归还库存未完成且已停滞的订单（归还重试使用）
+     */
+    @Query("SELECT o.orderId FROM OrderMain o WHERE o.stockStatus = :stockStatus " +
+           "AND o.updateTime < :before ORDER BY o.orderId")
+    List<Long> findStaleStockOrderIds(@Param("stockStatus") Integer stockStatus,
+                                      @Param("before") LocalDateTime before,
+                                      Pageable pageable);
+
+    /**
+     * 批量查询订单当前状态（状态流转引擎分类使用，不加载实体）
+     * 
+     * @return [orderId, orderStatus, deliveryId] 列表
+     */
+    @Query("SELECT o.orderId, o.orderStatus, o.deliveryId FROM OrderMain o WHERE o.orderId IN :orderIds")
+    List<Object[]> findStatusByOrderIdIn(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 锁定一批订单行（状态流转引擎在分类前调用，保证分类到条件更新之间状态不被并发修改）
+     *
+     * @return 存在的订单ID
+     */
+    @Query(value = "SELECT order_id FROM order_main WHERE order_id IN (:orderIds) ORDER BY order_id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockOrderIds(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 批量条件更新订单状态（只更新仍处于 fromStatus 的订单）
+     * 
+     * @return 实际更新的订单数
+     */
+    @Modifying
+    @Query("UPDATE OrderMain o SET o.orderStatus = :toStatus, o.updateTime = :now " +
+           "WHERE o.orderId IN :orderIds AND o.orderStatus = :fromStatus")
+    int transitionStatus(@Param("orderIds") List<Long> orderIds,
+                         @Param("fromStatus") Integer fromStatus,
+                         @Param("toStatus") Integer toStatus,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * 批量条件更新订单为配送中并关联配送单（只更新仍处于 fromStatus 的订单）
+     * 
+     * @return 实际更新的订单数
+     */
+    @Modifying
+    @Query("UPDATE OrderMain o SET o.orderStatus = :toStatus, o.deliveryId = :deliveryId, " +
+           "o.dispatchGroup = :dispatchGroup, o.updateTime = :now " +
+           "WHERE o.orderId IN :orderIds AND o.orderStatus = :fromStatus")
+    int transitionToShipping(@Param("orderIds") List<Long> orderIds,
+                             @Param("fromStatus") Integer fromStatus,
+                             @Param("toStatus") Integer toStatus,
+                             @Param("deliveryId") Long deliveryId,
+                             @Param("dispatchGroup") String dispatchGroup,
+                             @Param("now") LocalDateTime now);
+
     /**
      * 查询用户指定状态的订单
      */
@@ -89,28 +273,15 @@ public interface OrderMainRepository extends JpaRepository<OrderMain, Long> {
     Page<OrderMain> findByPayStatusOrderByCreateTimeDesc(Integer payStatus, Pageable pageable);
 
     /**
-     * 统计指定状态的订单数量
-     */
-    long countByOrderStatus(Integer orderStatus);
-
-    /**
-     * 统计今日订单数量
-     */
-    @Query("SELECT COUNT(o) FROM OrderMain o WHERE o.createTime >= :startTime")
-    long countTodayOrders(@Param("startTime") LocalDateTime startTime);
-
-    /**
-     * 统计今日销售额
-     */
-    @Query("SELECT COALESCE(SUM(o.payAmount), 0) FROM OrderMain o " +
-           "WHERE o.createTime >= :startTime AND o.payStatus = 1")
-    java.math.BigDecimal sumTodaySales(@Param("startTime") LocalDateTime startTime);
-
-    /**
-     * 统计总销售额
+     * 按订单状态、支付状态分组统计（订单看板重建使用）
+     * 
+     * @return [订单状态, 支付状态, 订单数, 实付金额合计, 今日订单数, 今日实付金额合计]
      */
-    @Query("SELECT COALESCE(SUM(o.payAmount), 0) FROM OrderMain o WHERE o.payStatus = 1")
-    java.math.BigDecimal sumTotalSales();
+    @Query("SELECT o.orderStatus, o.payStatus, COUNT(o), COALESCE(SUM(o.payAmount), 0), " +
+           "SUM(CASE WHEN o.createTime >= :todayStart THEN 1 ELSE 0 END), " +
+           "COALESCE(SUM(CASE WHEN o.createTime >= :todayStart THEN o.payAmount ELSE 0 END), 0) " +
+           "FROM OrderMain o GROUP BY o.orderStatus, o.payStatus")
+    List<Object[]> aggregateForMetrics(@Param("todayStart") LocalDateTime todayStart);
 
     /**
      * 搜索订单（根据订单号）
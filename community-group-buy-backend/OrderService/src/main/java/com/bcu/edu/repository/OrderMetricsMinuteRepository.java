@@ -0,0 +1,46 @@
+package com.bcu.edu.repository;
+
+import com.bcu.edu.entity.OrderMetricsMinute;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 订单分钟指标Repository
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Repository
+public interface OrderMetricsMinuteRepository extends JpaRepository<OrderMetricsMinute, LocalDateTime> {
+
+    /**
+     * 累加一分钟的增量（不存在则插入）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO order_metrics_minute " +
+           "(bucket_time, created_count, paid_count, paid_amount, update_time) " +
+           "VALUES (:bucketTime, :createdCount, :paidCount, :paidAmount, :now) " +
+           "ON DUPLICATE KEY UPDATE created_count = created_count + VALUES(created_count), " +
+           "paid_count = paid_count + VALUES(paid_count), " +
+           "paid_amount = paid_amount + VALUES(paid_amount), update_time = VALUES(update_time)",
+           nativeQuery = true)
+    int accumulate(@Param("bucketTime") LocalDateTime bucketTime,
+                   @Param("createdCount") long createdCount,
+                   @Param("paidCount") long paidCount,
+                   @Param("paidAmount") BigDecimal paidAmount,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * 查询指定时间之后的分钟指标
+     */
+    List<OrderMetricsMinute> findByBucketTimeGreaterThanEqualOrderByBucketTimeAsc(LocalDateTime since);
+}
@@ -3,11 +3,14 @@ package com.bcu.edu.service;
 import com.bcu.edu.client.ProductServiceClient;
 import com.bcu.edu.client.GroupBuyServiceClient;
 import com.bcu.edu.common.annotation.OperationLog;
+import com.bcu.edu.common.cache.ProductNearCache;
 import com.bcu.edu.common.exception.BusinessException;
 import com.bcu.edu.common.result.Result;
 import com.bcu.edu.dto.request.AddCartRequest;
 import com.bcu.edu.dto.request.CheckoutCartRequest;
 import com.bcu.edu.dto.request.CreateOrderRequest;
+import com.bcu.edu.dto.request.StockLine;
+import com.bcu.edu.dto.response.BatchStockResult;
 import com.bcu.edu.dto.response.CartItemVO;
 import com.bcu.edu.dto.response.ProductDTO;
 import com.bcu.edu.entity.ShoppingCart;
@@ -16,12 +19,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +49,9 @@ public class CartService {
     @Autowired
     private ProductServiceClient productServiceClient;
 
+    @Autowired
+    private ProductNearCache<ProductDTO> productNearCache;
+
     @Autowired
     private GroupBuyServiceClient groupBuyServiceClient;
 
@@ -243,7 +255,7 @@ public class CartService {
         vo.setAddTime(cart.getAddTime());
 
         // 获取商品信息
-        Result<ProductDTO> productResult = productServiceClient.getProduct(cart.getProductId());
+        Result<ProductDTO> productResult = productNearCache.getProduct(cart.getProductId());
         if (productResult.getData() != null) {
             ProductDTO product = productResult.getData();
             vo.setProductName(product.getProductName());
@@ -290,6 +302,18 @@ public class CartService {
         return doCheckoutCart(request);
     }
 
+    /**
+     * 购物车结算
+     * 
+     * <p>流程：
+     * <ol>
+     *   <li>一次查询所有购物车项，逐项确定价格和商品快照（商品信息走近端缓存）</li>
+     *   <li>⭐一次调用ProductService批量扣减库存（以结算键幂等），任一商品库存不足则整体失败</li>
+     *   <li>逐项创建订单；创建失败的项在事务提交后一次性批量归还库存</li>
+     *   <li>订单标记为已扣减库存，取消/超时后由 {@link OrderStockService} 归还</li>
+     *   <li>结算事务回滚（包括扣减结果不明、事务被标记为仅回滚）时按结算键取消扣减</li>
+     * </ol>
+     */
     @Transactional(propagation = org.springframework.transaction.annotation.Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
     public List<Long> doCheckoutCart(CheckoutCartRequest request) {
         log.info("开始购物车结算: cartIds={}, addressId={}, leaderId={}",
@@ -299,58 +323,58 @@ public class CartService {
             throw new BusinessException("购物车ID列表不能为空");
         }
 
-        List<Long> orderIds = new ArrayList<>();
+        // 1. 准备每个购物车项的订单请求
+        Map<Long, ShoppingCart> cartsById = shoppingCartRepository.findAllById(request.getCartIds()).stream()
+                .collect(Collectors.toMap(ShoppingCart::getCartId, Function.identity()));
 
-        // 遍历每个购物车项，创建订单
+        Map<Long, CreateOrderRequest> pending = new LinkedHashMap<>();
         for (Long cartId : request.getCartIds()) {
+            ShoppingCart cart = cartsById.get(cartId);
+            if (cart == null) {
+                log.warn("购物车项不存在: cartId={}", cartId);
+                continue; // 跳过不存在的购物车项
+            }
             try {
-                // 获取购物车项
-                Optional<ShoppingCart> cartOptional = shoppingCartRepository.findById(cartId);
-                if (cartOptional.isEmpty()) {
-                    log.warn("购物车项不存在: cartId={}", cartId);
-                    continue; // 跳过不存在的购物车项
+                CreateOrderRequest createOrderRequest = buildCheckoutOrder(cart, request);
+                if (createOrderRequest != null) {
+                    pending.put(cartId, createOrderRequest);
                 }
+            } catch (Exception e) {
+                log.error("结算购物车项失败: cartId={}, error={}", cartId, e.getMessage());
+            }
+        }
 
-                ShoppingCart cart = cartOptional.get();
-
-                // 获取商品信息以确定价格
-                Result<ProductDTO> productResult = productServiceClient.getProduct(cart.getProductId());
-                if (productResult.getData() == null) {
-                    log.warn("商品不存在: productId={}", cart.getProductId());
-                    continue;
-                }
+        if (pending.isEmpty()) {
+            log.info("购物车结算完成: 无可结算的购物车项");
+            return new ArrayList<>();
+        }
 
-                ProductDTO product = productResult.getData();
-
-                // 确定价格：拼团商品使用拼团价，普通商品使用原价
-                BigDecimal price;
-                if (cart.getActivityId() != null) {
-                    // 获取拼团活动价格
-                    Result<BigDecimal> priceResult = groupBuyServiceClient.getActivityPrice(cart.getActivityId());
-                    if (priceResult.getData() != null) {
-                        price = priceResult.getData();
-                    } else {
-                        price = product.getGroupPrice() != null ? product.getGroupPrice() : product.getPrice();
-                    }
-                } else {
-                    price = product.getPrice();
-                }
+        // 2. 批量扣减库存（一次调用，全部成功或全部失败）⭐
+        String checkoutKey = "checkout:" + UUID.randomUUID();
+        List<StockLine> stockLines = pending.values().stream()
+                .map(order -> new StockLine(order.getProductId(), order.getQuantity()))
+                .collect(Collectors.toList());
+        List<StockLine> toRestore = new ArrayList<>();
+        // 扣减调用前注册：调用超时等结果不明的情况也随事务回滚取消
+        registerStockCompletion(checkoutKey, stockLines, toRestore);
+        Result<BatchStockResult> stockResult = productServiceClient.deductStockBatch(checkoutKey, stockLines);
+        if (stockResult == null || stockResult.getCode() != 200 || stockResult.getData() == null) {
+            throw new BusinessException("库存扣减失败: " + (stockResult != null ? stockResult.getMessage() : "商品服务无响应"));
+        }
+        if (!Boolean.TRUE.equals(stockResult.getData().getSuccess())) {
+            String failed = stockResult.getData().getLines().stream()
+                    .filter(line -> !Boolean.TRUE.equals(line.getSuccess()))
+                    .map(line -> "商品" + line.getProductId() + "：" + line.getMessage())
+                    .collect(Collectors.joining("；"));
+            throw new BusinessException("库存不足，结算失败（" + failed + "）");
+        }
 
-                // 创建订单请求
-                CreateOrderRequest createOrderRequest = new CreateOrderRequest();
-                createOrderRequest.setUserId(cart.getUserId()); // 从购物车项获取用户ID
-                createOrderRequest.setProductId(cart.getProductId());
-                createOrderRequest.setActivityId(cart.getActivityId());
-                createOrderRequest.setQuantity(cart.getQuantity());
-                createOrderRequest.setPrice(price);
-                createOrderRequest.setAddressId(request.getAddressId());
-                createOrderRequest.setLeaderId(request.getLeaderId());
-
-                // 设置商品快照信息
-                createOrderRequest.setProductName(product.getProductName());
-                createOrderRequest.setProductImg(product.getCoverImg());
-
-                // 创建订单
+        // 3. 创建订单
+        List<Long> orderIds = new ArrayList<>();
+        for (Map.Entry<Long, CreateOrderRequest> entry : pending.entrySet()) {
+            Long cartId = entry.getKey();
+            CreateOrderRequest createOrderRequest = entry.getValue();
+            try {
                 Long orderId = orderService.createOrder(createOrderRequest);
                 orderIds.add(orderId);
 
@@ -360,11 +384,110 @@ public class CartService {
 
             } catch (Exception e) {
                 log.error("结算购物车项失败: cartId={}, error={}", cartId, e.getMessage());
+                toRestore.add(new StockLine(createOrderRequest.getProductId(), createOrderRequest.getQuantity(),
+                        checkoutKey + ":cart:" + cartId));
                 // 继续处理其他购物车项，不因单个失败而中断整个结算流程
             }
         }
 
+        // 4. 创建失败订单的库存在事务提交后归还（回滚时整批取消，不能先归还）
         log.info("购物车结算完成: 成功创建{}个订单", orderIds.size());
         return orderIds;
     }
+
+    /**
+     * 结算事务结束后处理库存
+     *
+     * <ul>
+     *   <li>已提交：归还创建失败订单的库存（每行带幂等键，重试不会重复归还）</li>
+     *   <li>已回滚：按结算键取消扣减，扣减已生效则整批归还，未生效则阻止迟到的扣减</li>
+     * </ul>
+     */
+    private void registerStockCompletion(String checkoutKey, List<StockLine> stockLines, List<StockLine> toRestore) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    restoreFailedLines(toRestore);
+                } else if (status == STATUS_ROLLED_BACK) {
+                    cancelDeduct(checkoutKey, stockLines);
+                } else {
+                    log.error("结算事务状态未知，需人工核对库存: checkoutKey={}, lines={}", checkoutKey, stockLines);
+                }
+            }
+        });
+    }
+
+    private void restoreFailedLines(List<StockLine> toRestore) {
+        if (toRestore.isEmpty()) {
+            return;
+        }
+        try {
+            Result<Void> restoreResult = productServiceClient.restoreStockBatch(toRestore);
+            if (restoreResult == null || restoreResult.getCode() != 200) {
+                log.error("归还库存失败，需人工处理: lines={}", toRestore);
+            }
+        } catch (Exception e) {
+            log.error("归还库存失败，需人工处理: lines={}", toRestore, e);
+        }
+    }
+
+    private void cancelDeduct(String checkoutKey, List<StockLine> stockLines) {
+        try {
+            Result<Void> cancelResult = productServiceClient.cancelDeductBatch(checkoutKey, stockLines);
+            if (cancelResult == null || cancelResult.getCode() != 200) {
+                log.error("结算回滚后取消扣减失败，需人工处理: checkoutKey={}, lines={}", checkoutKey, stockLines);
+            } else {
+                log.info("结算回滚，已取消库存扣减: checkoutKey={}", checkoutKey);
+            }
+        } catch (Exception e) {
+            log.error("结算回滚后取消扣减失败，需人工处理: checkoutKey={}, lines={}", checkoutKey, stockLines, e);
+        }
+    }
+
+    /**
+     * 构建单个购物车项的订单请求（商品不存在返回null）
+     */
+    private CreateOrderRequest buildCheckoutOrder(ShoppingCart cart, CheckoutCartRequest request) {
+        // 获取商品信息以确定价格
+        Result<ProductDTO> productResult = productNearCache.getProduct(cart.getProductId());
+        if (productResult.getData() == null) {
+            log.warn("商品不存在: productId={}", cart.getProductId());
+            return null;
+        }
+
+        ProductDTO product = productResult.getData();
+
+        // 确定价格：拼团商品使用拼团价，普通商品使用原价
+        BigDecimal price;
+        if (cart.getActivityId() != null) {
+            // 获取拼团活动价格
+            Result<BigDecimal> priceResult = groupBuyServiceClient.getActivityPrice(cart.getActivityId());
+            if (priceResult.getData() != null) {
+                price = priceResult.getData();
+            } else {
+                price = product.getGroupPrice() != null ? product.getGroupPrice() : product.getPrice();
+            }
+        } else {
+            price = product.getPrice();
+        }
+
+        // 创建订单请求
+        CreateOrderRequest createOrderRequest = new CreateOrderRequest();
+        createOrderRequest.setUserId(cart.getUserId()); // 从购物车项获取用户ID
+        createOrderRequest.setProductId(cart.getProductId());
+        createOrderRequest.setActivityId(cart.getActivityId());
+        createOrderRequest.setQuantity(cart.getQuantity());
+        createOrderRequest.setPrice(price);
+        createOrderRequest.setAddressId(request.getAddressId());
+        createOrderRequest.setLeaderId(request.getLeaderId());
+
+        // 设置商品快照信息
+        createOrderRequest.setProductName(product.getProductName());
+        createOrderRequest.setProductImg(product.getCoverImg());
+
+        // 结算时统一扣减库存，订单取消/超时后据此归还
+        createOrderRequest.setStockReserved(true);
+        return createOrderRequest;
+    }
 }
@@ -0,0 +1,266 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.common.utils.DateUtil;
+import com.bcu.edu.common.utils.StreamingTableWriter;
+import com.bcu.edu.dto.response.OrderExportRow;
+import com.bcu.edu.enums.OrderStatus;
+import com.bcu.edu.enums.PayStatus;
+import com.bcu.edu.repository.OrderMainRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.ClientAbortException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 订单流式导出（⭐内存占用与订单数无关）
+ *
+ * <p>替代 findAll() 全量加载 + 逐行 String.format：
+ * <ul>
+ *   <li>按 orderId 键集分页（每页 order.export.page-size 条），只查询导出列的投影，不加载实体</li>
+ *   <li>订单状态、支付状态、起止日期全部在数据库端过滤</li>
+ *   <li>边查边写：CSV 缓冲写出，XLSX 使用 SXSSF 流式写出，可选 gzip 压缩</li>
+ *   <li>每页检查取消标记（DELETE /api/order/admin/export/{exportId}），客户端断开时立即停止</li>
+ *   <li>同时进行的导出数受 order.export.max-concurrent 限制，完成后记录行数与吞吐量（行/秒）</li>
+ * </ul>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class OrderExportService {
+
+    private static final String[] HEADERS = {
+            "订单ID", "订单编号", "用户ID", "团长ID", "订单金额", "实付金额",
+            "订单状态", "支付状态", "支付时间", "创建时间"
+    };
+
+    private static final int[] COLUMN_WIDTHS = {10, 24, 10, 10, 12, 12, 10, 10, 20, 20};
+
+    @Autowired
+    private OrderMainRepository orderMainRepository;
+
+    /**
+     * 每页查询的订单数
+     */
+    @Value("${order.export.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * 同时进行的导出任务数上限
+     */
+    @Value("${order.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private Semaphore permits;
+
+    /**
+     * 进行中的导出（exportId -> 取消标记）
+     */
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 导出订单
+     *
+     * @param status 订单状态（可选）
+     * @param payStatus 支付状态（可选）
+     * @param startDate 开始日期（可选，yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss，含）
+     * @param endDate 结束日期（可选，只有日期时包含当天）
+     * @param format xlsx 或 csv
+     * @param gzip 是否gzip压缩
+     * @param exportId 导出任务ID（可选，用于取消）
+     */
+    public void exportOrders(Integer status, Integer payStatus, String startDate, String endDate,
+                             String format, boolean gzip, String exportId, HttpServletResponse response) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"xlsx".equalsIgnoreCase(format)) {
+            throw new BusinessException("不支持的导出格式: " + format);
+        }
+        validateStatus(status, payStatus);
+        LocalDateTime startTime = parseTime(startDate, false);
+        LocalDateTime endTime = parseTime(endDate, true);
+
+        String id = exportId != null && !exportId.isBlank() ? exportId : UUID.randomUUID().toString();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        if (running.putIfAbsent(id, cancelled) != null) {
+            throw new BusinessException("导出任务已存在: " + id);
+        }
+        if (!permits.tryAcquire()) {
+            running.remove(id);
+            throw new BusinessException("当前导出任务较多，请稍后再试");
+        }
+
+        long startNanos = System.nanoTime();
+        long rows = 0;
+        String outcome = "完成";
+        try {
+            prepareResponse(response, csv, gzip, id);
+            rows = stream(response.getOutputStream(), csv, gzip, cancelled,
+                    status, payStatus, startTime, endTime);
+            if (cancelled.get()) {
+                outcome = "已取消";
+            }
+        } catch (ClientAbortException e) {
+            // 客户端断开连接
+            outcome = "客户端已断开";
+            log.info("导出订单中断: exportId={}, error={}", id, e.getMessage());
+        } catch (IOException e) {
+            outcome = "失败";
+            log.error("导出订单失败: exportId={}", id, e);
+            throw new RuntimeException("导出订单失败", e);
+        } finally {
+            running.remove(id);
+            permits.release();
+            long elapsedMs = Math.max((System.nanoTime() - startNanos) / 1_000_000, 1);
+            log.info("导出订单{}: exportId={}, format={}, gzip={}, 共{}行, 耗时{}ms, {}行/秒",
+                    outcome, id, csv ? "csv" : "xlsx", gzip, rows, elapsedMs, rows * 1000 / elapsedMs);
+        }
+    }
+
+    /**
+     * 取消导出
+     *
+     * @return true-已标记取消 false-任务不存在或已结束
+     */
+    public boolean cancel(String exportId) {
+        AtomicBoolean cancelled = running.get(exportId);
+        if (cancelled == null) {
+            return false;
+        }
+        cancelled.set(true);
+        log.info("导出订单取消请求: exportId={}", exportId);
+        return true;
+    }
+
+    private long stream(OutputStream responseOut, boolean csv, boolean gzip, AtomicBoolean cancelled,
+                        Integer status, Integer payStatus, LocalDateTime startTime, LocalDateTime endTime)
+            throws IOException {
+        OutputStream out = gzip ? new GZIPOutputStream(responseOut, 64 * 1024) : responseOut;
+        StreamingTableWriter writer = csv
+                ? StreamingTableWriter.csv(out, HEADERS)
+                : StreamingTableWriter.xlsx(out, "订单数据", HEADERS, COLUMN_WIDTHS);
+
+        Pageable page = PageRequest.of(0, pageSize);
+        long lastOrderId = 0L;
+        try {
+            while (!cancelled.get()) {
+                List<OrderExportRow> rows = orderMainRepository.findExportPage(
+                        lastOrderId, status, payStatus, startTime, endTime, page);
+                for (OrderExportRow row : rows) {
+                    writer.writeRow(row.getOrderId(), row.getOrderSn(), row.getUserId(), row.getLeaderId(),
+                            row.getTotalAmount(), row.getPayAmount(),
+                            statusText(row.getOrderStatus()), payStatusText(row.getPayStatus()),
+                            row.getPayTime(), row.getCreateTime());
+                }
+                if (rows.size() < pageSize) {
+                    break;
+                }
+                lastOrderId = rows.get(rows.size() - 1).getOrderId();
+            }
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+
+        if (cancelled.get()) {
+            // 不输出文件尾部，客户端得到的是不完整的文件
+            writer.abort();
+            return writer.getRows();
+        }
+        writer.close();
+        if (out instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        out.flush();
+        return writer.getRows();
+    }
+
+    private void prepareResponse(HttpServletResponse response, boolean csv, boolean gzip, String exportId) {
+        String fileName = "订单数据_" + DateUtil.nowCompact() + (csv ? ".csv" : ".xlsx") + (gzip ? ".gz" : "");
+        if (gzip) {
+            response.setContentType("application/gzip");
+        } else if (csv) {
+            response.setContentType("text/csv;charset=utf-8");
+        } else {
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        }
+        String encoded = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+        response.setHeader("Content-disposition", "attachment;filename=" + encoded + ";filename*=UTF-8''" + encoded);
+        response.setHeader("X-Export-Id", exportId);
+    }
+
+    private static void validateStatus(Integer status, Integer payStatus) {
+        try {
+            if (status != null) {
+                OrderStatus.fromCode(status);
+            }
+            if (payStatus != null) {
+                PayStatus.fromCode(payStatus);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
+    /**
+     * 解析日期参数（只有日期时：开始取当天0点，结束取次日0点，查询条件为左闭右开）
+     */
+    private static LocalDateTime parseTime(String value, boolean end) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+        try {
+            if (text.length() == DateUtil.DATE_PATTERN.length()) {
+                LocalDate date = DateUtil.parseDate(text);
+                return end ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+            }
+            LocalDateTime time = DateUtil.parseDateTime(text);
+            return end ? time.plusSeconds(1) : time;
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("日期格式错误: " + value);
+        }
+    }
+
+    private static String statusText(Integer status) {
+        try {
+            return OrderStatus.fromCode(status).getDescription();
+        } catch (IllegalArgumentException e) {
+            return String.valueOf(status);
+        }
+    }
+
+    private static String payStatusText(Integer payStatus) {
+        try {
+            return PayStatus.fromCode(payStatus).getDescription();
+        } catch (IllegalArgumentException e) {
+            return String.valueOf(payStatus);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.dto.response.OrderStatisticsVO;
+import com.bcu.edu.dto.response.OrderTrendVO;
+import com.bcu.edu.entity.OrderMain;
+import com.bcu.edu.entity.OrderMetricsMinute;
+import com.bcu.edu.enums.OrderStatus;
+import com.bcu.edu.enums.PayStatus;
+import com.bcu.edu.repository.OrderMainRepository;
+import com.bcu.edu.repository.OrderMetricsMinuteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 订单看板实时指标（⭐内存计数，看板查询不扫表）
+ *
+ * <p>替代每次刷新看板执行 count + 7次按状态count + 今日/总销售额（11次扫描 order_main）：
+ * <ul>
+ *   <li>各状态订单数、总销售额、今日订单数/销售额保存在内存计数器中，看板直接读取</li>
+ *   <li>OrderService 与状态流转引擎的每次状态/支付状态变更，在事务提交后更新计数器</li>
+ *   <li>启动时用一条分组查询重建；之后每 reconcile-interval-ms 重新校准一次，
+ *       修正其他实例、人工改库或提交后进程退出造成的偏差</li>
+ *   <li>下单数、支付数、支付金额按分钟累计，每 checkpoint-interval-ms 累加写入 order_metrics_minute 供趋势图使用</li>
+ * </ul>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class OrderMetrics {
+
+    @Autowired
+    private OrderMainRepository orderMainRepository;
+
+    @Autowired
+    private OrderMetricsMinuteRepository minuteRepository;
+
+    /**
+     * 各状态订单数（下标为状态码）
+     */
+    private final AtomicLongArray statusCounts = new AtomicLongArray(OrderStatus.values().length);
+
+    /**
+     * 总销售额（分，已支付订单实付金额）
+     */
+    private final AtomicLong totalSalesCents = new AtomicLong();
+
+    private final AtomicLong todayOrders = new AtomicLong();
+
+    private final AtomicLong todaySalesCents = new AtomicLong();
+
+    private volatile LocalDate today = LocalDate.now();
+
+    /**
+     * 尚未写入 order_metrics_minute 的分钟增量
+     */
+    private final Map<LocalDateTime, MinuteBucket> buckets = new ConcurrentHashMap<>();
+
+    // ==================== 变更通知（事务提交后生效） ====================
+
+    /**
+     * 新订单已写入
+     */
+    public void onCreated(OrderMain order) {
+        afterCommit(() -> {
+            moveStatus(null, order.getOrderStatus(), 1);
+            if (isCreatedToday(order)) {
+                todayOrders.incrementAndGet();
+            }
+            bucket().created.incrementAndGet();
+        });
+    }
+
+    /**
+     * 单个订单的订单状态/支付状态已变更
+     *
+     * @param oldStatus 变更前订单状态
+     * @param oldPayStatus 变更前支付状态
+     * @param order 变更后的订单
+     */
+    public void onChanged(Integer oldStatus, Integer oldPayStatus, OrderMain order) {
+        Integer newStatus = order.getOrderStatus();
+        int payDelta = paid(order.getPayStatus()) - paid(oldPayStatus);
+        if (Objects.equals(oldStatus, newStatus) && payDelta == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            moveStatus(oldStatus, newStatus, 1);
+            if (payDelta != 0) {
+                long cents = payDelta * toCents(order.getPayAmount());
+                totalSalesCents.addAndGet(cents);
+                if (isCreatedToday(order)) {
+                    todaySalesCents.addAndGet(cents);
+                }
+                MinuteBucket bucket = bucket();
+                bucket.paid.addAndGet(payDelta);
+                bucket.paidCents.addAndGet(cents);
+            }
+        });
+    }
+
+    /**
+     * 批量状态流转已执行（支付状态不变）
+     *
+     * @param fromCounts 各原状态实际流转的订单数
+     * @param target 目标状态
+     */
+    public void onTransitioned(Map<Integer, Integer> fromCounts, OrderStatus target) {
+        if (fromCounts.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> fromCounts.forEach((from, count) -> moveStatus(from, target.getCode(), count)));
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 当前看板数据（O(1)，不查询数据库）
+     */
+    public OrderStatisticsVO snapshot() {
+        rollDay();
+        OrderStatisticsVO statistics = new OrderStatisticsVO();
+        long total = 0;
+        for (int i = 0; i < statusCounts.length(); i++) {
+            total += statusCounts.get(i);
+        }
+        statistics.setTotalOrders(total);
+        statistics.setPendingPayment(statusCounts.get(OrderStatus.PENDING_PAYMENT.getCode()));
+        statistics.setPendingDelivery(statusCounts.get(OrderStatus.PENDING_DELIVERY.getCode()));
+        statistics.setInDelivery(statusCounts.get(OrderStatus.IN_DELIVERY.getCode()));
+        statistics.setDelivered(statusCounts.get(OrderStatus.DELIVERED.getCode()));
+        statistics.setCancelled(statusCounts.get(OrderStatus.CANCELLED.getCode()));
+        statistics.setRefunding(statusCounts.get(OrderStatus.REFUNDING.getCode()));
+        statistics.setRefunded(statusCounts.get(OrderStatus.REFUNDED.getCode()));
+        statistics.setTodayOrders(todayOrders.get());
+        statistics.setTodaySales(fromCents(todaySalesCents.get()));
+        statistics.setTotalSales(fromCents(totalSalesCents.get()));
+        return statistics;
+    }
+
+    /**
+     * 最近若干分钟的趋势（已写入的分钟指标 + 本实例未写入的增量）
+     */
+    public List<OrderTrendVO> getTrend(int minutes) {
+        LocalDateTime since = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(minutes - 1L);
+        Map<LocalDateTime, OrderTrendVO> points = new TreeMap<>();
+        for (OrderMetricsMinute row : minuteRepository.findByBucketTimeGreaterThanEqualOrderByBucketTimeAsc(since)) {
+            points.put(row.getBucketTime(), new OrderTrendVO(
+                    row.getBucketTime(), row.getCreatedCount(), row.getPaidCount(), row.getPaidAmount()));
+        }
+        buckets.forEach((time, bucket) -> {
+            if (time.isBefore(since)) {
+                return;
+            }
+            OrderTrendVO point = points.computeIfAbsent(time, t -> new OrderTrendVO(t, 0L, 0L, BigDecimal.ZERO));
+            point.setCreatedCount(point.getCreatedCount() + bucket.created.get());
+            point.setPaidCount(point.getPaidCount() + bucket.paid.get());
+            point.setPaidAmount(point.getPaidAmount().add(fromCents(bucket.paidCents.get())));
+        });
+        return new ArrayList<>(points.values());
+    }
+
+    // ==================== 重建与落库 ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * 用一条分组查询重建计数器
+     */
+    @Scheduled(fixedDelayString = "${order.metrics.reconcile-interval-ms:300000}",
+               initialDelayString = "${order.metrics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            LocalDate day = LocalDate.now();
+            long[] counts = new long[statusCounts.length()];
+            long sales = 0;
+            long dayOrders = 0;
+            long daySales = 0;
+            for (Object[] row : orderMainRepository.aggregateForMetrics(day.atStartOfDay())) {
+                int status = (Integer) row[0];
+                boolean paid = paid((Integer) row[1]) == 1;
+                if (status >= 0 && status < counts.length) {
+                    counts[status] += ((Number) row[2]).longValue();
+                }
+                dayOrders += ((Number) row[4]).longValue();
+                if (paid) {
+                    sales += toCents((BigDecimal) row[3]);
+                    daySales += toCents((BigDecimal) row[5]);
+                }
+            }
+
+            synchronized (this) {
+                for (int i = 0; i < counts.length; i++) {
+                    statusCounts.set(i, counts[i]);
+                }
+                totalSalesCents.set(sales);
+                todayOrders.set(dayOrders);
+                todaySalesCents.set(daySales);
+                today = day;
+            }
+            log.debug("订单看板指标已校准: total={}, todayOrders={}", sum(counts), dayOrders);
+        } catch (Exception e) {
+            log.warn("订单看板指标校准失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将分钟增量累加写入 order_metrics_minute
+     */
+    @Scheduled(fixedDelayString = "${order.metrics.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expired = now.truncatedTo(ChronoUnit.MINUTES).minusMinutes(1);
+
+        for (Map.Entry<LocalDateTime, MinuteBucket> entry : buckets.entrySet()) {
+            MinuteBucket bucket = entry.getValue();
+            long created = bucket.created.getAndSet(0);
+            long paid = bucket.paid.getAndSet(0);
+            long paidCents = bucket.paidCents.getAndSet(0);
+            if (created != 0 || paid != 0 || paidCents != 0) {
+                try {
+                    minuteRepository.accumulate(entry.getKey(), created, paid, fromCents(paidCents), now);
+                } catch (Exception e) {
+                    // 放回，下次重试
+                    bucket.created.addAndGet(created);
+                    bucket.paid.addAndGet(paid);
+                    bucket.paidCents.addAndGet(paidCents);
+                    log.warn("订单分钟指标写入失败: bucket={}, error={}", entry.getKey(), e.getMessage());
+                    continue;
+                }
+            }
+            // 早于上一分钟的桶不会再有新增量
+            if (entry.getKey().isBefore(expired)) {
+                buckets.remove(entry.getKey(), bucket);
+            }
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void moveStatus(Integer from, Integer to, long count) {
+        if (isValidStatus(from)) {
+            statusCounts.addAndGet(from, -count);
+        }
+        if (isValidStatus(to)) {
+            statusCounts.addAndGet(to, count);
+        }
+    }
+
+    private boolean isValidStatus(Integer status) {
+        return status != null && status >= 0 && status < statusCounts.length();
+    }
+
+    private boolean isCreatedToday(OrderMain order) {
+        rollDay();
+        return order.getCreateTime() == null || order.getCreateTime().toLocalDate().equals(today);
+    }
+
+    /**
+     * 跨天时清零今日指标
+     */
+    private void rollDay() {
+        LocalDate now = LocalDate.now();
+        if (now.equals(today)) {
+            return;
+        }
+        synchronized (this) {
+            if (!now.equals(today)) {
+                todayOrders.set(0);
+                todaySalesCents.set(0);
+                today = now;
+            }
+        }
+    }
+
+    private MinuteBucket bucket() {
+        return buckets.computeIfAbsent(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES), k -> new MinuteBucket());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int paid(Integer payStatus) {
+        return PayStatus.PAID.getCode().equals(payStatus) ? 1 : 0;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * 一分钟的增量
+     */
+    private static final class MinuteBucket {
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong paid = new AtomicLong();
+        private final AtomicLong paidCents = new AtomicLong();
+    }
+}
@@ -5,32 +5,48 @@ import com.bcu.edu.client.LeaderServiceClient;
 import com.bcu.edu.client.ProductServiceClient;
 import com.bcu.edu.client.UserServiceClient;
 import com.bcu.edu.common.annotation.OperationLog;
+import com.bcu.edu.common.dto.OperationLogDTO;
 import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.common.log.OperationLogShipper;
 import com.bcu.edu.common.result.PageResult;
 import com.bcu.edu.common.result.Result;
 import com.bcu.edu.dto.request.CreateOrderRequest;
+import com.bcu.edu.dto.request.ShippingAssignment;
 import com.bcu.edu.dto.response.*;
 import com.bcu.edu.entity.OrderItem;
 import com.bcu.edu.entity.OrderMain;
 import com.bcu.edu.enums.OrderStatus;
 import com.bcu.edu.enums.PayStatus;
+import com.bcu.edu.enums.StockStatus;
 import com.bcu.edu.repository.OrderItemRepository;
 import com.bcu.edu.repository.OrderMainRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +59,10 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
+    @Autowired
+    @Lazy  // ⭐使用@Lazy避免循环依赖
+    private OrderService self;  // ⭐自注入，用于解决事务边界问题
+
     @Autowired
     private OrderMainRepository orderMainRepository;
 
@@ -61,34 +81,64 @@ public class OrderService {
     @Autowired
     private GroupBuyServiceClient groupBuyServiceClient;
 
+    @Autowired
+    private OrderTimeoutService orderTimeoutService;
+
+    @Autowired
+    private OrderTransitionService orderTransitionService;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    @Autowired
+    private OperationLogShipper operationLogShipper;
+
+    @Autowired
+    private OrderStockService orderStockService;
+
+    @Autowired
+    @Qualifier("orderValidateExecutor")
+    private Executor orderValidateExecutor;
+
+    /**
+     * 订单趋势最多查询的分钟数（7天）
+     */
+    private static final int MAX_TREND_MINUTES = 7 * 24 * 60;
+
+    /**
+     * 超时取消操作日志的方法签名（与 @OperationLog 切面记录的 Signature.toLongString() 一致）
+     */
+    private static final String CANCEL_EXPIRED_METHOD = cancelExpiredMethod();
+
+    /**
+     * 下单校验单个远程调用超时时间（毫秒）
+     */
+    @Value("${order.create.validate-timeout-ms:3000}")
+    private long validateTimeoutMs;
+
     /**
      * 创建订单（供GroupBuyService调用）⭐核心方法
+     * 
+     * <p>用户、地址、团长三个校验并行调用（各自超时），耗时取最慢的一个；
+     * 校验全部通过后才开启事务写入订单主表和明细，事务不跨远程调用
      */
-    @Transactional(rollbackFor = Exception.class)
     @OperationLog(value = "创建订单", module = "订单管理")
     public Long createOrder(CreateOrderRequest request) {
         log.info("开始创建订单: userId={}, productId={}, quantity={}", 
                  request.getUserId(), request.getProductId(), request.getQuantity());
 
-        // 1. 验证用户
-        Result<Boolean> userValid = userServiceClient.validateUser(request.getUserId());
-        if (userValid.getData() == null || !userValid.getData()) {
-            throw new BusinessException("用户不存在");
-        }
-
-        // 2. 验证地址
-        Result<AddressDTO> addressResult = userServiceClient.getAddress(request.getAddressId());
-        if (addressResult.getData() == null) {
-            throw new BusinessException("收货地址不存在");
-        }
-        AddressDTO address = addressResult.getData();
+        // 1~3. 并行验证用户、地址、团长 ⭐
+        validateOrderParties(request);
 
-        // 3. 验证团长
-        Result<Boolean> leaderValid = leaderServiceClient.validateLeader(request.getLeaderId());
-        if (leaderValid.getData() == null || !leaderValid.getData()) {
-            throw new BusinessException("团长不存在");
-        }
+        // 4~8. 写入订单（独立短事务）
+        return self.persistOrder(request);
+    }
 
+    /**
+     * 写入订单主表和明细
+     */
+    @Transactional(rollbackFor = Exception.class)
+    protected Long persistOrder(CreateOrderRequest request) {
         // 4. 生成订单编号
         String orderSn = generateOrderSn();
 
@@ -100,6 +150,8 @@ public class OrderService {
         order.setOrderStatus(OrderStatus.PENDING_PAYMENT.getCode());
         order.setPayStatus(PayStatus.UNPAID.getCode());
         order.setReceiveAddressId(request.getAddressId());
+        order.setStockStatus(Boolean.TRUE.equals(request.getStockReserved())
+            ? StockStatus.RESERVED.getCode() : StockStatus.NONE.getCode());
 
         // 6. 计算订单金额
         BigDecimal totalPrice = request.getPrice().multiply(new BigDecimal(request.getQuantity()));
@@ -125,52 +177,123 @@ public class OrderService {
         orderItemRepository.save(item);
         log.info("订单明细已保存: itemId={}, productId={}", item.getItemId(), item.getProductId());
 
+        // 9. 注册超时取消、更新看板指标（事务提交后生效）
+        orderTimeoutService.register(savedOrder.getOrderId(), savedOrder.getCreateTime());
+        orderMetrics.onCreated(savedOrder);
+
         return savedOrder.getOrderId();
     }
 
+    /**
+     * 并行校验下单参与方（错误提示与串行校验一致，按用户→地址→团长的顺序报告）
+     */
+    private void validateOrderParties(CreateOrderRequest request) {
+        CompletableFuture<Result<Boolean>> userFuture =
+            callAsync(() -> userServiceClient.validateUser(request.getUserId()));
+        CompletableFuture<Result<AddressDTO>> addressFuture =
+            callAsync(() -> userServiceClient.getAddress(request.getAddressId()));
+        CompletableFuture<Result<Boolean>> leaderFuture =
+            callAsync(() -> leaderServiceClient.validateLeader(request.getLeaderId()));
+
+        // 1. 验证用户
+        Result<Boolean> userValid = await(userFuture, "用户");
+        if (userValid == null || userValid.getData() == null || !userValid.getData()) {
+            throw new BusinessException("用户不存在");
+        }
+
+        // 2. 验证地址
+        Result<AddressDTO> addressResult = await(addressFuture, "收货地址");
+        if (addressResult == null || addressResult.getData() == null) {
+            throw new BusinessException("收货地址不存在");
+        }
+
+        // 3. 验证团长
+        Result<Boolean> leaderValid = await(leaderFuture, "团长");
+        if (leaderValid == null || leaderValid.getData() == null || !leaderValid.getData()) {
+            throw new BusinessException("团长不存在");
+        }
+    }
+
+    private <T> CompletableFuture<T> callAsync(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, orderValidateExecutor)
+            .orTimeout(validateTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> T await(CompletableFuture<T> future, String name) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new BusinessException(name + "校验超时");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException(name + "校验失败");
+        }
+    }
+
     /**
      * 批量更新订单状态（供GroupBuyService成团时调用）⭐核心方法
+     * 
+     * <p>经状态流转引擎校验后按集合条件更新，重复调用（已是目标状态）不报错
+     * 
+     * @return 各订单流转结果
      */
     @Transactional(rollbackFor = Exception.class)
     @OperationLog(value = "批量更新订单状态", module = "订单管理")
-    public void batchUpdateStatus(List<Long> orderIds, Integer newStatus) {
-        log.info("批量更新订单状态: orderIds={}, status={}", orderIds, newStatus);
-
-        List<OrderMain> orders = orderMainRepository.findAllById(orderIds);
-        if (orders.isEmpty()) {
-            log.warn("未找到任何订单: orderIds={}", orderIds);
-            return;
-        }
+    public OrderTransitionResult batchUpdateStatus(List<Long> orderIds, Integer newStatus) {
+        log.info("批量更新订单状态: 共{}条, status={}", orderIds.size(), newStatus);
 
-        orders.forEach(order -> {
-            order.setOrderStatus(newStatus);
-            order.setUpdateTime(LocalDateTime.now());
-        });
+        OrderStatus target = OrderTransitionService.parseStatus(newStatus);
+        OrderTransitionResult result = orderTransitionService.transition(orderIds, target);
 
-        orderMainRepository.saveAll(orders);
-        log.info("批量更新完成: 共更新{}条订单", orders.size());
+        if (target == OrderStatus.DELIVERED) {
+            generateCommissionForOrders(result.updatedOrderIds());
+        } else if (target == OrderStatus.CANCELLED) {
+            orderStockService.releaseOnCancel(result.updatedOrderIds());
+        }
+        return result;
     }
 
     /**
      * 更新单个订单状态
+     *
+     * <p>与批量流转使用同一套流转规则（{@link OrderStatus#canTransitionTo}）；已是目标状态视为重复调用
+     *
+     * @throws BusinessException 订单不存在；当前状态不允许流转到目标状态
      */
     @Transactional(rollbackFor = Exception.class)
     @OperationLog(value = "更新订单状态", module = "订单管理")
     public void updateOrderStatus(Long orderId, Integer newStatus) {
         log.info("更新订单状态: orderId={}, status={}", orderId, newStatus);
 
-        OrderMain order = orderMainRepository.findById(orderId)
+        OrderStatus target = OrderTransitionService.parseStatus(newStatus);
+        OrderMain order = orderMainRepository.findByIdForUpdate(orderId)
             .orElseThrow(() -> new BusinessException("订单不存在"));
 
         // 保存旧状态用于判断是否需要生成佣金
         Integer oldStatus = order.getOrderStatus();
-        
+        if (oldStatus.equals(newStatus)) {
+            log.info("订单已是目标状态，无需更新: orderId={}, status={}", orderId, newStatus);
+            return;
+        }
+        OrderStatus current = OrderStatus.fromCode(oldStatus);
+        if (!current.canTransitionTo(target)) {
+            throw new BusinessException(current.getDescription() + "的订单不能变更为" + target.getDescription());
+        }
+
         order.setOrderStatus(newStatus);
         order.setUpdateTime(LocalDateTime.now());
 
         orderMainRepository.save(order);
+        orderMetrics.onChanged(oldStatus, order.getPayStatus(), order);
         log.info("订单状态已更新: orderId={}, status={}", orderId, newStatus);
 
+        if (OrderStatus.CANCELLED.getCode().equals(newStatus)) {
+            orderStockService.releaseOnCancel(List.of(orderId));
+        }
+
         // ⭐ 确认收货时生成佣金记录
         if (newStatus == 3 && !oldStatus.equals(3)) {
             generateCommissionForOrder(order);
@@ -227,6 +350,9 @@ public class OrderService {
         OrderMain order = orderMainRepository.findById(orderId)
             .orElseThrow(() -> new BusinessException("订单不存在"));
 
+        Integer oldStatus = order.getOrderStatus();
+        Integer oldPayStatus = order.getPayStatus();
+
         order.setPayStatus(payStatus);
         if (payStatus.equals(PayStatus.PAID.getCode())) {
             order.setPayTime(LocalDateTime.now());
@@ -235,6 +361,7 @@ public class OrderService {
         order.setUpdateTime(LocalDateTime.now());
 
         orderMainRepository.save(order);
+        orderMetrics.onChanged(oldStatus, oldPayStatus, order);
         log.info("支付状态已更新: orderId={}, payStatus={}", orderId, payStatus);
     }
 
@@ -254,13 +381,90 @@ public class OrderService {
             throw new BusinessException("订单已发货，无法取消");
         }
 
+        Integer oldStatus = order.getOrderStatus();
         order.setOrderStatus(OrderStatus.CANCELLED.getCode());
         order.setUpdateTime(LocalDateTime.now());
 
         orderMainRepository.save(order);
+        orderMetrics.onChanged(oldStatus, order.getPayStatus(), order);
+        orderStockService.releaseOnCancel(List.of(orderId));
         log.info("订单已取消: orderId={}", orderId);
     }
 
+    /**
+     * 批量取消超时未支付订单（供订单超时引擎调用）
+     * 
+     * <p>先一条 SELECT ... FOR UPDATE 锁定仍处于待支付且已超时的订单，再一条条件UPDATE取消，
+     * 与支付并发时以先提交者为准；事务提交后为每个被取消的订单记录一条"取消订单"操作日志
+     * 
+     * @param orderIds 订单ID列表
+     * @param expireTime 过期时间点（create_time早于该时间才取消）
+     * @return 实际取消的订单ID列表
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> cancelExpiredOrders(List<Long> orderIds, LocalDateTime expireTime) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return List.of();
+        }
+        Integer pending = OrderStatus.PENDING_PAYMENT.getCode();
+        Integer unpaid = PayStatus.UNPAID.getCode();
+
+        List<Long> expiredIds = orderMainRepository.lockExpiredOrders(orderIds, pending, unpaid, expireTime)
+            .stream().map(OrderMain::getOrderId).collect(Collectors.toList());
+        if (expiredIds.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int cancelled = orderMainRepository.cancelExpiredOrders(expiredIds, pending, unpaid,
+            OrderStatus.CANCELLED.getCode(), expireTime, now);
+        if (cancelled != expiredIds.size()) {
+            // 已加行锁，不应出现；出现则整批回滚由下次重试
+            throw new BusinessException("超时订单取消数量不一致，锁定" + expiredIds.size() + "条，取消" + cancelled + "条");
+        }
+
+        orderMetrics.onTransitioned(Map.of(pending, cancelled), OrderStatus.CANCELLED);
+        orderStockService.releaseOnCancel(expiredIds);
+        log.info("超时订单已取消: orderIds={}", expiredIds);
+        recordExpiredCancelLogs(expiredIds, now);
+        return expiredIds;
+    }
+
+    /**
+     * 为超时取消的订单逐条记录操作日志（与逐条调用 cancelOrder 时 @OperationLog 记录的一致，事务提交后投递）
+     */
+    private void recordExpiredCancelLogs(List<Long> orderIds, LocalDateTime cancelTime) {
+        if (!operationLogShipper.isEnabled()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (Long orderId : orderIds) {
+                    operationLogShipper.offer(OperationLogDTO.builder()
+                        .username("system")
+                        .operation("取消订单")
+                        .module("订单管理")
+                        .method(CANCEL_EXPIRED_METHOD)
+                        .params("[" + orderId + "]")
+                        .result("SUCCESS")
+                        .duration(0)
+                        .ip("unknown")
+                        .createTime(cancelTime)
+                        .build());
+                }
+            }
+        });
+    }
+
+    private static String cancelExpiredMethod() {
+        try {
+            return OrderService.class.getMethod("cancelExpiredOrders", List.class, LocalDateTime.class).toString();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * 查询订单详情
      */
@@ -334,39 +538,38 @@ public class OrderService {
      * 管理端：获取订单统计
      */
     public OrderStatisticsVO getOrderStatistics() {
-        OrderStatisticsVO statistics = new OrderStatisticsVO();
-        
-        // 统计各状态订单数量
-        statistics.setTotalOrders(orderMainRepository.count());
-        statistics.setPendingPayment(orderMainRepository.countByOrderStatus(0));
-        statistics.setPendingDelivery(orderMainRepository.countByOrderStatus(1));
-        statistics.setInDelivery(orderMainRepository.countByOrderStatus(2));
-        statistics.setDelivered(orderMainRepository.countByOrderStatus(3));
-        statistics.setCancelled(orderMainRepository.countByOrderStatus(4));
-        statistics.setRefunding(orderMainRepository.countByOrderStatus(5));
-        statistics.setRefunded(orderMainRepository.countByOrderStatus(6));
-
-        // 统计今日数据
-        LocalDateTime todayStart = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        statistics.setTodayOrders(orderMainRepository.countTodayOrders(todayStart));
-        statistics.setTodaySales(orderMainRepository.sumTodaySales(todayStart));
-        
-        // 统计总销售额
-        statistics.setTotalSales(orderMainRepository.sumTotalSales());
+        // 内存实时指标，不扫描订单表
+        return orderMetrics.snapshot();
+    }
 
-        return statistics;
+    /**
+     * 管理端：获取订单趋势（每分钟一个点）
+     * 
+     * @param minutes 最近多少分钟
+     */
+    public List<OrderTrendVO> getOrderTrend(Integer minutes) {
+        if (minutes == null || minutes < 1 || minutes > MAX_TREND_MINUTES) {
+            throw new BusinessException("minutes 取值范围为 1~" + MAX_TREND_MINUTES);
+        }
+        return orderMetrics.getTrend(minutes);
     }
 
     /**
      * 管理端：更新订单状态
      */
+    @Transactional(rollbackFor = Exception.class)
     public void updateOrderStatusByAdmin(Long orderId, Integer status) {
         OrderMain order = orderMainRepository.findById(orderId)
             .orElseThrow(() -> new BusinessException("订单不存在"));
         
+        Integer oldStatus = order.getOrderStatus();
         order.setOrderStatus(status);
         order.setUpdateTime(LocalDateTime.now());
         orderMainRepository.save(order);
+        orderMetrics.onChanged(oldStatus, order.getPayStatus(), order);
+        if (OrderStatus.CANCELLED.getCode().equals(status)) {
+            orderStockService.releaseOnCancel(List.of(orderId));
+        }
         
         log.info("管理员更新订单状态成功: orderId={}, status={}", orderId, status);
     }
@@ -397,49 +600,6 @@ public class OrderService {
         return PageResult.of(page, size, orderPage.getTotalElements(), voList);
     }
 
-    /**
-     * 管理端：导出订单
-     */
-    public void exportOrders(Integer status, Integer payStatus, String startDate, 
-                           String endDate, jakarta.servlet.http.HttpServletResponse response) {
-        try {
-            // 设置响应头
-            response.setContentType("application/vnd.ms-excel;charset=utf-8");
-            response.setCharacterEncoding("utf-8");
-            String fileName = java.net.URLEncoder.encode("订单数据_" + 
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")), 
-                "UTF-8").replaceAll("\\+", "%20");
-            response.setHeader("Content-disposition", "attachment;filename=" + fileName + ".xlsx");
-
-            // 查询数据（这里简化处理，实际应该根据条件查询）
-            List<OrderMain> orders;
-            if (status != null) {
-                orders = orderMainRepository.findByOrderStatus(status);
-            } else {
-                orders = orderMainRepository.findAll();
-            }
-
-            // 构建Excel数据（这里简化，实际应该使用EasyExcel或POI）
-            response.getWriter().write("订单ID,订单编号,用户ID,总金额,订单状态,创建时间\n");
-            for (OrderMain order : orders) {
-                response.getWriter().write(String.format("%d,%s,%d,%.2f,%d,%s\n",
-                    order.getOrderId(),
-                    order.getOrderSn(),
-                    order.getUserId(),
-                    order.getPayAmount(),
-                    order.getOrderStatus(),
-                    order.getCreateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
-                ));
-            }
-            response.getWriter().flush();
-            
-            log.info("导出订单成功: 共{}条数据", orders.size());
-        } catch (Exception e) {
-            log.error("导出订单失败", e);
-            throw new BusinessException("导出订单失败: " + e.getMessage());
-        }
-    }
-
     /**
      * 转换OrderMain为OrderVO
      */
@@ -708,57 +868,87 @@ public class OrderService {
     /**
      * 批量更新订单状态为"配送中"（⭐新增方法 - 供DeliveryService调用）
      * 
+     * <p>只有待发货的订单会被更新；已在本配送单中的订单视为重复调用
+     * 
      * @param orderIds 订单ID列表
      * @param deliveryId 配送单ID
      * @param dispatchGroup 分单组标识
-     * @return 更新数量
+     * @return 处于配送中的订单数（本次更新 + 重复调用）
      */
     @Transactional(rollbackFor = Exception.class)
     public Integer batchUpdateToShipping(List<Long> orderIds, Long deliveryId, String dispatchGroup) {
-        log.info("批量更新订单为配送中: orderIds={}, deliveryId={}, dispatchGroup={}", 
-                orderIds, deliveryId, dispatchGroup);
+        log.info("批量更新订单为配送中: 共{}条, deliveryId={}, dispatchGroup={}", 
+                orderIds.size(), deliveryId, dispatchGroup);
         
-        List<OrderMain> orders = orderMainRepository.findAllById(orderIds);
-        
-        for (OrderMain order : orders) {
-            order.setOrderStatus(OrderStatus.IN_DELIVERY.getCode()); // 2-配送中
-            order.setDeliveryId(deliveryId);
-            order.setDispatchGroup(dispatchGroup);
+        OrderTransitionResult result = orderTransitionService.ship(orderIds, deliveryId, dispatchGroup);
+        logRejected(result);
+        return result.inTargetStatus();
+    }
+
+    /**
+     * 多车发货：所有车辆的订单在同一事务内更新为"配送中"（供DeliveryService调用）
+     * 
+     * <p>任一订单未能流转（非待发货、已在其他配送单中、不存在）则整体回滚，不会出现部分车辆已发货
+     * 
+     * @param assignments 每辆车的配送单和订单
+     * @return 处于配送中的订单数（本次更新 + 重复调用）
+     * @throws BusinessException 有订单未能流转
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Integer batchUpdateToShippingFleet(List<ShippingAssignment> assignments) {
+        log.info("多车批量更新订单为配送中: 车辆数={}", assignments.size());
+
+        int inTarget = 0;
+        for (ShippingAssignment assignment : assignments) {
+            OrderTransitionResult result = orderTransitionService.ship(
+                    assignment.getOrderIds(), assignment.getDeliveryId(), assignment.getDispatchGroup());
+            if (result.getRejected() > 0) {
+                logRejected(result);
+                throw new BusinessException(String.format("配送单%d有%d个订单无法更新为配送中",
+                        assignment.getDeliveryId(), result.getRejected()));
+            }
+            inTarget += result.inTargetStatus();
         }
-        
-        orderMainRepository.saveAll(orders);
-        
-        log.info("批量更新成功: 共{}条订单", orders.size());
-        return orders.size();
+        return inTarget;
     }
 
     /**
      * 批量更新订单状态为"已送达"（⭐新增方法 - 供DeliveryService调用）
      * 
+     * <p>本次实际变为已送达的订单生成佣金记录（重复调用不会重复生成）
+     * 
      * @param orderIds 订单ID列表
-     * @return 更新数量
+     * @return 处于已送达的订单数（本次更新 + 重复调用）
      */
     @Transactional(rollbackFor = Exception.class)
     public Integer batchUpdateToDelivered(List<Long> orderIds) {
-        log.info("批量更新订单为已送达: orderIds={}", orderIds);
+        log.info("批量更新订单为已送达: 共{}条", orderIds.size());
         
-        List<OrderMain> orders = orderMainRepository.findAllById(orderIds);
-        
-        // ⭐ 修复：保存旧状态，用于判断是否需要生成佣金
-        for (OrderMain order : orders) {
-            Integer oldStatus = order.getOrderStatus(); // 保存旧状态
-            order.setOrderStatus(OrderStatus.DELIVERED.getCode()); // 3-已送达
-            
-            // ⭐ 修复：如果状态从非"已送达"变为"已送达"，生成佣金记录
-            if (!oldStatus.equals(OrderStatus.DELIVERED.getCode())) {
-                generateCommissionForOrder(order);
-            }
+        OrderTransitionResult result = orderTransitionService.transition(orderIds, OrderStatus.DELIVERED);
+        logRejected(result);
+        generateCommissionForOrders(result.updatedOrderIds());
+        return result.inTargetStatus();
+    }
+
+    /**
+     * 为本次变为已送达的订单生成佣金记录
+     */
+    private void generateCommissionForOrders(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
         }
-        
-        orderMainRepository.saveAll(orders);
-        
-        log.info("批量更新成功: 共{}条订单", orders.size());
-        return orders.size();
+        orderMainRepository.findByOrderIdIn(orderIds).forEach(this::generateCommissionForOrder);
+    }
+
+    private void logRejected(OrderTransitionResult result) {
+        if (result.getRejected() == 0) {
+            return;
+        }
+        result.getOutcomes().stream()
+                .filter(o -> o.getOutcome() != OrderTransitionResult.Outcome.UPDATED
+                        && o.getOutcome() != OrderTransitionResult.Outcome.UNCHANGED)
+                .forEach(o -> log.warn("订单未流转: orderId={}, fromStatus={}, outcome={}, message={}",
+                        o.getOrderId(), o.getFromStatus(), o.getOutcome(), o.getMessage()));
     }
 }
 
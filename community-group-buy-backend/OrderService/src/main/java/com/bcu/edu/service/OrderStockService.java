@@ -0,0 +1,173 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.client.ProductServiceClient;
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.common.result.Result;
+import com.bcu.edu.dto.request.StockLine;
+import com.bcu.edu.entity.OrderMain;
+import com.bcu.edu.enums.StockStatus;
+import com.bcu.edu.repository.OrderItemRepository;
+import com.bcu.edu.repository.OrderMainRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 订单库存归还（⭐购物车结算订单取消/超时后归还已扣减的库存）
+ *
+ * <p>按订单的 stock_status 保证每个订单最多归还一次：
+ * <ol>
+ *   <li>取消订单的事务内：锁定仍为"已扣减"的订单，改为"待归还"</li>
+ *   <li>事务提交后：先把"待归还"抢占为"已归还"，再一次批量调用ProductService归还；
+ *       调用失败则改回"待归还"（每行带订单幂等键，超时后实际已归还的重试时由ProductService忽略）</li>
+ *   <li>定时重试停滞在"待归还"的订单（order.stock.restore-retry-interval-ms）</li>
+ * </ol>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class OrderStockService {
+
+    @Autowired
+    @Lazy  // ⭐自注入，抢占/回退使用独立事务
+    private OrderStockService self;
+
+    @Autowired
+    private OrderMainRepository orderMainRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductServiceClient productServiceClient;
+
+    /**
+     * "待归还"停滞多久后由定时任务重试（秒）
+     */
+    @Value("${order.stock.restore-retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    /**
+     * 每次重试最多处理的订单数
+     */
+    @Value("${order.stock.restore-batch-size:200}")
+    private int retryBatchSize;
+
+    /**
+     * 订单已取消：占用库存的订单标记为待归还，事务提交后归还（须在取消订单的事务内调用）
+     *
+     * @param orderIds 本次取消的订单ID
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void releaseOnCancel(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return;
+        }
+        List<Long> reserved = orderMainRepository.lockByStockStatus(orderIds, StockStatus.RESERVED.getCode())
+            .stream().map(OrderMain::getOrderId).collect(Collectors.toList());
+        if (reserved.isEmpty()) {
+            return;
+        }
+        orderMainRepository.transitionStockStatus(reserved, StockStatus.RESERVED.getCode(),
+            StockStatus.RESTORING.getCode(), LocalDateTime.now());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    restore(reserved);
+                }
+            });
+        } else {
+            restore(reserved);
+        }
+    }
+
+    /**
+     * 归还待归还订单的库存（异常只记录日志，由定时任务重试）
+     */
+    public void restore(List<Long> orderIds) {
+        List<Long> claimed;
+        try {
+            claimed = self.claim(orderIds);
+        } catch (Exception e) {
+            log.error("抢占待归还订单失败，稍后重试: orderIds={}", orderIds, e);
+            return;
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        List<StockLine> lines = orderItemRepository.findByOrderIdIn(claimed).stream()
+            .map(item -> new StockLine(item.getProductId(), item.getQuantity(), "order:" + item.getOrderId()))
+            .collect(Collectors.toList());
+        try {
+            if (!lines.isEmpty()) {
+                Result<Void> result = productServiceClient.restoreStockBatch(lines);
+                if (result == null || result.getCode() != 200) {
+                    throw new BusinessException("归还库存失败: " + (result != null ? result.getMessage() : "商品服务无响应"));
+                }
+            }
+            log.info("取消订单库存已归还: orderIds={}, lines={}", claimed, lines);
+        } catch (Exception e) {
+            log.error("取消订单库存归还失败，稍后重试: orderIds={}", claimed, e);
+            try {
+                self.unclaim(claimed);
+            } catch (Exception ex) {
+                log.error("回退库存归还状态失败，需人工处理: orderIds={}", claimed, ex);
+            }
+        }
+    }
+
+    /**
+     * 重试停滞的库存归还
+     */
+    @Scheduled(fixedDelayString = "${order.stock.restore-retry-interval-ms:60000}")
+    public void retryStale() {
+        List<Long> stale = orderMainRepository.findStaleStockOrderIds(StockStatus.RESTORING.getCode(),
+            LocalDateTime.now().minusSeconds(retryDelaySeconds), PageRequest.of(0, retryBatchSize));
+        if (!stale.isEmpty()) {
+            log.warn("重试归还取消订单库存: {}条", stale.size());
+            restore(stale);
+        }
+    }
+
+    /**
+     * 抢占待归还订单（改为已归还，只有抢占成功的实例执行归还）
+     *
+     * @return 抢占成功的订单ID
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public List<Long> claim(List<Long> orderIds) {
+        List<Long> restoring = orderMainRepository.lockByStockStatus(orderIds, StockStatus.RESTORING.getCode())
+            .stream().map(OrderMain::getOrderId).collect(Collectors.toList());
+        if (!restoring.isEmpty()) {
+            orderMainRepository.transitionStockStatus(restoring, StockStatus.RESTORING.getCode(),
+                StockStatus.RESTORED.getCode(), LocalDateTime.now());
+        }
+        return restoring;
+    }
+
+    /**
+     * 归还失败，改回待归还
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void unclaim(List<Long> orderIds) {
+        orderMainRepository.transitionStockStatus(orderIds, StockStatus.RESTORED.getCode(),
+            StockStatus.RESTORING.getCode(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,235 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.enums.OrderStatus;
+import com.bcu.edu.enums.PayStatus;
+import com.bcu.edu.repository.OrderMainRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单超时引擎（⭐DelayQueue秒级取消）
+ *
+ * <p>替代每5分钟一次的全量扫描：
+ * <ul>
+ *   <li>创建订单（事务提交后）按 create_time + order.expire.minutes 放入延迟队列</li>
+ *   <li>后台线程取出到期订单，按批条件UPDATE取消（只取消仍待支付的订单）</li>
+ *   <li>启动时按orderId键集分页从数据库恢复所有待支付订单</li>
+ *   <li>吞吐量可配置：batch-size × max-batches-per-second</li>
+ * </ul>
+ *
+ * <p>OrderExpireTask 低频兜底扫描，覆盖进程崩溃等未进入队列的订单
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class OrderTimeoutService {
+
+    /**
+     * 未到期订单的复查间隔（毫秒），大于数据库时间取整误差
+     */
+    private static final long RECHECK_DELAY_MS = 1000L;
+
+    @Autowired
+    private OrderMainRepository orderMainRepository;
+
+    @Autowired
+    @Lazy  // ⭐OrderService创建订单时注册超时，使用@Lazy避免循环依赖
+    private OrderService orderService;
+
+    /**
+     * 订单超时时间（分钟）
+     */
+    @Value("${order.expire.minutes:30}")
+    private Integer expireMinutes;
+
+    /**
+     * 每批最多取消的订单数
+     */
+    @Value("${order.timeout.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 每秒最多执行的取消批次数（限制数据库写入压力）
+     */
+    @Value("${order.timeout.max-batches-per-second:5}")
+    private int maxBatchesPerSecond;
+
+    /**
+     * 启动恢复时每页加载的订单数
+     */
+    @Value("${order.timeout.recover-page-size:1000}")
+    private int recoverPageSize;
+
+    private final DelayQueue<OrderDeadline> queue = new DelayQueue<>();
+
+    private volatile boolean running = true;
+
+    private Thread worker;
+
+    /**
+     * 注册订单超时（在事务中调用时，提交后才注册）
+     *
+     * @param orderId 订单ID
+     * @param createTime 下单时间
+     */
+    public void register(Long orderId, LocalDateTime createTime) {
+        long deadline = toMillis(createTime != null ? createTime : LocalDateTime.now()) + expireMinutes * 60_000L;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue.offer(new OrderDeadline(orderId, deadline));
+                }
+            });
+        } else {
+            queue.offer(new OrderDeadline(orderId, deadline));
+        }
+    }
+
+    /**
+     * 启动：恢复待支付订单，然后启动取消线程
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        recover();
+        worker = new Thread(this::runLoop, "order-timeout-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 按orderId键集分页恢复（不使用OFFSET，数据量大时每页耗时稳定）
+     */
+    private void recover() {
+        long lastOrderId = 0L;
+        int total = 0;
+        while (true) {
+            List<Object[]> rows = orderMainRepository.findPendingOrderDeadlines(
+                OrderStatus.PENDING_PAYMENT.getCode(), PayStatus.UNPAID.getCode(),
+                lastOrderId, PageRequest.of(0, recoverPageSize));
+            for (Object[] row : rows) {
+                Long orderId = (Long) row[0];
+                long deadline = toMillis((LocalDateTime) row[1]) + expireMinutes * 60_000L;
+                queue.offer(new OrderDeadline(orderId, deadline));
+                lastOrderId = orderId;
+            }
+            total += rows.size();
+            if (rows.size() < recoverPageSize) {
+                break;
+            }
+        }
+        log.info("订单超时队列恢复完成，待支付订单数={}", total);
+    }
+
+    private void runLoop() {
+        long minIntervalMs = 1000L / Math.max(1, maxBatchesPerSecond);
+        while (running) {
+            try {
+                List<OrderDeadline> batch = new ArrayList<>(batchSize);
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+
+                long start = System.currentTimeMillis();
+                cancelBatch(batch);
+
+                long elapsed = System.currentTimeMillis() - start;
+                if (elapsed < minIntervalMs) {
+                    Thread.sleep(minIntervalMs - elapsed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("订单超时处理异常", e);
+            }
+        }
+    }
+
+    private void cancelBatch(List<OrderDeadline> batch) {
+        List<Long> orderIds = batch.stream().map(d -> d.orderId).toList();
+        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(expireMinutes);
+        try {
+            List<Long> cancelled = orderService.cancelExpiredOrders(orderIds, expireTime);
+            List<Long> notDue = recheck(orderIds, cancelled);
+            log.info("超时订单批量取消完成，到期{}条，实际取消{}条，未到期稍后重试{}条（其余已支付或已取消）",
+                orderIds.size(), cancelled.size(), notDue.size());
+        } catch (Exception e) {
+            // 整批失败：延迟1分钟重新入队，仍失败由兜底扫描处理
+            log.error("超时订单批量取消失败，orderIds={}", orderIds, e);
+            long retryAt = System.currentTimeMillis() + 60_000L;
+            orderIds.forEach(orderId -> queue.offer(new OrderDeadline(orderId, retryAt)));
+        }
+    }
+
+    /**
+     * 未取消但仍待支付的订单重新入队：队列到期时间按内存中的 create_time（含毫秒）计算，
+     * 数据库 DATETIME 存储时秒级取整，取整进位的订单此刻按数据库时间尚未超时
+     *
+     * @return 重新入队的订单
+     */
+    private List<Long> recheck(List<Long> orderIds, List<Long> cancelled) {
+        if (cancelled.size() == orderIds.size()) {
+            return List.of();
+        }
+        List<Long> remaining = orderIds.stream().filter(id -> !cancelled.contains(id)).toList();
+        List<Long> pending = orderMainRepository.findPendingOrderIds(remaining,
+            OrderStatus.PENDING_PAYMENT.getCode(), PayStatus.UNPAID.getCode());
+        long retryAt = System.currentTimeMillis() + RECHECK_DELAY_MS;
+        pending.forEach(orderId -> queue.offer(new OrderDeadline(orderId, retryAt)));
+        return pending;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 订单到期时间
+     */
+    private static class OrderDeadline implements Delayed {
+        private final Long orderId;
+        private final long deadline;
+
+        OrderDeadline(Long orderId, long deadline) {
+            this.orderId = orderId;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((OrderDeadline) other).deadline);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.dto.response.OrderTransitionResult;
+import com.bcu.edu.dto.response.OrderTransitionResult.OrderOutcome;
+import com.bcu.edu.dto.response.OrderTransitionResult.Outcome;
+import com.bcu.edu.enums.OrderStatus;
+import com.bcu.edu.repository.OrderMainRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 订单批量状态流转引擎（⭐集合条件更新，不逐条加载实体）
+ *
+ * <p>替代 findAllById + 循环修改 + saveAll（N次加载 + N条UPDATE）：
+ * <ul>
+ *   <li>按 order.transition.chunk-size 分块，每块先一条 SELECT ... FOR UPDATE 锁定订单行，
+ *       再一条投影查询取 [orderId, 状态, 配送单]</li>
+ *   <li>按 {@link OrderStatus#canTransitionTo} 分类：可流转 / 已是目标状态 / 不允许 / 不存在</li>
+ *   <li>可流转的订单按当前状态分组，每组一条 UPDATE ... WHERE order_id IN (...) AND order_status = ?</li>
+ * </ul>
+ *
+ * <p>分类时行锁已持有，其他写入方只能在本事务提交前后修改：提交前已改为目标状态的订单
+ * 计为"无需更新"（发货时还须是同一配送单），只有本事务实际更新的订单计为"已更新"，
+ * 佣金生成、指标统计都只基于"已更新"的订单
+ *
+ * <p>2000单的发货批次（块大小500）为 4条锁定 + 4条查询 + 4条UPDATE
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class OrderTransitionService {
+
+    @Autowired
+    private OrderMainRepository orderMainRepository;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    /**
+     * 每块订单数（IN 列表长度）
+     */
+    @Value("${order.transition.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 批量流转订单状态
+     *
+     * @param orderIds 订单ID列表
+     * @param target 目标状态
+     * @return 各订单结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public OrderTransitionResult transition(List<Long> orderIds, OrderStatus target) {
+        return execute(orderIds, target, null,
+                (ids, from, now) -> orderMainRepository.transitionStatus(ids, from, target.getCode(), now));
+    }
+
+    /**
+     * 批量流转为配送中并关联配送单
+     *
+     * <p>已在同一配送单中的订单视为重复调用；已在其他配送单中的订单不允许流转
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public OrderTransitionResult ship(List<Long> orderIds, Long deliveryId, String dispatchGroup) {
+        OrderStatus target = OrderStatus.IN_DELIVERY;
+        return execute(orderIds, target, deliveryId,
+                (ids, from, now) -> orderMainRepository.transitionToShipping(
+                        ids, from, target.getCode(), deliveryId, dispatchGroup, now));
+    }
+
+    private OrderTransitionResult execute(List<Long> orderIds, OrderStatus target, Long deliveryId,
+                                          ChunkUpdater updater) {
+        OrderTransitionResult result = new OrderTransitionResult(target.getCode());
+        if (orderIds == null || orderIds.isEmpty()) {
+            return result;
+        }
+
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        Map<Long, OrderOutcome> outcomes = new HashMap<>(distinct.size() * 2);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int start = 0; start < distinct.size(); start += chunkSize) {
+            List<Long> chunk = distinct.subList(start, Math.min(start + chunkSize, distinct.size()));
+            processChunk(chunk, target, deliveryId, updater, now, outcomes);
+        }
+
+        distinct.forEach(orderId -> result.add(outcomes.get(orderId)));
+        orderMetrics.onTransitioned(countUpdatedBySource(result), target);
+        log.info("批量状态流转完成: target={}, 更新{}条, 无需更新{}条, 未流转{}条",
+                target, result.getUpdated(), result.getUnchanged(), result.getRejected());
+        return result;
+    }
+
+    private void processChunk(List<Long> chunk, OrderStatus target, Long deliveryId, ChunkUpdater updater,
+                              LocalDateTime now, Map<Long, OrderOutcome> outcomes) {
+        Map<Integer, List<Long>> bySource = new TreeMap<>();
+
+        orderMainRepository.lockOrderIds(chunk);
+        for (Object[] row : orderMainRepository.findStatusByOrderIdIn(chunk)) {
+            Long orderId = (Long) row[0];
+            Integer status = (Integer) row[1];
+            Long currentDeliveryId = (Long) row[2];
+
+            if (status.equals(target.getCode())) {
+                if (deliveryId != null && !deliveryId.equals(currentDeliveryId)) {
+                    outcomes.put(orderId, new OrderOutcome(orderId, status, Outcome.CONFLICT,
+                            "订单已在配送单" + currentDeliveryId + "中"));
+                } else {
+                    outcomes.put(orderId, new OrderOutcome(orderId, status, Outcome.UNCHANGED, null));
+                }
+            } else if (OrderStatus.fromCode(status).canTransitionTo(target)) {
+                bySource.computeIfAbsent(status, k -> new ArrayList<>()).add(orderId);
+            } else {
+                outcomes.put(orderId, new OrderOutcome(orderId, status, Outcome.ILLEGAL_TRANSITION,
+                        OrderStatus.fromCode(status).getDescription() + "的订单不能变更为" + target.getDescription()));
+            }
+        }
+
+        for (Map.Entry<Integer, List<Long>> group : bySource.entrySet()) {
+            Integer from = group.getKey();
+            List<Long> ids = group.getValue();
+            int updated = updater.update(ids, from, now);
+
+            if (updated != ids.size()) {
+                // 行已锁定，不应出现：整批回滚，避免把未更新的订单计为已更新
+                throw new BusinessException(String.format("批量状态流转行数不一致: from=%d, target=%s, 预期%d条, 实际%d条",
+                        from, target, ids.size(), updated));
+            }
+            ids.forEach(id -> outcomes.put(id, new OrderOutcome(id, from, Outcome.UPDATED, null)));
+        }
+
+        for (Long orderId : chunk) {
+            outcomes.putIfAbsent(orderId, new OrderOutcome(orderId, null, Outcome.NOT_FOUND, "订单不存在"));
+        }
+    }
+
+    private static Map<Integer, Integer> countUpdatedBySource(OrderTransitionResult result) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (OrderOutcome outcome : result.getOutcomes()) {
+            if (outcome.getOutcome() == Outcome.UPDATED) {
+                counts.merge(outcome.getFromStatus(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 解析目标状态
+     *
+     * @throws BusinessException 状态码无效
+     */
+    public static OrderStatus parseStatus(Integer code) {
+        try {
+            return OrderStatus.fromCode(code);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的订单状态: " + code);
+        }
+    }
+
+    /**
+     * 单个状态分组的条件更新
+     */
+    @FunctionalInterface
+    private interface ChunkUpdater {
+        int update(List<Long> orderIds, Integer fromStatus, LocalDateTime now);
+    }
+}
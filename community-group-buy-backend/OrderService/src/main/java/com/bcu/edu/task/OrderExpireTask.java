@@ -1,11 +1,14 @@
 package com.bcu.edu.task;
 
-import com.bcu.edu.entity.OrderMain;
+import com.bcu.edu.enums.OrderStatus;
+import com.bcu.edu.enums.PayStatus;
 import com.bcu.edu.repository.OrderMainRepository;
 import com.bcu.edu.service.OrderService;
+import com.bcu.edu.service.OrderTimeoutService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -13,11 +16,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * 订单超时取消定时任务
+ * 订单超时兜底扫描任务
  * 
- * <p>功能: 定时检查超时未支付订单并自动取消
- * <p>执行频率: 每5分钟执行一次
- * <p>超时时间: 可配置（默认30分钟）
+ * <p>超时取消主路径为 {@link OrderTimeoutService}（DelayQueue秒级取消），本任务只做兜底：
+ * <ul>
+ *   <li>执行频率: 可配置（默认每10分钟，order.timeout.sweep-cron）</li>
+ *   <li>按orderId键集分页扫描超时未支付订单，每批一条条件UPDATE取消</li>
+ *   <li>单次最多处理 sweep-max-batches 批，剩余留给下次执行（故障恢复后不会一次加载全部）</li>
+ * </ul>
  * 
  * @author 耿康瑞
  * @since 2025-11-01
@@ -39,55 +45,50 @@ public class OrderExpireTask {
     private Integer expireMinutes;
 
     /**
-     * 每5分钟检查一次超时订单
-     * 
-     * <p>Cron表达式: 0 *\/5 * * * ?
-     * <p>含义: 每5分钟执行一次
+     * 每批扫描/取消的订单数
      */
-    @Scheduled(cron = "0 */5 * * * ?")
-    public void cancelExpiredOrders() {
-        log.info("========== 开始检查超时订单 ==========");
-        log.info("超时时间设置: {}分钟", expireMinutes);
-
-        try {
-            // 计算过期时间点
-            LocalDateTime expireTime = LocalDateTime.now().minusMinutes(expireMinutes);
-            log.info("过期时间点: {}", expireTime);
+    @Value("${order.timeout.batch-size:200}")
+    private int batchSize;
 
-            // 查询超时订单
-            List<OrderMain> expiredOrders = orderMainRepository.findExpiredOrders(expireTime);
-            log.info("找到{}条超时订单", expiredOrders.size());
-
-            if (expiredOrders.isEmpty()) {
-                log.info("没有超时订单，任务结束");
-                return;
-            }
-
-            // 取消超时订单
-            int successCount = 0;
-            int failCount = 0;
-
-            for (OrderMain order : expiredOrders) {
-                try {
-                    log.info("取消超时订单: orderId={}, orderSn={}, createTime={}", 
-                             order.getOrderId(), order.getOrderSn(), order.getCreateTime());
+    /**
+     * 单次扫描最多处理的批数
+     */
+    @Value("${order.timeout.sweep-max-batches:50}")
+    private int maxBatches;
 
-                    orderService.cancelOrder(order.getOrderId());
-                    successCount++;
+    /**
+     * 兜底扫描超时订单
+     */
+    @Scheduled(cron = "${order.timeout.sweep-cron:0 */10 * * * ?}")
+    public void cancelExpiredOrders() {
+        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(expireMinutes);
+        long lastOrderId = 0L;
+        int scanned = 0;
+        int cancelled = 0;
 
-                    log.info("订单{}取消成功", order.getOrderSn());
-                } catch (Exception e) {
-                    failCount++;
-                    log.error("取消订单{}失败: {}", order.getOrderSn(), e.getMessage(), e);
+        try {
+            for (int i = 0; i < maxBatches; i++) {
+                List<Long> orderIds = orderMainRepository.findExpiredOrderIds(
+                    OrderStatus.PENDING_PAYMENT.getCode(), PayStatus.UNPAID.getCode(),
+                    expireTime, lastOrderId, PageRequest.of(0, batchSize));
+                if (orderIds.isEmpty()) {
+                    break;
+                }
+                cancelled += orderService.cancelExpiredOrders(orderIds, expireTime).size();
+                scanned += orderIds.size();
+                lastOrderId = orderIds.get(orderIds.size() - 1);
+                if (orderIds.size() < batchSize) {
+                    break;
                 }
             }
 
-            log.info("========== 超时订单处理完成 ==========");
-            log.info("处理结果: 成功{}条, 失败{}条", successCount, failCount);
-
+            if (scanned > 0) {
+                log.warn("兜底扫描处理超时订单: 扫描{}条, 取消{}条, 过期时间点={}", scanned, cancelled, expireTime);
+            } else {
+                log.debug("兜底扫描未发现超时订单，过期时间点={}", expireTime);
+            }
         } catch (Exception e) {
-            log.error("检查超时订单任务执行失败", e);
+            log.error("超时订单兜底扫描失败", e);
         }
     }
 }
-
@@ -0,0 +1,84 @@
+package com.bcu.edu.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 支付日汇总实体
+ * 
+ * <p>表名: payment_daily_stats
+ * <p>说明: 每个已结束的自然日一行，由 payment_record 一次分组扫描生成（封存），
+ * 之后该日记录的新增/状态变化以增量方式累加；当天不封存，统计时实时计算
+ * 
+ * <p>计数口径与管理端统计一致：
+ * <ul>
+ *   <li>*_count：记录数（不区分状态），success_count / 各支付方式计数只计成功记录</li>
+ *   <li>*_amount：只计成功记录的金额，refund_amount 为负数</li>
+ * </ul>
+ * 
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Entity
+@Table(name = "payment_daily_stats")
+@Data
+@NoArgsConstructor
+public class PaymentDailyStats {
+
+    /**
+     * 统计日期
+     */
+    @Id
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "total_count", nullable = false)
+    private Long totalCount = 0L;
+
+    @Column(name = "success_count", nullable = false)
+    private Long successCount = 0L;
+
+    @Column(name = "recharge_count", nullable = false)
+    private Long rechargeCount = 0L;
+
+    @Column(name = "recharge_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal rechargeAmount = BigDecimal.ZERO;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount = 0L;
+
+    @Column(name = "payment_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal paymentAmount = BigDecimal.ZERO;
+
+    @Column(name = "refund_count", nullable = false)
+    private Long refundCount = 0L;
+
+    @Column(name = "refund_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal refundAmount = BigDecimal.ZERO;
+
+    /**
+     * 成功记录数：微信
+     */
+    @Column(name = "wechat_count", nullable = false)
+    private Long wechatCount = 0L;
+
+    /**
+     * 成功记录数：支付宝
+     */
+    @Column(name = "alipay_count", nullable = false)
+    private Long alipayCount = 0L;
+
+    /**
+     * 成功记录数：余额
+     */
+    @Column(name = "balance_count", nullable = false)
+    private Long balanceCount = 0L;
+
+    @Column(name = "update_time", nullable = false)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,103 @@
+package com.bcu.edu.repository;
+
+import com.bcu.edu.entity.PaymentDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 支付日汇总Repository
+ * 
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Repository
+public interface PaymentDailyStatsRepository extends JpaRepository<PaymentDailyStats, LocalDate> {
+
+    /**
+     * 汇总日期范围内的日汇总（列顺序同 PaymentRecordRepository.AGGREGATE_COLUMNS）
+     */
+    @Query("SELECT SUM(s.totalCount), SUM(s.successCount), SUM(s.rechargeCount), SUM(s.rechargeAmount), " +
+           "SUM(s.paymentCount), SUM(s.paymentAmount), SUM(s.refundCount), SUM(s.refundAmount), " +
+           "SUM(s.wechatCount), SUM(s.alipayCount), SUM(s.balanceCount) " +
+           "FROM PaymentDailyStats s WHERE s.statDate >= :from AND s.statDate <= :to")
+    List<Object[]> sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 日期范围内已封存的日期
+     */
+    @Query("SELECT s.statDate FROM PaymentDailyStats s WHERE s.statDate >= :from AND s.statDate <= :to")
+    List<LocalDate> findSealedDates(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 封存一天（该日已被其他线程/实例封存时忽略，不覆盖已累加的增量）
+     *
+     * @return 1-已封存 0-已存在
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO payment_daily_stats " +
+           "(stat_date, total_count, success_count, recharge_count, recharge_amount, payment_count, payment_amount, " +
+           "refund_count, refund_amount, wechat_count, alipay_count, balance_count, update_time) " +
+           "VALUES (:statDate, :totalCount, :successCount, :rechargeCount, :rechargeAmount, :paymentCount, " +
+           ":paymentAmount, :refundCount, :refundAmount, :wechatCount, :alipayCount, :balanceCount, :now)",
+           nativeQuery = true)
+    int insertIgnore(@Param("statDate") LocalDate statDate,
+                     @Param("totalCount") long totalCount,
+                     @Param("successCount") long successCount,
+                     @Param("rechargeCount") long rechargeCount,
+                     @Param("rechargeAmount") BigDecimal rechargeAmount,
+                     @Param("paymentCount") long paymentCount,
+                     @Param("paymentAmount") BigDecimal paymentAmount,
+                     @Param("refundCount") long refundCount,
+                     @Param("refundAmount") BigDecimal refundAmount,
+                     @Param("wechatCount") long wechatCount,
+                     @Param("alipayCount") long alipayCount,
+                     @Param("balanceCount") long balanceCount,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * 累加增量（该日未封存时不更新）
+     * 
+     * <p>在支付事务提交后调用，需独立事务
+     * 
+     * @return 1-已累加 0-该日未封存
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE PaymentDailyStats s SET s.totalCount = s.totalCount + :totalCount, " +
+           "s.successCount = s.successCount + :successCount, " +
+           "s.rechargeCount = s.rechargeCount + :rechargeCount, " +
+           "s.rechargeAmount = s.rechargeAmount + :rechargeAmount, " +
+           "s.paymentCount = s.paymentCount + :paymentCount, " +
+           "s.paymentAmount = s.paymentAmount + :paymentAmount, " +
+           "s.refundCount = s.refundCount + :refundCount, " +
+           "s.refundAmount = s.refundAmount + :refundAmount, " +
+           "s.wechatCount = s.wechatCount + :wechatCount, " +
+           "s.alipayCount = s.alipayCount + :alipayCount, " +
+           "s.balanceCount = s.balanceCount + :balanceCount, " +
+           "s.updateTime = :now " +
+           "WHERE s.statDate = :statDate")
+    int applyDelta(@Param("statDate") LocalDate statDate,
+                   @Param("totalCount") long totalCount,
+                   @Param("successCount") long successCount,
+                   @Param("rechargeCount") long rechargeCount,
+                   @Param("rechargeAmount") BigDecimal rechargeAmount,
+                   @Param("paymentCount") long paymentCount,
+                   @Param("paymentAmount") BigDecimal paymentAmount,
+                   @Param("refundCount") long refundCount,
+                   @Param("refundAmount") BigDecimal refundAmount,
+                   @Param("wechatCount") long wechatCount,
+                   @Param("alipayCount") long alipayCount,
+                   @Param("balanceCount") long balanceCount,
+                   @Param("now") LocalDateTime now);
+}
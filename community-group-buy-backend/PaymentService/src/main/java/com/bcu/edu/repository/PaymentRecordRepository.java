@@ -7,7 +7,6 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -51,94 +50,63 @@ public interface PaymentRecordRepository extends JpaRepository<PaymentRecord, Lo
      */
     List<PaymentRecord> findByUserIdAndPayStatusOrderByCreateTimeDesc(Long userId, Integer payStatus);
 
-    // ==================== 管理端查询方法 ====================
+    // ==================== 管理端统计（单次扫描条件聚合） ====================
 
     /**
-     * 查询指定时间范围内的支付记录数
+     * 条件聚合列（顺序：总数、成功数、充值数、充值额、支付数、支付额、退款数、退款额、微信/支付宝/余额成功数）
      */
-    @Query("SELECT COUNT(p) FROM PaymentRecord p WHERE " +
-           "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
-           "(:endTime IS NULL OR p.createTime <= :endTime)")
-    Long countByCreateTimeBetween(@Param("startTime") LocalDateTime startTime, 
-                                   @Param("endTime") LocalDateTime endTime);
+    String AGGREGATE_COLUMNS = "COUNT(p), " +
+            "SUM(CASE WHEN p.payStatus = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.orderId IS NULL AND p.amount > 0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.orderId IS NULL AND p.amount > 0 AND p.payStatus = 1 THEN p.amount ELSE 0 END), " +
+            "SUM(CASE WHEN p.orderId IS NOT NULL AND p.amount > 0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.orderId IS NOT NULL AND p.amount > 0 AND p.payStatus = 1 THEN p.amount ELSE 0 END), " +
+            "SUM(CASE WHEN p.amount < 0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.amount < 0 AND p.payStatus = 1 THEN p.amount ELSE 0 END), " +
+            "SUM(CASE WHEN p.payType = 1 AND p.payStatus = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.payType = 2 AND p.payStatus = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.payType = 3 AND p.payStatus = 1 THEN 1 ELSE 0 END)";
 
     /**
-     * 查询指定时间范围内的充值记录数
+     * 同 {@link #AGGREGATE_COLUMNS}，原生SQL列名
      */
-    @Query("SELECT COUNT(p) FROM PaymentRecord p WHERE p.orderId IS NULL AND " +
-           "p.amount > 0 AND " +
-           "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
-           "(:endTime IS NULL OR p.createTime <= :endTime)")
-    Long countRechargeRecords(@Param("startTime") LocalDateTime startTime, 
-                              @Param("endTime") LocalDateTime endTime);
+    String AGGREGATE_SQL_COLUMNS = "COUNT(*), " +
+            "SUM(CASE WHEN pay_status = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN order_id IS NULL AND amount > 0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN order_id IS NULL AND amount > 0 AND pay_status = 1 THEN amount ELSE 0 END), " +
+            "SUM(CASE WHEN order_id IS NOT NULL AND amount > 0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN order_id IS NOT NULL AND amount > 0 AND pay_status = 1 THEN amount ELSE 0 END), " +
+            "SUM(CASE WHEN amount < 0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN amount < 0 AND pay_status = 1 THEN amount ELSE 0 END), " +
+            "SUM(CASE WHEN pay_type = 1 AND pay_status = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN pay_type = 2 AND pay_status = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN pay_type = 3 AND pay_status = 1 THEN 1 ELSE 0 END)";
 
     /**
-     * 查询指定时间范围内的充值总额
+     * 一次扫描计算时间范围内的全部统计指标（⭐替代逐项count/sum）
+     * 
+     * @return 单行，列顺序见 {@link #AGGREGATE_COLUMNS}
      */
-    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM PaymentRecord p WHERE p.orderId IS NULL AND " +
-           "p.amount > 0 AND p.payStatus = 1 AND " +
+    @Query("SELECT " + AGGREGATE_COLUMNS + " FROM PaymentRecord p WHERE " +
            "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
            "(:endTime IS NULL OR p.createTime <= :endTime)")
-    BigDecimal sumRechargeAmount(@Param("startTime") LocalDateTime startTime, 
-                                  @Param("endTime") LocalDateTime endTime);
-
-    /**
-     * 查询指定时间范围内的支付记录数（订单支付）
-     */
-    @Query("SELECT COUNT(p) FROM PaymentRecord p WHERE p.orderId IS NOT NULL AND " +
-           "p.amount > 0 AND " +
-           "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
-           "(:endTime IS NULL OR p.createTime <= :endTime)")
-    Long countPaymentRecords(@Param("startTime") LocalDateTime startTime, 
+    List<Object[]> aggregate(@Param("startTime") LocalDateTime startTime,
                              @Param("endTime") LocalDateTime endTime);
 
     /**
-     * 查询指定时间范围内的支付总额（订单支付）
-     */
-    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM PaymentRecord p WHERE p.orderId IS NOT NULL AND " +
-           "p.amount > 0 AND p.payStatus = 1 AND " +
-           "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
-           "(:endTime IS NULL OR p.createTime <= :endTime)")
-    BigDecimal sumPaymentAmount(@Param("startTime") LocalDateTime startTime, 
-                                @Param("endTime") LocalDateTime endTime);
-
-    /**
-     * 查询指定时间范围内的退款记录数
-     */
-    @Query("SELECT COUNT(p) FROM PaymentRecord p WHERE p.amount < 0 AND " +
-           "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
-           "(:endTime IS NULL OR p.createTime <= :endTime)")
-    Long countRefundRecords(@Param("startTime") LocalDateTime startTime, 
-                            @Param("endTime") LocalDateTime endTime);
-
-    /**
-     * 查询指定时间范围内的退款总额
+     * 按天分组的统计指标（生成日汇总使用）
+     * 
+     * @param from 起始时间（含）
+     * @param to 结束时间（不含）
+     * @return [日期, 统计列...]，只返回有记录的日期
      */
-    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM PaymentRecord p WHERE p.amount < 0 AND " +
-           "p.payStatus = 1 AND " +
-           "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
-           "(:endTime IS NULL OR p.createTime <= :endTime)")
-    BigDecimal sumRefundAmount(@Param("startTime") LocalDateTime startTime, 
-                               @Param("endTime") LocalDateTime endTime);
+    @Query(value = "SELECT DATE(create_time), " + AGGREGATE_SQL_COLUMNS + " FROM payment_record " +
+           "WHERE create_time >= :from AND create_time < :to GROUP BY DATE(create_time)", nativeQuery = true)
+    List<Object[]> aggregateByDay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
     /**
-     * 查询指定时间范围内的支付成功记录数
+     * 最早的记录时间
      */
-    @Query("SELECT COUNT(p) FROM PaymentRecord p WHERE p.payStatus = 1 AND " +
-           "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
-           "(:endTime IS NULL OR p.createTime <= :endTime)")
-    Long countSuccessRecords(@Param("startTime") LocalDateTime startTime, 
-                             @Param("endTime") LocalDateTime endTime);
-
-    /**
-     * 按支付方式统计记录数
-     */
-    @Query("SELECT COUNT(p) FROM PaymentRecord p WHERE p.payType = :payType AND " +
-           "p.payStatus = 1 AND " +
-           "(:startTime IS NULL OR p.createTime >= :startTime) AND " +
-           "(:endTime IS NULL OR p.createTime <= :endTime)")
-    Long countByPayType(@Param("payType") Integer payType,
-                        @Param("startTime") LocalDateTime startTime,
-                        @Param("endTime") LocalDateTime endTime);
+    @Query("SELECT MIN(p.createTime) FROM PaymentRecord p")
+    LocalDateTime findMinCreateTime();
 }
-
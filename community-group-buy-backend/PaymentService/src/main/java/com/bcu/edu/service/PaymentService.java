@@ -25,7 +25,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -63,6 +62,9 @@ public class PaymentService {
     @Autowired
     private SecurityUtil securityUtil;
 
+    @Autowired
+    private PaymentStatisticsService paymentStatisticsService;
+
     /**
      * 创建支付（⭐⭐⭐⭐⭐最核心方法）
      * 
@@ -104,6 +106,7 @@ public class PaymentService {
 
         // 保存支付记录
         PaymentRecord savedRecord = paymentRepository.save(record);
+        paymentStatisticsService.onRecordSaved(savedRecord, null);
         log.info("支付记录已创建: payId={}", savedRecord.getPayId());
 
         // 2. 根据支付方式分流
@@ -155,6 +158,7 @@ public class PaymentService {
                 record.setPayStatus(PayStatus.SUCCESS.getCode());
                 record.setTransactionId("BALANCE_" + System.currentTimeMillis());
                 paymentRepository.save(record);
+                paymentStatisticsService.onRecordSaved(record, PayStatus.FAILED.getCode());
                 
                 log.info("余额支付成功: payId={}, userId={}, sagaId={}", 
                     record.getPayId(), userId, sagaId);
@@ -285,6 +289,7 @@ public class PaymentService {
         refundRecord.setEncryptSign(sign);
 
         paymentRepository.save(refundRecord);
+        paymentStatisticsService.onRecordSaved(refundRecord, null);
         log.info("退款记录已创建: payId={}", refundRecord.getPayId());
 
         // 4. 根据原支付方式退款
@@ -323,6 +328,7 @@ public class PaymentService {
                 refundRecord.setPayStatus(PayStatus.SUCCESS.getCode());
                 refundRecord.setTransactionId("REFUND_" + System.currentTimeMillis());
                 paymentRepository.save(refundRecord);
+                paymentStatisticsService.onRecordSaved(refundRecord, PayStatus.FAILED.getCode());
                 
                 log.info("余额退款成功: payId={}, userId={}, amount={}", 
                     refundRecord.getPayId(), userId, refundRecord.getAmount().abs());
@@ -383,6 +389,7 @@ public class PaymentService {
         record.setEncryptSign(sign);
 
         PaymentRecord savedRecord = paymentRepository.save(record);
+        paymentStatisticsService.onRecordSaved(savedRecord, null);
         log.info("充值记录已创建: payId={}", savedRecord.getPayId());
 
         try {
@@ -394,6 +401,7 @@ public class PaymentService {
                 savedRecord.setPayStatus(PayStatus.SUCCESS.getCode());
                 savedRecord.setTransactionId("RECHARGE_" + System.currentTimeMillis());
                 paymentRepository.save(savedRecord);
+                paymentStatisticsService.onRecordSaved(savedRecord, PayStatus.FAILED.getCode());
                 
                 log.info("余额充值成功: payId={}, userId={}, amount={}", 
                          savedRecord.getPayId(), userId, amount);
@@ -523,65 +531,11 @@ public class PaymentService {
     public PaymentStatistics getPaymentStatistics(LocalDateTime startTime, LocalDateTime endTime) {
         log.info("管理端查询支付统计: startTime={}, endTime={}", startTime, endTime);
 
-        PaymentStatistics statistics = new PaymentStatistics();
-
-        // 1. 总记录数
-        Long total = paymentRepository.countByCreateTimeBetween(startTime, endTime);
-        statistics.setTotal(total);
-
-        // 2. 充值统计
-        Long rechargeCount = paymentRepository.countRechargeRecords(startTime, endTime);
-        BigDecimal rechargeAmount = paymentRepository.sumRechargeAmount(startTime, endTime);
-        statistics.setRechargeCount(rechargeCount);
-        statistics.setRechargeAmount(rechargeAmount);
-
-        // 3. 支付统计（订单支付）
-        Long paymentCount = paymentRepository.countPaymentRecords(startTime, endTime);
-        BigDecimal paymentAmount = paymentRepository.sumPaymentAmount(startTime, endTime);
-        statistics.setPaymentCount(paymentCount);
-        statistics.setPaymentAmount(paymentAmount);
-
-        // 4. 退款统计
-        Long refundCount = paymentRepository.countRefundRecords(startTime, endTime);
-        BigDecimal refundAmount = paymentRepository.sumRefundAmount(startTime, endTime);
-        statistics.setRefundCount(refundCount);
-        statistics.setRefundAmount(refundAmount);
-
-        // 5. 总交易金额（充值 + 支付 + 退款）
-        BigDecimal totalAmount = rechargeAmount.add(paymentAmount).add(refundAmount);
-        statistics.setTotalAmount(totalAmount);
-
-        // 6. 支付成功率
-        if (total > 0) {
-            Long successCount = paymentRepository.countSuccessRecords(startTime, endTime);
-            double successRate = (successCount.doubleValue() / total.doubleValue()) * 100;
-            statistics.setSuccessRate(BigDecimal.valueOf(successRate)
-                    .setScale(2, RoundingMode.HALF_UP).doubleValue());
-        }
-
-        // 7. 各支付方式占比
-        if (total > 0) {
-            // 余额支付
-            Long balanceCount = paymentRepository.countByPayType(PayType.BALANCE.getCode(), startTime, endTime);
-            double balanceRate = (balanceCount.doubleValue() / total.doubleValue()) * 100;
-            statistics.setBalancePayRate(BigDecimal.valueOf(balanceRate)
-                    .setScale(2, RoundingMode.HALF_UP).doubleValue());
-
-            // 微信支付
-            Long wechatCount = paymentRepository.countByPayType(PayType.WECHAT.getCode(), startTime, endTime);
-            double wechatRate = (wechatCount.doubleValue() / total.doubleValue()) * 100;
-            statistics.setWechatPayRate(BigDecimal.valueOf(wechatRate)
-                    .setScale(2, RoundingMode.HALF_UP).doubleValue());
-
-            // 支付宝支付
-            Long alipayCount = paymentRepository.countByPayType(PayType.ALIPAY.getCode(), startTime, endTime);
-            double alipayRate = (alipayCount.doubleValue() / total.doubleValue()) * 100;
-            statistics.setAlipayPayRate(BigDecimal.valueOf(alipayRate)
-                    .setScale(2, RoundingMode.HALF_UP).doubleValue());
-        }
+        PaymentStatistics statistics = paymentStatisticsService.getStatistics(startTime, endTime);
 
         log.info("统计完成: total={}, recharge={}, payment={}, refund={}", 
-                 total, rechargeCount, paymentCount, refundCount);
+                 statistics.getTotal(), statistics.getRechargeCount(),
+                 statistics.getPaymentCount(), statistics.getRefundCount());
 
         return statistics;
     }
@@ -0,0 +1,399 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.dto.response.PaymentStatistics;
+import com.bcu.edu.entity.PaymentRecord;
+import com.bcu.edu.enums.PayStatus;
+import com.bcu.edu.enums.PayType;
+import com.bcu.edu.repository.PaymentDailyStatsRepository;
+import com.bcu.edu.repository.PaymentRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 支付统计引擎（⭐单次扫描条件聚合 + 日汇总）
+ *
+ * <p>替代逐项 count/sum（约12次扫描同一时间范围）：
+ * <ul>
+ *   <li>已结束的自然日封存为 payment_daily_stats 一行（一次按天分组扫描补齐缺失的日期，之后不再扫描）</li>
+ *   <li>查询范围拆成：完整的已封存日（汇总表求和）+ 首尾不足一天的部分和当天（payment_record 单次条件聚合）</li>
+ *   <li>已封存日期的记录新增或状态变化时，事务提交后把差值累加到对应日汇总</li>
+ * </ul>
+ *
+ * <p>零点后 seal-delay-minutes 内不封存前一天，避开跨零点提交的记录
+ *
+ * <p>封存是单飞的：本实例内由 sealLock 串行化（预热和首批看板请求不会重复扫描同一批日期），
+ * 跨实例由 INSERT IGNORE 保证每天只写入一次、已存在的行（含已累加的增量）不被覆盖。
+ * 启动预热完成前，请求不参与封存，直接对 payment_record 做一次条件聚合
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Service
+@Slf4j
+public class PaymentStatisticsService {
+
+    /**
+     * 一天中最后一秒（create_time 精确到秒，结束时间不早于此即包含整天）
+     */
+    private static final LocalTime LAST_SECOND = LocalTime.of(23, 59, 59);
+
+    @Autowired
+    private PaymentRecordRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyStatsRepository dailyStatsRepository;
+
+    /**
+     * 零点后多久才封存前一天（分钟）
+     */
+    @Value("${payment.statistics.seal-delay-minutes:5}")
+    private int sealDelayMinutes;
+
+    /**
+     * 封存锁（同一时间只有一个线程扫描补齐）
+     */
+    private final ReentrantLock sealLock = new ReentrantLock();
+
+    /**
+     * 启动预热是否完成（完成前请求不封存）
+     */
+    private volatile boolean warmedUp;
+
+    /**
+     * 启动后在后台补齐历史日汇总
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                LocalDateTime first = paymentRepository.findMinCreateTime();
+                LocalDate lastSealable = lastSealableDay(LocalDateTime.now());
+                if (first != null && !first.toLocalDate().isAfter(lastSealable)) {
+                    ensureSealed(first.toLocalDate(), lastSealable);
+                }
+            } catch (Exception e) {
+                log.warn("支付日汇总预热失败，之后由统计请求补齐: {}", e.getMessage());
+            } finally {
+                warmedUp = true;
+            }
+        });
+    }
+
+    /**
+     * 统计时间范围内的支付数据
+     *
+     * @param startTime 开始时间（可选，含）
+     * @param endTime 结束时间（可选，含）
+     */
+    public PaymentStatistics getStatistics(LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDate lastSealable = lastSealableDay(LocalDateTime.now());
+
+        LocalDate firstFull;
+        if (startTime != null) {
+            firstFull = startTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                    ? startTime.toLocalDate() : startTime.toLocalDate().plusDays(1);
+        } else {
+            LocalDateTime first = paymentRepository.findMinCreateTime();
+            if (first == null) {
+                return new Totals().toStatistics();
+            }
+            firstFull = first.toLocalDate();
+        }
+        LocalDate lastFull = lastSealable;
+        if (endTime != null) {
+            LocalDate endFull = endTime.toLocalTime().isBefore(LAST_SECOND)
+                    ? endTime.toLocalDate().minusDays(1) : endTime.toLocalDate();
+            lastFull = endFull.isBefore(lastSealable) ? endFull : lastSealable;
+        }
+
+        if (firstFull.isAfter(lastFull) || !warmedUp) {
+            // 不含完整的已封存日，或预热未完成：直接单次扫描
+            return aggregate(startTime, endTime).toStatistics();
+        }
+
+        ensureSealed(firstFull, lastFull);
+        Totals totals = Totals.fromRow(firstRow(dailyStatsRepository.sumBetween(firstFull, lastFull)), 0);
+
+        if (startTime != null && startTime.isBefore(firstFull.atStartOfDay())) {
+            totals.add(aggregate(startTime, firstFull.atStartOfDay().minusNanos(1000)));
+        }
+        LocalDateTime tailStart = lastFull.plusDays(1).atStartOfDay();
+        if (endTime == null || !endTime.isBefore(tailStart)) {
+            totals.add(aggregate(tailStart, endTime));
+        }
+        return totals.toStatistics();
+    }
+
+    /**
+     * 记录写入后调用：该记录所在日期已封存时，提交后把变化累加到日汇总
+     *
+     * @param record 写入后的记录
+     * @param previousStatus 写入前的状态（新记录为null）
+     */
+    public void onRecordSaved(PaymentRecord record, Integer previousStatus) {
+        if (record.getCreateTime() == null) {
+            return;
+        }
+        LocalDate day = record.getCreateTime().toLocalDate();
+        if (!day.isBefore(LocalDate.now())) {
+            // 当天实时统计
+            return;
+        }
+        Totals delta = Totals.of(record, record.getPayStatus());
+        if (previousStatus != null) {
+            delta.subtract(Totals.of(record, previousStatus));
+        }
+        if (delta.isZero()) {
+            return;
+        }
+
+        Runnable apply = () -> {
+            try {
+                delta.applyTo(dailyStatsRepository, day);
+            } catch (Exception e) {
+                log.error("支付日汇总增量更新失败: date={}, payId={}", day, record.getPayId(), e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * 补齐日期范围内未封存的日汇总（一次按天分组扫描，没有记录的日期写入零行）
+     */
+    void ensureSealed(LocalDate from, LocalDate to) {
+        sealLock.lock();
+        try {
+            seal(from, to);
+        } finally {
+            sealLock.unlock();
+        }
+    }
+
+    private void seal(LocalDate from, LocalDate to) {
+        Set<LocalDate> sealed = new HashSet<>(dailyStatsRepository.findSealedDates(from, to));
+        List<LocalDate> missing = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (!sealed.contains(day)) {
+                missing.add(day);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        LocalDate first = missing.get(0);
+        LocalDate last = missing.get(missing.size() - 1);
+        Map<LocalDate, Totals> byDay = new HashMap<>();
+        for (Object[] row : paymentRepository.aggregateByDay(first.atStartOfDay(), last.plusDays(1).atStartOfDay())) {
+            byDay.put(toLocalDate(row[0]), Totals.fromRow(row, 1));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = 0;
+        for (LocalDate day : missing) {
+            inserted += byDay.getOrDefault(day, new Totals()).sealInto(dailyStatsRepository, day, now);
+        }
+        log.info("支付日汇总已封存: {} ~ {}, 共{}天（其他实例已封存{}天）", first, last, inserted, missing.size() - inserted);
+    }
+
+    private Totals aggregate(LocalDateTime startTime, LocalDateTime endTime) {
+        return Totals.fromRow(firstRow(paymentRepository.aggregate(startTime, endTime)), 0);
+    }
+
+    private LocalDate lastSealableDay(LocalDateTime now) {
+        LocalDate yesterday = now.toLocalDate().minusDays(1);
+        return now.toLocalTime().isBefore(LocalTime.MIDNIGHT.plusMinutes(sealDelayMinutes))
+                ? yesterday.minusDays(1) : yesterday;
+    }
+
+    private static Object[] firstRow(List<Object[]> rows) {
+        return rows.isEmpty() ? new Object[11] : rows.get(0);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    /**
+     * 统计指标（列顺序同 PaymentRecordRepository.AGGREGATE_COLUMNS）
+     */
+    static final class Totals {
+
+        private long total;
+        private long success;
+        private long rechargeCount;
+        private BigDecimal rechargeAmount = BigDecimal.ZERO;
+        private long paymentCount;
+        private BigDecimal paymentAmount = BigDecimal.ZERO;
+        private long refundCount;
+        private BigDecimal refundAmount = BigDecimal.ZERO;
+        private long wechatCount;
+        private long alipayCount;
+        private long balanceCount;
+
+        static Totals fromRow(Object[] row, int offset) {
+            Totals t = new Totals();
+            t.total = toLong(row[offset]);
+            t.success = toLong(row[offset + 1]);
+            t.rechargeCount = toLong(row[offset + 2]);
+            t.rechargeAmount = toDecimal(row[offset + 3]);
+            t.paymentCount = toLong(row[offset + 4]);
+            t.paymentAmount = toDecimal(row[offset + 5]);
+            t.refundCount = toLong(row[offset + 6]);
+            t.refundAmount = toDecimal(row[offset + 7]);
+            t.wechatCount = toLong(row[offset + 8]);
+            t.alipayCount = toLong(row[offset + 9]);
+            t.balanceCount = toLong(row[offset + 10]);
+            return t;
+        }
+
+        /**
+         * 单条记录在指定状态下对各指标的贡献
+         */
+        static Totals of(PaymentRecord record, Integer status) {
+            Totals t = new Totals();
+            BigDecimal amount = record.getAmount();
+            boolean succeeded = PayStatus.SUCCESS.getCode().equals(status);
+            int sign = amount.signum();
+
+            t.total = 1;
+            if (succeeded) {
+                t.success = 1;
+                if (PayType.WECHAT.getCode().equals(record.getPayType())) {
+                    t.wechatCount = 1;
+                } else if (PayType.ALIPAY.getCode().equals(record.getPayType())) {
+                    t.alipayCount = 1;
+                } else if (PayType.BALANCE.getCode().equals(record.getPayType())) {
+                    t.balanceCount = 1;
+                }
+            }
+            if (sign > 0 && record.getOrderId() == null) {
+                t.rechargeCount = 1;
+                t.rechargeAmount = succeeded ? amount : BigDecimal.ZERO;
+            } else if (sign > 0) {
+                t.paymentCount = 1;
+                t.paymentAmount = succeeded ? amount : BigDecimal.ZERO;
+            } else if (sign < 0) {
+                t.refundCount = 1;
+                t.refundAmount = succeeded ? amount : BigDecimal.ZERO;
+            }
+            return t;
+        }
+
+        void add(Totals o) {
+            total += o.total;
+            success += o.success;
+            rechargeCount += o.rechargeCount;
+            rechargeAmount = rechargeAmount.add(o.rechargeAmount);
+            paymentCount += o.paymentCount;
+            paymentAmount = paymentAmount.add(o.paymentAmount);
+            refundCount += o.refundCount;
+            refundAmount = refundAmount.add(o.refundAmount);
+            wechatCount += o.wechatCount;
+            alipayCount += o.alipayCount;
+            balanceCount += o.balanceCount;
+        }
+
+        void subtract(Totals o) {
+            total -= o.total;
+            success -= o.success;
+            rechargeCount -= o.rechargeCount;
+            rechargeAmount = rechargeAmount.subtract(o.rechargeAmount);
+            paymentCount -= o.paymentCount;
+            paymentAmount = paymentAmount.subtract(o.paymentAmount);
+            refundCount -= o.refundCount;
+            refundAmount = refundAmount.subtract(o.refundAmount);
+            wechatCount -= o.wechatCount;
+            alipayCount -= o.alipayCount;
+            balanceCount -= o.balanceCount;
+        }
+
+        boolean isZero() {
+            return total == 0 && success == 0 && rechargeCount == 0 && paymentCount == 0 && refundCount == 0
+                    && wechatCount == 0 && alipayCount == 0 && balanceCount == 0
+                    && rechargeAmount.signum() == 0 && paymentAmount.signum() == 0 && refundAmount.signum() == 0;
+        }
+
+        void applyTo(PaymentDailyStatsRepository repository, LocalDate day) {
+            repository.applyDelta(day, total, success, rechargeCount, rechargeAmount, paymentCount, paymentAmount,
+                    refundCount, refundAmount, wechatCount, alipayCount, balanceCount, LocalDateTime.now());
+        }
+
+        /**
+         * 封存为日汇总（该日已存在时忽略）
+         *
+         * @return 1-已封存 0-已存在
+         */
+        int sealInto(PaymentDailyStatsRepository repository, LocalDate day, LocalDateTime now) {
+            return repository.insertIgnore(day, total, success, rechargeCount, rechargeAmount, paymentCount,
+                    paymentAmount, refundCount, refundAmount, wechatCount, alipayCount, balanceCount, now);
+        }
+
+        PaymentStatistics toStatistics() {
+            PaymentStatistics statistics = new PaymentStatistics();
+            statistics.setTotal(total);
+            statistics.setRechargeCount(rechargeCount);
+            statistics.setRechargeAmount(rechargeAmount);
+            statistics.setPaymentCount(paymentCount);
+            statistics.setPaymentAmount(paymentAmount);
+            statistics.setRefundCount(refundCount);
+            statistics.setRefundAmount(refundAmount);
+            statistics.setTotalAmount(rechargeAmount.add(paymentAmount).add(refundAmount));
+            if (total > 0) {
+                statistics.setSuccessRate(percent(success));
+                statistics.setBalancePayRate(percent(balanceCount));
+                statistics.setWechatPayRate(percent(wechatCount));
+                statistics.setAlipayPayRate(percent(alipayCount));
+            }
+            return statistics;
+        }
+
+        private double percent(long count) {
+            return BigDecimal.valueOf((double) count / total * 100)
+                    .setScale(2, RoundingMode.HALF_UP).doubleValue();
+        }
+
+        private static long toLong(Object value) {
+            return value == null ? 0 : ((Number) value).longValue();
+        }
+
+        private static BigDecimal toDecimal(Object value) {
+            if (value == null) {
+                return BigDecimal.ZERO;
+            }
+            return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+        }
+    }
+}
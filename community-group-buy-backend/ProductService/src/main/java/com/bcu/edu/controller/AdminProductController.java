@@ -8,6 +8,7 @@ import com.bcu.edu.entity.Product;
 import com.bcu.edu.service.FileUploadService;
 import com.bcu.edu.service.ProductManagementService;
 import com.bcu.edu.service.StatisticsService;
+import com.bcu.edu.service.StockLedger;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -33,6 +34,7 @@ public class AdminProductController {
     private final ProductManagementService productService;
     private final FileUploadService fileUploadService;
     private final StatisticsService statisticsService;
+    private final StockLedger stockLedger;
     
     @OperationLog(value = "创建商品", module = "商品管理")
     @Operation(summary = "创建商品")
@@ -76,6 +78,16 @@ public class AdminProductController {
         return Result.success(productService.adjustStock(id, quantity));
     }
     
+    @OperationLog(value = "切换库存账本", module = "商品管理")
+    @Operation(summary = "开启/关闭商品内存库存账本", description = "秒杀等热点商品开启，库存扣减不再逐条更新数据库")
+    @PutMapping("/product/{id}/stock-ledger")
+    public Result<Void> setStockLedger(
+            @PathVariable Long id,
+            @RequestParam Boolean enabled) {
+        stockLedger.setEnabled(id, enabled);
+        return Result.success();
+    }
+    
     @OperationLog(value = "上传图片", module = "商品管理")
     @Operation(summary = "上传商品图片", description = "返回图片访问URL")
     @PostMapping("/upload")
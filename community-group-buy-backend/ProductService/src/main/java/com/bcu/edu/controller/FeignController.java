@@ -1,7 +1,9 @@
 package com.bcu.edu.controller;
 
 import com.bcu.edu.common.result.Result;
+import com.bcu.edu.dto.StockLine;
 import com.bcu.edu.dto.StockRequest;
+import com.bcu.edu.dto.response.BatchStockResult;
 import com.bcu.edu.dto.response.ProductDTO;
 import com.bcu.edu.entity.Product;
 import com.bcu.edu.service.ProductManagementService;
@@ -46,7 +48,7 @@ public class FeignController {
         dto.setCoverImg(product.getCoverImg());
         dto.setPrice(product.getPrice());
         dto.setGroupPrice(product.getGroupPrice());
-        dto.setStock(product.getStock());
+        dto.setStock(stockService.availableStock(product));
         dto.setStatus(product.getStatus());
 
         return Result.success(dto);
@@ -68,6 +70,28 @@ public class FeignController {
         return Result.success("库存恢复成功");
     }
     
+    @Operation(summary = "批量扣减库存", description = "购物车结算使用，全部成功或全部回滚，返回每个商品的结果")
+    @PostMapping("/stock/batch-deduct")
+    public Result<BatchStockResult> deductStockBatch(@RequestParam(value = "bizKey", required = false) String bizKey,
+                                                     @Valid @RequestBody List<StockLine> lines) {
+        return Result.success(stockService.deductStockBatch(bizKey, lines));
+    }
+
+    @Operation(summary = "取消批量扣减", description = "结算回滚后调用，扣减已生效则归还，未生效则阻止迟到的同键扣减")
+    @PostMapping("/stock/batch-cancel")
+    public Result<Void> cancelDeductBatch(@RequestParam("bizKey") String bizKey,
+                                          @Valid @RequestBody List<StockLine> lines) {
+        stockService.cancelDeductBatch(bizKey, lines);
+        return Result.success("扣减已取消");
+    }
+
+    @Operation(summary = "批量恢复库存")
+    @PostMapping("/stock/batch-restore")
+    public Result<Void> restoreStockBatch(@Valid @RequestBody List<StockLine> lines) {
+        stockService.restoreStockBatch(lines);
+        return Result.success("库存恢复成功");
+    }
+    
     @Operation(summary = "检查商品是否可售")
     @GetMapping("/{productId}/check")
     public Result<Boolean> checkProductAvailable(@PathVariable Long productId) {
@@ -99,7 +123,7 @@ public class FeignController {
         dto.setCoverImg(product.getCoverImg());
         dto.setPrice(product.getPrice());
         dto.setGroupPrice(product.getGroupPrice());
-        dto.setStock(product.getStock());
+        dto.setStock(stockService.availableStock(product));
         dto.setStatus(product.getStatus());
 
         return Result.success(dto);
@@ -108,8 +132,24 @@ public class FeignController {
     @Operation(summary = "批量获取商品信息")
     @PostMapping("/batch-info")
     public Result<List<Product>> batchGetProducts(@RequestBody List<Long> productIds) {
-        List<Product> products = productIds.stream()
-                .map(id -> productService.getProductById(id))
+        return Result.success(productService.getProductsByIds(productIds));
+    }
+    
+    @Operation(summary = "批量获取商品信息（快照用）", description = "一次查询多个商品，不存在的ID直接忽略")
+    @PostMapping("/batch")
+    public Result<List<ProductDTO>> batchGetProductInfo(@RequestBody List<Long> productIds) {
+        List<ProductDTO> products = productService.getProductsByIds(productIds).stream()
+                .map(product -> {
+                    ProductDTO dto = new ProductDTO();
+                    dto.setProductId(product.getProductId());
+                    dto.setProductName(product.getProductName());
+                    dto.setCoverImg(product.getCoverImg());
+                    dto.setPrice(product.getPrice());
+                    dto.setGroupPrice(product.getGroupPrice());
+                    dto.setStock(stockService.availableStock(product));
+                    dto.setStatus(product.getStatus());
+                    return dto;
+                })
                 .collect(Collectors.toList());
         return Result.success(products);
     }
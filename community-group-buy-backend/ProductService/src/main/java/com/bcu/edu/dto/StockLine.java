@@ -0,0 +1,39 @@
+package com.bcu.edu.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量库存操作行（商品ID + 数量，归还时可带幂等键）
+ * 
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量库存操作行")
+public class StockLine {
+    
+    @NotNull(message = "商品ID不能为空")
+    @Schema(description = "商品ID", example = "1")
+    private Long productId;
+    
+    @NotNull(message = "数量不能为空")
+    @Min(value = 1, message = "数量必须大于0")
+    @Schema(description = "操作数量", example = "2")
+    private Integer quantity;
+    
+    @Size(max = 128, message = "幂等键过长")
+    @Schema(description = "幂等键（仅批量归还使用，同一键的行只归还一次）", example = "order:1001")
+    private String bizKey;
+    
+    public StockLine(Long productId, Integer quantity) {
+        this(productId, quantity, null);
+    }
+}
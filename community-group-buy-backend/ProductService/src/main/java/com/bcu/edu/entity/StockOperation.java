@@ -0,0 +1,58 @@
+package com.bcu.edu.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存批量操作幂等记录
+ *
+ * <p>表名: stock_operation
+ * <p>说明: 批量扣减/归还携带调用方生成的幂等键，与库存变更在同一事务内登记；
+ * 键已存在说明操作已生效（或已取消），重试或超时后的重复调用不会再次变更库存
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Entity
+@Table(name = "stock_operation")
+@Data
+@NoArgsConstructor
+public class StockOperation {
+
+    /**
+     * 已扣减
+     */
+    public static final int DEDUCTED = 1;
+
+    /**
+     * 扣减已取消（已扣减的库存已归还，或扣减未生效时写入的占位，之后的同键扣减直接失败）
+     */
+    public static final int CANCELLED = 2;
+
+    /**
+     * 已归还
+     */
+    public static final int RESTORED = 3;
+
+    /**
+     * 幂等键（主键）
+     */
+    @Id
+    @Column(name = "op_key", nullable = false, length = 128)
+    private String opKey;
+
+    /**
+     * 操作类型（1-已扣减；2-扣减已取消；3-已归还）
+     */
+    @Column(name = "op_type", nullable = false)
+    private Integer opType;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+}
@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -121,6 +123,38 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     int restoreStock(@Param("productId") Long productId, 
                      @Param("quantity") Integer quantity);
     
+    /**
+     * 从数据库预留库存（库存账本批量领取使用，独立事务立即提交）
+     * 
+     * @param productId 商品ID
+     * @param quantity 预留数量
+     * @return 影响行数（0表示库存不足或已下架）
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE product SET stock = stock - :quantity " +
+                   "WHERE product_id = :productId " +
+                   "AND stock >= :quantity " +
+                   "AND status = 1", 
+           nativeQuery = true)
+    int reserveStock(@Param("productId") Long productId, 
+                     @Param("quantity") Integer quantity);
+    
+    /**
+     * 归还未售出的预留库存（库存账本释放使用，独立事务立即提交）
+     * 
+     * @param productId 商品ID
+     * @param quantity 归还数量
+     * @return 影响行数
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE product SET stock = stock + :quantity " +
+                   "WHERE product_id = :productId", 
+           nativeQuery = true)
+    int releaseStock(@Param("productId") Long productId, 
+                     @Param("quantity") Integer quantity);
+    
     /**
      * 统计分类下的商品数量
      * 
@@ -0,0 +1,53 @@
+package com.bcu.edu.repository;
+
+import com.bcu.edu.entity.StockOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存批量操作幂等记录Repository
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Repository
+public interface StockOperationRepository extends JpaRepository<StockOperation, String> {
+
+    /**
+     * 登记操作（键已存在时忽略，须与库存变更在同一事务内调用）
+     *
+     * @return 1-新登记；0-键已存在
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO stock_operation (op_key, op_type, create_time) " +
+           "VALUES (:opKey, :opType, :now)",
+           nativeQuery = true)
+    int register(@Param("opKey") String opKey,
+                 @Param("opType") int opType,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * 状态迁移（只有当前为 fromType 时才更新）
+     *
+     * @return 1-迁移成功；0-当前不是 fromType
+     */
+    @Modifying
+    @Query("UPDATE StockOperation o SET o.opType = :toType WHERE o.opKey = :opKey AND o.opType = :fromType")
+    int transition(@Param("opKey") String opKey,
+                   @Param("fromType") int fromType,
+                   @Param("toType") int toType);
+
+    /**
+     * 清理早于指定时间的记录
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockOperation o WHERE o.createTime < :before")
+    int deleteByCreateTimeBefore(@Param("before") LocalDateTime before);
+}
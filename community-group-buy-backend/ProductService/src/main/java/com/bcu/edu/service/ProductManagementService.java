@@ -1,5 +1,7 @@
 package com.bcu.edu.service;
 
+import com.bcu.edu.common.cache.NearCacheInvalidationPublisher;
+import com.bcu.edu.common.cache.ProductNearCache;
 import com.bcu.edu.common.exception.BusinessException;
 import com.bcu.edu.dto.ProductQueryRequest;
 import com.bcu.edu.dto.ProductRequest;
@@ -27,6 +29,13 @@ import java.util.List;
 public class ProductManagementService {
     
     private final ProductRepository productRepository;
+    private final NearCacheInvalidationPublisher nearCacheInvalidationPublisher;
+    private final StockLedger stockLedger;
+    
+    /**
+     * 消费方商品近端缓存名称
+     */
+    private static final String PRODUCT_CACHE = ProductNearCache.CACHE_NAME;
     
     /**
      * 获取商品列表（分页、筛选、排序）
@@ -62,6 +71,16 @@ public class ProductManagementService {
                 .orElseThrow(() -> new BusinessException("商品不存在: " + id));
     }
     
+    /**
+     * 批量获取商品（一次查询，不存在的ID直接忽略）
+     */
+    public List<Product> getProductsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return productRepository.findAllById(ids);
+    }
+    
     /**
      * 商品搜索
      */
@@ -94,7 +113,7 @@ public class ProductManagementService {
      */
     public Integer getProductStock(Long id) {
         Product product = getProductById(id);
-        return product.getStock();
+        return product.getStock() + stockLedger.reserved(id);  // 加上本实例账本预留未售出的库存
     }
     
     /**
@@ -120,10 +139,13 @@ public class ProductManagementService {
      */
     @Transactional
     public Product updateProduct(Long id, ProductRequest request) {
+        stockLedger.suspend(id); // 直接修改product表前先归还库存账本预留
         Product product = getProductById(id);
         BeanUtils.copyProperties(request, product);
         product.setProductId(id); // 保持ID不变
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        nearCacheInvalidationPublisher.publish(PRODUCT_CACHE, List.of(id));
+        return saved;
     }
     
     /**
@@ -131,6 +153,7 @@ public class ProductManagementService {
      */
     @Transactional
     public void deleteProduct(Long id) {
+        stockLedger.suspend(id);
         Product product = getProductById(id);
         productRepository.deleteById(id);
     }
@@ -140,9 +163,12 @@ public class ProductManagementService {
      */
     @Transactional
     public Product updateProductStatus(Long id, Integer status) {
+        stockLedger.suspend(id);
         Product product = getProductById(id);
         product.setStatus(status);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        nearCacheInvalidationPublisher.publish(PRODUCT_CACHE, List.of(id));
+        return saved;
     }
     
     /**
@@ -150,13 +176,16 @@ public class ProductManagementService {
      */
     @Transactional
     public Product adjustStock(Long id, Integer quantity) {
+        stockLedger.suspend(id);
         Product product = getProductById(id);
         int newStock = product.getStock() + quantity;
         if (newStock < 0) {
             throw new BusinessException("库存不足，当前库存: " + product.getStock());
         }
         product.setStock(newStock);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        nearCacheInvalidationPublisher.publish(PRODUCT_CACHE, List.of(id));
+        return saved;
     }
     
     /**
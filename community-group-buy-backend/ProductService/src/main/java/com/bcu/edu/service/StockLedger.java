@@ -0,0 +1,363 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热点商品分段库存账本（⭐秒杀场景库存扣减）
+ *
+ * <p>数据库是库存的唯一来源：账本按批从 product 表预留库存（{@code stock = stock - n WHERE stock >= n}，
+ * 独立事务立即提交），预留到的库存拆到 N 个分段中放在内存里，扣减只在分段上做CAS，
+ * 不再每次都更新 product 表的同一行：
+ * <ul>
+ *   <li>扣减：从随机分段开始取，单个分段不够时跨分段凑齐；凑不齐时再向数据库预留一批
+ *       （product.stock-ledger.reserve-batch），数据库也不够则库存不足</li>
+ *   <li>释放：空闲超过 product.stock-ledger.idle-release-ms 的商品、暂停/关闭账本、应用停止时，
+ *       把未售出的预留库存归还数据库</li>
+ * </ul>
+ *
+ * <p>每个实例只卖自己预留到的库存，多实例部署不会超卖；进程崩溃时未售出的预留库存（每实例每商品
+ * 不超过一批）不会自动归还，只会少卖。数据库中的 stock 为未被任何实例预留的库存。
+ *
+ * <p>按商品开启：配置 product.stock-ledger.products 或管理端接口；未开启的商品走原SQL路径。
+ * 管理端修改商品/库存/状态前会先暂停本实例账本并归还预留，冷却期后下次扣减重新预留。
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLedger {
+
+    /**
+     * 预留后仍被并发扣减抢走、或账本刚被释放时的最大重试次数
+     */
+    private static final int MAX_REFILL_ATTEMPTS = 3;
+
+    private final ProductRepository productRepository;
+
+    /**
+     * 每个商品的库存分段数
+     */
+    @Value("${product.stock-ledger.stripes:8}")
+    private int stripeCount;
+
+    /**
+     * 启动时开启账本的商品ID
+     */
+    @Value("${product.stock-ledger.products:}")
+    private List<Long> configuredProducts;
+
+    /**
+     * 每次向数据库预留的数量
+     */
+    @Value("${product.stock-ledger.reserve-batch:100}")
+    private int reserveBatch;
+
+    /**
+     * 商品空闲多久后归还未售出的预留库存（毫秒）
+     */
+    @Value("${product.stock-ledger.idle-release-ms:5000}")
+    private long idleReleaseMs;
+
+    /**
+     * 暂停后重新预留的冷却时间（毫秒），等待管理端事务提交
+     */
+    @Value("${product.stock-ledger.reattach-cooldown-ms:2000}")
+    private long cooldownMs;
+
+    /**
+     * 已开启账本的商品
+     */
+    private final Set<Long> enabled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 商品ID → 本实例预留的库存
+     */
+    private final Map<Long, ProductStock> ledgers = new ConcurrentHashMap<>();
+
+    /**
+     * 商品ID → 归还数据库失败、待重试的数量
+     */
+    private final Map<Long, AtomicInteger> pendingRelease = new ConcurrentHashMap<>();
+
+    /**
+     * 商品ID → 暂停截止时间
+     */
+    private final Map<Long, Long> suspendedUntil = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (configuredProducts != null) {
+            enabled.addAll(configuredProducts);
+        }
+        log.info("库存账本初始化，stripes={}, reserveBatch={}, products={}", stripeCount, reserveBatch, enabled);
+    }
+
+    /**
+     * 商品当前是否由账本管理
+     */
+    public boolean isManaged(Long productId) {
+        if (!enabled.contains(productId)) {
+            return false;
+        }
+        Long until = suspendedUntil.get(productId);
+        if (until == null) {
+            return true;
+        }
+        if (until > System.currentTimeMillis()) {
+            return false;
+        }
+        suspendedUntil.remove(productId, until);
+        return true;
+    }
+
+    /**
+     * 扣减库存（本地预留足够时无锁）
+     *
+     * @throws BusinessException 库存不足或商品已下架
+     */
+    public void deduct(Long productId, int quantity) {
+        for (int attempt = 0; attempt < MAX_REFILL_ATTEMPTS; attempt++) {
+            ProductStock stock = ledgers.computeIfAbsent(productId, id -> new ProductStock(id, stripeCount));
+            if (stock.take(quantity)) {
+                return;
+            }
+            synchronized (stock) {
+                if (stock.retired) {
+                    continue;  // 刚被释放，换新的账本重试
+                }
+                if (stock.take(quantity)) {
+                    return;
+                }
+                int need = quantity - stock.available();
+                int batch = Math.max(need, reserveBatch);
+                if (productRepository.reserveStock(productId, batch) == 1) {
+                    stock.add(batch);
+                } else if (batch > need && productRepository.reserveStock(productId, need) == 1) {
+                    stock.add(need);
+                } else {
+                    throw new BusinessException("库存不足或商品已下架");
+                }
+                if (stock.take(quantity)) {
+                    return;
+                }
+            }
+        }
+        throw new BusinessException("库存不足或商品已下架");
+    }
+
+    /**
+     * 归还扣减（账本扣减后整批失败时调用）：放回本实例预留，账本已释放则直接归还数据库
+     */
+    public void restore(Long productId, int quantity) {
+        ProductStock stock = ledgers.get(productId);
+        if (stock != null && stock.giveBack(quantity)) {
+            return;
+        }
+        release(productId, quantity);
+    }
+
+    /**
+     * 本实例持有的未售出预留库存
+     */
+    public int reserved(Long productId) {
+        ProductStock stock = ledgers.get(productId);
+        return stock == null ? 0 : stock.available();
+    }
+
+    /**
+     * 开启/关闭商品账本
+     */
+    public void setEnabled(Long productId, boolean on) {
+        if (on) {
+            enabled.add(productId);
+        } else {
+            enabled.remove(productId);
+            suspend(productId);
+        }
+        log.info("商品{}库存账本已{}", productId, on ? "开启" : "关闭");
+    }
+
+    /**
+     * 暂停账本并归还预留库存（管理端直接修改 product 表前调用）
+     */
+    public void suspend(Long productId) {
+        suspendedUntil.put(productId, System.currentTimeMillis() + cooldownMs);
+        ProductStock stock = ledgers.remove(productId);
+        if (stock != null) {
+            drain(stock);
+        }
+    }
+
+    /**
+     * 定时归还空闲商品的预留库存，并重试归还失败的数量
+     */
+    @Scheduled(fixedDelayString = "${product.stock-ledger.release-interval-ms:1000}")
+    public void releaseIdle() {
+        long now = System.currentTimeMillis();
+        ledgers.forEach((productId, stock) -> {
+            if (now - stock.lastUsed > idleReleaseMs && ledgers.remove(productId, stock)) {
+                drain(stock);
+            }
+        });
+        pendingRelease.forEach((productId, pending) -> {
+            int quantity = pending.getAndSet(0);
+            if (quantity > 0) {
+                release(productId, quantity);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int products = ledgers.size();
+        ledgers.keySet().forEach(this::suspend);
+        releaseIdle();
+        log.info("库存账本预留已归还，商品数={}", products);
+    }
+
+    private void drain(ProductStock stock) {
+        int quantity = stock.retire();
+        if (quantity > 0) {
+            release(stock.productId, quantity);
+        }
+    }
+
+    /**
+     * 归还数据库，失败时记录待重试
+     */
+    private void release(Long productId, int quantity) {
+        try {
+            productRepository.releaseStock(productId, quantity);
+            log.debug("库存账本归还预留，productId={}, quantity={}", productId, quantity);
+        } catch (Exception e) {
+            pendingRelease.computeIfAbsent(productId, id -> new AtomicInteger()).addAndGet(quantity);
+            log.error("库存账本归还预留失败，稍后重试，productId={}, quantity={}", productId, quantity, e);
+        }
+    }
+
+    /**
+     * 单个商品在本实例的分段预留库存
+     */
+    private static class ProductStock {
+        private final Long productId;
+        private final Stripe[] stripes;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        /**
+         * 已释放（不再接收预留和归还，只在持有本对象锁时修改）
+         */
+        private volatile boolean retired;
+
+        ProductStock(Long productId, int stripeCount) {
+            this.productId = productId;
+            this.stripes = new Stripe[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        /**
+         * 取库存，不足时已取的部分全部放回
+         */
+        boolean take(int quantity) {
+            lastUsed = System.currentTimeMillis();
+            int n = stripes.length;
+            int start = ThreadLocalRandom.current().nextInt(n);
+            int[] taken = new int[n];
+            int remaining = quantity;
+
+            for (int i = 0; i < n && remaining > 0; i++) {
+                int idx = (start + i) % n;
+                AtomicInteger available = stripes[idx].available;
+                int current;
+                int take;
+                do {
+                    current = available.get();
+                    take = Math.min(current, remaining);
+                } while (take > 0 && !available.compareAndSet(current, current - take));
+                if (take > 0) {
+                    taken[idx] = take;
+                    remaining -= take;
+                }
+            }
+
+            if (remaining > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (taken[i] > 0) {
+                        stripes[i].available.addAndGet(taken[i]);
+                    }
+                }
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * 新预留的库存均分到各分段（调用方持有本对象锁）
+         */
+        void add(int quantity) {
+            int n = stripes.length;
+            for (int i = 0; i < n; i++) {
+                int share = quantity / n + (i < quantity % n ? 1 : 0);
+                if (share > 0) {
+                    stripes[i].available.addAndGet(share);
+                }
+            }
+        }
+
+        /**
+         * 放回扣减，已释放返回false
+         */
+        synchronized boolean giveBack(int quantity) {
+            if (retired) {
+                return false;
+            }
+            stripes[ThreadLocalRandom.current().nextInt(stripes.length)].available.addAndGet(quantity);
+            return true;
+        }
+
+        /**
+         * 标记释放并取走全部剩余库存
+         */
+        synchronized int retire() {
+            retired = true;
+            int sum = 0;
+            for (Stripe stripe : stripes) {
+                sum += stripe.available.getAndSet(0);
+            }
+            return sum;
+        }
+
+        int available() {
+            int sum = 0;
+            for (Stripe stripe : stripes) {
+                sum += stripe.available.get();
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * 库存分段
+     */
+    private static class Stripe {
+        private final AtomicInteger available = new AtomicInteger();
+    }
+}
@@ -1,14 +1,27 @@
 package com.bcu.edu.service;
 
 import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.dto.StockLine;
+import com.bcu.edu.dto.response.BatchStockResult;
 import com.bcu.edu.entity.Product;
+import com.bcu.edu.entity.StockOperation;
 import com.bcu.edu.repository.ProductRepository;
+import com.bcu.edu.repository.StockOperationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * 库存管理服务
@@ -23,6 +36,14 @@ import java.util.List;
 public class StockService {
     
     private final ProductRepository productRepository;
+    private final StockLedger stockLedger;
+    private final StockOperationRepository stockOperationRepository;
+    
+    /**
+     * 幂等记录保留天数
+     */
+    @Value("${product.stock-operation.retention-days:7}")
+    private long stockOperationRetentionDays;
     
     /**
      * 扣减库存（乐观锁）
@@ -35,6 +56,13 @@ public class StockService {
     public boolean deductStock(Long productId, Integer quantity) {
         log.info("扣减库存: productId={}, quantity={}", productId, quantity);
         
+        // 热点商品走内存库存账本 ⭐
+        if (stockLedger.isManaged(productId)) {
+            stockLedger.deduct(productId, quantity);
+            log.info("库存扣减成功（账本）: productId={}, quantity={}", productId, quantity);
+            return true;
+        }
+        
         // 使用乐观锁扣减库存
         int affectedRows = productRepository.deductStockOptimistic(productId, quantity);
         
@@ -58,6 +86,7 @@ public class StockService {
     public boolean restoreStock(Long productId, Integer quantity) {
         log.info("恢复库存: productId={}, quantity={}", productId, quantity);
         
+        // 数据库是库存唯一来源，账本商品也直接加回数据库（随本事务提交）
         int affectedRows = productRepository.restoreStock(productId, quantity);
         
         if (affectedRows == 0) {
@@ -69,6 +98,162 @@ public class StockService {
         return true;
     }
     
+    /**
+     * 批量扣减库存（⭐购物车结算，全部成功或全部回滚）
+     * 
+     * <p>同一商品多行先合并，再按商品ID升序扣减，多个结算并发时加锁顺序一致，避免死锁。
+     * 任意一行失败时标记事务回滚（账本扣减同步归还），返回每个商品的结果。
+     * 
+     * <p>幂等键与扣减在同一事务内登记：调用方超时后重试同一键，已扣减的直接返回成功，
+     * 已被 {@link #cancelDeductBatch} 取消的直接失败，不会重复扣减
+     * 
+     * @param bizKey 幂等键（为空时不做幂等控制）
+     * @param lines 扣减行
+     * @return 批量结果
+     */
+    @Transactional
+    public BatchStockResult deductStockBatch(String bizKey, List<StockLine> lines) {
+        Map<Long, Integer> merged = mergeLines(lines);
+        log.info("批量扣减库存: bizKey={}, lines={}", bizKey, merged);
+        
+        if (bizKey != null
+                && stockOperationRepository.register(bizKey, StockOperation.DEDUCTED, LocalDateTime.now()) == 0) {
+            return replayDeduct(bizKey, merged);
+        }
+        
+        List<BatchStockResult.LineResult> results = new ArrayList<>(merged.size());
+        Map<Long, Integer> ledgerDeducted = new TreeMap<>();
+        boolean allSuccess = true;
+        
+        try {
+            for (Map.Entry<Long, Integer> line : merged.entrySet()) {
+                Long productId = line.getKey();
+                Integer quantity = line.getValue();
+                try {
+                    if (stockLedger.isManaged(productId)) {
+                        stockLedger.deduct(productId, quantity);
+                        ledgerDeducted.put(productId, quantity);
+                    } else if (productRepository.deductStockOptimistic(productId, quantity) == 0) {
+                        throw new BusinessException("库存不足或商品已下架");
+                    }
+                    results.add(new BatchStockResult.LineResult(productId, quantity, true, null));
+                } catch (BusinessException e) {
+                    allSuccess = false;
+                    results.add(new BatchStockResult.LineResult(productId, quantity, false, e.getMessage()));
+                }
+            }
+        } catch (RuntimeException e) {
+            // 数据库异常：事务整体回滚，账本扣减取自已提交的预留，需手动放回
+            ledgerDeducted.forEach(stockLedger::restore);
+            throw e;
+        }
+        
+        if (!allSuccess) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            ledgerDeducted.forEach(stockLedger::restore);
+            log.warn("批量扣减库存失败，整批回滚: {}", results);
+        } else {
+            log.info("批量扣减库存成功: {}个商品", results.size());
+        }
+        return new BatchStockResult(allSuccess, results);
+    }
+    
+    /**
+     * 重复的批量扣减：按已登记的状态返回，不再变更库存
+     */
+    private BatchStockResult replayDeduct(String bizKey, Map<Long, Integer> merged) {
+        boolean deducted = stockOperationRepository.findById(bizKey)
+                .map(op -> op.getOpType() == StockOperation.DEDUCTED)
+                .orElse(false);
+        String message = deducted ? null : "结算已取消";
+        List<BatchStockResult.LineResult> results = new ArrayList<>(merged.size());
+        merged.forEach((productId, quantity) ->
+                results.add(new BatchStockResult.LineResult(productId, quantity, deducted, message)));
+        log.warn("重复的批量扣减请求: bizKey={}, deducted={}", bizKey, deducted);
+        return new BatchStockResult(deducted, results);
+    }
+    
+    /**
+     * 取消批量扣减（⭐结算事务回滚后调用，lines 与扣减时一致）
+     * 
+     * <ul>
+     *   <li>扣减已生效：改为已取消并归还库存</li>
+     *   <li>扣减未生效（失败或请求尚未到达）：登记已取消，之后迟到的同键扣减直接失败</li>
+     *   <li>已取消：忽略</li>
+     * </ul>
+     * 
+     * @param bizKey 扣减时的幂等键
+     * @param lines 扣减行
+     */
+    @Transactional
+    public void cancelDeductBatch(String bizKey, List<StockLine> lines) {
+        if (stockOperationRepository.register(bizKey, StockOperation.CANCELLED, LocalDateTime.now()) == 1) {
+            log.info("批量扣减未生效，已登记取消: bizKey={}", bizKey);
+            return;
+        }
+        if (stockOperationRepository.transition(bizKey, StockOperation.DEDUCTED, StockOperation.CANCELLED) == 0) {
+            log.info("批量扣减已取消，忽略: bizKey={}", bizKey);
+            return;
+        }
+        Map<Long, Integer> merged = mergeLines(lines);
+        log.info("取消批量扣减，归还库存: bizKey={}, lines={}", bizKey, merged);
+        merged.forEach(this::restoreStock);
+    }
+    
+    /**
+     * 批量恢复库存（结算后部分订单创建失败、订单取消时归还）
+     * 
+     * <p>带幂等键的行按键登记，同一键只归还一次（调用方超时重试不会重复归还）；不带键的行直接归还
+     * 
+     * @param lines 恢复行
+     */
+    @Transactional
+    public void restoreStockBatch(List<StockLine> lines) {
+        Map<String, List<StockLine>> byKey = lines.stream()
+                .filter(line -> line.getBizKey() != null)
+                .collect(Collectors.groupingBy(StockLine::getBizKey, LinkedHashMap::new, Collectors.toList()));
+        List<StockLine> toRestore = lines.stream()
+                .filter(line -> line.getBizKey() == null)
+                .collect(Collectors.toCollection(ArrayList::new));
+        LocalDateTime now = LocalDateTime.now();
+        byKey.forEach((bizKey, keyLines) -> {
+            if (stockOperationRepository.register(bizKey, StockOperation.RESTORED, now) == 1) {
+                toRestore.addAll(keyLines);
+            } else {
+                log.warn("重复的库存归还请求，忽略: bizKey={}", bizKey);
+            }
+        });
+        
+        Map<Long, Integer> merged = mergeLines(toRestore);
+        log.info("批量恢复库存: {}", merged);
+        merged.forEach(this::restoreStock);
+    }
+    
+    /**
+     * 清理过期的幂等记录（调用方的重试早已结束）
+     */
+    @Scheduled(cron = "${product.stock-operation.purge-cron:0 30 3 * * ?}")
+    public void purgeStockOperations() {
+        int deleted = stockOperationRepository.deleteByCreateTimeBefore(
+                LocalDateTime.now().minusDays(stockOperationRetentionDays));
+        if (deleted > 0) {
+            log.info("清理库存幂等记录: {}条", deleted);
+        }
+    }
+    
+    /**
+     * 合并同一商品的多行，按商品ID升序（确定的加锁顺序）
+     */
+    private Map<Long, Integer> mergeLines(List<StockLine> lines) {
+        Map<Long, Integer> merged = new TreeMap<>();
+        if (lines != null) {
+            for (StockLine line : lines) {
+                merged.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+            }
+        }
+        return merged;
+    }
+    
     /**
      * 检查商品是否可售
      * 
@@ -77,10 +262,23 @@ public class StockService {
      */
     public boolean checkProductAvailable(Long productId) {
         return productRepository.findById(productId)
-                .map(product -> product.getStatus() == 1 && product.getStock() > 0)
+                .map(product -> product.getStatus() == 1 && availableStock(product) > 0)
                 .orElse(false);
     }
     
+    /**
+     * 可售库存（数据库库存 + 本实例账本预留未售出的库存）
+     * 
+     * <p>账本商品的预留已从 product.stock 扣除，只看数据库会把预留在分段中的库存当成售罄；
+     * 其他实例的预留在本实例不可见，空闲后会归还数据库
+     * 
+     * @param product 商品
+     * @return 可售库存
+     */
+    public int availableStock(Product product) {
+        return product.getStock() + stockLedger.reserved(product.getProductId());
+    }
+    
     /**
      * 获取低库存商品列表
      * 
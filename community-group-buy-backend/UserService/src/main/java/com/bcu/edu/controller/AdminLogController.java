@@ -86,7 +86,7 @@ public class AdminLogController {
      * @param response HTTP响应
      */
     @GetMapping("/export")
-    @Operation(summary = "导出操作日志", description = "导出Excel文件，最多导出10000条")
+    @Operation(summary = "导出操作日志", description = "流式导出Excel文件，不限条数")
     public void exportOperationLogs(
             @RequestParam(required = false) Long userId,
             @RequestParam(required = false) String module,
@@ -1,13 +1,16 @@
 package com.bcu.edu.controller;
 
 import com.bcu.edu.common.result.Result;
+import com.bcu.edu.common.utils.JwtUtil;
 import com.bcu.edu.dto.AddressDTO;
+import com.bcu.edu.dto.TokenRevocationDTO;
 import com.bcu.edu.dto.response.AddressResponse;
 import com.bcu.edu.dto.response.UserInfoResponse;
 import com.bcu.edu.entity.UserAddress;
 import com.bcu.edu.repository.UserAddressRepository;
 import com.bcu.edu.service.AccountService;
 import com.bcu.edu.service.AddressService;
+import com.bcu.edu.service.TokenRevocationService;
 import com.bcu.edu.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,6 +36,7 @@ public class FeignController {
     private final AccountService accountService;
     private final AddressService addressService;
     private final UserAddressRepository addressRepository;
+    private final TokenRevocationService tokenRevocationService;
 
     // ========== 用户信息查询接口 ==========
 
@@ -96,13 +100,15 @@ public class FeignController {
     }
 
     /**
-     * 批量获取用户信息
+     * 批量获取用户信息（GroupBuyService列表页批量加载）
+     * 路径：/feign/user/batch
      */
     @PostMapping("/feign/user/batch")
-    @Operation(summary = "批量获取用户信息")
+    @Operation(summary = "批量获取用户信息", description = "一次查询多个用户，不存在的ID直接忽略")
     public Result<List<UserInfoResponse>> getUsersByIds(@RequestBody List<Long> userIds) {
-        // TODO: 实现批量查询
-        return Result.success(null);
+        log.info("[Feign] 批量获取用户信息：count={}", userIds != null ? userIds.size() : 0);
+        List<UserInfoResponse> users = userService.getUsersByIds(userIds);
+        return Result.success(users);
     }
 
     /**
@@ -198,9 +204,11 @@ public class FeignController {
     @Operation(summary = "返还余额", description = "用于退款或Saga补偿事务")
     public Result<Void> refundBalance(
             @RequestParam Long userId,
-            @RequestParam BigDecimal amount) {
-        log.info("[Feign] 退款到用户余额：userId={}, amount={}", userId, amount);
-        accountService.refundBalanceForFeign(userId, amount, "groupbuy-refund-" + System.currentTimeMillis());
+            @RequestParam BigDecimal amount,
+            @RequestParam(required = false) String sagaId) {
+        log.info("[Feign] 退款到用户余额：userId={}, amount={}, sagaId={}", userId, amount, sagaId);
+        accountService.refundBalanceForFeign(userId, amount,
+                sagaId != null ? sagaId : "groupbuy-refund-" + System.currentTimeMillis());
         return Result.success();
     }
 
@@ -224,9 +232,14 @@ public class FeignController {
     @Operation(summary = "余额充值", description = "供PaymentService调用，用于用户充值")
     public Result<Void> rechargeBalance(
             @RequestParam Long userId,
-            @RequestParam BigDecimal amount) {
-        log.info("[Feign] PaymentService 调用余额充值：userId={}, amount={}", userId, amount);
-        accountService.recharge(userId, amount);
+            @RequestParam BigDecimal amount,
+            @RequestParam(required = false) String sagaId) {
+        log.info("[Feign] PaymentService 调用余额充值：userId={}, amount={}, sagaId={}", userId, amount, sagaId);
+        if (sagaId != null) {
+            accountService.recharge(userId, amount, sagaId);
+        } else {
+            accountService.recharge(userId, amount);
+        }
         return Result.success("充值成功");
     }
 
@@ -239,10 +252,11 @@ public class FeignController {
     public Result<Void> addBalanceForCommission(
             @RequestParam Long userId,
             @RequestParam BigDecimal amount,
-            @RequestParam(required = false) String remark) {
+            @RequestParam(required = false) String remark,
+            @RequestParam(required = false) String sagaId) {
         log.info("[Feign] LeaderService 调用佣金结算增加余额：userId={}, amount={}, remark={}", 
             userId, amount, remark);
-        accountService.addBalanceForCommission(userId, amount, remark);
+        accountService.addBalanceForCommission(userId, amount, remark, sagaId);
         return Result.success("余额增加成功");
     }
 
@@ -265,5 +279,42 @@ public class FeignController {
             return Result.error("批量获取地址失败: " + e.getMessage());
         }
     }
-}
 
+    // ========== Token注销接口（供网关调用） ==========
+
+    /**
+     * 查询Token注销记录（网关启动全量加载 + 定时增量同步）
+     * 路径：/api/user/feign/token-revocations
+     */
+    @GetMapping("/api/user/feign/token-revocations")
+    @Operation(summary = "查询Token注销记录", description = "供网关同步注销记录")
+    public Result<List<TokenRevocationDTO>> listTokenRevocations(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        return Result.success(tokenRevocationService.listSince(since, afterId, Math.min(limit, 1000)));
+    }
+
+    /**
+     * 注销单个Token（网关 /gateway/auth/logout 持久化）
+     * 路径：/api/user/feign/token-revocations/token
+     */
+    @PostMapping("/api/user/feign/token-revocations/token")
+    @Operation(summary = "注销Token", description = "供网关调用")
+    public Result<Boolean> revokeToken(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        String token = JwtUtil.extractToken(authorization);
+        return Result.success(token != null && tokenRevocationService.revokeToken(token));
+    }
+
+    /**
+     * 注销用户全部Token（网关 /gateway/auth/revoke-user 持久化）
+     * 路径：/api/user/feign/token-revocations/user/{userId}
+     */
+    @PostMapping("/api/user/feign/token-revocations/user/{userId}")
+    @Operation(summary = "注销用户全部Token", description = "供网关调用")
+    public Result<Void> revokeUserTokens(@PathVariable Long userId) {
+        log.info("[Feign] 网关调用注销用户Token：userId={}", userId);
+        tokenRevocationService.revokeUser(userId);
+        return Result.success();
+    }
+}
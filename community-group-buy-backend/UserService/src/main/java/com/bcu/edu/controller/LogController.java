@@ -9,6 +9,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 日志服务 Feign 接口控制器
  * 提供给其他微服务调用的日志保存接口
@@ -51,5 +53,24 @@ public class LogController {
             return Result.success();
         }
     }
-}
 
+    /**
+     * 批量保存操作日志
+     * 供各服务的 OperationLogShipper 批量投递，同步写入（调用方已在后台线程）
+     *
+     * @param logs 日志数据
+     * @return 保存结果（失败时调用方按溢出策略落盘或丢弃）
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "批量保存操作日志", description = "供其他微服务批量投递日志")
+    public Result<Void> saveLogBatch(@RequestBody List<OperationLogDTO> logs) {
+        try {
+            int saved = logService.saveLogBatch(logs);
+            log.debug("批量日志已保存: size={}", saved);
+            return Result.success();
+        } catch (Exception e) {
+            log.error("批量保存日志失败: size={}", logs.size(), e);
+            return Result.error("批量保存日志失败");
+        }
+    }
+}
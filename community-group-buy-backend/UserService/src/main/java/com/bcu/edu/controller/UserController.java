@@ -1,12 +1,15 @@
 package com.bcu.edu.controller;
 
 import com.bcu.edu.common.annotation.OperationLog;
+import com.bcu.edu.common.enums.ResultCode;
 import com.bcu.edu.common.result.Result;
+import com.bcu.edu.common.utils.JwtUtil;
 import com.bcu.edu.dto.request.UserLoginRequest;
 import com.bcu.edu.dto.request.UserRegisterRequest;
 import com.bcu.edu.dto.request.UserUpdateRequest;
 import com.bcu.edu.dto.response.LoginResponse;
 import com.bcu.edu.dto.response.UserInfoResponse;
+import com.bcu.edu.service.TokenRevocationService;
 import com.bcu.edu.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -28,6 +31,7 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Operation(summary = "用户注册", description = "新用户注册，支持普通用户和团长注册")
     @OperationLog(value = "用户注册", module = "用户管理", recordParams = false)
@@ -43,6 +47,17 @@ public class UserController {
         return Result.success(userService.login(request));
     }
 
+    @Operation(summary = "退出登录", description = "注销当前Token，所有网关实例同步生效")
+    @OperationLog(value = "退出登录", module = "认证管理", recordParams = false)
+    @PostMapping("/logout")
+    public Result<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        String token = JwtUtil.extractToken(authorization);
+        if (token == null || !tokenRevocationService.revokeToken(token)) {
+            return Result.error(ResultCode.UNAUTHORIZED);
+        }
+        return Result.success();
+    }
+
     @Operation(summary = "获取当前用户信息", description = "根据Token获取当前登录用户信息")
     @GetMapping("/info/{userId}")
     public Result<UserInfoResponse> getUserInfo(
@@ -0,0 +1,51 @@
+package com.bcu.edu.dto;
+
+import com.bcu.edu.entity.TokenRevocation;
+import lombok.Data;
+
+import java.time.ZoneId;
+
+/**
+ * Token注销记录DTO（供网关同步，时间均为毫秒时间戳）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+public class TokenRevocationDTO {
+
+    /**
+     * 记录ID（翻页游标）
+     */
+    private Long revocationId;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * Token的SHA-256摘要（十六进制），为空表示注销用户全部Token
+     */
+    private String tokenDigest;
+
+    /**
+     * 注销时间
+     */
+    private Long revokedAt;
+
+    /**
+     * 记录失效时间
+     */
+    private Long expiresAt;
+
+    public static TokenRevocationDTO fromEntity(TokenRevocation revocation) {
+        TokenRevocationDTO dto = new TokenRevocationDTO();
+        dto.setRevocationId(revocation.getRevocationId());
+        dto.setUserId(revocation.getUserId());
+        dto.setTokenDigest(revocation.getTokenDigest());
+        dto.setRevokedAt(revocation.getRevokeTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        dto.setExpiresAt(revocation.getExpireTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        return dto;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bcu.edu.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Comment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 账户流水表（只追加）
+ * 每笔余额变动一条，saga_id + biz_type 唯一，重复请求不会重复记账
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "account_journal", indexes = {
+        @Index(name = "uk_saga_type", columnList = "saga_id, biz_type", unique = true),
+        @Index(name = "idx_user_applied", columnList = "user_id, applied")
+})
+@Comment("账户流水表")
+public class AccountJournal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "journal_id")
+    @Comment("流水ID")
+    private Long journalId;
+
+    @Column(name = "user_id", nullable = false)
+    @Comment("用户ID")
+    private Long userId;
+
+    @Column(name = "saga_id", nullable = false, length = 64)
+    @Comment("业务幂等键（Saga事务ID）")
+    private String sagaId;
+
+    @Column(name = "biz_type", nullable = false)
+    @Comment("类型（1-扣款 2-返还 3-充值 4-佣金入账 5-冻结 6-解冻）")
+    private Integer bizType;
+
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    @Comment("变动金额（余额增加为正，减少为负）")
+    private BigDecimal amount;
+
+    @Column(name = "applied", nullable = false)
+    @Comment("是否已计入余额（0-待入账 1-已入账）")
+    private Integer applied;
+
+    @Column(name = "remark", length = 255)
+    @Comment("备注")
+    private String remark;
+
+    @Column(name = "create_time", nullable = false, updatable = false)
+    @Comment("创建时间")
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,47 @@
+package com.bcu.edu.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Comment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token注销记录表（只追加，网关各实例定时同步）
+ * token_digest 为空表示按用户注销：revoke_time 之前签发的该用户Token全部失效
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "token_revocation", indexes = {
+        @Index(name = "idx_revoke_time", columnList = "revoke_time"),
+        @Index(name = "idx_expire_time", columnList = "expire_time")
+})
+@Comment("Token注销记录表")
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "revocation_id")
+    @Comment("记录ID")
+    private Long revocationId;
+
+    @Column(name = "user_id", nullable = false)
+    @Comment("用户ID")
+    private Long userId;
+
+    @Column(name = "token_digest", length = 64)
+    @Comment("Token的SHA-256摘要（十六进制，为空表示注销用户全部Token）")
+    private String tokenDigest;
+
+    @Column(name = "revoke_time", nullable = false)
+    @Comment("注销时间")
+    private LocalDateTime revokeTime;
+
+    @Column(name = "expire_time", nullable = false)
+    @Comment("记录失效时间（被注销Token的最晚过期时间，之后可删除）")
+    private LocalDateTime expireTime;
+}
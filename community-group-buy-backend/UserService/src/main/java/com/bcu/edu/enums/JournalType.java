@@ -0,0 +1,51 @@
+package com.bcu.edu.enums;
+
+import lombok.Getter;
+
+/**
+ * 账户流水类型
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Getter
+public enum JournalType {
+
+    /**
+     * 扣款（支付订单）
+     */
+    DEDUCT(1, "扣款"),
+
+    /**
+     * 返还（退款、Saga补偿）
+     */
+    REFUND(2, "返还"),
+
+    /**
+     * 充值
+     */
+    RECHARGE(3, "充值"),
+
+    /**
+     * 佣金入账
+     */
+    COMMISSION(4, "佣金入账"),
+
+    /**
+     * 冻结（余额 → 冻结金额）
+     */
+    FREEZE(5, "冻结"),
+
+    /**
+     * 解冻（冻结金额 → 余额）
+     */
+    UNFREEZE(6, "解冻");
+
+    private final Integer code;
+    private final String description;
+
+    JournalType(Integer code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+}
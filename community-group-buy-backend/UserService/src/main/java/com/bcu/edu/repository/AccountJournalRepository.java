@@ -0,0 +1,65 @@
+package com.bcu.edu.repository;
+
+import com.bcu.edu.entity.AccountJournal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 账户流水Repository
+ */
+@Repository
+public interface AccountJournalRepository extends JpaRepository<AccountJournal, Long> {
+
+    /**
+     * 追加流水（saga_id + biz_type 已存在时忽略）
+     *
+     * @return 1-新记录 0-重复请求
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO account_journal " +
+            "(user_id, saga_id, biz_type, amount, applied, remark, create_time) " +
+            "VALUES (:userId, :sagaId, :bizType, :amount, :applied, :remark, :now)", nativeQuery = true)
+    int insertIgnore(@Param("userId") Long userId,
+                     @Param("sagaId") String sagaId,
+                     @Param("bizType") Integer bizType,
+                     @Param("amount") BigDecimal amount,
+                     @Param("applied") Integer applied,
+                     @Param("remark") String remark,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * 查询用户待入账流水ID
+     */
+    @Query("SELECT j.journalId FROM AccountJournal j WHERE j.userId = :userId AND j.applied = 0")
+    List<Long> findPendingIds(@Param("userId") Long userId);
+
+    /**
+     * 汇总指定流水金额
+     */
+    @Query("SELECT COALESCE(SUM(j.amount), 0) FROM AccountJournal j WHERE j.journalId IN :journalIds")
+    BigDecimal sumAmount(@Param("journalIds") List<Long> journalIds);
+
+    /**
+     * 标记流水已入账（只标记仍待入账的）
+     *
+     * @return 标记的条数
+     */
+    @Modifying
+    @Query("UPDATE AccountJournal j SET j.applied = 1 WHERE j.journalId IN :journalIds AND j.applied = 0")
+    int markApplied(@Param("journalIds") List<Long> journalIds);
+
+    /**
+     * 存在待入账流水的用户及待入账金额（启动恢复使用）
+     *
+     * @return [userId, 金额合计] 列表
+     */
+    @Query("SELECT j.userId, SUM(j.amount) FROM AccountJournal j WHERE j.applied = 0 GROUP BY j.userId")
+    List<Object[]> sumPendingByUser();
+}
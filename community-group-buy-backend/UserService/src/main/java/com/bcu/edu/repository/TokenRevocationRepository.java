@@ -0,0 +1,36 @@
+package com.bcu.edu.repository;
+
+import com.bcu.edu.entity.TokenRevocation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Token注销记录Repository
+ */
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    /**
+     * 查询指定时间之后的有效注销记录（按ID翻页）
+     */
+    @Query("SELECT r FROM TokenRevocation r WHERE r.revokeTime >= :since AND r.revocationId > :afterId " +
+            "AND r.expireTime > :now ORDER BY r.revocationId")
+    List<TokenRevocation> findSince(@Param("since") LocalDateTime since,
+                                    @Param("afterId") Long afterId,
+                                    @Param("now") LocalDateTime now,
+                                    Pageable pageable);
+
+    /**
+     * 删除已失效的注销记录（对应Token均已过期）
+     */
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expireTime <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
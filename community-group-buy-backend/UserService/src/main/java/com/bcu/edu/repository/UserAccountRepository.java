@@ -2,8 +2,13 @@ package com.bcu.edu.repository;
 
 import com.bcu.edu.entity.UserAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -26,5 +31,50 @@ public interface UserAccountRepository extends JpaRepository<UserAccount, Long>
      * 删除用户账户
      */
     void deleteByUserId(Long userId);
-}
 
+    /**
+     * 扣减余额（单条件更新，余额不足时不更新）
+     *
+     * @return 1-成功 0-余额不足或账户不存在
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserAccount a SET a.balance = a.balance - :amount, a.updateTime = :now " +
+           "WHERE a.userId = :userId AND a.balance >= :amount")
+    int debit(@Param("userId") Long userId, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    /**
+     * 增加余额
+     *
+     * @return 1-成功 0-账户不存在
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserAccount a SET a.balance = a.balance + :amount, a.updateTime = :now " +
+           "WHERE a.userId = :userId")
+    int credit(@Param("userId") Long userId, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    /**
+     * 冻结金额（余额 → 冻结，余额不足时不更新）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserAccount a SET a.balance = a.balance - :amount, " +
+           "a.freezeAmount = a.freezeAmount + :amount, a.updateTime = :now " +
+           "WHERE a.userId = :userId AND a.balance >= :amount")
+    int freeze(@Param("userId") Long userId, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    /**
+     * 解冻金额（冻结 → 余额，冻结金额不足时不更新）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserAccount a SET a.freezeAmount = a.freezeAmount - :amount, " +
+           "a.balance = a.balance + :amount, a.updateTime = :now " +
+           "WHERE a.userId = :userId AND a.freezeAmount >= :amount")
+    int unfreeze(@Param("userId") Long userId, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    /**
+     * 创建空账户（已存在时忽略）
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_account (user_id, balance, freeze_amount, update_time) " +
+            "VALUES (:userId, 0, 0, :now)", nativeQuery = true)
+    int insertIgnore(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+}
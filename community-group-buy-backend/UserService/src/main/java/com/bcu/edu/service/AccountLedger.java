@@ -0,0 +1,177 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.common.enums.ResultCode;
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.enums.JournalType;
+import com.bcu.edu.repository.AccountJournalRepository;
+import com.bcu.edu.repository.UserAccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 账户记账服务（⭐单条件更新 + 流水幂等）
+ *
+ * <p>余额变动不再"查询 → 内存计算 → save"（并发扣款会丢失更新），每笔变动在一个事务内：
+ * <ol>
+ *   <li>先追加流水 INSERT IGNORE，saga_id + biz_type 已存在说明是重复请求，直接返回</li>
+ *   <li>再执行单条件更新，如 balance = balance - ? WHERE user_id = ? AND balance >= ?</li>
+ *   <li>更新0行（余额不足、账户不存在）抛出业务异常，事务回滚连同流水一起撤销</li>
+ * </ol>
+ *
+ * <p>行锁只在UPDATE到提交之间持有，不再有先读后写的窗口
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Service
+public class AccountLedger {
+
+    private static final int APPLIED = 1;
+    private static final int PENDING = 0;
+
+    @Autowired
+    private UserAccountRepository accountRepository;
+
+    @Autowired
+    private AccountJournalRepository journalRepository;
+
+    /**
+     * 扣减余额
+     *
+     * @return true-已扣减 false-重复请求（之前已扣减）
+     * @throws BusinessException 余额不足或账户不存在
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean debit(Long userId, BigDecimal amount, String sagaId, JournalType type, String remark) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!appendJournal(userId, amount.negate(), sagaId, type, APPLIED, remark, now)) {
+            return false;
+        }
+        if (accountRepository.debit(userId, amount, now) == 0) {
+            throw notUpdated(userId);
+        }
+        return true;
+    }
+
+    /**
+     * 增加余额
+     *
+     * @param createIfAbsent 账户不存在时自动创建（兼容旧数据）
+     * @return true-已入账 false-重复请求
+     * @throws BusinessException 账户不存在（createIfAbsent=false）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean credit(Long userId, BigDecimal amount, String sagaId, JournalType type, String remark,
+                          boolean createIfAbsent) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!appendJournal(userId, amount, sagaId, type, APPLIED, remark, now)) {
+            return false;
+        }
+        creditAccount(userId, amount, createIfAbsent, now);
+        return true;
+    }
+
+    /**
+     * 冻结金额（余额 → 冻结金额）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void freeze(Long userId, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+        appendJournal(userId, amount.negate(), newSagaId(JournalType.FREEZE), JournalType.FREEZE, APPLIED, null, now);
+        if (accountRepository.freeze(userId, amount, now) == 0) {
+            throw notUpdated(userId);
+        }
+    }
+
+    /**
+     * 解冻金额（冻结金额 → 余额）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void unfreeze(Long userId, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+        appendJournal(userId, amount, newSagaId(JournalType.UNFREEZE), JournalType.UNFREEZE, APPLIED, null, now);
+        if (accountRepository.unfreeze(userId, amount, now) == 0) {
+            if (!accountRepository.existsByUserId(userId)) {
+                throw new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在");
+            }
+            throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "冻结金额不足");
+        }
+    }
+
+    /**
+     * 记录待入账流水（余额暂不变动，由 {@link CreditAccumulator} 定期合并入账）
+     *
+     * @return true-已记录 false-重复请求
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean recordPendingCredit(Long userId, BigDecimal amount, String sagaId, JournalType type,
+                                       String remark) {
+        return appendJournal(userId, amount, sagaId, type, PENDING, remark, LocalDateTime.now());
+    }
+
+    /**
+     * 将用户所有待入账流水合并为一次余额更新
+     *
+     * <p>先条件标记流水（applied = 0 → 1）再加余额；多实例同时合并同一用户时，
+     * 后到的一方标记行数不足，回滚后下次重试
+     *
+     * @return 本次入账金额
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public BigDecimal applyPendingCredits(Long userId) {
+        List<Long> journalIds = journalRepository.findPendingIds(userId);
+        if (journalIds.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        if (journalRepository.markApplied(journalIds) != journalIds.size()) {
+            throw new IllegalStateException("待入账流水已被并发处理: userId=" + userId);
+        }
+        BigDecimal total = journalRepository.sumAmount(journalIds);
+        creditAccount(userId, total, true, LocalDateTime.now());
+        log.debug("待入账流水合并入账: userId={}, 流水{}条, amount={}", userId, journalIds.size(), total);
+        return total;
+    }
+
+    /**
+     * 生成一次性业务键（调用方未提供幂等键时使用）
+     */
+    public static String newSagaId(JournalType type) {
+        return type.name() + "-" + UUID.randomUUID();
+    }
+
+    private boolean appendJournal(Long userId, BigDecimal amount, String sagaId, JournalType type,
+                                  int applied, String remark, LocalDateTime now) {
+        if (journalRepository.insertIgnore(userId, sagaId, type.getCode(), amount, applied, remark, now) == 0) {
+            log.info("[Saga-{}] 重复的{}请求，已忽略: userId={}, amount={}", sagaId, type.getDescription(), userId, amount);
+            return false;
+        }
+        return true;
+    }
+
+    private void creditAccount(Long userId, BigDecimal amount, boolean createIfAbsent, LocalDateTime now) {
+        if (accountRepository.credit(userId, amount, now) == 1) {
+            return;
+        }
+        if (!createIfAbsent) {
+            throw new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在");
+        }
+        log.warn("用户账户不存在，自动创建: userId={}", userId);
+        accountRepository.insertIgnore(userId, now);
+        accountRepository.credit(userId, amount, now);
+    }
+
+    private BusinessException notUpdated(Long userId) {
+        if (!accountRepository.existsByUserId(userId)) {
+            return new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在");
+        }
+        return new BusinessException(ResultCode.INSUFFICIENT_BALANCE);
+    }
+}
@@ -4,6 +4,7 @@ import com.bcu.edu.common.enums.ResultCode;
 import com.bcu.edu.common.exception.BusinessException;
 import com.bcu.edu.dto.response.AccountResponse;
 import com.bcu.edu.entity.UserAccount;
+import com.bcu.edu.enums.JournalType;
 import com.bcu.edu.repository.UserAccountRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +15,7 @@ import java.math.BigDecimal;
 
 /**
  * 账户服务
+ * 余额变动统一经 AccountLedger 单条件更新并记录流水
  */
 @Slf4j
 @Service
@@ -21,6 +23,8 @@ import java.math.BigDecimal;
 public class AccountService {
 
     private final UserAccountRepository accountRepository;
+    private final AccountLedger accountLedger;
+    private final CreditAccumulator creditAccumulator;
 
     /**
      * 获取用户账户信息
@@ -44,15 +48,20 @@ public class AccountService {
      */
     @Transactional
     public AccountResponse recharge(Long userId, BigDecimal amount) {
+        return recharge(userId, amount, AccountLedger.newSagaId(JournalType.RECHARGE));
+    }
+
+    /**
+     * 充值（带幂等键，重复请求不会重复入账）
+     */
+    @Transactional
+    public AccountResponse recharge(Long userId, BigDecimal amount, String sagaId) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "充值金额必须大于0");
         }
 
-        UserAccount account = accountRepository.findByUserId(userId)
-                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在"));
-
-        account.addBalance(amount);
-        account = accountRepository.save(account);
+        accountLedger.credit(userId, amount, sagaId, JournalType.RECHARGE, null, false);
+        UserAccount account = loadAccount(userId);
 
         log.info("充值成功: userId={}, amount={}, newBalance={}", userId, amount, account.getBalance());
 
@@ -68,15 +77,8 @@ public class AccountService {
             throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "扣款金额必须大于0");
         }
 
-        UserAccount account = accountRepository.findByUserId(userId)
-                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在"));
-
-        boolean success = account.deductBalance(amount);
-        if (!success) {
-            throw new BusinessException(ResultCode.INSUFFICIENT_BALANCE);
-        }
-
-        account = accountRepository.save(account);
+        accountLedger.debit(userId, amount, AccountLedger.newSagaId(JournalType.DEDUCT), JournalType.DEDUCT, null);
+        UserAccount account = loadAccount(userId);
 
         log.info("扣款成功: userId={}, amount={}, newBalance={}", userId, amount, account.getBalance());
 
@@ -92,15 +94,8 @@ public class AccountService {
             throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "冻结金额必须大于0");
         }
 
-        UserAccount account = accountRepository.findByUserId(userId)
-                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在"));
-
-        boolean success = account.freezeAmount(amount);
-        if (!success) {
-            throw new BusinessException(ResultCode.INSUFFICIENT_BALANCE);
-        }
-
-        account = accountRepository.save(account);
+        accountLedger.freeze(userId, amount);
+        UserAccount account = loadAccount(userId);
 
         log.info("冻结金额成功: userId={}, amount={}, freezeAmount={}", userId, amount, account.getFreezeAmount());
 
@@ -116,15 +111,8 @@ public class AccountService {
             throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "解冻金额必须大于0");
         }
 
-        UserAccount account = accountRepository.findByUserId(userId)
-                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在"));
-
-        if (account.getFreezeAmount().compareTo(amount) < 0) {
-            throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "冻结金额不足");
-        }
-
-        account.unfreezeAmount(amount);
-        account = accountRepository.save(account);
+        accountLedger.unfreeze(userId, amount);
+        UserAccount account = loadAccount(userId);
 
         log.info("解冻金额成功: userId={}, amount={}, newBalance={}", userId, amount, account.getBalance());
 
@@ -135,9 +123,10 @@ public class AccountService {
 
     /**
      * 扣减余额（带Saga事务ID，供其他服务调用）
+     * 同一sagaId重复调用只扣一次
      * @param userId 用户ID
      * @param amount 扣减金额
-     * @param sagaId Saga事务ID（用于分布式事务追踪）
+     * @param sagaId Saga事务ID（幂等键）
      */
     @Transactional
     public void deductBalanceForFeign(Long userId, BigDecimal amount, String sagaId) {
@@ -145,25 +134,17 @@ public class AccountService {
             throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "扣款金额必须大于0");
         }
 
-        UserAccount account = accountRepository.findByUserId(userId)
-                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在"));
-
-        boolean success = account.deductBalance(amount);
-        if (!success) {
-            throw new BusinessException(ResultCode.INSUFFICIENT_BALANCE);
+        if (accountLedger.debit(userId, amount, sagaId, JournalType.DEDUCT, null)) {
+            log.info("[Saga-{}] 余额扣减成功: userId={}, amount={}", sagaId, userId, amount);
         }
-
-        account = accountRepository.save(account);
-
-        log.info("[Saga-{}] 余额扣减成功: userId={}, amount={}, newBalance={}", 
-            sagaId, userId, amount, account.getBalance());
     }
 
     /**
      * 返还余额（带Saga事务ID，用于退款或补偿事务）
+     * 同一sagaId重复调用只返还一次
      * @param userId 用户ID
      * @param amount 返还金额
-     * @param sagaId Saga事务ID
+     * @param sagaId Saga事务ID（幂等键）
      */
     @Transactional
     public void refundBalanceForFeign(Long userId, BigDecimal amount, String sagaId) {
@@ -171,14 +152,9 @@ public class AccountService {
             throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "返还金额必须大于0");
         }
 
-        UserAccount account = accountRepository.findByUserId(userId)
-                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在"));
-
-        account.addBalance(amount);
-        account = accountRepository.save(account);
-
-        log.info("[Saga-{}] 余额返还成功: userId={}, amount={}, newBalance={}", 
-            sagaId, userId, amount, account.getBalance());
+        if (accountLedger.credit(userId, amount, sagaId, JournalType.REFUND, null, false)) {
+            log.info("[Saga-{}] 余额返还成功: userId={}, amount={}", sagaId, userId, amount);
+        }
     }
 
     /**
@@ -196,30 +172,34 @@ public class AccountService {
 
     /**
      * 增加余额（供LeaderService佣金结算调用）
+     * 开启入账合并器时先记待入账流水，稍后合并入账
      * @param userId 用户ID（团长ID）
      * @param amount 增加金额（佣金金额）
      * @param remark 备注（结算批次号）
+     * @param sagaId 幂等键（调用方按本次结算的佣金记录生成；为空时不做幂等）
      */
     @Transactional
-    public void addBalanceForCommission(Long userId, BigDecimal amount, String remark) {
+    public void addBalanceForCommission(Long userId, BigDecimal amount, String remark, String sagaId) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new BusinessException(ResultCode.VALIDATE_FAILED.getCode(), "增加金额必须大于0");
         }
 
-        UserAccount account = accountRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    // 账户不存在，自动创建（兼容旧数据）
-                    log.warn("用户账户不存在，自动创建: userId={}", userId);
-                    UserAccount newAccount = new UserAccount();
-                    newAccount.setUserId(userId);
-                    return accountRepository.save(newAccount);
-                });
+        if (sagaId == null || sagaId.isEmpty()) {
+            // 备注只是批次日期，同一天可能多次结算，不能作为幂等键
+            sagaId = AccountLedger.newSagaId(JournalType.COMMISSION);
+        }
 
-        account.addBalance(amount);
-        account = accountRepository.save(account);
+        boolean applied = creditAccumulator.isEnabled()
+                ? creditAccumulator.credit(userId, amount, sagaId, JournalType.COMMISSION, remark)
+                : accountLedger.credit(userId, amount, sagaId, JournalType.COMMISSION, remark, true);
 
-        log.info("佣金结算-余额增加成功: userId={}, amount={}, newBalance={}, remark={}", 
-            userId, amount, account.getBalance(), remark);
+        if (applied) {
+            log.info("佣金结算-余额增加成功: userId={}, amount={}, remark={}", userId, amount, remark);
+        }
     }
-}
 
+    private UserAccount loadAccount(Long userId) {
+        return accountRepository.findByUserId(userId)
+                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND.getCode(), "账户不存在"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.enums.JournalType;
+import com.bcu.edu.repository.AccountJournalRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 高频入账合并器（⭐可选，默认关闭）
+ *
+ * <p>佣金等高频入账如果每笔都 UPDATE user_account，同一团长的账户行会成为热点。开启后：
+ * <ul>
+ *   <li>每笔入账只追加一条待入账流水（applied=0，saga_id 幂等），不碰账户行</li>
+ *   <li>内存中按用户用 LongAdder 累计待入账金额（分），多线程累加无锁竞争</li>
+ *   <li>后台线程每 flush-interval-ms 把有待入账金额的用户各合并为一次余额更新</li>
+ *   <li>流水先于内存落库，进程崩溃后启动时按 applied=0 的流水恢复</li>
+ * </ul>
+ *
+ * <p>代价：入账金额在下一次合并前不可用（默认1秒）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CreditAccumulator {
+
+    private final AccountLedger accountLedger;
+    private final AccountJournalRepository journalRepository;
+
+    @Value("${user.account.credit-accumulator.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 合并入账间隔（毫秒）
+     */
+    @Value("${user.account.credit-accumulator.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    /**
+     * 待入账金额（userId -> 分），条目不删除（入账用户数有限，避免删除与累加的竞争）
+     */
+    private final Map<Long, LongAdder> pendingCents = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 入账（记录待入账流水，稍后合并）
+     *
+     * @return true-已记录 false-重复请求
+     */
+    public boolean credit(Long userId, BigDecimal amount, String sagaId, JournalType type, String remark) {
+        if (!accountLedger.recordPendingCredit(userId, amount, sagaId, type, remark)) {
+            return false;
+        }
+        pendingCents.computeIfAbsent(userId, k -> new LongAdder()).add(toCents(amount));
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (Object[] row : journalRepository.sumPendingByUser()) {
+            pendingCents.computeIfAbsent((Long) row[0], k -> new LongAdder()).add(toCents((BigDecimal) row[1]));
+        }
+        log.info("入账合并器启动: 待恢复用户{}个, 合并间隔{}ms", pendingCents.size(), flushIntervalMs);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "credit-accumulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 合并入账（单线程执行）
+     */
+    void flush() {
+        for (Map.Entry<Long, LongAdder> entry : pendingCents.entrySet()) {
+            LongAdder pending = entry.getValue();
+            if (pending.sum() == 0) {
+                continue;
+            }
+            try {
+                BigDecimal applied = accountLedger.applyPendingCredits(entry.getKey());
+                pending.add(-toCents(applied));
+            } catch (Exception e) {
+                // 待入账流水仍在，下次重试
+                log.warn("合并入账失败: userId={}, error={}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+}
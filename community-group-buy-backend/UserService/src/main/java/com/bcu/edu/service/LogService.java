@@ -1,24 +1,37 @@
 package com.bcu.edu.service;
 
 import com.bcu.edu.common.dto.OperationLogDTO;
+import com.bcu.edu.common.dto.OperationLogExportView;
 import com.bcu.edu.common.dto.OperationLogQuery;
 import com.bcu.edu.common.entity.SysOperationLog;
 import com.bcu.edu.common.repository.SysOperationLogRepository;
 import com.bcu.edu.common.utils.ExcelUtil;
+import com.bcu.edu.common.utils.KeysetIterator;
+import com.bcu.edu.common.exception.BusinessException;
 import com.github.pagehelper.PageInfo;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.ClientAbortException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletResponse;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 
 /**
  * 日志服务
@@ -34,6 +47,50 @@ public class LogService {
     @Autowired
     private SysOperationLogRepository logRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量写入时每个JDBC批次的行数
+     */
+    @Value("${operation-log.insert-batch-size:500}")
+    private int insertBatchSize;
+
+    /**
+     * 导出时每页查询的日志数
+     */
+    @Value("${operation-log.export.page-size:1000}")
+    private int exportPageSize;
+
+    /**
+     * 导出时 SXSSF 内存中保留的行数
+     */
+    @Value("${operation-log.export.row-window:200}")
+    private int exportRowWindow;
+
+    /**
+     * 导出时是否压缩 SXSSF 临时文件
+     */
+    @Value("${operation-log.export.compress-temp-files:true}")
+    private boolean exportCompressTempFiles;
+
+    /**
+     * 同时进行的导出任务数上限
+     */
+    @Value("${operation-log.export.max-concurrent:2}")
+    private int exportMaxConcurrent;
+
+    private Semaphore exportPermits;
+
+    private static final String INSERT_LOG_SQL = "INSERT INTO sys_operation_log "
+            + "(user_id, username, operation, module, method, params, result, error_msg, duration, ip, create_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PostConstruct
+    public void init() {
+        exportPermits = new Semaphore(exportMaxConcurrent);
+    }
+
     /**
      * 保存操作日志（异步）
      * 供其他微服务通过Feign调用
@@ -72,6 +129,44 @@ public class LogService {
         }
     }
 
+    /**
+     * 批量保存操作日志（JDBC批处理）
+     * 绕过JPA逐条persist（IDENTITY主键无法批量），配合 rewriteBatchedStatements=true 合并为多值INSERT
+     *
+     * @param logs 日志数据
+     * @return 写入条数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int saveLogBatch(List<OperationLogDTO> logs) {
+        if (logs == null || logs.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_LOG_SQL, logs, insertBatchSize, (ps, logDTO) -> {
+            if (logDTO.getUserId() != null) {
+                ps.setLong(1, logDTO.getUserId());
+            } else {
+                ps.setNull(1, Types.BIGINT);
+            }
+            ps.setString(2, logDTO.getUsername());
+            ps.setString(3, logDTO.getOperation());
+            ps.setString(4, logDTO.getModule());
+            ps.setString(5, logDTO.getMethod());
+            ps.setString(6, logDTO.getParams());
+            ps.setString(7, logDTO.getResult());
+            ps.setString(8, logDTO.getErrorMsg());
+            if (logDTO.getDuration() != null) {
+                ps.setInt(9, logDTO.getDuration());
+            } else {
+                ps.setNull(9, Types.INTEGER);
+            }
+            ps.setString(10, logDTO.getIp());
+            ps.setTimestamp(11, Timestamp.valueOf(logDTO.getCreateTime() != null ? logDTO.getCreateTime() : now));
+        });
+        log.info("操作日志已批量保存: size={}", logs.size());
+        return logs.size();
+    }
+
     /**
      * 同步保存日志（用于关键操作）
      * 
@@ -182,62 +277,48 @@ public class LogService {
     }
 
     /**
-     * 导出操作日志
+     * 导出操作日志（⭐流式导出，不限条数）
+     * 
+     * <p>按 logId 倒序键集分页读取（每页 export.page-size 条，只查询导出列），
+     * 经 SXSSF 边读边写到响应输出流，内存中只保留一页数据和 export.row-window 行；
+     * 同时进行的导出数受 export.max-concurrent 限制
      * 
      * @param query 查询条件
      * @param response HTTP响应
      */
     public void exportOperationLogs(OperationLogQuery query, HttpServletResponse response) {
+        if (!exportPermits.tryAcquire()) {
+            throw new BusinessException("当前导出任务较多，请稍后再试");
+        }
         try {
-            // 构建查询规范（复用分页查询的逻辑）
-            Specification<SysOperationLog> spec = (root, criteriaQuery, criteriaBuilder) -> {
-                List<Predicate> predicates = new ArrayList<>();
-
-                if (query.getUserId() != null) {
-                    predicates.add(criteriaBuilder.equal(root.get("userId"), query.getUserId()));
-                }
-                if (query.getModule() != null && !query.getModule().isEmpty()) {
-                    predicates.add(criteriaBuilder.equal(root.get("module"), query.getModule()));
-                }
-                if (query.getStartDate() != null) {
-                    predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createTime"), query.getStartDate()));
-                }
-                if (query.getEndDate() != null) {
-                    predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("createTime"), query.getEndDate()));
-                }
-
-                return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-            };
-
-            // 排序：按创建时间倒序
-            Sort sort = Sort.by(Sort.Direction.DESC, "createTime");
-
-            // 查询全部（最多10000条）
-            org.springframework.data.domain.Pageable pageable = 
-                    org.springframework.data.domain.PageRequest.of(0, 10000, sort);
-            
-            List<SysOperationLog> logs = logRepository.findAll(spec, pageable).getContent();
-
-            if (logs.size() >= 10000) {
-                log.warn("导出日志数量达到上限: 10000条");
-            }
-
-            // 使用ExcelUtil导出
-            byte[] excelBytes = ExcelUtil.exportOperationLogs(logs);
+            doExport(query, response);
+        } finally {
+            exportPermits.release();
+        }
+    }
 
-            // 设置响应头
-            String fileName = "operation_logs_" + 
-                    java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
-            
-            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-            response.setHeader("Content-Disposition", "attachment;filename=" + fileName);
-            response.setContentLength(excelBytes.length);
+    private void doExport(OperationLogQuery query, HttpServletResponse response) {
+        String module = query.getModule() != null && !query.getModule().isEmpty() ? query.getModule() : null;
+        Pageable page = PageRequest.of(0, exportPageSize);
+        KeysetIterator<OperationLogExportView> logs = new KeysetIterator<>(Long.MAX_VALUE, exportPageSize,
+                lastLogId -> logRepository.findExportPage(lastLogId, query.getUserId(), module,
+                        query.getStartDate(), query.getEndDate(), page),
+                OperationLogExportView::getLogId);
 
-            // 写入响应
-            response.getOutputStream().write(excelBytes);
-            response.getOutputStream().flush();
+        String fileName = "operation_logs_" + 
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader("Content-Disposition", "attachment;filename=" + fileName);
 
-            log.info("导出操作日志完成: count={}", logs.size());
+        long startNanos = System.nanoTime();
+        try {
+            long count = ExcelUtil.exportOperationLogs(logs, response.getOutputStream(),
+                    exportRowWindow, exportCompressTempFiles);
+            long elapsedMs = Math.max((System.nanoTime() - startNanos) / 1_000_000, 1);
+            log.info("导出操作日志完成: count={}, 耗时{}ms, {}行/秒", count, elapsedMs, count * 1000 / elapsedMs);
+        } catch (ClientAbortException e) {
+            // 客户端断开连接
+            log.info("导出操作日志中断，客户端已断开: {}", e.getMessage());
         } catch (Exception e) {
             log.error("导出操作日志失败", e);
             throw new RuntimeException("导出Excel失败", e);
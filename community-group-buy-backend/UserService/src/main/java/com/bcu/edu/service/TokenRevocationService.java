@@ -0,0 +1,125 @@
+package com.bcu.edu.service;
+
+import com.bcu.edu.common.utils.JwtUtil;
+import com.bcu.edu.common.utils.SecurityUtil;
+import com.bcu.edu.dto.TokenRevocationDTO;
+import com.bcu.edu.entity.TokenRevocation;
+import com.bcu.edu.repository.TokenRevocationRepository;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Token注销服务（⭐注销记录的唯一数据源）
+ *
+ * <p>退出登录、修改密码、禁用账户时写入 token_revocation 表，各网关实例启动时全量加载、
+ * 之后定时增量同步（见网关 TokenRevocationSync），因此注销对所有网关实例生效且重启不丢失。
+ * 记录保留到对应Token全部过期为止
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final TokenRevocationRepository revocationRepository;
+
+    private final AtomicLong lastPurge = new AtomicLong(System.nanoTime());
+
+    /**
+     * 注销单个Token（退出登录）
+     *
+     * @param token JWT Token
+     * @return Token有效且已注销返回true
+     */
+    @Transactional
+    public boolean revokeToken(String token) {
+        Claims claims;
+        try {
+            claims = JwtUtil.parseToken(token);
+        } catch (Exception e) {
+            // 已过期或无效的Token本来就无法通过网关验证
+            return false;
+        }
+        Object userIdObj = claims.get("userId");
+        if (!(userIdObj instanceof Number)) {
+            return false;
+        }
+        Long userId = ((Number) userIdObj).longValue();
+        LocalDateTime now = LocalDateTime.now();
+        Date expiration = claims.getExpiration();
+        LocalDateTime expireTime = expiration != null
+                ? LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault())
+                : now.plus(Duration.ofMillis(JwtUtil.getExpiration()));
+        save(userId, SecurityUtil.sha256(token), now, expireTime);
+        log.info("Token已注销: userId={}", userId);
+        return true;
+    }
+
+    /**
+     * 注销用户当前所有Token（修改密码、禁用账户），与触发操作在同一事务内提交
+     */
+    @Transactional
+    public void revokeUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        save(userId, null, now, now.plus(Duration.ofMillis(JwtUtil.getExpiration())));
+        log.info("用户Token已全部注销: userId={}", userId);
+    }
+
+    /**
+     * 查询注销记录（网关同步）
+     *
+     * @param since 只返回该时间（毫秒）之后的记录，0表示全部有效记录
+     * @param afterId 翻页游标
+     * @param limit 每页条数
+     */
+    public List<TokenRevocationDTO> listSince(long since, long afterId, int limit) {
+        LocalDateTime sinceTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault());
+        return revocationRepository.findSince(sinceTime, afterId, LocalDateTime.now(), PageRequest.of(0, limit))
+                .stream()
+                .map(TokenRevocationDTO::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    private void save(Long userId, String tokenDigest, LocalDateTime now, LocalDateTime expireTime) {
+        purgeIfDue(now);
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setUserId(userId);
+        revocation.setTokenDigest(tokenDigest);
+        revocation.setRevokeTime(now);
+        revocation.setExpireTime(expireTime);
+        revocationRepository.save(revocation);
+    }
+
+    /**
+     * 顺带清理已失效的记录（最多每10分钟一次）
+     */
+    private void purgeIfDue(LocalDateTime now) {
+        long last = lastPurge.get();
+        long nanos = System.nanoTime();
+        if (nanos - last < PURGE_INTERVAL_NANOS || !lastPurge.compareAndSet(last, nanos)) {
+            return;
+        }
+        int purged = revocationRepository.deleteExpired(now);
+        if (purged > 0) {
+            log.info("清理失效的Token注销记录: {}条", purged);
+        }
+    }
+}
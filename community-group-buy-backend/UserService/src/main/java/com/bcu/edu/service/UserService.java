@@ -34,6 +34,7 @@ public class UserService {
     private final SysUserRepository userRepository;
     private final UserAccountRepository accountRepository;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * 用户注册
@@ -132,6 +133,8 @@ public class UserService {
         // 更新密码
         if (request.getPassword() != null && !request.getPassword().isEmpty()) {
             user.setPassword(SecurityUtil.sha256(request.getPassword()));
+            // 修改密码后，已签发的Token全部失效
+            tokenRevocationService.revokeUser(userId);
         }
 
         // 更新手机号
@@ -180,6 +183,7 @@ public class UserService {
 
         user.setStatus(SysUser.Status.DISABLED.getCode());
         userRepository.save(user);
+        tokenRevocationService.revokeUser(userId);
 
         log.info("用户账户已禁用: userId={}", userId);
     }
@@ -238,6 +242,9 @@ public class UserService {
 
         user.setStatus(status);
         user = userRepository.save(user);
+        if (SysUser.Status.DISABLED.getCode().equals(status)) {
+            tokenRevocationService.revokeUser(userId);
+        }
 
         log.info("用户状态已更改: userId={}, status={}", userId, status);
 
@@ -284,6 +291,20 @@ public class UserService {
         return UserInfoResponse.fromEntity(user);
     }
 
+    /**
+     * 批量查询用户信息（供Feign批量加载使用）
+     * @param userIds 用户ID列表
+     * @return 用户列表（不存在的ID直接忽略）
+     */
+    public List<UserInfoResponse> getUsersByIds(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return List.of();
+        }
+        return userRepository.findAllById(userIds).stream()
+                .map(UserInfoResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 查询社区内的所有用户（v3.0新增）
      * @param communityId 社区ID
@@ -2,7 +2,7 @@ package com.bcu.edu.common.aspect;
 
 import com.bcu.edu.common.annotation.OperationLog;
 import com.bcu.edu.common.dto.OperationLogDTO;
-import com.bcu.edu.common.feign.LogFeignClient;
+import com.bcu.edu.common.log.OperationLogShipper;
 import com.bcu.edu.common.utils.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,13 +11,11 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.concurrent.Executor;
+import java.time.LocalDateTime;
 
 /**
  * 操作日志切面
@@ -26,21 +24,21 @@ import java.util.concurrent.Executor;
  * 改造说明（2025-10-31）:
  * - 原方案: 直接使用Repository保存到本地数据库（导致跨库问题）
  * - 新方案: 通过Feign调用UserService的日志API（符合微服务架构）
+ *
+ * 改造说明（2025-11-20）:
+ * - 原 saveLogAsync 为自调用，@Async 不生效，业务线程同步等待Feign调用
+ * - 现在业务线程只构建日志（需要读取当前请求），交给 OperationLogShipper 批量投递
  */
 @Aspect
 @Component
 @Slf4j
 public class OperationLogAspect {
 
-    @Autowired(required = false)
-    private LogFeignClient logFeignClient;
-
     @Autowired
-    private ObjectMapper objectMapper;
+    private OperationLogShipper logShipper;
 
     @Autowired
-    @Qualifier("logExecutor")
-    private Executor logExecutor;
+    private ObjectMapper objectMapper;
 
     /**
      * 环绕通知：拦截带@OperationLog注解的方法
@@ -65,10 +63,10 @@ public class OperationLogAspect {
             }
             throw e;
         } finally {
-            // 异步保存日志（无论成功失败都记录）
+            // 投递日志（无论成功失败都记录）
             try {
                 long duration = System.currentTimeMillis() - startTime;
-                saveLogAsync(joinPoint, operationLog, resultStatus, errorMsg, duration);
+                shipLog(joinPoint, operationLog, resultStatus, errorMsg, duration);
             } catch (Exception e) {
                 log.error("保存操作日志失败", e);
                 // 日志记录失败不影响业务
@@ -77,14 +75,13 @@ public class OperationLogAspect {
     }
 
     /**
-     * 异步保存日志（通过Feign调用UserService）
+     * 构建日志并放入投递缓冲区（在业务线程执行，不等待远程调用）
      */
-    @Async("logExecutor")
-    public void saveLogAsync(ProceedingJoinPoint joinPoint, OperationLog operationLog,
-                             String resultStatus, String errorMsg, long duration) {
+    private void shipLog(ProceedingJoinPoint joinPoint, OperationLog operationLog,
+                         String resultStatus, String errorMsg, long duration) {
         try {
             // 如果没有配置LogFeignClient（UserService自身），跳过
-            if (logFeignClient == null) {
+            if (!logShipper.isEnabled()) {
                 log.debug("LogFeignClient未配置，跳过日志记录");
                 return;
             }
@@ -100,6 +97,7 @@ public class OperationLogAspect {
                     .errorMsg(errorMsg)
                     .duration((int) duration)
                     .ip(getClientIp())
+                    .createTime(LocalDateTime.now())
                     .build();
 
             // 序列化参数（支持脱敏）
@@ -108,13 +106,11 @@ public class OperationLogAspect {
                 logDTO.setParams(params);
             }
 
-            // 通过Feign调用UserService保存日志
-            logFeignClient.saveLog(logDTO);
-            log.debug("操作日志已通过Feign记录: module={}, operation={}", 
-                    logDTO.getModule(), logDTO.getOperation());
+            // 放入缓冲区，由投递线程批量发送到UserService
+            logShipper.offer(logDTO);
         } catch (Exception e) {
             // 日志记录失败不影响业务，仅记录本地日志
-            log.error("异步保存日志失败: module={}, operation={}", 
+            log.error("构建操作日志失败: module={}, operation={}", 
                     operationLog.module(), operationLog.value(), e);
         }
     }
@@ -0,0 +1,249 @@
+package com.bcu.edu.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 进程内近端缓存（⭐热点远程数据缓存）
+ *
+ * <p>以ID为键缓存远程调用结果（如商品详情），特性：
+ * <ul>
+ *   <li>容量上限：超出后优先淘汰过期条目，再按加载时间淘汰最旧的约10%</li>
+ *   <li>TTL：超过 ttl 的条目不再返回，下次访问同步加载</li>
+ *   <li>提前刷新：条目存活超过 ttl × refreshAheadRatio 后，命中时异步刷新，调用方不等待</li>
+ *   <li>单飞加载：同一个键并发未命中时只发起一次远程调用，其余请求等待同一结果</li>
+ *   <li>失效：{@link #invalidate} 之后，失效前发起的在途加载结果不会回填</li>
+ * </ul>
+ *
+ * <p>加载函数返回 null 时不缓存（远程失败、数据不存在），异常原样抛给调用方
+ *
+ * @param <V> 缓存值类型
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+public class NearCache<V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final Executor refreshExecutor;
+
+    private final Map<Long, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 失效版本号，加载开始后发生过失效则丢弃加载结果
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    NearCache(String name, int maxSize, long ttlMillis, double refreshAheadRatio, Executor refreshExecutor) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.refreshAfterNanos = (long) (ttlNanos * refreshAheadRatio);
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * 读取缓存，未命中时通过 loader 加载
+     *
+     * @param key 键（业务ID）
+     * @param loader 加载函数（远程调用）
+     * @return 缓存值，加载结果为 null 时返回 null
+     */
+    public V get(Long key, Function<Long, V> loader) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            if (now - entry.loadedAt >= refreshAfterNanos && entry.refreshing.compareAndSet(false, true)) {
+                refreshAsync(key, entry, loader);
+            }
+            return entry.value;
+        }
+
+        misses.increment();
+        return loadSingleFlight(key, loader);
+    }
+
+    /**
+     * 失效指定键
+     */
+    public void invalidate(Collection<Long> keys) {
+        epoch.incrementAndGet();
+        keys.forEach(entries::remove);
+        log.debug("近端缓存失效，cache={}, keys={}", name, keys);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        entries.clear();
+        log.debug("近端缓存清空，cache={}", name);
+    }
+
+    private V loadSingleFlight(Long key, Function<Long, V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            V value = load(key, loader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void refreshAsync(Long key, Entry<V> stale, Function<Long, V> loader) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(key, loader);
+                } catch (Exception e) {
+                    log.warn("近端缓存刷新失败，cache={}, key={}: {}", name, key, e.getMessage());
+                } finally {
+                    stale.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stale.refreshing.set(false);
+        }
+    }
+
+    private V load(Long key, Function<Long, V> loader) {
+        long startEpoch = epoch.get();
+        long start = System.nanoTime();
+        try {
+            V value = loader.apply(key);
+            if (value != null) {
+                // 版本检查与回填在同一个 compute 内：invalidate 先递增版本再删除，
+                // 删除会等待本次 compute 完成，不会出现检查通过后被失效、又回填旧值的情况
+                entries.compute(key, (k, current) ->
+                    startEpoch == epoch.get() ? new Entry<>(value, System.nanoTime()) : current);
+                evictIfNeeded();
+            }
+            return value;
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            throw e;
+        } finally {
+            loads.increment();
+            loadNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 超出容量时淘汰：先清过期条目，仍超出则按加载时间淘汰最旧的约10%
+     *
+     * <p>批量淘汰让排序开销摊到多次写入上，热点数据集远小于容量时不会触发
+     */
+    private void evictIfNeeded() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.size() <= maxSize) {
+                return;
+            }
+            long now = System.nanoTime();
+            int before = entries.size();
+            entries.values().removeIf(e -> now - e.loadedAt >= ttlNanos);
+
+            int overflow = entries.size() - maxSize;
+            if (overflow > 0) {
+                int target = Math.max(overflow, maxSize / 10);
+                entries.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().loadedAt))
+                    .limit(target)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(entries::remove);
+            }
+            evictions.add(Math.max(0, before - entries.size()));
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long loadCount() {
+        return loads.sum();
+    }
+
+    public long loadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    public long totalLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
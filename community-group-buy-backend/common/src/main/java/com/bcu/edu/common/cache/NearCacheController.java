@@ -0,0 +1,46 @@
+package com.bcu.edu.common.cache;
+
+import com.bcu.edu.common.result.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 近端缓存失效接口（内部接口，由数据所属服务调用）
+ *
+ * <p>Gateway 不路由 /feign/** 路径，不对外暴露
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Tag(name = "近端缓存", description = "近端缓存失效内部接口")
+@RestController
+@RequestMapping("/feign/near-cache")
+@Slf4j
+public class NearCacheController {
+
+    @Autowired
+    private NearCacheManager nearCacheManager;
+
+    /**
+     * 失效缓存
+     *
+     * @param cacheName 缓存名称
+     * @param keys 失效的键，为空则清空整个缓存
+     */
+    @Operation(summary = "失效近端缓存")
+    @PostMapping("/{cacheName}/invalidate")
+    public Result<Void> invalidate(@PathVariable String cacheName, @RequestBody(required = false) List<Long> keys) {
+        boolean present = nearCacheManager.invalidate(cacheName, keys);
+        log.debug("收到近端缓存失效通知，cache={}, keys={}, 本地存在={}", cacheName, keys, present);
+        return Result.success();
+    }
+}
@@ -0,0 +1,112 @@
+package com.bcu.edu.common.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 近端缓存失效广播（⭐数据所属服务调用）
+ *
+ * <p>数据变更后，通过服务发现找到所有消费方实例，逐个调用
+ * {@code POST /feign/near-cache/{cacheName}/invalidate}：
+ * <ul>
+ *   <li>在事务中调用时，等事务提交后再广播（避免消费方读到旧数据重新缓存）</li>
+ *   <li>广播异步执行，失败只记录日志，消费方由TTL兜底</li>
+ * </ul>
+ *
+ * <p>配置：near-cache.invalidation.targets=group-buy-service,order-service（为空则不广播）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+@Slf4j
+public class NearCacheInvalidationPublisher {
+
+    @Autowired
+    private ObjectProvider<DiscoveryClient> discoveryClient;
+
+    /**
+     * 需要接收失效通知的服务名
+     */
+    @Value("${near-cache.invalidation.targets:}")
+    private List<String> targets;
+
+    private final RestTemplate restTemplate = createRestTemplate();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "near-cache-invalidate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 广播失效（事务提交后执行）
+     *
+     * @param cacheName 缓存名称
+     * @param keys 失效的键
+     */
+    public void publish(String cacheName, Collection<Long> keys) {
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        List<Long> payload = List.copyOf(keys);
+        Runnable task = () -> executor.execute(() -> broadcast(cacheName, payload));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void broadcast(String cacheName, List<Long> keys) {
+        DiscoveryClient client = discoveryClient.getIfAvailable();
+        if (client == null) {
+            return;
+        }
+        for (String service : targets) {
+            for (ServiceInstance instance : client.getInstances(service)) {
+                String url = instance.getUri() + "/feign/near-cache/" + cacheName + "/invalidate";
+                try {
+                    restTemplate.postForObject(url, keys, Void.class);
+                } catch (Exception e) {
+                    log.warn("近端缓存失效通知失败，service={}, instance={}, cache={}, keys={}: {}",
+                        service, instance.getInstanceId(), cacheName, keys, e.getMessage());
+                }
+            }
+        }
+        log.debug("近端缓存失效已广播，cache={}, keys={}, targets={}", cacheName, keys, targets);
+    }
+
+    private static RestTemplate createRestTemplate() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(1000);
+        factory.setReadTimeout(2000);
+        return new RestTemplate(factory);
+    }
+}
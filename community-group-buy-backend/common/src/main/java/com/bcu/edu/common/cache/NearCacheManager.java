@@ -0,0 +1,146 @@
+package com.bcu.edu.common.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 近端缓存管理器
+ *
+ * <p>按名称创建并持有 {@link NearCache}，参数从配置读取（未配置则使用默认值）：
+ * <pre>
+ * near-cache:
+ *   caches:
+ *     product:
+ *       max-size: 2000            # 最大条目数
+ *       ttl-ms: 30000             # 条目存活时间
+ *       refresh-ahead-ratio: 0.8  # 存活超过 ttl×ratio 后命中即异步刷新
+ * </pre>
+ *
+ * <p>指标（Actuator /actuator/metrics）：
+ * <ul>
+ *   <li>near.cache.gets{cache, result=hit|miss}</li>
+ *   <li>near.cache.loads{cache}（加载次数与耗时）</li>
+ *   <li>near.cache.load.failures{cache}、near.cache.evictions{cache}、near.cache.size{cache}</li>
+ * </ul>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+@Slf4j
+public class NearCacheManager {
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final Map<String, NearCache<?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 提前刷新线程池（队列满时放弃本次刷新，由TTL兜底）
+     */
+    private final ExecutorService refreshExecutor = new ThreadPoolExecutor(
+        1, 4, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(256),
+        new NamedThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 获取（不存在则创建）缓存
+     *
+     * @param name 缓存名称（同时作为配置键和指标标签）
+     */
+    @SuppressWarnings("unchecked")
+    public <V> NearCache<V> getCache(String name) {
+        return (NearCache<V>) caches.computeIfAbsent(name, this::create);
+    }
+
+    /**
+     * 失效指定缓存中的键（keys为空则清空整个缓存）
+     *
+     * @return 缓存是否存在
+     */
+    public boolean invalidate(String name, Collection<Long> keys) {
+        NearCache<?> cache = caches.get(name);
+        if (cache == null) {
+            return false;
+        }
+        if (keys == null || keys.isEmpty()) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(keys);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private NearCache<?> create(String name) {
+        String prefix = "near-cache.caches." + name + ".";
+        int maxSize = environment.getProperty(prefix + "max-size", Integer.class, 2000);
+        long ttlMs = environment.getProperty(prefix + "ttl-ms", Long.class, 30_000L);
+        double ratio = environment.getProperty(prefix + "refresh-ahead-ratio", Double.class, 0.8);
+
+        NearCache<?> cache = new NearCache<>(name, maxSize, ttlMs, ratio, refreshExecutor);
+        meterRegistry.ifAvailable(registry -> bindMetrics(cache, registry));
+        log.info("近端缓存已创建，cache={}, maxSize={}, ttlMs={}, refreshAheadRatio={}", name, maxSize, ttlMs, ratio);
+        return cache;
+    }
+
+    private void bindMetrics(NearCache<?> cache, MeterRegistry registry) {
+        String name = cache.getName();
+        FunctionCounter.builder("near.cache.gets", cache, NearCache::hitCount)
+            .tags("cache", name, "result", "hit")
+            .description("近端缓存命中次数")
+            .register(registry);
+        FunctionCounter.builder("near.cache.gets", cache, NearCache::missCount)
+            .tags("cache", name, "result", "miss")
+            .description("近端缓存未命中次数")
+            .register(registry);
+        FunctionTimer.builder("near.cache.loads", cache,
+                NearCache::loadCount, NearCache::totalLoadNanos, TimeUnit.NANOSECONDS)
+            .tags("cache", name)
+            .description("近端缓存加载次数与耗时")
+            .register(registry);
+        FunctionCounter.builder("near.cache.load.failures", cache, NearCache::loadFailureCount)
+            .tags("cache", name)
+            .register(registry);
+        FunctionCounter.builder("near.cache.evictions", cache, NearCache::evictionCount)
+            .tags("cache", name)
+            .register(registry);
+        Gauge.builder("near.cache.size", cache, NearCache::size)
+            .tags("cache", name)
+            .register(registry);
+    }
+
+    private static class NamedThreadFactory implements java.util.concurrent.ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "near-cache-refresh-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.bcu.edu.common.cache;
+
+import com.bcu.edu.common.exception.BusinessException;
+import com.bcu.edu.common.result.Result;
+
+import java.util.function.Function;
+
+/**
+ * 商品信息近端缓存（⭐热点商品减少Feign调用）
+ *
+ * <p>包装各服务 ProductServiceClient#getProduct，返回值与原调用一致：
+ * <ul>
+ *   <li>命中缓存：直接返回 Result.success(商品)</li>
+ *   <li>未命中：同一商品并发请求只调用一次ProductService，成功结果写入缓存</li>
+ *   <li>调用失败：不缓存，返回原错误信息</li>
+ * </ul>
+ *
+ * <p>ProductService 修改商品、上下架、调整库存后会广播失效，其余变化（如下单扣库存）
+ * 在TTL内可能读到旧库存，扣减库存时仍以ProductService为准
+ *
+ * <p>各服务的商品DTO和Feign客户端不同，由服务自行声明Bean：
+ * <pre>
+ * &#64;Bean
+ * public ProductNearCache&lt;ProductDTO&gt; productNearCache(NearCacheManager manager, ProductServiceClient client) {
+ *     return new ProductNearCache&lt;&gt;(manager, client::getProduct);
+ * }
+ * </pre>
+ *
+ * @param <T> 商品DTO类型
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+public class ProductNearCache<T> {
+
+    /**
+     * 缓存名称（与ProductService广播的名称一致）
+     */
+    public static final String CACHE_NAME = "product";
+
+    private final NearCache<T> cache;
+
+    private final Function<Long, Result<T>> loader;
+
+    /**
+     * @param nearCacheManager 近端缓存管理器
+     * @param loader 远程查询商品（ProductServiceClient#getProduct）
+     */
+    public ProductNearCache(NearCacheManager nearCacheManager, Function<Long, Result<T>> loader) {
+        this.cache = nearCacheManager.getCache(CACHE_NAME);
+        this.loader = loader;
+    }
+
+    /**
+     * 获取商品信息（优先读缓存）
+     *
+     * @param productId 商品ID
+     * @return Result<T>
+     */
+    public Result<T> getProduct(Long productId) {
+        try {
+            return Result.success(cache.get(productId, this::fetch));
+        } catch (BusinessException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    private T fetch(Long productId) {
+        Result<T> result = loader.apply(productId);
+        if (result == null || result.getCode() != 200 || result.getData() == null) {
+            throw new BusinessException(result != null && result.getMessage() != null
+                ? result.getMessage() : "获取商品信息失败");
+        }
+        return result.getData();
+    }
+}
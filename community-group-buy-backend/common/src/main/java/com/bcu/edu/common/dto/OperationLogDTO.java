@@ -80,7 +80,7 @@ public class OperationLogDTO implements Serializable {
     private String ip;
     
     /**
-     * 操作时间（查询时使用）
+     * 操作时间（查询时使用；批量投递时为操作发生时间）
      */
     private LocalDateTime createTime;
     
@@ -0,0 +1,30 @@
+package com.bcu.edu.common.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 操作日志导出投影（只查询导出列，不加载 params 等大字段，不进入持久化上下文）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+public interface OperationLogExportView {
+
+    Long getLogId();
+
+    LocalDateTime getCreateTime();
+
+    String getUsername();
+
+    String getOperation();
+
+    String getModule();
+
+    String getResult();
+
+    String getIp();
+
+    Integer getDuration();
+
+    String getErrorMsg();
+}
@@ -6,6 +6,8 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 /**
  * 日志服务 Feign 客户端
  * 调用 UserService 保存操作日志
@@ -29,5 +31,14 @@ public interface LogFeignClient {
      */
     @PostMapping("/save")
     Result<Void> saveLog(@RequestBody OperationLogDTO logDTO);
+
+    /**
+     * 批量保存操作日志（OperationLogShipper 使用）
+     *
+     * @param logs 日志数据
+     * @return 保存结果
+     */
+    @PostMapping("/batch")
+    Result<Void> saveLogBatch(@RequestBody List<OperationLogDTO> logs);
 }
 
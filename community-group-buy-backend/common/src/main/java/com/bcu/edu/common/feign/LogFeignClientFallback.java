@@ -5,6 +5,8 @@ import com.bcu.edu.common.result.Result;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * 日志服务 Feign 客户端降级处理
  * 当日志服务不可用时，不影响业务执行
@@ -27,5 +29,11 @@ public class LogFeignClientFallback implements LogFeignClient {
         // 返回成功，避免影响业务
         return Result.success();
     }
-}
 
+    @Override
+    public Result<Void> saveLogBatch(List<OperationLogDTO> logs) {
+        // 批量发送返回失败，由 OperationLogShipper 按溢出策略落盘或计入丢弃
+        log.warn("日志服务不可用，批量日志发送失败: size={}", logs.size());
+        return Result.error("日志服务不可用");
+    }
+}
@@ -0,0 +1,405 @@
+package com.bcu.edu.common.log;
+
+import com.bcu.edu.common.dto.OperationLogDTO;
+import com.bcu.edu.common.feign.LogFeignClient;
+import com.bcu.edu.common.result.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志异步投递（⭐环形缓冲 + 批量发送）
+ *
+ * <p>业务线程只把日志放入有界无锁环形缓冲区（一次CAS），由单个后台线程批量取出，
+ * 调用 UserService {@code POST /feign/log/batch} 一次写入一批：
+ * <ul>
+ *   <li>凑满 batch-size 立即发送，否则最多等待 flush-interval-ms</li>
+ *   <li>缓冲区满时按 overflow 策略处理：drop（丢弃）| sample（采样）| spill（落盘）</li>
+ *   <li>sample：队列深度超过 sample-threshold 后，成功日志按 sample-rate 采样保留，失败日志全部保留</li>
+ *   <li>spill：溢出日志和发送失败的批次按JSON行追加到本地文件，队列空闲时回放</li>
+ * </ul>
+ *
+ * <p>指标：operation.log.queue.depth、operation.log.dropped{reason}、
+ * operation.log.spilled、operation.log.shipped
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+@Slf4j
+public class OperationLogShipper {
+
+    private static final String OVERFLOW_SAMPLE = "sample";
+    private static final String OVERFLOW_SPILL = "spill";
+
+    @Autowired(required = false)
+    private LogFeignClient logFeignClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    /**
+     * 缓冲区容量（向上取整为2的幂）
+     */
+    @Value("${operation-log.shipping.capacity:8192}")
+    private int capacity;
+
+    /**
+     * 每批最多发送的日志数
+     */
+    @Value("${operation-log.shipping.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 未凑满一批时的最长等待时间（毫秒）
+     */
+    @Value("${operation-log.shipping.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    /**
+     * 溢出策略：drop | sample | spill
+     */
+    @Value("${operation-log.shipping.overflow:drop}")
+    private String overflow;
+
+    /**
+     * sample 策略开始采样的队列深度比例
+     */
+    @Value("${operation-log.shipping.sample-threshold:0.75}")
+    private double sampleThreshold;
+
+    /**
+     * sample 策略下成功日志的保留比例
+     */
+    @Value("${operation-log.shipping.sample-rate:0.1}")
+    private double sampleRate;
+
+    /**
+     * spill 策略落盘文件
+     */
+    @Value("${operation-log.shipping.spill-file:logs/operation-log-spill.jsonl}")
+    private String spillFile;
+
+    private RingBuffer<OperationLogDTO> buffer;
+
+    private final LongAdder overflowDropped = new LongAdder();
+    private final LongAdder sampledDropped = new LongAdder();
+    private final LongAdder shipFailedDropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder shipped = new LongAdder();
+
+    private final Object spillLock = new Object();
+
+    /**
+     * 下次允许回放的时间（回放中发送失败后退避，避免UserService不可用时反复读写文件）
+     */
+    private long nextReplayAt;
+
+    private volatile boolean running = true;
+
+    private Thread worker;
+
+    @PostConstruct
+    public void init() {
+        buffer = new RingBuffer<>(capacity);
+        meterRegistry.ifAvailable(this::bindMetrics);
+        if (logFeignClient == null) {
+            // UserService 自身不启用 LogFeignClient，不启动发送线程
+            return;
+        }
+        worker = new Thread(this::runLoop, "operation-log-shipper");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("操作日志投递已启动，capacity={}, batchSize={}, overflow={}", buffer.capacity(), batchSize, overflow);
+    }
+
+    /**
+     * 是否可以投递（未配置LogFeignClient时调用方可跳过构建日志）
+     */
+    public boolean isEnabled() {
+        return logFeignClient != null;
+    }
+
+    /**
+     * 投递一条日志（不阻塞）
+     */
+    public void offer(OperationLogDTO logDTO) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (OVERFLOW_SAMPLE.equals(overflow) && shouldSampleOut(logDTO)) {
+            sampledDropped.increment();
+            return;
+        }
+        if (buffer.offer(logDTO)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(worker);
+            }
+            return;
+        }
+        if (OVERFLOW_SPILL.equals(overflow)) {
+            spill(List.of(logDTO));
+        } else {
+            overflowDropped.increment();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean shouldSampleOut(OperationLogDTO logDTO) {
+        if ("FAIL".equals(logDTO.getResult())) {
+            return false;
+        }
+        return buffer.size() >= buffer.capacity() * sampleThreshold
+            && ThreadLocalRandom.current().nextDouble() >= sampleRate;
+    }
+
+    private void runLoop() {
+        List<OperationLogDTO> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long lastShip = System.nanoTime();
+
+        while (running) {
+            try {
+                buffer.drainTo(batch, batchSize - batch.size());
+                boolean due = System.nanoTime() - lastShip >= flushIntervalNanos;
+                if (batch.size() >= batchSize || (due && !batch.isEmpty())) {
+                    ship(batch);
+                    batch.clear();
+                    lastShip = System.nanoTime();
+                } else if (batch.isEmpty() && due) {
+                    replaySpill();
+                    lastShip = System.nanoTime();
+                } else {
+                    LockSupport.parkNanos(this, flushIntervalNanos);
+                }
+            } catch (Exception e) {
+                log.error("操作日志投递异常", e);
+            }
+        }
+
+        // 停机：发送剩余日志
+        buffer.drainTo(batch, Integer.MAX_VALUE);
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            ship(batch.subList(from, Math.min(from + batchSize, batch.size())));
+        }
+    }
+
+    private boolean ship(List<OperationLogDTO> batch) {
+        try {
+            Result<Void> result = logFeignClient.saveLogBatch(batch);
+            if (result != null && result.isSuccess()) {
+                shipped.add(batch.size());
+                return true;
+            }
+            log.warn("操作日志批量发送失败，size={}, message={}", batch.size(),
+                result != null ? result.getMessage() : null);
+        } catch (Exception e) {
+            log.warn("操作日志批量发送失败，size={}: {}", batch.size(), e.getMessage());
+        }
+        if (OVERFLOW_SPILL.equals(overflow)) {
+            spill(batch);
+        } else {
+            shipFailedDropped.add(batch.size());
+        }
+        return false;
+    }
+
+    private void spill(List<OperationLogDTO> logs) {
+        synchronized (spillLock) {
+            Path path = Paths.get(spillFile);
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (OperationLogDTO logDTO : logs) {
+                        writer.write(objectMapper.writeValueAsString(logDTO));
+                        writer.newLine();
+                    }
+                }
+                spilled.add(logs.size());
+            } catch (IOException e) {
+                overflowDropped.add(logs.size());
+                log.error("操作日志落盘失败，丢弃{}条", logs.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 回放落盘日志：先改名再读取，回放期间新的溢出写入新文件；发送失败的批次会重新落盘
+     */
+    private void replaySpill() {
+        if (!OVERFLOW_SPILL.equals(overflow) || System.currentTimeMillis() < nextReplayAt) {
+            return;
+        }
+        Path path = Paths.get(spillFile);
+        Path replaying = Paths.get(spillFile + ".replay");
+        try {
+            synchronized (spillLock) {
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(path)) {
+                        return;
+                    }
+                    Files.move(path, replaying, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+
+            List<OperationLogDTO> batch = new ArrayList<>(batchSize);
+            int total = 0;
+            boolean failed = false;
+            try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null && running) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    batch.add(objectMapper.readValue(line, OperationLogDTO.class));
+                    if (batch.size() >= batchSize) {
+                        total += batch.size();
+                        failed |= !ship(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                total += batch.size();
+                failed |= !ship(batch);
+            }
+            if (running) {
+                // 失败的批次已重新落盘到新文件
+                Files.deleteIfExists(replaying);
+                log.info("落盘操作日志回放完成，条数={}, 有失败={}", total, failed);
+            }
+            if (failed) {
+                nextReplayAt = System.currentTimeMillis() + 30_000L;
+            }
+        } catch (IOException e) {
+            log.error("落盘操作日志回放失败", e);
+        }
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        Gauge.builder("operation.log.queue.depth", this, s -> s.buffer.size())
+            .description("操作日志缓冲区当前深度")
+            .register(registry);
+        FunctionCounter.builder("operation.log.dropped", overflowDropped, LongAdder::sum)
+            .tags("reason", "overflow")
+            .description("操作日志丢弃条数")
+            .register(registry);
+        FunctionCounter.builder("operation.log.dropped", sampledDropped, LongAdder::sum)
+            .tags("reason", "sampled")
+            .register(registry);
+        FunctionCounter.builder("operation.log.dropped", shipFailedDropped, LongAdder::sum)
+            .tags("reason", "ship-failed")
+            .register(registry);
+        FunctionCounter.builder("operation.log.spilled", spilled, LongAdder::sum)
+            .description("操作日志落盘条数")
+            .register(registry);
+        FunctionCounter.builder("operation.log.shipped", shipped, LongAdder::sum)
+            .description("操作日志发送成功条数")
+            .register(registry);
+    }
+
+    /**
+     * 有界环形缓冲区（多生产者、单消费者）
+     *
+     * <p>生产者CAS占位后写入槽位；消费者按序读取，遇到已占位但尚未写入的槽位即停止，
+     * 清空槽位后再推进读指针，保证生产者占位时槽位已被释放
+     */
+    private static class RingBuffer<E> {
+        private final AtomicReferenceArray<E> slots;
+        private final int mask;
+        private final AtomicLong producerIndex = new AtomicLong();
+        private final AtomicLong consumerIndex = new AtomicLong();
+
+        RingBuffer(int requested) {
+            int size = Integer.highestOneBit(Math.max(2, requested) - 1) << 1;
+            this.slots = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+
+        boolean offer(E e) {
+            long index;
+            do {
+                index = producerIndex.get();
+                if (index - consumerIndex.get() >= slots.length()) {
+                    return false;
+                }
+            } while (!producerIndex.compareAndSet(index, index + 1));
+            slots.lazySet((int) index & mask, e);
+            return true;
+        }
+
+        /**
+         * 仅由消费线程调用
+         */
+        int drainTo(List<E> out, int max) {
+            long index = consumerIndex.get();
+            int count = 0;
+            while (count < max) {
+                int slot = (int) index & mask;
+                E e = slots.get(slot);
+                if (e == null) {
+                    break;
+                }
+                slots.lazySet(slot, null);
+                out.add(e);
+                index++;
+                count++;
+            }
+            consumerIndex.set(index);
+            return count;
+        }
+
+        int size() {
+            return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+        }
+
+        int capacity() {
+            return slots.length();
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.bcu.edu.common.repository;
 
+import com.bcu.edu.common.dto.OperationLogExportView;
 import com.bcu.edu.common.entity.SysOperationLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -95,5 +98,32 @@ public interface SysOperationLogRepository extends JpaRepository<SysOperationLog
      */
     @Query(value = "SELECT * FROM sys_operation_log ORDER BY create_time DESC LIMIT ?1", nativeQuery = true)
     List<SysOperationLog> findRecentLogs(int limit);
+    
+    /**
+     * 导出日志（按logId倒序键集分页，条件均可为空）
+     * 
+     * @param lastLogId 上一页最小日志ID（首页传 Long.MAX_VALUE）
+     * @param userId 操作人ID
+     * @param module 操作模块
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（含）
+     * @param pageable 仅使用页大小
+     * @return 导出投影（按日志ID倒序）
+     */
+    @Query("SELECT s.logId AS logId, s.createTime AS createTime, s.username AS username, " +
+           "s.operation AS operation, s.module AS module, s.result AS result, s.ip AS ip, " +
+           "s.duration AS duration, s.errorMsg AS errorMsg FROM SysOperationLog s " +
+           "WHERE s.logId < :lastLogId " +
+           "AND (:userId IS NULL OR s.userId = :userId) " +
+           "AND (:module IS NULL OR s.module = :module) " +
+           "AND (:startTime IS NULL OR s.createTime >= :startTime) " +
+           "AND (:endTime IS NULL OR s.createTime <= :endTime) " +
+           "ORDER BY s.logId DESC")
+    List<OperationLogExportView> findExportPage(@Param("lastLogId") Long lastLogId,
+                                                @Param("userId") Long userId,
+                                                @Param("module") String module,
+                                                @Param("startTime") LocalDateTime startTime,
+                                                @Param("endTime") LocalDateTime endTime,
+                                                Pageable pageable);
 }
 
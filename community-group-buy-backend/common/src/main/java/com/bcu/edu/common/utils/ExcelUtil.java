@@ -1,13 +1,16 @@
 package com.bcu.edu.common.utils;
 
+import com.bcu.edu.common.dto.OperationLogExportView;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -19,6 +22,16 @@ public class ExcelUtil {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private static final String[] OPERATION_LOG_HEADERS = {
+            "操作时间", "操作人", "操作内容", "操作模块",
+            "操作结果", "IP地址", "执行时长(ms)", "错误信息"
+    };
+
+    /**
+     * 流式导出的列宽（字符数，流式写出无法自动调整列宽）
+     */
+    private static final int[] OPERATION_LOG_COLUMN_WIDTHS = {20, 12, 24, 12, 12, 16, 12, 40};
+
     /**
      * 导出操作日志为Excel
      *
@@ -40,10 +53,7 @@ public class ExcelUtil {
 
             // 创建表头
             Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "操作时间", "操作人", "操作内容", "操作模块",
-                    "操作结果", "IP地址", "执行时长(ms)", "错误信息"
-            };
+            String[] headers = OPERATION_LOG_HEADERS;
 
             for (int i = 0; i < headers.length; i++) {
                 Cell cell = headerRow.createCell(i);
@@ -136,6 +146,43 @@ public class ExcelUtil {
         }
     }
 
+    /**
+     * 流式导出操作日志（⭐SXSSF，内存占用与日志条数无关）
+     *
+     * <p>边迭代边写出到输出流：内存中只保留 rowWindow 行，超出的行写入临时文件，
+     * 结束时把工作簿直接写入输出流，不生成 byte[]
+     *
+     * @param logs 日志迭代器（通常为 {@link KeysetIterator}）
+     * @param out 输出流（如 response.getOutputStream()，由调用方关闭）
+     * @param rowWindow 内存中保留的行数
+     * @param compressTempFiles 是否gzip压缩临时文件
+     * @return 导出的行数
+     */
+    public static long exportOperationLogs(Iterator<? extends OperationLogExportView> logs, OutputStream out,
+                                           int rowWindow, boolean compressTempFiles) throws IOException {
+        StreamingTableWriter writer = StreamingTableWriter.xlsx(out, "操作日志", OPERATION_LOG_HEADERS,
+                OPERATION_LOG_COLUMN_WIDTHS, rowWindow, compressTempFiles);
+        try {
+            while (logs.hasNext()) {
+                OperationLogExportView logData = logs.next();
+                writer.writeRow(
+                        logData.getCreateTime(),
+                        logData.getUsername(),
+                        logData.getOperation(),
+                        logData.getModule(),
+                        logData.getResult(),
+                        logData.getIp(),
+                        logData.getDuration() != null ? logData.getDuration().toString() : "",
+                        logData.getErrorMsg());
+            }
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+        writer.close();
+        return writer.getRows();
+    }
+
     /**
      * 创建表头样式
      */
@@ -0,0 +1,68 @@
+package com.bcu.edu.common.utils;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * 键集分页迭代器（⭐大表顺序遍历）
+ *
+ * <p>每次用上一页最后一行的键查询下一页（WHERE id &lt; / &gt; :lastKey ORDER BY id LIMIT n），
+ * 不使用 OFFSET，也不执行 count 查询；内存中只保留当前一页
+ *
+ * @param <T> 行类型
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+public class KeysetIterator<T> implements Iterator<T> {
+
+    private final Function<Long, List<T>> pageLoader;
+    private final Function<T, Long> keyExtractor;
+    private final int pageSize;
+
+    private Long lastKey;
+    private Iterator<T> current = Collections.emptyIterator();
+    private boolean exhausted;
+
+    /**
+     * @param firstKey 首页查询使用的键（升序传0，降序传 Long.MAX_VALUE）
+     * @param pageSize 页大小（查询返回行数少于该值即视为最后一页）
+     * @param pageLoader 按键查询下一页
+     * @param keyExtractor 取行的键
+     */
+    public KeysetIterator(Long firstKey, int pageSize, Function<Long, List<T>> pageLoader,
+                          Function<T, Long> keyExtractor) {
+        this.lastKey = firstKey;
+        this.pageSize = pageSize;
+        this.pageLoader = pageLoader;
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current.hasNext()) {
+            return true;
+        }
+        if (exhausted) {
+            return false;
+        }
+        List<T> page = pageLoader.apply(lastKey);
+        exhausted = page.size() < pageSize;
+        if (page.isEmpty()) {
+            return false;
+        }
+        lastKey = keyExtractor.apply(page.get(page.size() - 1));
+        current = page.iterator();
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+}
@@ -0,0 +1,270 @@
+package com.bcu.edu.common.utils;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 流式表格写出（⭐导出内存占用与行数无关）
+ *
+ * <p>逐行写出到输出流，不在内存中保留已写出的行：
+ * <ul>
+ *   <li>CSV：UTF-8（带BOM，Excel直接打开不乱码），经缓冲写出</li>
+ *   <li>XLSX：POI SXSSF，内存中只保留最近 N 行（默认 {@link #XLSX_WINDOW}），其余写入（可压缩的）临时文件；
+ *       单个工作表写满后自动续写下一个工作表</li>
+ * </ul>
+ *
+ * <p>输出流由调用方负责关闭；{@link #close()} 只完成文件尾部并刷新
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+public abstract class StreamingTableWriter implements Closeable {
+
+    /**
+     * SXSSF 默认内存行窗口
+     */
+    public static final int XLSX_WINDOW = 200;
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DateUtil.DATETIME_PATTERN);
+
+    protected final String[] headers;
+
+    protected long rows;
+
+    protected StreamingTableWriter(String[] headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * 创建CSV写出器
+     */
+    public static StreamingTableWriter csv(OutputStream out, String[] headers) throws IOException {
+        return new CsvWriter(out, headers);
+    }
+
+    /**
+     * 创建XLSX写出器
+     *
+     * @param columnWidths 列宽（字符数，流式写出无法自动调整列宽）
+     */
+    public static StreamingTableWriter xlsx(OutputStream out, String sheetName, String[] headers, int[] columnWidths) {
+        return xlsx(out, sheetName, headers, columnWidths, XLSX_WINDOW, true);
+    }
+
+    /**
+     * 创建XLSX写出器
+     *
+     * @param columnWidths 列宽（字符数，流式写出无法自动调整列宽）
+     * @param rowWindow 内存中保留的行数，超出的行写入临时文件
+     * @param compressTempFiles 是否gzip压缩临时文件（磁盘占用约为1/10，写出时多消耗CPU）
+     */
+    public static StreamingTableWriter xlsx(OutputStream out, String sheetName, String[] headers, int[] columnWidths,
+                                            int rowWindow, boolean compressTempFiles) {
+        return new XlsxWriter(out, sheetName, headers, columnWidths, rowWindow, compressTempFiles);
+    }
+
+    /**
+     * 写出一行数据
+     */
+    public abstract void writeRow(Object... values) throws IOException;
+
+    /**
+     * 放弃写出（导出取消或失败时调用，不再输出文件尾部，释放临时资源）
+     */
+    public void abort() {
+    }
+
+    /**
+     * 已写出的数据行数（不含表头）
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    protected static String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.format(DATE_TIME_FORMATTER);
+        }
+        if (value instanceof LocalDate date) {
+            return date.toString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * CSV写出
+     */
+    private static final class CsvWriter extends StreamingTableWriter {
+
+        private final Writer writer;
+
+        private CsvWriter(OutputStream out, String[] headers) throws IOException {
+            super(headers);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write('\uFEFF');
+            writeLine(headers);
+        }
+
+        @Override
+        public void writeRow(Object... values) throws IOException {
+            writeLine(values);
+            rows++;
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(text(values[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * XLSX写出（SXSSF）
+     */
+    private static final class XlsxWriter extends StreamingTableWriter {
+
+        /**
+         * 单个工作表最多数据行数（Excel上限 1048576 行，含表头）
+         */
+        private static final int MAX_ROWS_PER_SHEET = 1_048_575;
+
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook;
+        private final String sheetName;
+        private final int[] columnWidths;
+        private final CellStyle headerStyle;
+
+        private SXSSFSheet sheet;
+        private int sheetCount;
+        private int rowIndex;
+
+        private XlsxWriter(OutputStream out, String sheetName, String[] headers, int[] columnWidths,
+                           int rowWindow, boolean compressTempFiles) {
+            super(headers);
+            this.out = out;
+            this.sheetName = sheetName;
+            this.columnWidths = columnWidths;
+            this.workbook = new SXSSFWorkbook(rowWindow);
+            this.workbook.setCompressTempFiles(compressTempFiles);
+            this.headerStyle = createHeaderStyle(workbook);
+            nextSheet();
+        }
+
+        @Override
+        public void writeRow(Object... values) {
+            if (rowIndex > MAX_ROWS_PER_SHEET) {
+                nextSheet();
+            }
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                Cell cell = row.createCell(i);
+                if (value instanceof Long || value instanceof Integer) {
+                    cell.setCellValue(((Number) value).doubleValue());
+                } else if (value instanceof BigDecimal decimal) {
+                    cell.setCellValue(decimal.doubleValue());
+                } else {
+                    cell.setCellValue(text(value));
+                }
+            }
+            rows++;
+        }
+
+        private void nextSheet() {
+            sheetCount++;
+            sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + "(" + sheetCount + ")");
+            for (int i = 0; i < columnWidths.length; i++) {
+                sheet.setColumnWidth(i, Math.min(columnWidths[i], 255) * 256);
+            }
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            sheet.createFreezePane(0, 1);
+            rowIndex = 1;
+        }
+
+        private static CellStyle createHeaderStyle(Workbook workbook) {
+            CellStyle style = workbook.createCellStyle();
+            style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            style.setAlignment(HorizontalAlignment.CENTER);
+            Font font = workbook.createFont();
+            font.setBold(true);
+            style.setFont(font);
+            return style;
+        }
+
+        @Override
+        public void abort() {
+            dispose();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.write(out);
+                out.flush();
+            } finally {
+                dispose();
+            }
+        }
+
+        /**
+         * 删除临时文件
+         */
+        private void dispose() {
+            workbook.dispose();
+            try {
+                workbook.close();
+            } catch (IOException ignored) {
+                // 新建的工作簿关闭不会失败
+            }
+        }
+    }
+}
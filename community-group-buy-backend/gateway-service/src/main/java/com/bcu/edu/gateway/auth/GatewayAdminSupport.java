@@ -0,0 +1,95 @@
+package com.bcu.edu.gateway.auth;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 网关本地接口的公共支持（Token提取、管理员校验、统一JSON响应）
+ *
+ * <p>网关自身的接口（/gateway/**）不经过 GlobalFilter，由各接口通过这里用 {@link VerifiedTokenCache} 验证调用方
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+@RequiredArgsConstructor
+public class GatewayAdminSupport {
+
+    /**
+     * 管理员角色
+     */
+    public static final int ROLE_ADMIN = 1;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * 校验调用方为管理员
+     *
+     * @param authorization Authorization 请求头
+     * @return 校验结果（未通过时 error 为应直接返回的响应）
+     */
+    public AdminCheck checkAdmin(String authorization) {
+        String token = extractToken(authorization);
+        if (token == null) {
+            return AdminCheck.rejected(response(HttpStatus.UNAUTHORIZED, "请先登录", null));
+        }
+
+        VerifiedTokenCache.AuthenticatedUser operator;
+        try {
+            operator = verifiedTokenCache.verify(token);
+        } catch (ExpiredJwtException e) {
+            return AdminCheck.rejected(response(HttpStatus.UNAUTHORIZED, "登录已过期，请重新登录", null));
+        } catch (JwtException | IllegalArgumentException e) {
+            return AdminCheck.rejected(response(HttpStatus.UNAUTHORIZED, "Token无效", null));
+        }
+        if (operator.role() == null || operator.role() != ROLE_ADMIN) {
+            return AdminCheck.rejected(response(HttpStatus.FORBIDDEN, "无权限", null));
+        }
+        return new AdminCheck(operator, null);
+    }
+
+    /**
+     * 从 Authorization 请求头提取 Bearer Token
+     *
+     * @return Token，格式不符时返回null
+     */
+    public static String extractToken(String authorization) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            return authorization.substring(7);
+        }
+        return null;
+    }
+
+    /**
+     * 统一JSON响应（与下游服务的 Result 结构一致）
+     */
+    public static ResponseEntity<Map<String, Object>> response(HttpStatus status, String message, Object data) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", status.value());
+        result.put("message", message);
+        result.put("data", data);
+        result.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(status).body(result);
+    }
+
+    /**
+     * 管理员校验结果
+     *
+     * @param operator 通过时的管理员
+     * @param error 未通过时应直接返回的响应
+     */
+    public record AdminCheck(VerifiedTokenCache.AuthenticatedUser operator,
+                             ResponseEntity<Map<String, Object>> error) {
+
+        static AdminCheck rejected(ResponseEntity<Map<String, Object>> error) {
+            return new AdminCheck(null, error);
+        }
+    }
+}
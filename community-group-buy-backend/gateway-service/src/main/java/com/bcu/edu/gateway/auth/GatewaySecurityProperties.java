@@ -0,0 +1,51 @@
+package com.bcu.edu.gateway.auth;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关鉴权配置（application.yml 中的 gateway.whitelist / gateway.internal-paths / gateway.role-rules）
+ *
+ * <p>路径模式支持字面量段、{@code *}（一段）和 {@code **}（任意段），启动时编译为 {@link PathTrie}
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway")
+public class GatewaySecurityProperties {
+
+    /**
+     * 白名单（无需JWT鉴权的路径）
+     */
+    private List<String> whitelist = new ArrayList<>();
+
+    /**
+     * 内部接口（服务间Feign调用，网关一律拒绝，优先于白名单）
+     */
+    private List<String> internalPaths = new ArrayList<>();
+
+    /**
+     * 角色规则（登录后按路径限制角色，未配置的路径不限制）
+     */
+    private List<RoleRule> roleRules = new ArrayList<>();
+
+    @Data
+    public static class RoleRule {
+
+        /**
+         * 路径模式
+         */
+        private String pattern;
+
+        /**
+         * 允许的角色（0-普通用户 1-管理员 2-团长）
+         */
+        private List<Integer> roles = new ArrayList<>();
+    }
+}
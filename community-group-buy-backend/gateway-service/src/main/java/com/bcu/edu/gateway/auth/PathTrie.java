@@ -0,0 +1,170 @@
+package com.bcu.edu.gateway.auth;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 路径模式前缀树（⭐启动时预编译，匹配时不分配对象）
+ *
+ * <p>按 "/" 把模式拆成段构建成树，支持：
+ * <ul>
+ *   <li>字面量段：/api/user/login</li>
+ *   <li>{@code *}：匹配恰好一段，如 /api/groupbuy/team/{@code *}/detail</li>
+ *   <li>{@code **}：匹配零到多段，如 /api/product/{@code **}</li>
+ * </ul>
+ *
+ * <p>匹配时直接在路径字符串上按下标切段，字面量子节点用 regionMatches 比较，
+ * 复杂度 O(路径段数)（{@code **} 需要回溯时为 O(段数²)）。
+ * 多个模式都匹配时优先级：字面量 > {@code *} > {@code **}。
+ * 空段（连续的 "/" 和末尾的 "/"）忽略
+ *
+ * <p>构建完成后只读，可被多线程并发匹配
+ *
+ * @param <T> 模式关联的值
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+public class PathTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+    private int size;
+
+    /**
+     * 添加模式（只在启动构建阶段调用）
+     *
+     * @throws IllegalArgumentException 段内混用通配符（如 user-{@code *}）等不支持的写法
+     */
+    public PathTrie<T> add(String pattern, T value) {
+        Node<T> node = root;
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if ("**".equals(segment)) {
+                if (node.anySegments == null) {
+                    node.anySegments = new Node<>();
+                }
+                node = node.anySegments;
+            } else if ("*".equals(segment)) {
+                if (node.oneSegment == null) {
+                    node.oneSegment = new Node<>();
+                }
+                node = node.oneSegment;
+            } else if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                throw new IllegalArgumentException("不支持的路径模式：" + pattern);
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+        if (node.value == null) {
+            size++;
+        }
+        node.value = value;
+        return this;
+    }
+
+    /**
+     * 匹配路径
+     *
+     * @return 匹配模式的值，未匹配返回null
+     */
+    public T match(String path) {
+        return match(root, path, skipSlashes(path, 0));
+    }
+
+    public boolean matches(String path) {
+        return match(path) != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 从 pos 开始匹配 node 之后的剩余路径（pos 指向一段的开头或路径末尾）
+     */
+    private static <T> T match(Node<T> node, String path, int pos) {
+        int length = path.length();
+        if (pos >= length) {
+            // 路径已结束，末尾的 ** 可以匹配零段
+            if (node.value != null) {
+                return node.value;
+            }
+            return node.anySegments != null ? node.anySegments.value : null;
+        }
+
+        int end = path.indexOf('/', pos);
+        if (end < 0) {
+            end = length;
+        }
+        int next = skipSlashes(path, end);
+
+        Node<T> literal = node.findLiteral(path, pos, end);
+        if (literal != null) {
+            T value = match(literal, path, next);
+            if (value != null) {
+                return value;
+            }
+        }
+        if (node.oneSegment != null) {
+            T value = match(node.oneSegment, path, next);
+            if (value != null) {
+                return value;
+            }
+        }
+        if (node.anySegments != null) {
+            // ** 依次尝试吞掉 0、1、2…… 段
+            for (int start = pos; ; ) {
+                T value = match(node.anySegments, path, start);
+                if (value != null) {
+                    return value;
+                }
+                if (start >= length) {
+                    return null;
+                }
+                int segmentEnd = path.indexOf('/', start);
+                start = segmentEnd < 0 ? length : skipSlashes(path, segmentEnd);
+            }
+        }
+        return null;
+    }
+
+    private static int skipSlashes(String path, int pos) {
+        while (pos < path.length() && path.charAt(pos) == '/') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static final class Node<T> {
+
+        private final List<String> literals = new ArrayList<>(0);
+        private final List<Node<T>> literalNodes = new ArrayList<>(0);
+        private Node<T> oneSegment;
+        private Node<T> anySegments;
+        private T value;
+
+        private Node<T> literalChild(String segment) {
+            int index = literals.indexOf(segment);
+            if (index >= 0) {
+                return literalNodes.get(index);
+            }
+            Node<T> child = new Node<>();
+            literals.add(segment);
+            literalNodes.add(child);
+            return child;
+        }
+
+        private Node<T> findLiteral(String path, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < literals.size(); i++) {
+                String literal = literals.get(i);
+                if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+                    return literalNodes.get(i);
+                }
+            }
+            return null;
+        }
+    }
+}
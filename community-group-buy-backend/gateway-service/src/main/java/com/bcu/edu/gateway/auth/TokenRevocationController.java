@@ -0,0 +1,75 @@
+package com.bcu.edu.gateway.auth;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static com.bcu.edu.gateway.auth.GatewayAdminSupport.extractToken;
+import static com.bcu.edu.gateway.auth.GatewayAdminSupport.response;
+
+/**
+ * Token注销接口（网关本地处理，不转发）
+ *
+ * <p>网关自身的接口不经过 GlobalFilter，这里直接用 {@link VerifiedTokenCache} 验证调用方Token
+ * （管理员校验见 {@link GatewayAdminSupport}）：
+ * <ul>
+ *   <li>POST /gateway/auth/logout：注销当前Token</li>
+ *   <li>POST /gateway/auth/revoke-user/{userId}：管理员注销某用户的全部Token</li>
+ * </ul>
+ *
+ * <p>注销在本实例立即生效，并通过 {@link TokenRevocationSync} 写入 UserService，
+ * 其他实例在下一个同步周期生效；持久化失败返回503，客户端可重试。
+ * 修改密码、禁用账户由 UserService 自行注销，无需调用这里
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@RestController
+@RequestMapping("/gateway/auth")
+@RequiredArgsConstructor
+public class TokenRevocationController {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationSync revocationSync;
+    private final GatewayAdminSupport adminSupport;
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Map<String, Object>>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String token = extractToken(authorization);
+        if (token == null || verifiedTokenCache.revokeToken(token) == null) {
+            return Mono.just(response(HttpStatus.UNAUTHORIZED, "Token无效", null));
+        }
+        return revocationSync.publishToken(authorization)
+                .map(persisted -> persisted
+                        ? response(HttpStatus.OK, "已退出登录", null)
+                        : response(HttpStatus.SERVICE_UNAVAILABLE, "退出登录未完成，请重试", null));
+    }
+
+    @PostMapping("/revoke-user/{userId}")
+    public Mono<ResponseEntity<Map<String, Object>>> revokeUser(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @PathVariable Long userId) {
+        GatewayAdminSupport.AdminCheck check = adminSupport.checkAdmin(authorization);
+        if (check.error() != null) {
+            return Mono.just(check.error());
+        }
+
+        verifiedTokenCache.revokeUser(userId);
+        log.info("管理员注销用户Token: operator={}, userId={}", check.operator().userId(), userId);
+        return revocationSync.publishUser(userId)
+                .map(persisted -> persisted
+                        ? response(HttpStatus.OK, "已注销该用户的全部登录", null)
+                        : response(HttpStatus.SERVICE_UNAVAILABLE, "注销未完成，请重试", null));
+    }
+}
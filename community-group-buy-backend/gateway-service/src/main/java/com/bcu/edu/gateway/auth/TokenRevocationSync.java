@@ -0,0 +1,185 @@
+package com.bcu.edu.gateway.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Token注销记录同步（⭐多实例共享、重启不丢失）
+ *
+ * <p>注销记录保存在 UserService 的 token_revocation 表：
+ * <ul>
+ *   <li>写入：网关的注销接口先在本实例生效，再调用 UserService 持久化；
+ *       UserService 自身的退出登录、修改密码、禁用账户直接写表</li>
+ *   <li>读取：启动时全量加载，之后每 gateway.auth.revocation.sync-interval-ms 增量同步一次。
+ *       增量查询回看 sync-lag-ms，覆盖并发事务晚提交的记录（重复应用是幂等的）</li>
+ * </ul>
+ *
+ * <p>其他实例最多延迟一个同步周期生效；UserService 不可用时保留已同步的记录，恢复后继续增量同步
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationSync {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ReactorLoadBalancerExchangeFilterFunction loadBalancer;
+
+    /**
+     * 注销记录所在服务
+     */
+    @Value("${gateway.auth.revocation.service-uri:http://user-service}")
+    private String serviceUri;
+
+    /**
+     * 增量同步回看时长（毫秒），需大于写入事务时长和实例间时钟偏差
+     */
+    @Value("${gateway.auth.revocation.sync-lag-ms:30000}")
+    private long syncLagMs;
+
+    /**
+     * 每页记录数
+     */
+    @Value("${gateway.auth.revocation.page-size:500}")
+    private int pageSize;
+
+    /**
+     * 调用 UserService 的超时时间（毫秒）
+     */
+    @Value("${gateway.auth.revocation.timeout-ms:3000}")
+    private long timeoutMs;
+
+    private WebClient client;
+
+    /**
+     * 上次成功同步的开始时间（毫秒，0表示尚未完成全量加载）
+     */
+    private volatile long syncedUntil;
+
+    private final AtomicBoolean syncing = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        client = WebClient.builder().baseUrl(serviceUri).filter(loadBalancer).build();
+    }
+
+    /**
+     * 启动后全量加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        sync();
+    }
+
+    /**
+     * 定时增量同步（全量加载失败时下次重新全量加载）
+     */
+    @Scheduled(initialDelayString = "${gateway.auth.revocation.sync-interval-ms:5000}",
+               fixedDelayString = "${gateway.auth.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        if (!syncing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            long since = syncedUntil > 0 ? syncedUntil - syncLagMs : 0;
+            long afterId = 0;
+            int applied = 0;
+            while (true) {
+                JsonNode page = fetch(since, afterId);
+                for (JsonNode record : page) {
+                    apply(record);
+                    afterId = record.path("revocationId").asLong();
+                }
+                applied += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+            if (syncedUntil == 0) {
+                log.info("Token注销记录加载完成: {}条", applied);
+            }
+            syncedUntil = start;
+        } catch (Exception e) {
+            log.warn("同步Token注销记录失败，下次重试: {}", e.getMessage());
+        } finally {
+            syncing.set(false);
+        }
+    }
+
+    /**
+     * 持久化Token注销
+     *
+     * @param authorization 被注销Token的 Authorization 请求头
+     * @return 持久化成功返回true
+     */
+    public Mono<Boolean> publishToken(String authorization) {
+        return post("/api/user/feign/token-revocations/token", authorization);
+    }
+
+    /**
+     * 持久化用户注销
+     */
+    public Mono<Boolean> publishUser(Long userId) {
+        return post("/api/user/feign/token-revocations/user/" + userId, null);
+    }
+
+    private Mono<Boolean> post(String path, String authorization) {
+        return client.post()
+                .uri(path)
+                .headers(headers -> {
+                    if (authorization != null) {
+                        headers.set(HttpHeaders.AUTHORIZATION, authorization);
+                    }
+                })
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(Duration.ofMillis(timeoutMs))
+                .map(result -> result.path("code").asInt() == 200)
+                .onErrorResume(e -> {
+                    log.error("持久化Token注销失败: path={}, error={}", path, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    private JsonNode fetch(long since, long afterId) {
+        JsonNode result = client.get()
+                .uri(uri -> uri.path("/api/user/feign/token-revocations")
+                        .queryParam("since", since)
+                        .queryParam("afterId", afterId)
+                        .queryParam("limit", pageSize)
+                        .build())
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .block(Duration.ofMillis(timeoutMs));
+        if (result == null || result.path("code").asInt() != 200) {
+            throw new IllegalStateException("查询注销记录失败: " + (result != null ? result.path("message").asText() : "无响应"));
+        }
+        return result.path("data");
+    }
+
+    private void apply(JsonNode record) {
+        String tokenDigest = record.path("tokenDigest").asText(null);
+        if (tokenDigest != null && !tokenDigest.isEmpty()) {
+            verifiedTokenCache.applyRevokedToken(tokenDigest, record.path("expiresAt").asLong());
+        } else {
+            verifiedTokenCache.applyRevokedUser(record.path("userId").asLong(), record.path("revokedAt").asLong());
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.bcu.edu.gateway.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验证Token缓存（⭐同一Token只做一次签名校验）
+ *
+ * <p>客户端在有效期内反复使用同一个Token，每次都重建密钥、重新验签解析没有必要：
+ * <ul>
+ *   <li>签名密钥和 JwtParser 启动时构建一次（JwtParser 线程安全）</li>
+ *   <li>以 Token 的 SHA-256 摘要为键缓存解析出的用户信息，内存中不保存原始 Token</li>
+ *   <li>条目过期时间 = min(缓存TTL, Token 的 exp)，过期后重新验签（过期Token按原逻辑报过期）</li>
+ *   <li>容量上限：超出后先清理过期条目，再按写入时间淘汰最旧的约10%</li>
+ *   <li>注销：按 Token 注销（记录到其 exp 为止），或按用户注销（该时间点之前签发的Token全部失效）</li>
+ * </ul>
+ *
+ * <p>这里的注销记录只是本实例的副本，数据源是 UserService 的 token_revocation 表，
+ * 由 {@link TokenRevocationSync} 启动时全量加载、之后定时增量同步
+ *
+ * <p>指标：gateway.auth.token.cache{result=hit|miss}、gateway.auth.token.cache.size
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    /**
+     * Token最长有效期（毫秒），用户注销记录保留这么久
+     */
+    @Value("${jwt.expiration:604800000}")
+    private long maxTokenLifetimeMs;
+
+    @Value("${gateway.auth.token-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 最多缓存的Token数
+     */
+    @Value("${gateway.auth.token-cache.max-size:100000}")
+    private int maxSize;
+
+    /**
+     * 缓存TTL（秒），不超过Token自身的过期时间
+     */
+    @Value("${gateway.auth.token-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private JwtParser parser;
+
+    private final Map<TokenKey, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 已注销的Token（摘要 -> Token过期时间）
+     */
+    private final Map<TokenKey, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * 按用户注销（userId -> 注销时间），签发时间早于该时间的Token无效
+     */
+    private final Map<Long, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @PostConstruct
+    public void init() {
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        meterRegistry.ifAvailable(this::bindMetrics);
+    }
+
+    /**
+     * 验证Token并返回用户信息
+     *
+     * @param token JWT Token
+     * @return 用户信息
+     * @throws JwtException Token无效、过期（ExpiredJwtException）或已注销（RevokedTokenException）
+     */
+    public AuthenticatedUser verify(String token) {
+        TokenKey key = digest(token);
+        long now = System.currentTimeMillis();
+
+        if (!revokedTokens.isEmpty() && revokedTokens.containsKey(key)) {
+            throw new RevokedTokenException("Token已注销");
+        }
+
+        if (enabled) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                checkUserRevoked(entry.user);
+                hits.increment();
+                return entry.user;
+            }
+            if (entry != null) {
+                entries.remove(key, entry);
+            }
+        }
+
+        misses.increment();
+        AuthenticatedUser user = parse(token);
+        checkUserRevoked(user);
+
+        if (enabled && user.userId() != null) {
+            long expiresAt = now + ttlSeconds * 1000;
+            if (user.expiresAt() > 0) {
+                expiresAt = Math.min(expiresAt, user.expiresAt());
+            }
+            entries.put(key, new Entry(user, expiresAt, now));
+            if (entries.size() > maxSize) {
+                evict(now);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * 在本实例注销单个Token（持久化由调用方通过 {@link TokenRevocationSync} 完成）
+     *
+     * @return Token有效返回其用户信息，已过期或无效返回null
+     */
+    public AuthenticatedUser revokeToken(String token) {
+        AuthenticatedUser user;
+        try {
+            user = parse(token);
+        } catch (JwtException e) {
+            // 已过期或无效的Token本来就无法通过验证
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        applyRevokedToken(digest(token), user.expiresAt() > 0 ? user.expiresAt() : now + maxTokenLifetimeMs);
+        log.info("Token已注销: userId={}", user.userId());
+        return user;
+    }
+
+    /**
+     * 在本实例注销用户当前所有Token（之后重新登录签发的Token不受影响）
+     */
+    public void revokeUser(Long userId) {
+        applyRevokedUser(userId, System.currentTimeMillis());
+        log.info("用户Token已全部注销: userId={}", userId);
+    }
+
+    /**
+     * 应用同步来的Token注销记录
+     *
+     * @param tokenDigest Token的SHA-256摘要（十六进制）
+     * @param expiresAt Token过期时间（毫秒）
+     */
+    public void applyRevokedToken(String tokenDigest, long expiresAt) {
+        applyRevokedToken(digestKey(tokenDigest), expiresAt);
+    }
+
+    /**
+     * 应用同步来的用户注销记录（重复应用取较晚的注销时间）
+     *
+     * @param revokedAt 注销时间（毫秒）
+     */
+    public void applyRevokedUser(Long userId, long revokedAt) {
+        long now = System.currentTimeMillis();
+        if (revokedAt + maxTokenLifetimeMs <= now) {
+            return;
+        }
+        purgeRevoked(now);
+        // 签发时间只精确到秒：注销当秒内签发的Token同样失效
+        long current = revokedUsers.merge(userId, revokedAt, Math::max);
+        if (current == revokedAt) {
+            entries.entrySet().removeIf(e -> userId.equals(e.getValue().user.userId())
+                    && e.getValue().user.issuedAt() < revokedAt);
+        }
+    }
+
+    /**
+     * Token的SHA-256摘要（十六进制，与 UserService 记录的格式一致）
+     */
+    public static String tokenDigest(String token) {
+        return HexFormat.of().formatHex(SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private void applyRevokedToken(TokenKey key, long expiresAt) {
+        long now = System.currentTimeMillis();
+        if (expiresAt <= now) {
+            return;
+        }
+        purgeRevoked(now);
+        revokedTokens.put(key, expiresAt);
+        entries.remove(key);
+    }
+
+    private AuthenticatedUser parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        return new AuthenticatedUser(
+                getUserId(claims),
+                claims.getSubject(),
+                getRole(claims),
+                issuedAt != null ? issuedAt.getTime() : 0,
+                expiration != null ? expiration.getTime() : 0);
+    }
+
+    private void checkUserRevoked(AuthenticatedUser user) {
+        if (revokedUsers.isEmpty() || user.userId() == null) {
+            return;
+        }
+        Long revokedAt = revokedUsers.get(user.userId());
+        if (revokedAt != null && user.issuedAt() < revokedAt) {
+            throw new RevokedTokenException("用户Token已注销");
+        }
+    }
+
+    /**
+     * 容量超限：清理过期条目，仍超限则淘汰最旧的约10%（同一时间只有一个线程执行）
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+
+            int overflow = entries.size() - maxSize;
+            if (overflow > 0) {
+                int toRemove = Math.max(overflow, maxSize / 10);
+                entries.entrySet().stream()
+                        .sorted(Comparator.comparingLong(e -> e.getValue().cachedAt))
+                        .limit(toRemove)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(entries::remove);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 清理已失去意义的注销记录（Token本身已过期）
+     */
+    private void purgeRevoked(long now) {
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + maxTokenLifetimeMs <= now);
+    }
+
+    private static TokenKey digest(String token) {
+        return toKey(SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static TokenKey digestKey(String tokenDigest) {
+        return toKey(HexFormat.of().parseHex(tokenDigest));
+    }
+
+    private static TokenKey toKey(byte[] hash) {
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        return new TokenKey(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    private static Long getUserId(Claims claims) {
+        Object userIdObj = claims.get("userId");
+        if (userIdObj instanceof Integer) {
+            return ((Integer) userIdObj).longValue();
+        } else if (userIdObj instanceof Long) {
+            return (Long) userIdObj;
+        } else if (userIdObj instanceof String) {
+            return Long.parseLong((String) userIdObj);
+        }
+        return null;
+    }
+
+    private static Integer getRole(Claims claims) {
+        Object roleObj = claims.get("role");
+        if (roleObj instanceof Integer) {
+            return (Integer) roleObj;
+        } else if (roleObj instanceof String) {
+            return Integer.parseInt((String) roleObj);
+        }
+        return null;
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("gateway.auth.token.cache", hits, LongAdder::sum)
+                .tags("result", "hit")
+                .description("已验证Token缓存命中次数")
+                .register(registry);
+        FunctionCounter.builder("gateway.auth.token.cache", misses, LongAdder::sum)
+                .tags("result", "miss")
+                .description("已验证Token缓存未命中次数（完整验签）")
+                .register(registry);
+        Gauge.builder("gateway.auth.token.cache.size", entries, Map::size)
+                .register(registry);
+    }
+
+    /**
+     * 已认证用户
+     *
+     * @param userId 用户ID
+     * @param username 用户名
+     * @param role 角色
+     * @param issuedAt 签发时间（毫秒）
+     * @param expiresAt 过期时间（毫秒，0表示未设置）
+     */
+    public record AuthenticatedUser(Long userId, String username, Integer role, long issuedAt, long expiresAt) {
+    }
+
+    /**
+     * Token已注销
+     */
+    public static class RevokedTokenException extends JwtException {
+        public RevokedTokenException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Token摘要（SHA-256）
+     */
+    private record TokenKey(long h1, long h2, long h3, long h4) {
+    }
+
+    private record Entry(AuthenticatedUser user, long expiresAt, long cachedAt) {
+    }
+}
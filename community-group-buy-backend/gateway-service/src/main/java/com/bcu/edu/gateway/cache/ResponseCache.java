@@ -0,0 +1,178 @@
+package com.bcu.edu.gateway.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网关响应缓存存储
+ *
+ * <p>以"路径?查询串"为键保存完整响应（状态码、Content-Type、响应体、ETag）：
+ * <ul>
+ *   <li>新鲜期内直接返回；过期后 stale 期内返回旧响应并由过滤器后台刷新；再往后视为未命中</li>
+ *   <li>ETag 为响应体 SHA-256 的前16字节，内容不变时刷新后 ETag 不变</li>
+ *   <li>容量上限：超出后先清理彻底过期的条目，再按写入时间淘汰最旧的约10%</li>
+ * </ul>
+ *
+ * <p>指标：gateway.response.cache{result=hit|stale|miss|coalesced}、gateway.response.cache.size
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResponseCache {
+
+    private final ResponseCacheProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    final LongAdder hits = new LongAdder();
+    final LongAdder staleHits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder coalesced = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.ifAvailable(this::bindMetrics);
+    }
+
+    public CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 保存响应
+     */
+    public CachedResponse put(String key, int status, String contentType, byte[] body,
+                              long ttlSeconds, long staleSeconds) {
+        long now = System.nanoTime();
+        CachedResponse response = new CachedResponse(status, contentType, body, etag(body), now,
+                now + ttlSeconds * 1_000_000_000L,
+                now + (ttlSeconds + staleSeconds) * 1_000_000_000L);
+        entries.put(key, response);
+        if (entries.size() > properties.getMaxEntries()) {
+            evict(now);
+        }
+        return response;
+    }
+
+    /**
+     * 清除全部缓存
+     *
+     * @return 清除的条目数
+     */
+    public int purgeAll() {
+        int size = entries.size();
+        entries.clear();
+        log.info("响应缓存已全部清除: {}条", size);
+        return size;
+    }
+
+    /**
+     * 按路径前缀清除缓存
+     *
+     * @return 清除的条目数
+     */
+    public int purgeByPrefix(String prefix) {
+        int before = entries.size();
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+        int removed = before - entries.size();
+        log.info("响应缓存按前缀清除: prefix={}, {}条", prefix, removed);
+        return removed;
+    }
+
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(entry -> entry.staleUntil() <= now);
+
+            int maxEntries = properties.getMaxEntries();
+            int overflow = entries.size() - maxEntries;
+            if (overflow > 0) {
+                int toRemove = Math.max(overflow, maxEntries / 10);
+                entries.entrySet().stream()
+                        .sorted(Comparator.comparingLong(e -> e.getValue().storedAt()))
+                        .limit(toRemove)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(entries::remove);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("gateway.response.cache", hits, LongAdder::sum)
+                .tags("result", "hit")
+                .description("响应缓存命中次数")
+                .register(registry);
+        FunctionCounter.builder("gateway.response.cache", staleHits, LongAdder::sum)
+                .tags("result", "stale")
+                .description("返回旧响应并后台刷新的次数")
+                .register(registry);
+        FunctionCounter.builder("gateway.response.cache", misses, LongAdder::sum)
+                .tags("result", "miss")
+                .description("响应缓存未命中（回源）次数")
+                .register(registry);
+        FunctionCounter.builder("gateway.response.cache", coalesced, LongAdder::sum)
+                .tags("result", "coalesced")
+                .description("并发未命中时等待同一回源结果的次数")
+                .register(registry);
+        Gauge.builder("gateway.response.cache.size", entries, Map::size)
+                .register(registry);
+    }
+
+    /**
+     * 缓存的响应
+     *
+     * @param status 状态码
+     * @param contentType Content-Type
+     * @param body 响应体
+     * @param etag ETag（含引号）
+     * @param storedAt 写入时间（nanoTime）
+     * @param freshUntil 新鲜期截止（nanoTime）
+     * @param staleUntil 可返回旧响应的截止时间（nanoTime）
+     */
+    public record CachedResponse(int status, String contentType, byte[] body, String etag,
+                                 long storedAt, long freshUntil, long staleUntil) {
+
+        boolean isFresh(long now) {
+            return now < freshUntil;
+        }
+
+        boolean isUsable(long now) {
+            return now < staleUntil;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.bcu.edu.gateway.cache;
+
+import com.bcu.edu.gateway.auth.GatewayAdminSupport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+import static com.bcu.edu.gateway.auth.GatewayAdminSupport.response;
+
+/**
+ * 响应缓存清除接口（网关本地处理，不转发，仅管理员）
+ *
+ * <ul>
+ *   <li>DELETE /gateway/cache：清除全部响应缓存</li>
+ *   <li>DELETE /gateway/cache?prefix=/api/groupbuy/activity/12：按路径前缀清除（如活动修改后）</li>
+ * </ul>
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@RestController
+@RequestMapping("/gateway/cache")
+@RequiredArgsConstructor
+public class ResponseCacheController {
+
+    private final GatewayAdminSupport adminSupport;
+    private final ResponseCache responseCache;
+
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> purge(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(required = false) String prefix) {
+        GatewayAdminSupport.AdminCheck check = adminSupport.checkAdmin(authorization);
+        if (check.error() != null) {
+            return check.error();
+        }
+
+        int removed = prefix != null && !prefix.isEmpty()
+                ? responseCache.purgeByPrefix(prefix)
+                : responseCache.purgeAll();
+        log.info("管理员清除响应缓存: operator={}, prefix={}, removed={}", check.operator().userId(), prefix, removed);
+        return response(HttpStatus.OK, "缓存已清除", Map.of("removed", removed));
+    }
+}
@@ -0,0 +1,301 @@
+package com.bcu.edu.gateway.cache;
+
+import com.bcu.edu.gateway.auth.PathTrie;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 公开查询接口响应缓存过滤器（⭐首页热点接口不再逐次回源）
+ *
+ * <p>只处理 gateway.response-cache.routes 中配置的 GET 接口（响应与用户无关的查询接口；
+ * 需要登录的接口照常先经过JWT鉴权，只是鉴权通过后共享同一份响应），
+ * 以"路径?查询串"为键：
+ * <ul>
+ *   <li>新鲜：直接返回缓存，X-Cache: HIT</li>
+ *   <li>过期但在 stale 期内：立即返回旧响应（X-Cache: STALE），同时后台刷新一次（同一键同时只刷新一次）</li>
+ *   <li>未命中：同一键的并发请求只有第一个回源，其余等待它的结果（请求合并），等待超时则各自回源</li>
+ *   <li>ETag / If-None-Match：内容未变化返回 304，不传响应体</li>
+ * </ul>
+ *
+ * <p>只缓存 200、业务码为 200、无 Set-Cookie / Content-Encoding 且不超过大小上限的响应。
+ * 后台刷新通过网关自身端口重新请求该地址（带 X-Cache-Revalidate 内部标记和触发请求的 Authorization），
+ * 走完整鉴权、路由和负载均衡
+ *
+ * <p>在JWT鉴权（-100）之后、限流（-90）之前执行：缓存命中不占用后端限流配额
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final String X_CACHE = "X-Cache";
+
+    /**
+     * 后台刷新请求的内部标记头，值为本进程随机令牌，外部请求无法伪造
+     */
+    private static final String REVALIDATE_HEADER = "X-Cache-Revalidate";
+
+    /**
+     * Result 序列化时 code 是第一个字段，以此判断业务是否成功（业务异常也返回 HTTP 200）
+     */
+    private static final byte[] SUCCESS_PREFIX = "{\"code\":200,".getBytes(StandardCharsets.UTF_8);
+
+    private final ResponseCacheProperties properties;
+    private final ResponseCache responseCache;
+
+    @Value("${server.port:9000}")
+    private int serverPort;
+
+    private final String revalidateToken = UUID.randomUUID().toString();
+
+    private PathTrie<ResponseCacheProperties.Route> routes = new PathTrie<>();
+
+    private String selfBaseUrl;
+
+    private WebClient selfClient;
+
+    /**
+     * 回源中的请求（缓存键 -> 回源结果，不可缓存时以null完成）
+     */
+    private final Map<String, CompletableFuture<ResponseCache.CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 正在后台刷新的缓存键
+     */
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        PathTrie<ResponseCacheProperties.Route> trie = new PathTrie<>();
+        for (ResponseCacheProperties.Route route : properties.getRoutes()) {
+            route.getPaths().forEach(path -> trie.add(path, route));
+        }
+        routes = trie;
+        selfBaseUrl = "http://127.0.0.1:" + serverPort;
+        selfClient = WebClient.create();
+        log.info("网关响应缓存加载完成: {}条路径", routes.size());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        ResponseCacheProperties.Route route = routes.match(request.getURI().getPath());
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = cacheKey(request);
+
+        if (revalidateToken.equals(request.getHeaders().getFirst(REVALIDATE_HEADER))) {
+            // 后台刷新：跳过查找，回源后写入缓存
+            ServerHttpRequest stripped = request.mutate().headers(h -> h.remove(REVALIDATE_HEADER)).build();
+            ServerWebExchange revalidate = exchange.mutate().request(stripped).build();
+            return fetch(revalidate, chain, key, route, null);
+        }
+
+        long now = System.nanoTime();
+        ResponseCache.CachedResponse cached = responseCache.get(key);
+        if (cached != null && cached.isFresh(now)) {
+            responseCache.hits.increment();
+            return writeCached(exchange, cached, "HIT");
+        }
+        if (cached != null && cached.isUsable(now)) {
+            responseCache.staleHits.increment();
+            revalidateInBackground(key, request);
+            return writeCached(exchange, cached, "STALE");
+        }
+
+        CompletableFuture<ResponseCache.CachedResponse> future = new CompletableFuture<>();
+        CompletableFuture<ResponseCache.CachedResponse> leader = inFlight.putIfAbsent(key, future);
+        if (leader != null) {
+            responseCache.coalesced.increment();
+            // copy()：等待超时取消的是副本，不影响其他等待者
+            return Mono.fromFuture(leader.copy())
+                    .timeout(Duration.ofMillis(properties.getCoalesceTimeoutMs()))
+                    .map(Optional::of)
+                    .onErrorResume(e -> Mono.just(Optional.empty()))
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(result -> result.isPresent()
+                            ? writeCached(exchange, result.get(), "HIT")
+                            : chain.filter(exchange));
+        }
+
+        responseCache.misses.increment();
+        return fetch(exchange, chain, key, route, future)
+                .doFinally(signal -> {
+                    future.complete(null);
+                    inFlight.remove(key, future);
+                });
+    }
+
+    /**
+     * 回源并在响应可缓存时写入缓存
+     *
+     * @param future 合并等待的结果（后台刷新时为null）
+     */
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, String key,
+                             ResponseCacheProperties.Route route,
+                             CompletableFuture<ResponseCache.CachedResponse> future) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse original = exchange.getResponse();
+
+        ServerHttpResponseDecorator decorated = new ServerHttpResponseDecorator(original) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return DataBufferUtils.join(Flux.from(body)).flatMap(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+
+                    HttpHeaders headers = getDelegate().getHeaders();
+                    ResponseCache.CachedResponse stored = null;
+                    if (isCacheable(getStatusCode(), headers, bytes)) {
+                        stored = responseCache.put(key, HttpStatus.OK.value(),
+                                headers.getFirst(HttpHeaders.CONTENT_TYPE), bytes,
+                                route.getTtlSeconds(), route.getStaleSeconds());
+                        headers.setETag(stored.etag());
+                    }
+                    if (future != null) {
+                        future.complete(stored);
+                    }
+                    headers.set(X_CACHE, "MISS");
+
+                    if (stored != null && notModified(request, stored)) {
+                        getDelegate().setStatusCode(HttpStatus.NOT_MODIFIED);
+                        headers.remove(HttpHeaders.CONTENT_LENGTH);
+                        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+                        return getDelegate().setComplete();
+                    }
+                    headers.setContentLength(bytes.length);
+                    return getDelegate().writeWith(Mono.just(getDelegate().bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+        return chain.filter(exchange.mutate().response(decorated).build());
+    }
+
+    private boolean isCacheable(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        return status != null && status.value() == HttpStatus.OK.value()
+                && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                && body.length <= properties.getMaxBodyBytes()
+                && startsWith(body, SUCCESS_PREFIX);
+    }
+
+    /**
+     * 后台刷新（经网关自身端口重新请求，同一键同时只有一个）
+     */
+    private void revalidateInBackground(String key, ServerHttpRequest request) {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        String uri = cacheKey(request);
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        selfClient.get()
+                .uri(URI.create(selfBaseUrl + uri))
+                .header(REVALIDATE_HEADER, revalidateToken)
+                .headers(headers -> {
+                    // 需要登录的接口：以触发刷新的请求身份回源（响应与用户无关）
+                    if (authorization != null) {
+                        headers.set(HttpHeaders.AUTHORIZATION, authorization);
+                    }
+                })
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(properties.getCoalesceTimeoutMs()))
+                .doFinally(signal -> revalidating.remove(key))
+                .subscribe(
+                        response -> log.debug("响应缓存已刷新: {}", uri),
+                        e -> log.warn("响应缓存后台刷新失败: uri={}, error={}", uri, e.getMessage()));
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, ResponseCache.CachedResponse cached, String state) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.etag());
+        headers.set(X_CACHE, state);
+        headers.set(HttpHeaders.AGE,
+                String.valueOf(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - cached.storedAt())));
+
+        if (notModified(exchange.getRequest(), cached)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        if (cached.contentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean notModified(ServerHttpRequest request, ResponseCache.CachedResponse cached) {
+        for (String tag : request.getHeaders().getIfNoneMatch()) {
+            if ("*".equals(tag) || cached.etag().equals(tag) || ("W/" + cached.etag()).equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String cacheKey(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getURI().getRawPath();
+        return query != null ? path + "?" + query : path;
+    }
+
+    private static boolean startsWith(byte[] body, byte[] prefix) {
+        if (body.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (body[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getOrder() {
+        return -95;  // JWT鉴权（-100）之后、限流（-90）之前
+    }
+}
@@ -0,0 +1,61 @@
+package com.bcu.edu.gateway.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关响应缓存配置（application.yml 中的 gateway.response-cache）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的响应数
+     */
+    private int maxEntries = 1000;
+
+    /**
+     * 单个响应体上限（字节），超出不缓存
+     */
+    private int maxBodyBytes = 1024 * 1024;
+
+    /**
+     * 并发未命中时，跟随请求等待首个请求结果的最长时间（毫秒），超时后自行回源
+     */
+    private long coalesceTimeoutMs = 5000;
+
+    /**
+     * 可缓存的路由（仅GET）
+     */
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+
+        /**
+         * 路径模式（字面量段、*、**）
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * 新鲜期（秒）
+         */
+        private long ttlSeconds = 5;
+
+        /**
+         * 过期后仍可返回旧响应并后台刷新的时间（秒）
+         */
+        private long staleSeconds = 30;
+    }
+}
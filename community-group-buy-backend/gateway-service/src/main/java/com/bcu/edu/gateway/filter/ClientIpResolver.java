@@ -0,0 +1,56 @@
+package com.bcu.edu.gateway.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * 客户端IP解析
+ *
+ * <p>X-Forwarded-For / X-Real-IP 可由客户端任意伪造，只有直连地址属于 gateway.trusted-proxies
+ * （前置Nginx/负载均衡，精确IP）时才采信：从 X-Forwarded-For 右侧往左跳过可信代理，取第一个非代理地址。
+ * 直连地址不可信时直接使用直连地址，伪造的请求头被忽略
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Component
+public class ClientIpResolver {
+
+    private static final String UNKNOWN = "unknown";
+
+    /**
+     * 可信代理地址（逗号分隔）
+     */
+    @Value("${gateway.trusted-proxies:127.0.0.1,0:0:0:0:0:0:0:1}")
+    private Set<String> trustedProxies;
+
+    /**
+     * 获取真实客户端IP
+     */
+    public String resolve(ServerHttpRequest request) {
+        String peer = request.getRemoteAddress() != null && request.getRemoteAddress().getAddress() != null
+                ? request.getRemoteAddress().getAddress().getHostAddress() : UNKNOWN;
+        if (!trustedProxies.contains(peer)) {
+            return peer;
+        }
+
+        String forwarded = request.getHeaders().getFirst("X-Forwarded-For");
+        if (forwarded != null && !forwarded.isEmpty()) {
+            String[] hops = forwarded.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!hop.isEmpty() && !UNKNOWN.equalsIgnoreCase(hop) && !trustedProxies.contains(hop)) {
+                    return hop;
+                }
+            }
+        }
+        String realIp = request.getHeaders().getFirst("X-Real-IP");
+        if (realIp != null && !realIp.isEmpty() && !UNKNOWN.equalsIgnoreCase(realIp)) {
+            return realIp.trim();
+        }
+        return peer;
+    }
+}
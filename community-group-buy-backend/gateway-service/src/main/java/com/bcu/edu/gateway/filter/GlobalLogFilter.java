@@ -1,19 +1,32 @@
 package com.bcu.edu.gateway.filter;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 全局日志过滤器
- * 记录所有通过网关的请求
+ * 为每个请求分配请求ID，并按采样率记录访问日志
+ * 
+ * <p>访问日志（请求结束时一行）：
+ * <ul>
+ *   <li>按 gateway.access-log.sample-rate 采样记录</li>
+ *   <li>5xx 和耗时超过 gateway.access-log.slow-threshold-ms 的请求总是记录</li>
+ *   <li>未采样的请求不提取IP/UA、不格式化日志</li>
+ * </ul>
+ * 
+ * <p>请求ID：沿用上游传入的 X-Request-Id（仅限不超过64位的字母、数字、'-'、'_'、'.'，防止日志注入和超长ID），
+ * 缺失或不合法时生成随机的16位十六进制ID替换（不使用UUID，避免SecureRandom开销）
  * 
  * @author 耿康瑞
  * @since 2025-10-30
@@ -22,53 +35,89 @@ import java.util.UUID;
 @Component
 public class GlobalLogFilter implements GlobalFilter, Ordered {
 
+    private static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    /**
+     * 沿用上游请求ID的最大长度
+     */
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
+    /**
+     * 访问日志采样率（0~1）
+     */
+    @Value("${gateway.access-log.sample-rate:0.01}")
+    private double sampleRate;
+
+    /**
+     * 慢请求阈值（毫秒），超过总是记录
+     */
+    @Value("${gateway.access-log.slow-threshold-ms:1000}")
+    private long slowThresholdMs;
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
-        
-        // 生成请求ID
-        String requestId = UUID.randomUUID().toString().replace("-", "");
-        
-        // 获取请求信息
-        String method = request.getMethod().name();
-        String path = request.getURI().getPath();
-        String remoteAddr = getRemoteAddr(request);
-        String userAgent = request.getHeaders().getFirst("User-Agent");
-        
-        long startTime = System.currentTimeMillis();
-        
-        log.info("===> Gateway请求开始 | RequestId: {} | {} {} | IP: {} | UA: {}",
-                requestId, method, path, remoteAddr, userAgent);
-        
-        // 将requestId添加到请求头
-        ServerHttpRequest modifiedRequest = request.mutate()
-                .header("X-Request-Id", requestId)
-                .build();
-        
-        return chain.filter(exchange.mutate().request(modifiedRequest).build())
-                .then(Mono.fromRunnable(() -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    int statusCode = exchange.getResponse().getStatusCode() != null ?
-                            exchange.getResponse().getStatusCode().value() : 0;
-                    
-                    log.info("<=== Gateway请求结束 | RequestId: {} | {} {} | 状态码: {} | 耗时: {}ms",
-                            requestId, method, path, statusCode, duration);
-                }));
+
+        // 获取或生成请求ID
+        String requestId = request.getHeaders().getFirst(REQUEST_ID_HEADER);
+        ServerWebExchange current = exchange;
+        if (!isValidRequestId(requestId)) {
+            String generated = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+            requestId = generated;
+            current = exchange.mutate()
+                    .request(request.mutate().headers(headers -> headers.set(REQUEST_ID_HEADER, generated)).build())
+                    .build();
+        }
+
+        boolean sampled = log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        long startTime = System.nanoTime();
+        String id = requestId;
+        ServerWebExchange logged = current;
+
+        return chain.filter(current)
+                .doFinally(signal -> logAccess(logged, id, startTime, sampled));
     }
 
     /**
-     * 获取真实客户端IP
+     * 上游请求ID是否可以沿用
      */
-    private String getRemoteAddr(ServerHttpRequest request) {
-        String ip = request.getHeaders().getFirst("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeaders().getFirst("X-Real-IP");
+    private static boolean isValidRequestId(String requestId) {
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requestId.length(); i++) {
+            char c = requestId.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.';
+            if (!allowed) {
+                return false;
+            }
         }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddress() != null ?
-                    request.getRemoteAddress().getAddress().getHostAddress() : "unknown";
+        return true;
+    }
+
+    /**
+     * 记录访问日志（采样命中、5xx或慢请求）
+     */
+    private void logAccess(ServerWebExchange exchange, String requestId, long startTime, boolean sampled) {
+        long duration = (System.nanoTime() - startTime) / 1_000_000;
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        int statusCode = status != null ? status.value() : 0;
+
+        if (statusCode >= 500 || duration >= slowThresholdMs) {
+            ServerHttpRequest request = exchange.getRequest();
+            log.warn("Gateway请求 | RequestId: {} | {} {} | 状态码: {} | 耗时: {}ms | IP: {} | UA: {}",
+                    requestId, request.getMethod().name(), request.getURI().getPath(), statusCode, duration,
+                    clientIpResolver.resolve(request), request.getHeaders().getFirst("User-Agent"));
+        } else if (sampled) {
+            ServerHttpRequest request = exchange.getRequest();
+            log.info("Gateway请求 | RequestId: {} | {} {} | 状态码: {} | 耗时: {}ms | IP: {} | UA: {}",
+                    requestId, request.getMethod().name(), request.getURI().getPath(), statusCode, duration,
+                    clientIpResolver.resolve(request), request.getHeaders().getFirst("User-Agent"));
         }
-        return ip;
     }
 
     @Override
@@ -76,4 +125,3 @@ public class GlobalLogFilter implements GlobalFilter, Ordered {
         return -200;  // 优先级最高，最先执行
     }
 }
-
@@ -1,12 +1,14 @@
 package com.bcu.edu.gateway.filter;
 
-import com.bcu.edu.gateway.config.JwtUtil;
+import com.bcu.edu.gateway.auth.GatewaySecurityProperties;
+import com.bcu.edu.gateway.auth.PathTrie;
+import com.bcu.edu.gateway.auth.VerifiedTokenCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -16,15 +18,14 @@ import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * JWT鉴权过滤器
@@ -35,41 +36,41 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-    // 白名单（直接定义，避免注入问题）
-    private static final List<String> WHITELIST = Arrays.asList(
-        // UserService - 公开接口
-        "/api/user/register",
-        "/api/user/login",
-        
-        // GroupBuyService - 公开接口（查询类）
-        "/api/groupbuy/team/*/detail",           // 团详情
-        "/api/groupbuy/activity/*/teams",        // 活动团列表（社区优先）
-        "/api/groupbuy/activities",              // 活动列表
-        "/api/groupbuy/activities/ongoing",      // 进行中的活动
-        "/api/groupbuy/activity/*",              // 活动详情（仅GET）
-        
-        // ProductService - 公开接口（查询类）
-        "/api/product/**",                       // 商品查询（C端）
-        "/api/category/**",                      // 分类查询（C端）
-        
-        // LeaderService - 公开接口（查询类）
-        "/api/community/list",                   // 社区列表
-        
-        // Swagger & Actuator
-        "/api-docs/**",
-        "/swagger-ui/**",
-        "/actuator/health",
-        "/actuator/info"
-    );
-
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    /**
+     * 已认证用户ID（exchange属性，供后续过滤器使用，客户端无法伪造）
+     */
+    public static final String USER_ID_ATTR = "gateway.authenticatedUserId";
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final GatewaySecurityProperties securityProperties;
+
+    /**
+     * 白名单、内部接口、角色规则（启动时由 gateway.whitelist / gateway.internal-paths / gateway.role-rules 编译）
+     */
+    private PathTrie<Boolean> whitelist;
+    private PathTrie<Boolean> internalPaths;
+    private PathTrie<Set<Integer>> roleRules;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @PostConstruct
+    public void init() {
+        whitelist = new PathTrie<>();
+        securityProperties.getWhitelist().forEach(pattern -> whitelist.add(pattern, Boolean.TRUE));
+
+        internalPaths = new PathTrie<>();
+        securityProperties.getInternalPaths().forEach(pattern -> internalPaths.add(pattern, Boolean.TRUE));
+
+        roleRules = new PathTrie<>();
+        securityProperties.getRoleRules().forEach(rule -> roleRules.add(rule.getPattern(), Set.copyOf(rule.getRoles())));
+
+        log.info("网关鉴权规则加载完成: 白名单{}条, 内部接口{}条, 角色规则{}条",
+                whitelist.size(), internalPaths.size(), roleRules.size());
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
@@ -78,6 +79,12 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
 
         log.debug("Gateway请求: {} {}", method, path);
 
+        // 内部接口不对外开放（服务间调用不经过网关）
+        if (internalPaths.matches(path)) {
+            log.warn("拒绝外部访问内部接口: {} {}", method, path);
+            return writeError(exchange, HttpStatus.FORBIDDEN, "无权限访问");
+        }
+
         // 白名单检查（无需认证）
         if (isWhitelist(path)) {
             log.debug("白名单路径，跳过鉴权: {}", path);
@@ -97,17 +104,24 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
         }
 
         try {
-            // 验证JWT并提取用户信息
-            Claims claims = JwtUtil.parseToken(token, jwtSecret);
-            Long userId = JwtUtil.getUserId(claims);
-            String username = JwtUtil.getUsername(claims);
-            Integer role = JwtUtil.getRole(claims);
+            // 验证JWT并提取用户信息（同一Token只验签一次，之后走缓存）
+            VerifiedTokenCache.AuthenticatedUser user = verifiedTokenCache.verify(token);
+            Long userId = user.userId();
+            String username = user.username();
+            Integer role = user.role();
 
             if (userId == null) {
                 log.error("Token中缺少userId");
                 return unauthorized(exchange, "Token无效");
             }
 
+            // 角色规则检查
+            Set<Integer> allowedRoles = roleRules.match(path);
+            if (allowedRoles != null && (role == null || !allowedRoles.contains(role))) {
+                log.warn("角色无权访问: userId={}, role={}, path={}", userId, role, path);
+                return writeError(exchange, HttpStatus.FORBIDDEN, "无权限访问");
+            }
+
             // 将用户信息传递给后端服务（通过请求头）
             ServerHttpRequest modifiedRequest = request.mutate()
                     .header("X-User-Id", String.valueOf(userId))
@@ -116,14 +130,18 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
                     .header("X-Gateway-Request", "true")  // 标识请求来自网关
                     .build();
 
-            log.info("用户认证成功: userId={}, username={}, role={}, path={}",
+            log.debug("用户认证成功: userId={}, username={}, role={}, path={}",
                     userId, username, role, path);
 
+            exchange.getAttributes().put(USER_ID_ATTR, userId);
             return chain.filter(exchange.mutate().request(modifiedRequest).build());
 
         } catch (ExpiredJwtException e) {
             log.warn("Token已过期: {}", e.getMessage());
             return unauthorized(exchange, "登录已过期，请重新登录");
+        } catch (VerifiedTokenCache.RevokedTokenException e) {
+            log.warn("Token已注销: {}", path);
+            return unauthorized(exchange, "登录已失效，请重新登录");
         } catch (Exception e) {
             log.error("Token验证失败: {}", e.getMessage(), e);
             return unauthorized(exchange, "Token无效");
@@ -134,7 +152,7 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
      * 检查路径是否在白名单中
      */
     private boolean isWhitelist(String path) {
-        return WHITELIST.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+        return whitelist.matches(path);
     }
 
     /**
@@ -160,12 +178,19 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
      * 返回401未授权响应
      */
     private Mono<Void> unauthorized(ServerWebExchange exchange, String message) {
+        return writeError(exchange, HttpStatus.UNAUTHORIZED, message);
+    }
+
+    /**
+     * 返回错误响应
+     */
+    private Mono<Void> writeError(ServerWebExchange exchange, HttpStatus status, String message) {
         ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.setStatusCode(status);
         response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
 
         Map<String, Object> result = new HashMap<>();
-        result.put("code", 401);
+        result.put("code", status.value());
         result.put("message", message);
         result.put("data", null);
         result.put("timestamp", System.currentTimeMillis());
@@ -0,0 +1,91 @@
+package com.bcu.edu.gateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存令牌桶（单实例）
+ *
+ * <p>每个键一个桶，按时间差补充令牌；每分钟清理一次已回满且空闲超过1分钟的桶
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+public class LocalRateLimitStore implements RateLimitStore {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    @Override
+    public long tryAcquire(String key, double ratePerSecond, int burst) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst, now));
+        return bucket.tryAcquire(ratePerSecond, burst, now);
+    }
+
+    @Override
+    public void release(String key, double ratePerSecond, int burst) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.release(ratePerSecond, burst, System.nanoTime());
+        }
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, SWEEP_INTERVAL_NANOS));
+        log.debug("清理空闲令牌桶: {} -> {}", before, buckets.size());
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long lastRefill;
+        private double rate;
+        private int capacity;
+
+        private Bucket(int burst, long now) {
+            this.tokens = burst;
+            this.lastRefill = now;
+            this.capacity = burst;
+        }
+
+        private synchronized long tryAcquire(double ratePerSecond, int burst, long now) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerSecond / 1_000_000_000d);
+            lastRefill = now;
+            rate = ratePerSecond;
+            capacity = burst;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * 1000 / ratePerSecond);
+        }
+
+        private synchronized void release(double ratePerSecond, int burst, long now) {
+            tokens = Math.min(burst, tokens + 1 + (now - lastRefill) * ratePerSecond / 1_000_000_000d);
+            lastRefill = now;
+        }
+
+        /**
+         * 空闲且已回满（删除后重建的桶是满的，不会放宽限流）
+         */
+        private synchronized boolean isIdle(long now, long idleNanos) {
+            long idle = now - lastRefill;
+            return idle > idleNanos && tokens + idle * rate / 1_000_000_000d >= capacity;
+        }
+    }
+}
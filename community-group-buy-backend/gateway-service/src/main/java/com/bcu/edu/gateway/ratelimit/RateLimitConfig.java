@@ -0,0 +1,22 @@
+package com.bcu.edu.gateway.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 限流存储配置
+ * 未注册其他 RateLimitStore 时使用内存令牌桶
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(RateLimitStore.class)
+    public RateLimitStore localRateLimitStore() {
+        return new LocalRateLimitStore();
+    }
+}
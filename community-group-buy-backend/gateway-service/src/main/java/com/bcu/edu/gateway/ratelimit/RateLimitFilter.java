@@ -0,0 +1,299 @@
+package com.bcu.edu.gateway.ratelimit;
+
+import com.bcu.edu.gateway.auth.PathTrie;
+import com.bcu.edu.gateway.filter.ClientIpResolver;
+import com.bcu.edu.gateway.filter.JwtAuthenticationFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 限流过滤器（⭐令牌桶限流 + 虚拟排队室）
+ *
+ * <p>在JWT鉴权之后执行，按 gateway.rate-limit.rules 逐条检查，匹配的规则需全部通过
+ * （任一规则拒绝时，前面规则已取得的令牌和排队室放行全部退还）：
+ * <ul>
+ *   <li>普通规则：按用户 / IP / 整条规则 / 活动维度的令牌桶限流，超出返回429和 Retry-After</li>
+ *   <li>排队规则（waiting-room）：超出速率的访客领取排队号，返回429和排队位置，重试时按号放行</li>
+ * </ul>
+ *
+ * <p>活动ID只取自路径中的 /activity/{id}（查询参数和请求头由客户端控制，换一个值就能绕过排队），
+ * 路径中没有活动ID时整条规则共用一个排队室/令牌桶；访客IP经 {@link ClientIpResolver} 只采信可信代理的转发头
+ *
+ * <p>排队室数量上限 gateway.rate-limit.max-waiting-rooms，超出后新的活动并入整条规则的排队室；
+ * 每分钟清理没有访客的空闲排队室
+ *
+ * <p>指标：gateway.ratelimit.requests{rule, result=admitted|rejected|queued}、gateway.ratelimit.waiting{rule}
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private static final String ACTIVITY_SEGMENT = "/activity/";
+    private static final String ROUTE_KEY = "route";
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final RateLimitProperties properties;
+    private final RateLimitStore rateLimitStore;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ClientIpResolver clientIpResolver;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<CompiledRule> rules = List.of();
+
+    /**
+     * 排队室（规则ID:维度键 -> 排队室）
+     */
+    private final Map<String, WaitingRoom> rooms = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    @PostConstruct
+    public void init() {
+        List<CompiledRule> compiled = new ArrayList<>();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            PathTrie<Boolean> paths = new PathTrie<>();
+            rule.getPaths().forEach(path -> paths.add(path, Boolean.TRUE));
+            Set<String> methods = rule.getMethods().stream().map(String::toUpperCase).collect(Collectors.toSet());
+            compiled.add(new CompiledRule(rule, paths, methods,
+                    counter(registry, rule, "admitted"),
+                    counter(registry, rule, "rejected"),
+                    counter(registry, rule, "queued")));
+            if (registry != null && rule.isWaitingRoom()) {
+                Gauge.builder("gateway.ratelimit.waiting", rooms,
+                                r -> r.entrySet().stream()
+                                        .filter(e -> e.getKey().startsWith(rule.getId() + ":"))
+                                        .mapToLong(e -> e.getValue().waiting())
+                                        .sum())
+                        .tag("rule", rule.getId())
+                        .description("排队室等待人数")
+                        .register(registry);
+            }
+        }
+        rules = compiled;
+        log.info("网关限流规则加载完成: {}条", rules.size());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled() || rules.isEmpty()) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+        String method = request.getMethod().name();
+
+        List<CompiledRule> passed = new ArrayList<>();
+        List<Runnable> refunds = new ArrayList<>();
+        for (CompiledRule compiled : rules) {
+            if (!compiled.matches(method, path)) {
+                continue;
+            }
+            RateLimitProperties.Rule rule = compiled.rule();
+            String key = resolveKey(exchange, rule);
+
+            if (rule.isWaitingRoom()) {
+                String visitor = visitor(exchange);
+                WaitingRoom room = room(rule, key);
+                WaitingRoom.Decision decision = room.enter(visitor);
+                if (!decision.admitted()) {
+                    increment(compiled.queued());
+                    refunds.forEach(Runnable::run);
+                    return queued(exchange, decision);
+                }
+                refunds.add(() -> room.revoke(visitor, decision));
+            } else {
+                String bucketKey = rule.getId() + ":" + key;
+                long waitMillis = rateLimitStore.tryAcquire(bucketKey, rule.getRate(), rule.getBurst());
+                if (waitMillis > 0) {
+                    increment(compiled.rejected());
+                    refunds.forEach(Runnable::run);
+                    log.debug("请求被限流: rule={}, key={}, path={}", rule.getId(), key, path);
+                    return rejected(exchange, waitMillis);
+                }
+                refunds.add(() -> rateLimitStore.release(bucketKey, rule.getRate(), rule.getBurst()));
+            }
+            passed.add(compiled);
+        }
+        passed.forEach(compiled -> increment(compiled.admitted()));
+        return chain.filter(exchange);
+    }
+
+    /**
+     * 规则维度对应的键
+     */
+    private String resolveKey(ServerWebExchange exchange, RateLimitProperties.Rule rule) {
+        return switch (rule.getKey()) {
+            case USER -> visitor(exchange);
+            case IP -> "ip:" + clientIpResolver.resolve(exchange.getRequest());
+            case ROUTE -> ROUTE_KEY;
+            case ACTIVITY -> {
+                String activityId = resolveActivityId(exchange.getRequest());
+                yield activityId != null ? "activity:" + activityId : ROUTE_KEY;
+            }
+        };
+    }
+
+    /**
+     * 访客标识：已登录用户ID，否则IP
+     */
+    private String visitor(ServerWebExchange exchange) {
+        Long userId = exchange.getAttribute(JwtAuthenticationFilter.USER_ID_ATTR);
+        return userId != null ? "user:" + userId : "ip:" + clientIpResolver.resolve(exchange.getRequest());
+    }
+
+    /**
+     * 规则 + 维度键对应的排队室（数量超过上限时并入整条规则的排队室）
+     */
+    private WaitingRoom room(RateLimitProperties.Rule rule, String key) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+        String roomKey = rule.getId() + ":" + key;
+        WaitingRoom room = rooms.get(roomKey);
+        if (room != null) {
+            return room;
+        }
+        if (!ROUTE_KEY.equals(key) && rooms.size() >= properties.getMaxWaitingRooms()) {
+            log.warn("排队室数量已达上限{}，并入规则排队室: rule={}, key={}", properties.getMaxWaitingRooms(), rule.getId(), key);
+            roomKey = rule.getId() + ":" + ROUTE_KEY;
+        }
+        return rooms.computeIfAbsent(roomKey,
+                k -> new WaitingRoom(rule.getRate(), rule.getBurst(), rule.getAdmissionWindowSeconds()));
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        int before = rooms.size();
+        rooms.values().removeIf(room -> room.isIdle(now));
+        log.debug("清理空闲排队室: {} -> {}", before, rooms.size());
+    }
+
+    /**
+     * 路径中的活动ID（只信任服务端路由路径）
+     */
+    private String resolveActivityId(ServerHttpRequest request) {
+        String path = request.getURI().getPath();
+        int index = path.indexOf(ACTIVITY_SEGMENT);
+        if (index >= 0) {
+            int start = index + ACTIVITY_SEGMENT.length();
+            int end = start;
+            while (end < path.length() && Character.isDigit(path.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                return path.substring(start, end);
+            }
+        }
+        return null;
+    }
+
+    private Mono<Void> rejected(ServerWebExchange exchange, long waitMillis) {
+        long retryAfter = Math.max(1, (waitMillis + 999) / 1000);
+        exchange.getResponse().getHeaders().set("Retry-After", String.valueOf(retryAfter));
+        return writeResponse(exchange, "请求过于频繁，请稍后再试", null);
+    }
+
+    private Mono<Void> queued(ServerWebExchange exchange, WaitingRoom.Decision decision) {
+        long retryAfter = Math.max(1, Math.min(decision.estimatedWaitSeconds(), 10));
+        exchange.getResponse().getHeaders().set("Retry-After", String.valueOf(retryAfter));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("ticket", decision.ticket());
+        data.put("position", decision.position());
+        data.put("estimatedWaitSeconds", decision.estimatedWaitSeconds());
+        return writeResponse(exchange, "当前排队人数较多，请稍候", data);
+    }
+
+    private Mono<Void> writeResponse(ServerWebExchange exchange, String message, Object data) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 429);
+        result.put("message", message);
+        result.put("data", data);
+        result.put("timestamp", System.currentTimeMillis());
+
+        try {
+            String json = objectMapper.writeValueAsString(result);
+            DataBuffer buffer = response.bufferFactory()
+                    .wrap(json.getBytes(StandardCharsets.UTF_8));
+            return response.writeWith(Mono.just(buffer));
+        } catch (JsonProcessingException e) {
+            log.error("JSON序列化失败", e);
+            return response.setComplete();
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, RateLimitProperties.Rule rule, String result) {
+        if (registry == null) {
+            return null;
+        }
+        return Counter.builder("gateway.ratelimit.requests")
+                .tag("rule", rule.getId())
+                .tag("result", result)
+                .description("限流规则处理的请求数")
+                .register(registry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return -90;  // JWT鉴权（-100）之后执行，可取到用户ID
+    }
+
+    /**
+     * 编译后的规则
+     */
+    private record CompiledRule(RateLimitProperties.Rule rule, PathTrie<Boolean> paths, Set<String> methods,
+                                Counter admitted, Counter rejected, Counter queued) {
+
+        boolean matches(String method, String path) {
+            return (methods.isEmpty() || methods.contains(method)) && paths.matches(path);
+        }
+    }
+}
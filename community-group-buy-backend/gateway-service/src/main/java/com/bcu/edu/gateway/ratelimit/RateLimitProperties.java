@@ -0,0 +1,80 @@
+package com.bcu.edu.gateway.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关限流配置（application.yml 中的 gateway.rate-limit）
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 排队室数量上限（按活动拆分的排队室超出后并入整条规则的排队室）
+     */
+    private int maxWaitingRooms = 1000;
+
+    /**
+     * 限流规则（一个请求匹配多条规则时需全部通过）
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+
+        /**
+         * 规则ID（用于指标和日志）
+         */
+        private String id;
+
+        /**
+         * 路径模式（字面量段、*、**）
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * 限定的HTTP方法，为空不限
+         */
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * 限流维度：user（用户，未登录按IP）| ip | route（整条规则共享）| activity（路径中的活动ID，没有时同route）
+         */
+        private KeyType key = KeyType.USER;
+
+        /**
+         * 每秒放行数
+         */
+        private double rate = 10;
+
+        /**
+         * 突发容量
+         */
+        private int burst = 20;
+
+        /**
+         * 排队模式：超出速率的用户领取排队号，按 rate 依次放行
+         */
+        private boolean waitingRoom = false;
+
+        /**
+         * 排队模式：放行后该用户在多长时间内免排队（秒）
+         */
+        private long admissionWindowSeconds = 120;
+    }
+
+    public enum KeyType {
+        USER, IP, ROUTE, ACTIVITY
+    }
+}
@@ -0,0 +1,32 @@
+package com.bcu.edu.gateway.ratelimit;
+
+/**
+ * 令牌桶存储
+ *
+ * <p>默认 {@link LocalRateLimitStore} 为单实例内存实现；多实例网关需要全局限流时，
+ * 注册一个基于共享存储（如 Redis + Lua）的实现即可替换
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+public interface RateLimitStore {
+
+    /**
+     * 尝试从令牌桶中取一个令牌
+     *
+     * @param key 桶的键
+     * @param ratePerSecond 每秒补充令牌数
+     * @param burst 桶容量
+     * @return 剩余等待时间（毫秒），0表示已取得令牌
+     */
+    long tryAcquire(String key, double ratePerSecond, int burst);
+
+    /**
+     * 退还一个已取得的令牌（同一请求的其他规则拒绝时调用，不超过桶容量）
+     *
+     * @param key 桶的键
+     * @param ratePerSecond 每秒补充令牌数
+     * @param burst 桶容量
+     */
+    void release(String key, double ratePerSecond, int burst);
+}
@@ -0,0 +1,184 @@
+package com.bcu.edu.gateway.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 虚拟排队室（⭐秒杀/爆款拼团的准入控制）
+ *
+ * <p>按到达顺序给每个访客（用户ID，未登录为IP）发排队号，按固定速率放行：
+ * <ul>
+ *   <li>放行进度 admitted 按 rate 随时间增长，最多领先已发号 burst 个（空闲时允许小突发）</li>
+ *   <li>新访客领号：号码 ≤ admitted 立即放行，否则返回排队位置和预计等待时间</li>
+ *   <li>排队号与访客绑定，重试时沿用原号码，不需要客户端保存票据</li>
+ *   <li>放行后 admissionWindow 内该访客的请求直接通过（完成下单、支付等后续操作）</li>
+ *   <li>领号后长时间未回来的访客号码照常被"放行"掉，记录定期清理</li>
+ *   <li>同一请求的其他限流规则拒绝时撤销本次放行（{@link #revoke}），放行窗口不开始计时</li>
+ * </ul>
+ *
+ * <p>排队状态在网关实例内存中，多实例部署时需按活动做会话保持
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+public class WaitingRoom {
+
+    private static final long CLEANUP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final double ratePerSecond;
+    private final int burst;
+    private final long admissionWindowNanos;
+
+    /**
+     * 已发出的最大号码
+     */
+    private long issued;
+
+    /**
+     * 放行进度（号码 ≤ admitted 的访客可进入）
+     */
+    private double admitted;
+
+    private long lastAdvance;
+    private long lastCleanup;
+    private long lastEntered;
+
+    private final Map<String, Ticket> tickets = new HashMap<>();
+
+    public WaitingRoom(double ratePerSecond, int burst, long admissionWindowSeconds) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(burst, 1);
+        this.admissionWindowNanos = TimeUnit.SECONDS.toNanos(admissionWindowSeconds);
+        long now = System.nanoTime();
+        this.admitted = this.burst;
+        this.lastAdvance = now;
+        this.lastCleanup = now;
+        this.lastEntered = now;
+    }
+
+    /**
+     * 访客请求进入
+     *
+     * @param visitor 访客标识
+     * @return 放行或排队信息
+     */
+    public synchronized Decision enter(String visitor) {
+        long now = System.nanoTime();
+        advance(now);
+        cleanupIfDue(now);
+        lastEntered = now;
+
+        Ticket ticket = tickets.get(visitor);
+        if (ticket != null && ticket.admittedAt != 0 && now - ticket.admittedAt > admissionWindowNanos) {
+            // 放行窗口已过，重新排队
+            tickets.remove(visitor);
+            ticket = null;
+        }
+        if (ticket == null) {
+            ticket = new Ticket(++issued, now);
+            tickets.put(visitor, ticket);
+        }
+
+        if (ticket.admittedAt != 0 || ticket.number <= admitted) {
+            boolean newlyAdmitted = ticket.admittedAt == 0;
+            if (newlyAdmitted) {
+                ticket.admittedAt = now;
+            }
+            return new Decision(true, ticket.number, 0, 0, newlyAdmitted);
+        }
+
+        long position = ticket.number - (long) admitted;
+        long waitSeconds = (long) Math.ceil(position / ratePerSecond);
+        return new Decision(false, ticket.number, position, waitSeconds, false);
+    }
+
+    /**
+     * 撤销 {@link #enter} 的本次放行（同一请求被其他限流规则拒绝）
+     *
+     * <p>本次新领且立即放行的号码仍是最后一个时退回号码，否则保留号码、只清除放行时间，
+     * 访客重试时按原号码直接放行
+     *
+     * @param visitor 访客标识
+     * @param decision enter 的返回值
+     */
+    public synchronized void revoke(String visitor, Decision decision) {
+        if (!decision.newlyAdmitted()) {
+            return;
+        }
+        Ticket ticket = tickets.get(visitor);
+        if (ticket == null || ticket.number != decision.ticket()) {
+            return;
+        }
+        if (ticket.issuedAt == ticket.admittedAt && ticket.number == issued) {
+            tickets.remove(visitor);
+            issued--;
+        } else {
+            ticket.admittedAt = 0;
+        }
+    }
+
+    /**
+     * 当前排队人数
+     */
+    public synchronized long waiting() {
+        advance(System.nanoTime());
+        return Math.max(0, issued - (long) admitted);
+    }
+
+    /**
+     * 是否空闲：没有排队或处于放行窗口内的访客，且超过放行窗口没有新访客（删除后重建不影响任何访客）
+     */
+    public synchronized boolean isIdle(long now) {
+        advance(now);
+        cleanup(now);
+        return tickets.isEmpty() && issued <= (long) admitted && now - lastEntered > admissionWindowNanos;
+    }
+
+    private void advance(long now) {
+        admitted = Math.min(issued + burst, admitted + (now - lastAdvance) * ratePerSecond / 1_000_000_000d);
+        lastAdvance = now;
+    }
+
+    /**
+     * 清理放行窗口已过的访客，以及号码早已被放行却没回来的访客
+     */
+    private void cleanupIfDue(long now) {
+        if (now - lastCleanup < CLEANUP_INTERVAL_NANOS) {
+            return;
+        }
+        cleanup(now);
+    }
+
+    private void cleanup(long now) {
+        lastCleanup = now;
+        tickets.values().removeIf(t -> t.admittedAt != 0
+                ? now - t.admittedAt > admissionWindowNanos
+                : t.number <= admitted && now - t.issuedAt > admissionWindowNanos);
+    }
+
+    /**
+     * 准入结果
+     *
+     * @param admitted 是否放行
+     * @param ticket 排队号
+     * @param position 前面还有多少人
+     * @param estimatedWaitSeconds 预计等待时间（秒）
+     * @param newlyAdmitted 是否本次放行（放行窗口从本次开始计时）
+     */
+    public record Decision(boolean admitted, long ticket, long position, long estimatedWaitSeconds,
+                           boolean newlyAdmitted) {
+    }
+
+    private static final class Ticket {
+
+        private final long number;
+        private final long issuedAt;
+        private long admittedAt;
+
+        private Ticket(long number, long issuedAt) {
+            this.number = number;
+            this.issuedAt = issuedAt;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.bcu.edu.gateway.auth;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 已验证Token缓存压测（⭐多线程反复验证同一批Token）
+ *
+ * <p>对比每次完整验签（token-cache.enabled=false）与缓存命中两种方式的吞吐，
+ * 并校验注销（本实例注销、同步来的注销记录）在并发验证下立即生效。
+ *
+ * <p>默认不随构建运行，手动执行：
+ * <pre>mvn -pl gateway-service test -Dtest=VerifiedTokenCacheBenchmark -Dbenchmark=true</pre>
+ * 可用 -Dbenchmark.threads / -Dbenchmark.ops / -Dbenchmark.tokens 调整线程数、每线程操作数和Token数
+ *
+ * @author 耿康瑞
+ * @since 2025-11-20
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VerifiedTokenCacheBenchmark {
+
+    private static final String SECRET =
+            "bcu-community-group-buy-system-jwt-secret-key-2025-must-be-at-least-256-bits-long-for-hs256-algorithm";
+
+    private final int threads = Integer.getInteger("benchmark.threads", 16);
+    private final int opsPerThread = Integer.getInteger("benchmark.ops", 20000);
+    private final int tokenCount = Integer.getInteger("benchmark.tokens", 1000);
+
+    @Test
+    void fullVerification() throws Exception {
+        VerifiedTokenCache cache = newCache(false);
+        List<String> tokens = issueTokens(tokenCount);
+        run("完整验签", cache, tokens);
+    }
+
+    @Test
+    void cachedVerification() throws Exception {
+        VerifiedTokenCache cache = newCache(true);
+        List<String> tokens = issueTokens(tokenCount);
+        run("缓存命中", cache, tokens);
+    }
+
+    @Test
+    void revocationUnderLoad() throws Exception {
+        VerifiedTokenCache cache = newCache(true);
+        List<String> tokens = issueTokens(tokenCount);
+        run("预热", cache, tokens);
+
+        // 本实例注销单个Token
+        String loggedOut = tokens.get(0);
+        cache.revokeToken(loggedOut);
+        assertThrows(VerifiedTokenCache.RevokedTokenException.class, () -> cache.verify(loggedOut));
+
+        // 其他实例注销的Token（同步来的摘要）
+        String remote = tokens.get(1);
+        cache.applyRevokedToken(VerifiedTokenCache.tokenDigest(remote), System.currentTimeMillis() + 60_000);
+        assertThrows(VerifiedTokenCache.RevokedTokenException.class, () -> cache.verify(remote));
+
+        // 同步来的用户注销（修改密码）：之前签发的Token失效，之后重新登录的Token有效
+        Long userId = cache.verify(tokens.get(2)).userId();
+        cache.applyRevokedUser(userId, System.currentTimeMillis() + 1000);
+        assertThrows(VerifiedTokenCache.RevokedTokenException.class, () -> cache.verify(tokens.get(2)));
+        String relogin = issueToken(userId, new Date(System.currentTimeMillis() + 2000));
+        assertEquals(userId, cache.verify(relogin).userId());
+
+        // 无效Token不产生注销记录
+        assertNull(cache.revokeToken("invalid.token.value"));
+    }
+
+    private void run(String name, VerifiedTokenCache cache, List<String> tokens) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    cache.verify(tokens.get(random.nextInt(tokens.size())));
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        int total = threads * opsPerThread;
+        System.out.printf("[%s] 线程=%d, Token数=%d, 验证=%d, 耗时=%dms, 吞吐=%.0f ops/s%n",
+                name, threads, tokens.size(), total, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                total / (elapsedNanos / 1_000_000_000.0));
+    }
+
+    private static VerifiedTokenCache newCache(boolean enabled) {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "meterRegistry",
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(cache, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(cache, "maxTokenLifetimeMs", 604800000L);
+        ReflectionTestUtils.setField(cache, "enabled", enabled);
+        ReflectionTestUtils.setField(cache, "maxSize", 100000);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.init();
+        return cache;
+    }
+
+    private static List<String> issueTokens(int count) {
+        Date issuedAt = new Date();
+        List<String> tokens = new ArrayList<>(count);
+        for (long userId = 1; userId <= count; userId++) {
+            tokens.add(issueToken(userId, issuedAt));
+        }
+        return tokens;
+    }
+
+    private static String issueToken(Long userId, Date issuedAt) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put("username", "user" + userId);
+        claims.put("role", 0);
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject("user" + userId)
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(issuedAt.getTime() + 3600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
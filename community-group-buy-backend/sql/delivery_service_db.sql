@@ -34,7 +34,7 @@ CREATE TABLE `delivery`  (
   `estimated_duration` int NULL DEFAULT NULL COMMENT '预估配送时间（分钟）',
   `actual_start_time` datetime NULL DEFAULT NULL COMMENT '实际开始配送时间',
   `route_display_data` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL COMMENT '前端地图展示数据',
-  `algorithm_used` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT 'dijkstra' COMMENT '使用的算法（dijkstra/gaode）',
+  `algorithm_used` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT 'dijkstra' COMMENT '使用的算法（nn-2opt-oropt/nearest-neighbor/gaode）',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NULL DEFAULT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `delivery_mode` tinyint NOT NULL DEFAULT 1 COMMENT '发货方式: 1-团长团点 2-用户地址',
@@ -44,6 +44,7 @@ CREATE TABLE `delivery`  (
   `order_ids` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '关联订单ID列表（JSON数组）',
   `waypoints_data` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL COMMENT '途经点详细信息（JSON数组）',
   `created_by` bigint NULL DEFAULT NULL COMMENT '创建人ID（管理员）',
+  `improvement_ratio` decimal(6, 4) NULL DEFAULT NULL COMMENT '路径优化比例（相对最近邻初始解）',
   PRIMARY KEY (`delivery_id`) USING BTREE,
   INDEX `idx_leader_id`(`leader_id` ASC) USING BTREE,
   INDEX `idx_dispatch_group`(`dispatch_group` ASC) USING BTREE,
@@ -55,7 +56,7 @@ CREATE TABLE `delivery`  (
 -- ----------------------------
 -- Records of delivery
 -- ----------------------------
-INSERT INTO `delivery` VALUES (8, 2, 'DG20251114007', NULL, NULL, '116.397617,39.909095;116.313174,39.983697;116.240159,40.046474;116.813180,40.162197', 70737.05, 0, 0, 142, NULL, '{\"algorithm\":\"dijkstra\",\"routeType\":\"straightLine\",\"coordinates\":[\"116.397617,39.909095\",\"116.313174,39.983697\",\"116.240159,40.046474\",\"116.813180,40.162197\"],\"waypoints\":4}', 'dijkstra', '2025-11-14 22:09:56', '2025-11-14 22:14:53', 1, NULL, NULL, 0, '', NULL, NULL);
+INSERT INTO `delivery` VALUES (8, 2, 'DG20251114007', NULL, NULL, '116.397617,39.909095;116.313174,39.983697;116.240159,40.046474;116.813180,40.162197', 70737.05, 0, 0, 142, NULL, '{\"algorithm\":\"dijkstra\",\"routeType\":\"straightLine\",\"coordinates\":[\"116.397617,39.909095\",\"116.313174,39.983697\",\"116.240159,40.046474\",\"116.813180,40.162197\"],\"waypoints\":4}', 'dijkstra', '2025-11-14 22:09:56', '2025-11-14 22:14:53', 1, NULL, NULL, 0, '', NULL, NULL, NULL);
 
 -- ----------------------------
 -- Table structure for warehouse_config
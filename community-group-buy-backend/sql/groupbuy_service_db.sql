@@ -104,4 +104,20 @@ CREATE TABLE `group_buy_team`  (
 -- Records of group_buy_team
 -- ----------------------------
 
+-- ----------------------------
+-- Table structure for payment_callback_inbox
+-- ----------------------------
+DROP TABLE IF EXISTS `payment_callback_inbox`;
+CREATE TABLE `payment_callback_inbox`  (
+  `order_id` bigint NOT NULL COMMENT '订单ID',
+  `team_id` bigint NOT NULL COMMENT '团ID',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已失败次数',
+  `last_error` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '最近一次失败原因',
+  `refund_pending` tinyint(1) NOT NULL DEFAULT 0 COMMENT '团已结束，待退款（退款成功后删除）',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '受理时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`order_id`) USING BTREE,
+  INDEX `idx_create_time`(`create_time` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '支付回调收件箱（已受理未处理完成的回调）' ROW_FORMAT = DYNAMIC;
+
 SET FOREIGN_KEY_CHECKS = 1;
@@ -60,6 +60,7 @@ CREATE TABLE `order_main`  (
   `receive_address_id` bigint NOT NULL COMMENT '收货地址ID（跨库关联）',
   `dispatch_group` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '分单组标识（同批次配送订单）',
   `delivery_id` bigint NULL DEFAULT NULL COMMENT '关联配送单ID（跨库关联）',
+  `stock_status` tinyint NOT NULL DEFAULT 0 COMMENT '库存占用状态（0-未占用；1-已扣减；2-待归还；3-已归还）',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NULL DEFAULT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`order_id`) USING BTREE,
@@ -70,13 +71,27 @@ CREATE TABLE `order_main`  (
   INDEX `idx_dispatch_group`(`dispatch_group` ASC) USING BTREE,
   INDEX `idx_receive_address_id`(`receive_address_id` ASC) USING BTREE,
   INDEX `idx_order_status`(`order_status` ASC) USING BTREE,
-  INDEX `idx_pay_status`(`pay_status` ASC) USING BTREE
+  INDEX `idx_pay_status`(`pay_status` ASC) USING BTREE,
+  INDEX `idx_stock_status`(`stock_status` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '存储订单核心信息，关联用户、团长与配送' ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
 -- Records of order_main
 -- ----------------------------
 
+-- ----------------------------
+-- Table structure for order_metrics_minute
+-- ----------------------------
+DROP TABLE IF EXISTS `order_metrics_minute`;
+CREATE TABLE `order_metrics_minute`  (
+  `bucket_time` datetime NOT NULL COMMENT '分钟（秒为0）',
+  `created_count` bigint NOT NULL DEFAULT 0 COMMENT '下单数',
+  `paid_count` bigint NOT NULL DEFAULT 0 COMMENT '支付成功数',
+  `paid_amount` decimal(14, 2) NOT NULL DEFAULT 0.00 COMMENT '支付成功金额',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`bucket_time`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '订单看板分钟趋势（各实例定期累加写入）' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for shopping_cart
 -- ----------------------------
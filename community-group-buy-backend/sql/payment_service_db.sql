@@ -41,6 +41,27 @@ CREATE TABLE `payment_record`  (
   INDEX `idx_create_time`(`create_time` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '记录支付/充值/退款明细，保障交易安全' ROW_FORMAT = DYNAMIC;
 
+-- ----------------------------
+-- Table structure for payment_daily_stats
+-- ----------------------------
+DROP TABLE IF EXISTS `payment_daily_stats`;
+CREATE TABLE `payment_daily_stats`  (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `total_count` bigint NOT NULL DEFAULT 0 COMMENT '记录数（含失败）',
+  `success_count` bigint NOT NULL DEFAULT 0 COMMENT '成功记录数',
+  `recharge_count` bigint NOT NULL DEFAULT 0 COMMENT '充值记录数',
+  `recharge_amount` decimal(14, 2) NOT NULL DEFAULT 0.00 COMMENT '充值成功金额',
+  `payment_count` bigint NOT NULL DEFAULT 0 COMMENT '订单支付记录数',
+  `payment_amount` decimal(14, 2) NOT NULL DEFAULT 0.00 COMMENT '订单支付成功金额',
+  `refund_count` bigint NOT NULL DEFAULT 0 COMMENT '退款记录数',
+  `refund_amount` decimal(14, 2) NOT NULL DEFAULT 0.00 COMMENT '退款成功金额（负数）',
+  `wechat_count` bigint NOT NULL DEFAULT 0 COMMENT '微信支付成功数',
+  `alipay_count` bigint NOT NULL DEFAULT 0 COMMENT '支付宝支付成功数',
+  `balance_count` bigint NOT NULL DEFAULT 0 COMMENT '余额支付成功数',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`stat_date`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '支付日汇总（已结束的自然日，按需生成）' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Records of payment_record
 -- ----------------------------
@@ -63,4 +63,16 @@ CREATE TABLE `product_category`  (
 -- Records of product_category
 -- ----------------------------
 
+-- ----------------------------
+-- Table structure for stock_operation
+-- ----------------------------
+DROP TABLE IF EXISTS `stock_operation`;
+CREATE TABLE `stock_operation`  (
+  `op_key` varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '幂等键（由调用方生成，如结算ID、订单ID）',
+  `op_type` tinyint NOT NULL COMMENT '操作类型（1-已扣减；2-扣减已取消；3-已归还）',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`op_key`) USING BTREE,
+  INDEX `idx_create_time`(`create_time` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '库存批量操作幂等记录（同一键只生效一次）' ROW_FORMAT = DYNAMIC;
+
 SET FOREIGN_KEY_CHECKS = 1;
@@ -116,6 +116,24 @@ INSERT INTO `user_account` VALUES (3, 4, 0.00, 0.00, '2025-10-12 21:22:06');
 INSERT INTO `user_account` VALUES (4, 1, 0.00, 0.00, '2025-10-13 20:30:40');
 INSERT INTO `user_account` VALUES (5, 5, 0.00, 0.00, '2025-10-14 23:40:21');
 
+-- ----------------------------
+-- Table structure for account_journal
+-- ----------------------------
+DROP TABLE IF EXISTS `account_journal`;
+CREATE TABLE `account_journal`  (
+  `journal_id` bigint NOT NULL AUTO_INCREMENT COMMENT '流水ID',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `saga_id` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '业务幂等键（Saga事务ID）',
+  `biz_type` int NOT NULL COMMENT '类型（1-扣款 2-返还 3-充值 4-佣金入账 5-冻结 6-解冻）',
+  `amount` decimal(10, 2) NOT NULL COMMENT '变动金额（余额增加为正，减少为负）',
+  `applied` int NOT NULL DEFAULT 1 COMMENT '是否已计入余额（0-待入账 1-已入账）',
+  `remark` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '备注',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`journal_id`) USING BTREE,
+  UNIQUE INDEX `uk_saga_type`(`saga_id` ASC, `biz_type` ASC) USING BTREE,
+  INDEX `idx_user_applied`(`user_id` ASC, `applied` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '账户流水表（只追加）' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for user_address
 -- ----------------------------